@@ -0,0 +1,65 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.testing.AspectFoo;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares creating a {@link RecordTemplate} through a reflective constructor lookup, as {@link RecordUtils} used to,
+ * with {@link RecordUtils#toRecordTemplate(Class, DataMap)}, which uses cached constructor handles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordUtilsBenchmark {
+
+  private DataMap _dataMap;
+
+  @Setup
+  public void setup() {
+    _dataMap = new AspectFoo().setValue("foo").data();
+  }
+
+  @Benchmark
+  public AspectFoo reflectiveConstructor() throws Exception {
+    return AspectFoo.class.getConstructor(DataMap.class).newInstance(_dataMap);
+  }
+
+  @Benchmark
+  public RecordTemplate reflectiveConstructorFromClassName() throws Exception {
+    return Class.forName(AspectFoo.class.getName())
+        .asSubclass(RecordTemplate.class)
+        .getConstructor(DataMap.class)
+        .newInstance(_dataMap);
+  }
+
+  @Benchmark
+  public AspectFoo cachedConstructor() {
+    return RecordUtils.toRecordTemplate(AspectFoo.class, _dataMap);
+  }
+
+  @Benchmark
+  public RecordTemplate cachedConstructorFromClassName() {
+    return RecordUtils.toRecordTemplate(AspectFoo.class.getName(), _dataMap);
+  }
+
+  @Benchmark
+  public AspectFoo directConstructor() {
+    return new AspectFoo(_dataMap);
+  }
+}
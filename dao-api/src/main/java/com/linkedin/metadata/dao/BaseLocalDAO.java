@@ -29,22 +29,34 @@ import com.linkedin.metadata.query.IndexGroupByCriterion;
 import com.linkedin.metadata.query.IndexSortCriterion;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.AllArgsConstructor;
@@ -52,6 +64,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NonNull;
 import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.javatuples.Pair;
 
 
 /**
@@ -62,6 +76,7 @@ import lombok.Value;
  * @param <ASPECT_UNION> must be a valid aspect union type defined in com.linkedin.metadata.aspect
  * @param <URN> must be the entity URN type in {@code ASPECT_UNION}
  */
+@Slf4j
 public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     extends BaseReadDAO<ASPECT_UNION, URN> {
 
@@ -69,7 +84,8 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
 
   /**
    * Immutable class that corresponds to the metadata aspect along with {@link ExtraInfo} for the same metadata. It also
-   * has a flag to indicate if this metadata is soft deleted.
+   * has a flag to indicate if this metadata is soft deleted, and the lock counter of the latest version if the
+   * implementation keeps one.
    *
    * @param <ASPECT> must be a supported aspect type in {@code ASPECT_UNION}.
    */
@@ -86,6 +102,9 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     @Builder.Default
     boolean isSoftDeleted = false;
 
+    @Nullable
+    Long lockVersion;
+
     public AspectEntry(@Nullable ASPECT aspect, @Nullable ExtraInfo extraInfo) {
       this.aspect = aspect;
       this.extraInfo = extraInfo;
@@ -100,6 +119,39 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     Class<ASPECT> klass;
   }
 
+  /**
+   * Immutable class to hold a change of the latest version of an aspect that is part of a batch write, i.e. the
+   * arguments of {@link #saveLatest(Urn, Class, RecordTemplate, AuditStamp, RecordTemplate, AuditStamp, boolean)}.
+   *
+   * @param <URN> the type of the entity URN
+   * @param <ASPECT> the type of the aspect being updated
+   */
+  @Value
+  static class LatestUpdate<URN extends Urn, ASPECT extends RecordTemplate> {
+    @NonNull
+    URN urn;
+
+    @NonNull
+    Class<ASPECT> aspectClass;
+
+    @Nullable
+    ASPECT oldValue;
+
+    @Nullable
+    AuditStamp oldAuditStamp;
+
+    @NonNull
+    ASPECT newValue;
+
+    @NonNull
+    AuditStamp newAuditStamp;
+
+    boolean softDeleted;
+
+    @Nullable
+    Long oldLockVersion;
+  }
+
   /**
    * Immutable class to hold the details of an update to an aspect.
    *
@@ -128,6 +180,10 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
 
   private static final int DEFAULT_MAX_TRANSACTION_RETRY = 3;
 
+  private static final long DEFAULT_RETRY_BASE_DELAY_MILLIS = 10;
+
+  private static final long DEFAULT_RETRY_MAX_DELAY_MILLIS = 1000;
+
   protected final BaseMetadataEventProducer _producer;
   protected final LocalDAOStorageConfig _storageConfig;
 
@@ -161,6 +217,24 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
   // Enable updating multiple aspects within a single transaction
   private boolean _enableAtomicMultipleUpdate = false;
 
+  // Max number of pending retention candidates when retention is applied asynchronously, 0 means it's applied on write
+  private volatile int _maxPendingRetentionCandidates = 0;
+
+  // Aspects written since retention was last applied to them, the set deduplicates the queue
+  private final Queue<AspectKey<URN, ? extends RecordTemplate>> _retentionCandidateQueue = new ConcurrentLinkedQueue<>();
+  private final Set<AspectKey<URN, ? extends RecordTemplate>> _retentionCandidates = ConcurrentHashMap.newKeySet();
+
+  // Locks serializing local writes of the same (urn, aspect) by stripe, null means writes aren't serialized
+  private volatile ReentrantLock[] _writeLocks = null;
+
+  // Jittered exponential backoff between transaction retries, a base delay of 0 means retrying immediately
+  private volatile long _retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+  private volatile long _retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+
+  private final LongAdder _transactionRetryCount = new LongAdder();
+  private final LongAdder _retryLimitReachedCount = new LongAdder();
+  private final LongAdder _contendedWriteCount = new LongAdder();
+
   private Clock _clock = Clock.systemUTC();
 
   /**
@@ -283,6 +357,72 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     _enableAtomicMultipleUpdate = enabled;
   }
 
+  /**
+   * Enables serializing local writes of the same aspect of the same entity. Writers sharing this DAO then wait for each
+   * other instead of racing to the database, failing optimistic locking and retrying.
+   *
+   * <p>(urn, aspect) pairs are hashed onto {@code stripes} locks, so unrelated pairs may occasionally share a lock.
+   * Writes of multiple aspects or entities at once acquire the locks of all of them, in a fixed order. Writers of other
+   * processes are still only serialized by optimistic locking.</p>
+   *
+   * @param stripes the number of locks
+   */
+  public void enableWriteSerialization(int stripes) {
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+    }
+    final ReentrantLock[] locks = new ReentrantLock[stripes];
+    for (int i = 0; i < stripes; i++) {
+      locks[i] = new ReentrantLock();
+    }
+    _writeLocks = locks;
+  }
+
+  /**
+   * Disables serializing local writes, see {@link #enableWriteSerialization(int)}.
+   */
+  public void disableWriteSerialization() {
+    _writeLocks = null;
+  }
+
+  /**
+   * Sets the backoff between transaction retries. The n-th retry waits a random delay of up to
+   * {@code min(maxDelayMillis, baseDelayMillis * 2^(n-1))}, so that conflicting writers spread out.
+   *
+   * @param baseDelayMillis the max delay of the first retry, 0 to retry immediately
+   * @param maxDelayMillis the max delay of any retry
+   */
+  public void setTransactionRetryBackoff(long baseDelayMillis, long maxDelayMillis) {
+    if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+      throw new IllegalArgumentException(
+          String.format("Invalid retry backoff, base delay: %d, max delay: %d", baseDelayMillis, maxDelayMillis));
+    }
+    _retryBaseDelayMillis = baseDelayMillis;
+    _retryMaxDelayMillis = maxDelayMillis;
+  }
+
+  /**
+   * Gets the number of transactions retried so far.
+   */
+  public long getTransactionRetryCount() {
+    return _transactionRetryCount.sum();
+  }
+
+  /**
+   * Gets the number of transactions which failed after exhausting their retries so far.
+   */
+  public long getRetryLimitReachedCount() {
+    return _retryLimitReachedCount.sum();
+  }
+
+  /**
+   * Gets the number of serialized writes which had to wait for another local writer so far, see
+   * {@link #enableWriteSerialization(int)}.
+   */
+  public long getContendedWriteCount() {
+    return _contendedWriteCount.sum();
+  }
+
   /**
    * Enables or disables model validation before persisting.
    */
@@ -360,18 +500,36 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     }
 
     // Save the newValue as the latest version
-    long largestVersion = saveLatest(urn, aspectClass, oldValue, oldAuditStamp, newValue, auditStamp, latest.isSoftDeleted);
+    long largestVersion =
+        saveLatest(urn, aspectClass, oldValue, oldAuditStamp, newValue, auditStamp, latest.isSoftDeleted, latest.lockVersion);
+
+    applyRetentionAndIndex(urn, aspectClass, newValue, largestVersion);
 
-    // Apply retention policy
-    applyRetention(urn, aspectClass, getRetention(aspectClass), largestVersion);
+    return new AddResult<>(oldValue, newValue, aspectClass);
+  }
+
+  /**
+   * Applies the retention policy and updates the local secondary index after the latest version of an aspect is saved.
+   *
+   * @param urn the URN for the entity the aspect is attached to
+   * @param aspectClass aspectClass of the aspect being saved
+   * @param newValue the new latest value of the aspect, null if it was deleted
+   * @param largestVersion the largest version of the aspect after the save
+   */
+  protected <ASPECT extends RecordTemplate> void applyRetentionAndIndex(@Nonnull URN urn,
+      @Nonnull Class<ASPECT> aspectClass, @Nullable ASPECT newValue, long largestVersion) {
+
+    // Apply retention policy, or leave it to sweepRetention if retention is applied asynchronously
+    final Retention retention = getRetention(aspectClass);
+    if (!(retention instanceof IndefiniteRetention) && !enqueueRetentionCandidate(urn, aspectClass)) {
+      applyRetention(urn, aspectClass, retention, largestVersion);
+    }
 
     // Save to local secondary index
     // TODO: add support for soft deleted aspects in local secondary index
     if (_enableLocalSecondaryIndex && newValue != null) {
       updateLocalIndex(urn, newValue, largestVersion);
     }
-
-    return new AddResult<>(oldValue, newValue, aspectClass);
   }
 
   /**
@@ -402,11 +560,15 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     final List<AddResult<? extends RecordTemplate>> results;
     if (_enableAtomicMultipleUpdate) {
       // atomic multiple update enabled: run in a single transaction
-      results = runInTransactionWithRetry(
-          () -> aspectUpdateLambdas.stream().map(x -> aspectUpdateHelper(urn, x, auditStamp)).collect(Collectors.toList()), maxTransactionRetry);
+      final List<AspectKey<URN, ? extends RecordTemplate>> keys = aspectUpdateLambdas.stream()
+          .<AspectKey<URN, ? extends RecordTemplate>>map(x -> new AspectKey<>(x.getAspectClass(), urn, LATEST_VERSION))
+          .collect(Collectors.toList());
+      results = runWithWriteLocks(keys, () -> runInTransactionWithRetry(
+          () -> aspectUpdateLambdas.stream().map(x -> aspectUpdateHelper(urn, x, auditStamp)).collect(Collectors.toList()), maxTransactionRetry));
     } else {
       // no atomic multiple updates: run each in its own transaction. This is the same as repeated calls to add
-      results = aspectUpdateLambdas.stream().map(x -> runInTransactionWithRetry(() -> aspectUpdateHelper(urn, x, auditStamp), maxTransactionRetry))
+      results = aspectUpdateLambdas.stream().map(x -> runWithWriteLock(urn, x.getAspectClass(),
+          () -> runInTransactionWithRetry(() -> aspectUpdateHelper(urn, x, auditStamp), maxTransactionRetry)))
           .collect(Collectors.toList());
     }
 
@@ -422,7 +584,153 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     return addMany(urn, aspectUpdateLambdas, auditStamp, DEFAULT_MAX_TRANSACTION_RETRY);
   }
 
+  /**
+   * Adds a new version of aspects for many entities at once.
+   *
+   * <p>The latest versions of all the updated aspects are read with {@link #getLatest(Set)}, compared with the new
+   * values in memory and the actual changes are written with {@link #saveLatestBatch(List)} in a single transaction.
+   * If that transaction fails, e.g. due to a concurrent update, the items are retried one by one as if added via
+   * {@link #add(Urn, RecordTemplate, AuditStamp)}, so that a single failing item doesn't fail the whole batch. Updates
+   * of the same aspect of the same entity are applied in the order they appear in the batch. MAEs are emitted and
+   * post-update hooks are invoked for each item after its transaction commits.</p>
+   *
+   * @param items the updates to apply
+   * @return the outcome of each update, in the same order as {@code items}
+   */
+  @Nonnull
+  public List<BatchAddResult<URN>> addBatch(@Nonnull List<BatchAddItem<URN>> items) {
+    final List<BatchAddResult<URN>> results = new ArrayList<>(Collections.nCopies(items.size(), null));
+
+    List<Integer> pending = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      pending.add(i);
+    }
+
+    while (!pending.isEmpty()) {
+      // Each round updates a given aspect of a given entity at most once, later updates of it go to the next round
+      final Map<AspectKey<URN, ? extends RecordTemplate>, Integer> round = new LinkedHashMap<>();
+      final List<Integer> deferred = new ArrayList<>();
+      for (int index : pending) {
+        final BatchAddItem<URN> item = items.get(index);
+        try {
+          validateBatchAddItem(item);
+        } catch (RuntimeException e) {
+          results.set(index, BatchAddResult.failure(item, e));
+          continue;
+        }
+        final AspectKey<URN, ? extends RecordTemplate> key =
+            new AspectKey<>(item.getAspect().getClass(), item.getUrn(), LATEST_VERSION);
+        if (round.putIfAbsent(key, index) != null) {
+          deferred.add(index);
+        }
+      }
+
+      addBatchRound(items, round, results);
+      pending = deferred;
+    }
+
+    return results;
+  }
+
+  private void validateBatchAddItem(@Nonnull BatchAddItem<URN> item) {
+    checkValidAspect(item.getAspect().getClass());
+    if (_modelValidationOnWrite) {
+      validateAgainstSchema(item.getAspect());
+    }
+  }
+
+  private void addBatchRound(@Nonnull List<BatchAddItem<URN>> items,
+      @Nonnull Map<AspectKey<URN, ? extends RecordTemplate>, Integer> round,
+      @Nonnull List<BatchAddResult<URN>> results) {
+    if (round.isEmpty()) {
+      return;
+    }
+
+    final Map<AspectKey<URN, ? extends RecordTemplate>, AddResult<? extends RecordTemplate>> addResults =
+        new HashMap<>();
+    try {
+      runWithWriteLocks(round.keySet(), () -> {
+        final Map<AspectKey<URN, ? extends RecordTemplate>, AspectEntry<? extends RecordTemplate>> latest =
+            getLatest(round.keySet());
+        return runInTransactionWithRetry(() -> {
+          addResults.clear();
+          final List<LatestUpdate<URN, ? extends RecordTemplate>> updates = new ArrayList<>();
+          round.forEach((key, index) -> addResults.put(key,
+              prepareLatestUpdate(items.get(index), (AspectEntry<RecordTemplate>) latest.getOrDefault(key, new AspectEntry<>(null, null)), updates)));
+          saveLatestBatch(updates);
+          addResults.forEach((key, addResult) -> saveAuditEventsToOutbox(key.getUrn(), addResult));
+          return null; // return value not used
+        }, 0);
+      });
+    } catch (RuntimeException e) {
+      // Isolate the failing items by falling back to a transaction per item. The pre-update hooks of the items whose
+      // update was already prepared were invoked, and aren't invoked again.
+      round.forEach((key, index) -> {
+        final AddResult<? extends RecordTemplate> prepared = addResults.get(key);
+        final boolean preUpdateHooksInvoked = prepared != null && prepared.getOldValue() != prepared.getNewValue();
+        results.set(index, addBatchItem(items.get(index), !preUpdateHooksInvoked));
+      });
+      return;
+    }
+
+    round.forEach((key, index) -> {
+      final BatchAddItem<URN> item = items.get(index);
+      final AddResult<? extends RecordTemplate> addResult = addResults.get(key);
+      try {
+        unwrapAddResult(item.getUrn(), addResult);
+        results.set(index, BatchAddResult.success(item, addResult.getOldValue() != addResult.getNewValue()));
+      } catch (RuntimeException e) {
+        results.set(index, BatchAddResult.failure(item, e));
+      }
+    });
+  }
+
+  @Nonnull
+  private AddResult<RecordTemplate> prepareLatestUpdate(@Nonnull BatchAddItem<URN> item,
+      @Nonnull AspectEntry<RecordTemplate> latest, @Nonnull List<LatestUpdate<URN, ? extends RecordTemplate>> updates) {
+
+    final URN urn = item.getUrn();
+    final Class<RecordTemplate> aspectClass = (Class<RecordTemplate>) item.getAspect().getClass();
+    final RecordTemplate oldValue = latest.getAspect();
+    final RecordTemplate newValue = item.getAspect();
+
+    // Skip saving if there's no actual change
+    if (oldValue != null && getEqualityTester(aspectClass).equals(oldValue, newValue)) {
+      return new AddResult<>(oldValue, oldValue, aspectClass);
+    }
+
+    // Invoke pre-update hooks, if any
+    if (_aspectPreUpdateHooksMap.containsKey(aspectClass)) {
+      _aspectPreUpdateHooksMap.get(aspectClass).forEach(hook -> hook.accept(urn, newValue));
+    }
+
+    final AuditStamp oldAuditStamp = latest.getExtraInfo() == null ? null : latest.getExtraInfo().getAudit();
+    updates.add(new LatestUpdate<>(urn, aspectClass, oldValue, oldAuditStamp, newValue, item.getAuditStamp(),
+        latest.isSoftDeleted(), latest.getLockVersion()));
+    return new AddResult<>(oldValue, newValue, aspectClass);
+  }
+
+  @Nonnull
+  private BatchAddResult<URN> addBatchItem(@Nonnull BatchAddItem<URN> item, boolean invokePreUpdateHooks) {
+    try {
+      final AddResult<RecordTemplate> result = runWithWriteLock(item.getUrn(), item.getAspect().getClass(),
+          () -> runInTransactionWithRetry(
+              () -> aspectUpdateHelper(item.getUrn(), new AspectUpdateLambda<>(item.getAspect()), item.getAuditStamp(),
+                  invokePreUpdateHooks),
+              DEFAULT_MAX_TRANSACTION_RETRY));
+      unwrapAddResult(item.getUrn(), result);
+      return BatchAddResult.success(item, result.getOldValue() != result.getNewValue());
+    } catch (RuntimeException e) {
+      return BatchAddResult.failure(item, e);
+    }
+  }
+
   private <ASPECT extends RecordTemplate> AddResult<ASPECT> aspectUpdateHelper(URN urn, AspectUpdateLambda<ASPECT> updateTuple, AuditStamp auditStamp) {
+    return aspectUpdateHelper(urn, updateTuple, auditStamp, true);
+  }
+
+  private <ASPECT extends RecordTemplate> AddResult<ASPECT> aspectUpdateHelper(URN urn, AspectUpdateLambda<ASPECT> updateTuple,
+      AuditStamp auditStamp, boolean invokePreUpdateHooks) {
     AspectEntry<ASPECT> latest = getLatest(urn, updateTuple.getAspectClass());
     Optional<ASPECT> oldValue = Optional.ofNullable(latest.getAspect());
     ASPECT newValue = updateTuple.getUpdateLambda().apply(oldValue);
@@ -437,11 +745,14 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     }
 
     // Invoke pre-update hooks, if any
-    if (_aspectPreUpdateHooksMap.containsKey(updateTuple.getAspectClass())) {
+    if (invokePreUpdateHooks && _aspectPreUpdateHooksMap.containsKey(updateTuple.getAspectClass())) {
       _aspectPreUpdateHooksMap.get(updateTuple.getAspectClass()).forEach(hook -> hook.accept(urn, newValue));
     }
 
-    return addCommon(urn, latest, newValue, updateTuple.getAspectClass(), auditStamp, getEqualityTester(updateTuple.getAspectClass()));
+    final AddResult<ASPECT> result =
+        addCommon(urn, latest, newValue, updateTuple.getAspectClass(), auditStamp, getEqualityTester(updateTuple.getAspectClass()));
+    saveAuditEventsToOutbox(urn, result);
+    return result;
   }
 
   private <ASPECT extends RecordTemplate> ASPECT_UNION unwrapAddResultToUnion(URN urn, AddResult<ASPECT> result) {
@@ -454,15 +765,16 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     final ASPECT oldValue = result.getOldValue();
     final ASPECT newValue = result.getNewValue();
 
-    // Produce MAE after a successful update
-    if (_alwaysEmitAuditEvent || oldValue != newValue) {
-      _producer.produceMetadataAuditEvent(urn, oldValue, newValue);
-    }
+    // With an outbox, the events were saved by the transaction of the update and are produced by a relay
+    if (!isAuditEventOutboxEnabled()) {
+      // Produce MAE after a successful update
+      if (shouldProduceAuditEvent(oldValue, newValue)) {
+        _producer.produceMetadataAuditEvent(urn, oldValue, newValue);
+      }
 
-    // TODO: Replace the previous step with the step below, after pipeline is fully migrated to aspect specific events.
-    // Produce aspect specific MAE after a successful update
-    if (_emitAspectSpecificAuditEvent) {
-      if (_alwaysEmitAspectSpecificAuditEvent || oldValue != newValue) {
+      // TODO: Replace the previous step with the step below, after pipeline is fully migrated to aspect specific events.
+      // Produce aspect specific MAE after a successful update
+      if (shouldProduceAspectSpecificAuditEvent(oldValue, newValue)) {
         _producer.produceAspectSpecificMetadataAuditEvent(urn, oldValue, newValue);
       }
     }
@@ -474,6 +786,34 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     return newValue;
   }
 
+  private <ASPECT extends RecordTemplate> boolean shouldProduceAuditEvent(@Nullable ASPECT oldValue,
+      @Nullable ASPECT newValue) {
+    return _alwaysEmitAuditEvent || oldValue != newValue;
+  }
+
+  private <ASPECT extends RecordTemplate> boolean shouldProduceAspectSpecificAuditEvent(@Nullable ASPECT oldValue,
+      @Nullable ASPECT newValue) {
+    return _emitAspectSpecificAuditEvent && (_alwaysEmitAspectSpecificAuditEvent || oldValue != newValue);
+  }
+
+  /**
+   * Saves the audit events of an update to the outbox, if enabled. Must be called within the transaction of the update.
+   */
+  private <ASPECT extends RecordTemplate> void saveAuditEventsToOutbox(@Nonnull URN urn,
+      @Nonnull AddResult<ASPECT> result) {
+    if (!isAuditEventOutboxEnabled()) {
+      return;
+    }
+    final ASPECT oldValue = result.getOldValue();
+    final ASPECT newValue = result.getNewValue();
+    if (shouldProduceAuditEvent(oldValue, newValue)) {
+      saveAuditEventToOutbox(urn, oldValue, newValue, false);
+    }
+    if (shouldProduceAspectSpecificAuditEvent(oldValue, newValue)) {
+      saveAuditEventToOutbox(urn, oldValue, newValue, true);
+    }
+  }
+
   /**
    * Adds a new version of aspect for an entity.
    *
@@ -514,8 +854,8 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
       @Nonnull AuditStamp auditStamp, int maxTransactionRetry) {
     checkValidAspect(updateLambda.getAspectClass());
 
-    final AddResult<ASPECT> result = runInTransactionWithRetry(() -> aspectUpdateHelper(urn, updateLambda, auditStamp),
-        maxTransactionRetry);
+    final AddResult<ASPECT> result = runWithWriteLock(urn, updateLambda.getAspectClass(),
+        () -> runInTransactionWithRetry(() -> aspectUpdateHelper(urn, updateLambda, auditStamp), maxTransactionRetry));
 
     return unwrapAddResult(urn, result);
   }
@@ -539,11 +879,11 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
 
     checkValidAspect(aspectClass);
 
-    runInTransactionWithRetry(() -> {
+    runWithWriteLock(urn, aspectClass, () -> runInTransactionWithRetry(() -> {
       final AspectEntry<ASPECT> latest = getLatest(urn, aspectClass);
 
       return addCommon(urn, latest, null, aspectClass, auditStamp, new DefaultEqualityTester<>());
-    }, maxTransactionRetry);
+    }, maxTransactionRetry));
 
     // TODO: add support for sending MAE for soft deleted aspects
   }
@@ -575,6 +915,124 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
     delete(urn, aspectClass, auditStamp, DEFAULT_MAX_TRANSACTION_RETRY);
   }
 
+  /**
+   * Enables applying retention asynchronously. Writes then only record the written aspects as candidates for
+   * retention, and expired versions are deleted by {@link #sweepRetention(int)}, e.g. via a {@link RetentionSweeper},
+   * outside of the write transactions.
+   *
+   * <p>Once {@code maxPendingCandidates} candidates are pending, writes of aspects which aren't pending yet apply
+   * retention on write again, so that the backlog stays bounded. Written aspects become candidates once their write
+   * commits, see {@link #runAfterCommit(Runnable)}.</p>
+   *
+   * <p>Candidates are only kept in memory. Those still pending when the DAO goes away, e.g. on restart, are lost, and
+   * their expired versions are only deleted once retention is applied to the aspect again, i.e. after its next write.
+   * </p>
+   *
+   * @param maxPendingCandidates the max number of (urn, aspect) pairs pending retention
+   */
+  public void enableAsyncRetention(int maxPendingCandidates) {
+    if (maxPendingCandidates <= 0) {
+      throw new IllegalArgumentException("Max pending retention candidates must be positive: " + maxPendingCandidates);
+    }
+    _maxPendingRetentionCandidates = maxPendingCandidates;
+  }
+
+  /**
+   * Disables applying retention asynchronously. Candidates which are still pending can still be swept.
+   */
+  public void disableAsyncRetention() {
+    _maxPendingRetentionCandidates = 0;
+  }
+
+  /**
+   * Gets the number of (urn, aspect) pairs pending retention.
+   */
+  public int getPendingRetentionCount() {
+    return _retentionCandidates.size();
+  }
+
+  /**
+   * Applies retention to a chunk of pending candidates, in a single transaction.
+   *
+   * <p>Candidates of a chunk that fails are pending again, and the exception is rethrown.</p>
+   *
+   * @param chunkSize the max number of (urn, aspect) pairs to apply retention to
+   * @return the number of (urn, aspect) pairs retention was applied to
+   */
+  public int sweepRetention(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+
+    final List<AspectKey<URN, ? extends RecordTemplate>> chunk = new ArrayList<>(chunkSize);
+    AspectKey<URN, ? extends RecordTemplate> candidate;
+    while (chunk.size() < chunkSize && (candidate = _retentionCandidateQueue.poll()) != null) {
+      // Removed before retention is applied, so that concurrent writes make the aspect a candidate again
+      _retentionCandidates.remove(candidate);
+      chunk.add(candidate);
+    }
+    if (chunk.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      runInTransactionWithRetry(() -> {
+        chunk.forEach(key -> applyRetention(key.getUrn(), key.getAspectClass()));
+        return null; // return value not used
+      }, DEFAULT_MAX_TRANSACTION_RETRY);
+    } catch (RuntimeException e) {
+      log.warn("Failed to apply retention to {} aspects, they are pending again", chunk.size(), e);
+      chunk.forEach(this::offerRetentionCandidate);
+      throw e;
+    }
+    return chunk.size();
+  }
+
+  /**
+   * Records an aspect as a candidate for retention if retention is applied asynchronously.
+   *
+   * @return true if retention is left to {@link #sweepRetention(int)}, false if it must be applied on write
+   */
+  private <ASPECT extends RecordTemplate> boolean enqueueRetentionCandidate(@Nonnull URN urn,
+      @Nonnull Class<ASPECT> aspectClass) {
+    final int maxPendingCandidates = _maxPendingRetentionCandidates;
+    if (maxPendingCandidates == 0) {
+      return false;
+    }
+
+    final AspectKey<URN, ASPECT> key = new AspectKey<>(aspectClass, urn, LATEST_VERSION);
+    if (!_retentionCandidates.contains(key) && _retentionCandidates.size() >= maxPendingCandidates) {
+      return false;
+    }
+    // Offered even if already pending, as a sweep before the commit wouldn't see the versions added by the write
+    runAfterCommit(() -> offerRetentionCandidate(key));
+    return true;
+  }
+
+  private void offerRetentionCandidate(@Nonnull AspectKey<URN, ? extends RecordTemplate> key) {
+    if (_retentionCandidates.add(key)) {
+      _retentionCandidateQueue.offer(key);
+    }
+  }
+
+  /**
+   * Runs an action once the current transaction commits, or right away if there's none. Actions of transactions which
+   * roll back are not run.
+   *
+   * <p>The default implementation runs the action right away, implementations with transactions are expected to
+   * override it.</p>
+   */
+  protected void runAfterCommit(@Nonnull Runnable action) {
+    action.run();
+  }
+
+  private <ASPECT extends RecordTemplate> void applyRetention(@Nonnull URN urn, @Nonnull Class<ASPECT> aspectClass) {
+    final Retention retention = getRetention(aspectClass);
+    // The largest version isn't known outside of the write, and is only needed by version-based retention
+    final long largestVersion = retention instanceof VersionBasedRetention ? getNextVersion(urn, aspectClass) - 1 : 0;
+    applyRetention(urn, aspectClass, retention, largestVersion);
+  }
+
   private <ASPECT extends RecordTemplate> void applyRetention(@Nonnull URN urn, @Nonnull Class<ASPECT> aspectClass,
       @Nonnull Retention retention, long largestVersion) {
     if (retention instanceof IndefiniteRetention) {
@@ -608,6 +1066,42 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
       @Nonnull Class<ASPECT> aspectClass, @Nullable ASPECT oldEntry, @Nullable AuditStamp oldAuditStamp,
       @Nullable ASPECT newEntry, @Nonnull AuditStamp newAuditStamp, boolean isSoftDeleted);
 
+  /**
+   * Same as {@link #saveLatest(Urn, Class, RecordTemplate, AuditStamp, RecordTemplate, AuditStamp, boolean)}, along with
+   * the lock counter of the previous latest value, as read by {@link #getLatest(Urn, Class)}. Implementations which
+   * keep a lock counter override it to compare-and-set on the counter, the default implementation ignores it.
+   *
+   * @param oldLockVersion the lock counter of the previous latest value, null if not read
+   * @return the largest version
+   */
+  protected <ASPECT extends RecordTemplate> long saveLatest(@Nonnull URN urn, @Nonnull Class<ASPECT> aspectClass,
+      @Nullable ASPECT oldEntry, @Nullable AuditStamp oldAuditStamp, @Nullable ASPECT newEntry,
+      @Nonnull AuditStamp newAuditStamp, boolean isSoftDeleted, @Nullable Long oldLockVersion) {
+    return saveLatest(urn, aspectClass, oldEntry, oldAuditStamp, newEntry, newAuditStamp, isSoftDeleted);
+  }
+
+  /**
+   * Saves the latest version of many aspects at once. It's invoked within the transaction of a batch write.
+   *
+   * <p>The default implementation saves each update via
+   * {@link #saveLatest(Urn, Class, RecordTemplate, AuditStamp, RecordTemplate, AuditStamp, boolean)} followed by
+   * {@link #applyRetentionAndIndex(Urn, Class, RecordTemplate, long)}. Implementations are encouraged to override it to
+   * write the whole batch with as few round trips as possible.</p>
+   *
+   * @param updates the changes of the latest versions, at most one per aspect of an entity
+   */
+  protected void saveLatestBatch(@Nonnull List<LatestUpdate<URN, ? extends RecordTemplate>> updates) {
+    updates.forEach(this::saveLatestAndApplyRetentionAndIndex);
+  }
+
+  private <ASPECT extends RecordTemplate> void saveLatestAndApplyRetentionAndIndex(
+      @Nonnull LatestUpdate<URN, ASPECT> update) {
+    final long largestVersion = saveLatest(update.getUrn(), update.getAspectClass(), update.getOldValue(),
+        update.getOldAuditStamp(), update.getNewValue(), update.getNewAuditStamp(), update.isSoftDeleted(),
+        update.getOldLockVersion());
+    applyRetentionAndIndex(update.getUrn(), update.getAspectClass(), update.getNewValue(), largestVersion);
+  }
+
   /**
    * Saves the new value of an aspect to local secondary index.
    *
@@ -776,6 +1270,108 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
   @Nonnull
   protected abstract <T> T runInTransactionWithRetry(@Nonnull Supplier<T> block, int maxTransactionRetry);
 
+  /**
+   * Whether audit events are saved to an outbox by the transaction of each update, using
+   * {@link #saveAuditEventToOutbox(Urn, RecordTemplate, RecordTemplate, boolean)}, instead of being produced right
+   * after the update commits. Events in the outbox are then produced by a relay, which decouples the write latency from
+   * the producer and doesn't lose events if the process dies right after a commit.
+   */
+  protected boolean isAuditEventOutboxEnabled() {
+    return false;
+  }
+
+  /**
+   * Saves an audit event to the outbox, within the transaction of the update. Only called if
+   * {@link #isAuditEventOutboxEnabled()}.
+   *
+   * @param urn {@link Urn} of the entity
+   * @param oldValue the value prior to the update, or null if there's none
+   * @param newValue the value after the update
+   * @param aspectSpecific whether the event is an aspect specific MAE rather than a regular MAE
+   */
+  protected <ASPECT extends RecordTemplate> void saveAuditEventToOutbox(@Nonnull URN urn, @Nullable ASPECT oldValue,
+      @Nonnull ASPECT newValue, boolean aspectSpecific) {
+    throw new UnsupportedOperationException("Audit event outbox isn't supported by " + getClass().getSimpleName());
+  }
+
+  /**
+   * Waits before retrying a failed transaction, see {@link #setTransactionRetryBackoff(long, long)}. To be called by
+   * implementations of {@link #runInTransactionWithRetry(Supplier, int)} outside of the failed transaction.
+   *
+   * @param retryCount the number of the upcoming retry, starting from 1
+   */
+  protected void backoffBeforeRetry(int retryCount) {
+    _transactionRetryCount.increment();
+
+    final long delayMillis = getRetryBackoffMillis(retryCount);
+    if (delayMillis > 0) {
+      try {
+        Thread.sleep(delayMillis);
+      } catch (InterruptedException e) {
+        // Retry right away, the interruption is left to the caller
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Records a transaction which failed after exhausting its retries. To be called by implementations of
+   * {@link #runInTransactionWithRetry(Supplier, int)}.
+   */
+  protected void onRetryLimitReached() {
+    _retryLimitReachedCount.increment();
+  }
+
+  long getRetryBackoffMillis(int retryCount) {
+    final long baseDelayMillis = _retryBaseDelayMillis;
+    if (baseDelayMillis == 0) {
+      return 0;
+    }
+    final int shift = Math.min(Math.max(retryCount - 1, 0), Long.numberOfLeadingZeros(baseDelayMillis) - 1);
+    final long capMillis = Math.min(_retryMaxDelayMillis, baseDelayMillis << shift);
+    return ThreadLocalRandom.current().nextLong(capMillis + 1);
+  }
+
+  @Nonnull
+  private <ASPECT extends RecordTemplate, T> T runWithWriteLock(@Nonnull URN urn, @Nonnull Class<ASPECT> aspectClass,
+      @Nonnull Supplier<T> block) {
+    return runWithWriteLocks(Collections.singletonList(new AspectKey<>(aspectClass, urn, LATEST_VERSION)), block);
+  }
+
+  /**
+   * Runs the given block holding the write locks of the given keys, if write serialization is enabled. The locks are
+   * acquired in stripe order, so that concurrent writers of overlapping keys can't deadlock.
+   */
+  private <T> T runWithWriteLocks(@Nonnull Collection<? extends AspectKey<URN, ? extends RecordTemplate>> keys,
+      @Nonnull Supplier<T> block) {
+    final ReentrantLock[] locks = _writeLocks;
+    if (locks == null) {
+      return block.get();
+    }
+
+    final int[] stripes = keys.stream().mapToInt(key -> getWriteLockStripe(key, locks.length)).distinct().sorted().toArray();
+    int lockedCount = 0;
+    try {
+      for (int stripe : stripes) {
+        if (!locks[stripe].tryLock()) {
+          _contendedWriteCount.increment();
+          locks[stripe].lock();
+        }
+        lockedCount++;
+      }
+      return block.get();
+    } finally {
+      for (int i = lockedCount - 1; i >= 0; i--) {
+        locks[stripes[i]].unlock();
+      }
+    }
+  }
+
+  private static int getWriteLockStripe(@Nonnull AspectKey<? extends Urn, ? extends RecordTemplate> key, int stripes) {
+    final int hash = 31 * key.getUrn().hashCode() + key.getAspectClass().hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), stripes);
+  }
+
   /**
    * Gets the latest version of a specific aspect type for an entity.
    *
@@ -787,6 +1383,22 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
   protected abstract <ASPECT extends RecordTemplate> AspectEntry<ASPECT> getLatest(@Nonnull URN urn,
       @Nonnull Class<ASPECT> aspectClass);
 
+  /**
+   * Similar to {@link #getLatest(Urn, Class)} but gets the latest versions of many aspects at once.
+   *
+   * <p>The default implementation invokes {@link #getLatest(Urn, Class)} for each key.</p>
+   *
+   * @param keys keys of the latest versions to get
+   * @return a map from each key to its {@link AspectEntry}, an empty entry if the aspect doesn't exist
+   */
+  @Nonnull
+  protected Map<AspectKey<URN, ? extends RecordTemplate>, AspectEntry<? extends RecordTemplate>> getLatest(
+      @Nonnull Set<AspectKey<URN, ? extends RecordTemplate>> keys) {
+    final Map<AspectKey<URN, ? extends RecordTemplate>, AspectEntry<? extends RecordTemplate>> result = new HashMap<>();
+    keys.forEach(key -> result.put(key, getLatest(key.getUrn(), key.getAspectClass())));
+    return result;
+  }
+
   /**
    * Gets the next version to use for an entity's specific aspect type.
    *
@@ -983,6 +1595,63 @@ public abstract class BaseLocalDAO<ASPECT_UNION extends UnionTemplate, URN exten
   public abstract <ASPECT extends RecordTemplate> ListResult<URN> listUrns(@Nonnull Class<ASPECT> aspectClass,
       int start, int pageSize);
 
+  /**
+   * Streams the latest version of an aspect for all entities that have it, in the same order as
+   * {@link #listUrns(Class, int, int)}. It does not return entities for which the aspect is soft deleted in the latest
+   * version.
+   *
+   * <p>Unlike paging through urns and getting their aspects, the whole scan is exposed as one lazily evaluated stream,
+   * which lets implementations read rows incrementally with constant memory. Implementations may hold an open database
+   * connection and transaction from this call until the stream is closed, so callers must consume the stream in a
+   * try-with-resources block. Leaving it open leaks the connection.
+   *
+   * <p>The default implementation reads a page of urns and then their aspects, one page at a time.
+   *
+   * @param aspectClass the type of the aspect to scan
+   * @param fetchSize the number of entities read from the storage at a time
+   * @param <ASPECT> must be a supported aspect type in {@code ASPECT_UNION}.
+   * @return a stream of urns paired with the latest version of their aspect
+   */
+  @Nonnull
+  public <ASPECT extends RecordTemplate> Stream<Pair<URN, ASPECT>> scanLatest(@Nonnull Class<ASPECT> aspectClass,
+      int fetchSize) {
+    checkValidAspect(aspectClass);
+    if (fetchSize <= 0) {
+      throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+    }
+
+    final Iterator<List<Pair<URN, ASPECT>>> pages = new Iterator<List<Pair<URN, ASPECT>>>() {
+      private int _nextStart = 0;
+
+      @Override
+      public boolean hasNext() {
+        return _nextStart != ListResult.INVALID_NEXT_START;
+      }
+
+      @Override
+      public List<Pair<URN, ASPECT>> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final ListResult<URN> page = listUrns(aspectClass, _nextStart, fetchSize);
+        _nextStart = page.isHavingMore() ? page.getNextStart() : ListResult.INVALID_NEXT_START;
+        if (page.getValues().isEmpty()) {
+          return Collections.emptyList();
+        }
+
+        final Map<URN, Optional<ASPECT>> aspects = get(aspectClass, new HashSet<>(page.getValues()));
+        final List<Pair<URN, ASPECT>> entries = new ArrayList<>(page.getValues().size());
+        for (URN urn : page.getValues()) {
+          aspects.getOrDefault(urn, Optional.empty()).ifPresent(aspect -> entries.add(Pair.with(urn, aspect)));
+        }
+        return entries;
+      }
+    };
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL),
+        false).flatMap(List::stream);
+  }
+
   /**
    * Paginates over all versions of an aspect for a specific Urn. It does not return metadata corresponding to versions
    * indicating soft deleted aspect(s).
@@ -0,0 +1,24 @@
+package com.linkedin.metadata.dao;
+
+import com.linkedin.common.AuditStamp;
+import com.linkedin.common.urn.Urn;
+import com.linkedin.data.template.RecordTemplate;
+import lombok.NonNull;
+import lombok.Value;
+
+
+/**
+ * A value class that holds a single update of a batch write, i.e. the new value of an aspect for an entity.
+ */
+@Value
+public class BatchAddItem<URN extends Urn> {
+
+  @NonNull
+  URN urn;
+
+  @NonNull
+  RecordTemplate aspect;
+
+  @NonNull
+  AuditStamp auditStamp;
+}
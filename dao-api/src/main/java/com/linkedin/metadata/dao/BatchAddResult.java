@@ -0,0 +1,43 @@
+package com.linkedin.metadata.dao;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.data.template.RecordTemplate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import lombok.Value;
+
+
+/**
+ * A value class that holds the outcome of a single {@link BatchAddItem} of a batch write.
+ */
+@Value
+public class BatchAddResult<URN extends Urn> {
+
+  @NonNull
+  URN urn;
+
+  @NonNull
+  RecordTemplate aspect;
+
+  // true if a new version of the aspect was written, false if the item was a no-op or failed
+  boolean updated;
+
+  @Nullable
+  Exception error;
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+
+  @Nonnull
+  public static <URN extends Urn> BatchAddResult<URN> success(@Nonnull BatchAddItem<URN> item, boolean updated) {
+    return new BatchAddResult<>(item.getUrn(), item.getAspect(), updated, null);
+  }
+
+  @Nonnull
+  public static <URN extends Urn> BatchAddResult<URN> failure(@Nonnull BatchAddItem<URN> item,
+      @Nonnull Exception error) {
+    return new BatchAddResult<>(item.getUrn(), item.getAspect(), false, error);
+  }
+}
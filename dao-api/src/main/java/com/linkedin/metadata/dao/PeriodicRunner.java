@@ -0,0 +1,85 @@
+package com.linkedin.metadata.dao;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Base class of background tasks which run periodically on a {@link ScheduledExecutorService}, with a fixed delay
+ * between the end of a run and the start of the next one.
+ *
+ * <p>A run which fails is logged and counted, and doesn't cancel the later runs.</p>
+ */
+@Slf4j
+public abstract class PeriodicRunner implements AutoCloseable {
+
+  private final ScheduledExecutorService _executor;
+  private final long _interval;
+  private final TimeUnit _intervalUnit;
+
+  private final AtomicLong _failedRunCount = new AtomicLong();
+
+  private ScheduledFuture<?> _future = null;
+
+  /**
+   * Constructor for PeriodicRunner.
+   *
+   * @param executor the executor to run the task on
+   * @param interval the delay before the first run, and between the end of a run and the start of the next one
+   * @param intervalUnit the unit of {@code interval}
+   */
+  protected PeriodicRunner(@Nonnull ScheduledExecutorService executor, long interval, @Nonnull TimeUnit intervalUnit) {
+    _executor = executor;
+    _interval = interval;
+    _intervalUnit = intervalUnit;
+  }
+
+  /**
+   * Runs the task once.
+   */
+  protected abstract void runTask();
+
+  /**
+   * Starts running the task in the background. Does nothing if already started.
+   */
+  public synchronized void start() {
+    if (_future == null) {
+      _future = _executor.scheduleWithFixedDelay(this::runOnce, _interval, _interval, _intervalUnit);
+    }
+  }
+
+  /**
+   * Stops running the task. A run in progress completes.
+   */
+  @Override
+  public synchronized void close() {
+    if (_future != null) {
+      _future.cancel(false);
+      _future = null;
+    }
+  }
+
+  /**
+   * Gets the number of runs which failed so far.
+   */
+  protected long getFailedRunCount() {
+    return _failedRunCount.get();
+  }
+
+  /**
+   * Runs the task once, as the periodic runs do.
+   */
+  protected void runOnce() {
+    try {
+      runTask();
+    } catch (RuntimeException e) {
+      // An exception would cancel the periodic runs
+      final long failedRunCount = _failedRunCount.incrementAndGet();
+      log.warn("Run of {} failed, {} runs failed so far", getClass().getSimpleName(), failedRunCount, e);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.linkedin.metadata.dao;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+
+/**
+ * Background sweeper which applies retention to the candidates of a {@link BaseLocalDAO} with asynchronous retention
+ * enabled, see {@link BaseLocalDAO#enableAsyncRetention(int)}.
+ *
+ * <p>Candidates are swept in chunks of at most {@code chunkSize} (urn, aspect) pairs, each in its own transaction, and at
+ * most {@code maxChunksPerSecond} chunks are swept per second. A failing chunk is retried by a later sweep.</p>
+ */
+public class RetentionSweeper extends PeriodicRunner {
+
+  private final BaseLocalDAO<?, ?> _localDAO;
+  private final int _chunkSize;
+
+  private final AtomicLong _sweptCount = new AtomicLong();
+
+  /**
+   * Constructor for RetentionSweeper.
+   *
+   * @param localDAO the DAO whose retention candidates are swept
+   * @param executor the executor to run the sweeps on
+   * @param chunkSize the max number of (urn, aspect) pairs to apply retention to per transaction
+   * @param maxChunksPerSecond the max number of chunks to sweep per second
+   */
+  public RetentionSweeper(@Nonnull BaseLocalDAO<?, ?> localDAO, @Nonnull ScheduledExecutorService executor,
+      int chunkSize, double maxChunksPerSecond) {
+    super(executor, chunkIntervalNanos(chunkSize, maxChunksPerSecond), TimeUnit.NANOSECONDS);
+    _localDAO = localDAO;
+    _chunkSize = chunkSize;
+  }
+
+  private static long chunkIntervalNanos(int chunkSize, double maxChunksPerSecond) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+    if (maxChunksPerSecond <= 0) {
+      throw new IllegalArgumentException("Max chunks per second must be positive: " + maxChunksPerSecond);
+    }
+    return Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / maxChunksPerSecond));
+  }
+
+  /**
+   * Gets the number of (urn, aspect) pairs retention was applied to so far.
+   */
+  public long getSweptCount() {
+    return _sweptCount.get();
+  }
+
+  /**
+   * Gets the number of chunks which failed so far. The candidates of a failed chunk are pending again.
+   */
+  public long getFailedChunkCount() {
+    return getFailedRunCount();
+  }
+
+  @Override
+  protected void runTask() {
+    _sweptCount.addAndGet(_localDAO.sweepRetention(_chunkSize));
+  }
+
+  void sweepChunk() {
+    runOnce();
+  }
+}
@@ -0,0 +1,290 @@
+package com.linkedin.metadata.dao.producer;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.template.UnionTemplate;
+import com.linkedin.metadata.dao.utils.RecordUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A {@link BaseMetadataEventProducer} decorator which produces Metadata Audit Events (MAEs) asynchronously.
+ *
+ * <p>MAEs and aspect specific MAEs are put on bounded queues and handed to the delegate producer in batches by a small
+ * pool of workers, see {@link BaseMetadataEventProducer#produceMetadataAuditEvents(List)}, so callers such as
+ * {@code BaseLocalDAO#add} or a backfill don't wait on the delegate. Events of the same urn always go to the same worker,
+ * so they're produced in the order they were emitted. Metadata Change Events are passed to the delegate synchronously.</p>
+ *
+ * <p>Events hold copies of the aspects they're emitted with, so callers may modify the aspects afterwards.
+ * {@link #close()} stops accepting events and waits until the queued ones are produced. An event the delegate fails to
+ * produce is counted and skipped, and so are all the events of a batch the delegate throws on.</p>
+ */
+@Slf4j
+public class AsyncBatchingMetadataEventProducer<SNAPSHOT extends RecordTemplate, ASPECT_UNION extends UnionTemplate, URN extends Urn>
+    extends BaseMetadataEventProducer<SNAPSHOT, ASPECT_UNION, URN> implements AutoCloseable {
+
+  /**
+   * What to do with a new event when the queue it goes to is full.
+   */
+  public enum BackPressure {
+    BLOCK, // wait for room in the queue
+    DROP_OLDEST, // drop the oldest event of the queue
+    FAIL // throw a RejectedExecutionException
+  }
+
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+
+  private final BaseMetadataEventProducer<SNAPSHOT, ASPECT_UNION, URN> _delegate;
+  private final List<BlockingQueue<AuditEvent<URN>>> _queues;
+  private final int _maxBatchSize;
+  private final BackPressure _backPressure;
+  private final CountDownLatch _stoppedWorkers;
+
+  // Writers hold the read lock while enqueueing, so that no event is enqueued once closed
+  private final ReadWriteLock _closeLock = new ReentrantReadWriteLock();
+  private volatile boolean _closed = false;
+
+  private final Object _flushMonitor = new Object();
+  private final AtomicLong _pendingCount = new AtomicLong();
+
+  private final AtomicLong _producedCount = new AtomicLong();
+  private final AtomicLong _failedCount = new AtomicLong();
+  private final AtomicLong _droppedCount = new AtomicLong();
+  private final AtomicLong _batchCount = new AtomicLong();
+  private final AtomicLong _publishLatencyNanos = new AtomicLong();
+
+  /**
+   * Constructor for AsyncBatchingMetadataEventProducer.
+   *
+   * @param delegate the producer to hand the events to
+   * @param executor the executor to run the workers on, which must be able to run {@code workers} tasks at once
+   * @param workers the number of workers
+   * @param queueCapacity the max number of queued events of each worker
+   * @param maxBatchSize the max number of events a worker hands to the delegate at once
+   * @param backPressure what to do with new events when a queue is full
+   */
+  public AsyncBatchingMetadataEventProducer(@Nonnull BaseMetadataEventProducer<SNAPSHOT, ASPECT_UNION, URN> delegate,
+      @Nonnull ExecutorService executor, int workers, int queueCapacity, int maxBatchSize,
+      @Nonnull BackPressure backPressure) {
+    super(delegate._snapshotClass, delegate._aspectUnionClass);
+    if (workers <= 0 || queueCapacity <= 0 || maxBatchSize <= 0) {
+      throw new IllegalArgumentException(String.format(
+          "Workers, queue capacity and max batch size must be positive: %d, %d, %d", workers, queueCapacity, maxBatchSize));
+    }
+    _delegate = delegate;
+    _maxBatchSize = maxBatchSize;
+    _backPressure = backPressure;
+    _queues = new ArrayList<>(workers);
+    _stoppedWorkers = new CountDownLatch(workers);
+    for (int i = 0; i < workers; i++) {
+      final BlockingQueue<AuditEvent<URN>> queue = new ArrayBlockingQueue<>(queueCapacity);
+      _queues.add(queue);
+      executor.execute(() -> runWorker(queue));
+    }
+  }
+
+  @Override
+  public <ASPECT extends RecordTemplate> void produceSnapshotBasedMetadataChangeEvent(@Nonnull URN urn,
+      @Nonnull ASPECT newValue) {
+    _delegate.produceSnapshotBasedMetadataChangeEvent(urn, newValue);
+  }
+
+  @Override
+  public <ASPECT extends RecordTemplate> void produceMetadataAuditEvent(@Nonnull URN urn, @Nullable ASPECT oldValue,
+      @Nonnull ASPECT newValue) {
+    enqueue(new AuditEvent<>(urn, oldValue == null ? null : RecordUtils.copy(oldValue), RecordUtils.copy(newValue), false));
+  }
+
+  @Override
+  public <ASPECT extends RecordTemplate> void produceAspectSpecificMetadataAuditEvent(@Nonnull URN urn,
+      @Nullable ASPECT oldValue, @Nonnull ASPECT newValue) {
+    enqueue(new AuditEvent<>(urn, oldValue == null ? null : RecordUtils.copy(oldValue), RecordUtils.copy(newValue), true));
+  }
+
+  /**
+   * Waits until all the events queued so far are produced.
+   *
+   * @return true if they were, false if the timeout elapsed first
+   */
+  public boolean flush(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (_flushMonitor) {
+      while (_pendingCount.get() > 0) {
+        final long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(_flushMonitor, remainingNanos);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stops accepting events, then waits until the queued events are produced and the workers stop.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    _closeLock.writeLock().lock();
+    try {
+      _closed = true;
+    } finally {
+      _closeLock.writeLock().unlock();
+    }
+    _stoppedWorkers.await();
+  }
+
+  /**
+   * Gets the number of events queued and not produced yet.
+   */
+  public long getQueueDepth() {
+    return _pendingCount.get();
+  }
+
+  /**
+   * Gets the number of events produced so far.
+   */
+  public long getProducedCount() {
+    return _producedCount.get();
+  }
+
+  /**
+   * Gets the number of events the delegate failed to produce so far.
+   */
+  public long getFailedCount() {
+    return _failedCount.get();
+  }
+
+  /**
+   * Gets the number of events dropped because of a full queue so far, see {@link BackPressure#DROP_OLDEST}.
+   */
+  public long getDroppedCount() {
+    return _droppedCount.get();
+  }
+
+  /**
+   * Gets the number of batches handed to the delegate so far. The mean batch size is the number of produced and
+   * failed events divided by this.
+   */
+  public long getBatchCount() {
+    return _batchCount.get();
+  }
+
+  /**
+   * Gets the total time spent by the delegate producing batches so far, in nanoseconds.
+   */
+  public long getPublishLatencyNanos() {
+    return _publishLatencyNanos.get();
+  }
+
+  private void enqueue(@Nonnull AuditEvent<URN> event) {
+    final BlockingQueue<AuditEvent<URN>> queue = _queues.get(Math.floorMod(event.getUrn().hashCode(), _queues.size()));
+    _closeLock.readLock().lock();
+    try {
+      if (_closed) {
+        throw new IllegalStateException("Producer is closed");
+      }
+      _pendingCount.incrementAndGet();
+      try {
+        offer(queue, event);
+      } catch (RuntimeException e) {
+        onDone(1);
+        throw e;
+      }
+    } finally {
+      _closeLock.readLock().unlock();
+    }
+  }
+
+  private void offer(@Nonnull BlockingQueue<AuditEvent<URN>> queue, @Nonnull AuditEvent<URN> event) {
+    switch (_backPressure) {
+      case BLOCK:
+        try {
+          queue.put(event);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RejectedExecutionException("Interrupted while waiting for room in the queue", e);
+        }
+        break;
+      case DROP_OLDEST:
+        while (!queue.offer(event)) {
+          if (queue.poll() != null) {
+            _droppedCount.incrementAndGet();
+            onDone(1);
+          }
+        }
+        break;
+      case FAIL:
+        if (!queue.offer(event)) {
+          throw new RejectedExecutionException("Audit event queue is full");
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported back pressure: " + _backPressure);
+    }
+  }
+
+  private void runWorker(@Nonnull BlockingQueue<AuditEvent<URN>> queue) {
+    try {
+      while (true) {
+        final AuditEvent<URN> first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          if (_closed && queue.isEmpty()) {
+            return;
+          }
+          continue;
+        }
+        // a new list for each batch, as the delegate may hold on to it
+        final List<AuditEvent<URN>> batch = new ArrayList<>(_maxBatchSize);
+        batch.add(first);
+        queue.drainTo(batch, _maxBatchSize - 1);
+        publish(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      _stoppedWorkers.countDown();
+    }
+  }
+
+  private void publish(@Nonnull List<AuditEvent<URN>> batch) {
+    final long start = System.nanoTime();
+    List<AuditEvent<URN>> failed;
+    try {
+      failed = _delegate.produceMetadataAuditEvents(batch);
+    } catch (RuntimeException e) {
+      log.warn("Failed to produce a batch of {} audit events", batch.size(), e);
+      failed = batch;
+    }
+    _publishLatencyNanos.addAndGet(System.nanoTime() - start);
+    _batchCount.incrementAndGet();
+    _producedCount.addAndGet(batch.size() - failed.size());
+    if (!failed.isEmpty()) {
+      final long failedCount = _failedCount.addAndGet(failed.size());
+      log.warn("Failed to produce {} of {} audit events, {} events failed so far", failed.size(), batch.size(),
+          failedCount);
+    }
+    onDone(batch.size());
+  }
+
+  private void onDone(int count) {
+    if (_pendingCount.addAndGet(-count) == 0) {
+      synchronized (_flushMonitor) {
+        _flushMonitor.notifyAll();
+      }
+    }
+  }
+}
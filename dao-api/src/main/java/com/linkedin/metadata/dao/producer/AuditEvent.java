@@ -0,0 +1,29 @@
+package com.linkedin.metadata.dao.producer;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.data.template.RecordTemplate;
+import javax.annotation.Nullable;
+import lombok.NonNull;
+import lombok.Value;
+
+
+/**
+ * A value class that holds a Metadata Audit Event (MAE) to produce, see
+ * {@link BaseMetadataEventProducer#produceMetadataAuditEvents(java.util.List)}.
+ */
+@Value
+public class AuditEvent<URN extends Urn> {
+
+  @NonNull
+  URN urn;
+
+  // the value prior to the update, or null if there's none
+  @Nullable
+  RecordTemplate oldValue;
+
+  @NonNull
+  RecordTemplate newValue;
+
+  // whether it's an aspect specific MAE
+  boolean aspectSpecific;
+}
@@ -4,8 +4,11 @@ import com.linkedin.common.urn.Urn;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.template.UnionTemplate;
 import com.linkedin.metadata.dao.utils.ModelUtils;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import lombok.extern.slf4j.Slf4j;
 
 
 /**
@@ -13,6 +16,7 @@ import javax.annotation.Nullable;
  *
  *<p>See http://go/gma for more details.
  */
+@Slf4j
 public abstract class BaseMetadataEventProducer<SNAPSHOT extends RecordTemplate, ASPECT_UNION extends UnionTemplate, URN extends Urn> {
 
   protected final Class<SNAPSHOT> _snapshotClass;
@@ -59,4 +63,32 @@ public abstract class BaseMetadataEventProducer<SNAPSHOT extends RecordTemplate,
    */
   public abstract <ASPECT extends RecordTemplate> void produceAspectSpecificMetadataAuditEvent(@Nonnull URN urn,
       @Nullable ASPECT oldValue, @Nonnull ASPECT newValue);
+
+  /**
+   * Produces a batch of Metadata Audit Events (MAEs) and aspect specific MAEs, in order. An event which fails to be
+   * produced doesn't stop the following ones.
+   *
+   * <p>The default implementation produces the events one at a time. Producers which can send several events at once,
+   * e.g. a Kafka producer sending the whole batch before waiting for the acks, should override it.
+   *
+   * @param events the events to produce
+   * @return the events which failed to be produced, empty if all of them were produced
+   */
+  @Nonnull
+  public List<AuditEvent<URN>> produceMetadataAuditEvents(@Nonnull List<AuditEvent<URN>> events) {
+    final List<AuditEvent<URN>> failed = new ArrayList<>();
+    for (AuditEvent<URN> event : events) {
+      try {
+        if (event.isAspectSpecific()) {
+          produceAspectSpecificMetadataAuditEvent(event.getUrn(), event.getOldValue(), event.getNewValue());
+        } else {
+          produceMetadataAuditEvent(event.getUrn(), event.getOldValue(), event.getNewValue());
+        }
+      } catch (RuntimeException e) {
+        log.warn("Failed to produce audit event of {}", event.getUrn(), e);
+        failed.add(event);
+      }
+    }
+    return failed;
+  }
 }
@@ -0,0 +1,181 @@
+package com.linkedin.metadata.dao.producer;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.template.UnionTemplate;
+import com.linkedin.metadata.dao.utils.RecordUtils;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * A {@link BaseMetadataEventProducer} decorator which coalesces bursts of Metadata Audit Events (MAEs).
+ *
+ * <p>The first MAE of an aspect of an entity is held for {@code windowMillis}. MAEs of the same aspect of the same entity
+ * emitted within that window are merged into it, and a single MAE carrying the old value of the first MAE and the new
+ * value of the last one is then handed to the delegate. MAEs and aspect specific MAEs are coalesced separately. Events
+ * of different aspects are held independently, so their relative order isn't kept. Metadata Change Events are passed
+ * to the delegate right away.</p>
+ *
+ * <p>Held events keep copies of the aspects they're emitted with, so callers may modify the aspects afterwards.
+ * {@link #close()} hands the held events to the delegate right away, as do later events.</p>
+ */
+@Slf4j
+public class CoalescingMetadataEventProducer<SNAPSHOT extends RecordTemplate, ASPECT_UNION extends UnionTemplate, URN extends Urn>
+    extends BaseMetadataEventProducer<SNAPSHOT, ASPECT_UNION, URN> implements AutoCloseable {
+
+  private final BaseMetadataEventProducer<SNAPSHOT, ASPECT_UNION, URN> _delegate;
+  private final ScheduledExecutorService _executor;
+  private final long _windowMillis;
+
+  private final Map<EventKey<URN>, HeldEvent> _heldEvents = new ConcurrentHashMap<>();
+  private volatile boolean _closed = false;
+
+  private final AtomicLong _coalescedCount = new AtomicLong();
+  private final AtomicLong _failedCount = new AtomicLong();
+
+  @Value
+  private static class EventKey<URN> {
+    URN urn;
+    Class<? extends RecordTemplate> aspectClass;
+    boolean aspectSpecific;
+  }
+
+  private static class HeldEvent {
+    private final RecordTemplate _oldValue;
+    private volatile RecordTemplate _newValue;
+
+    HeldEvent(@Nullable RecordTemplate oldValue, @Nonnull RecordTemplate newValue) {
+      _oldValue = oldValue;
+      _newValue = newValue;
+    }
+  }
+
+  /**
+   * Constructor for CoalescingMetadataEventProducer.
+   *
+   * @param delegate the producer to hand the coalesced events to
+   * @param executor the executor to hand the events to the delegate on once their window elapses
+   * @param windowMillis how long the first event of an aspect is held, in milliseconds
+   */
+  public CoalescingMetadataEventProducer(@Nonnull BaseMetadataEventProducer<SNAPSHOT, ASPECT_UNION, URN> delegate,
+      @Nonnull ScheduledExecutorService executor, long windowMillis) {
+    super(delegate._snapshotClass, delegate._aspectUnionClass);
+    if (windowMillis <= 0) {
+      throw new IllegalArgumentException("Coalescing window must be positive: " + windowMillis);
+    }
+    _delegate = delegate;
+    _executor = executor;
+    _windowMillis = windowMillis;
+  }
+
+  @Override
+  public <ASPECT extends RecordTemplate> void produceSnapshotBasedMetadataChangeEvent(@Nonnull URN urn,
+      @Nonnull ASPECT newValue) {
+    _delegate.produceSnapshotBasedMetadataChangeEvent(urn, newValue);
+  }
+
+  @Override
+  public <ASPECT extends RecordTemplate> void produceMetadataAuditEvent(@Nonnull URN urn, @Nullable ASPECT oldValue,
+      @Nonnull ASPECT newValue) {
+    hold(new EventKey<>(urn, newValue.getClass(), false), oldValue, newValue);
+  }
+
+  @Override
+  public <ASPECT extends RecordTemplate> void produceAspectSpecificMetadataAuditEvent(@Nonnull URN urn,
+      @Nullable ASPECT oldValue, @Nonnull ASPECT newValue) {
+    hold(new EventKey<>(urn, newValue.getClass(), true), oldValue, newValue);
+  }
+
+  /**
+   * Hands all the held events to the delegate right away.
+   */
+  public void flush() {
+    new ArrayList<>(_heldEvents.entrySet()).forEach(entry -> release(entry.getKey(), entry.getValue()));
+  }
+
+  /**
+   * Hands the held events to the delegate, later events are then handed to it right away.
+   */
+  @Override
+  public void close() {
+    _closed = true;
+    flush();
+  }
+
+  /**
+   * Gets the number of events currently held.
+   */
+  public int getHeldCount() {
+    return _heldEvents.size();
+  }
+
+  /**
+   * Gets the number of events merged into a held event so far, i.e. the number of events not handed to the delegate.
+   */
+  public long getCoalescedCount() {
+    return _coalescedCount.get();
+  }
+
+  /**
+   * Gets the number of coalesced events the delegate failed to produce so far.
+   */
+  public long getFailedCount() {
+    return _failedCount.get();
+  }
+
+  private void hold(@Nonnull EventKey<URN> key, @Nullable RecordTemplate oldValue, @Nonnull RecordTemplate newValue) {
+    final RecordTemplate newValueCopy = RecordUtils.copy(newValue);
+    final HeldEvent[] held = {null};
+    _heldEvents.compute(key, (ignored, heldEvent) -> {
+      if (heldEvent == null) {
+        held[0] = new HeldEvent(oldValue == null ? null : RecordUtils.copy(oldValue), newValueCopy);
+        return held[0];
+      }
+      heldEvent._newValue = newValueCopy;
+      _coalescedCount.incrementAndGet();
+      return heldEvent;
+    });
+
+    final HeldEvent heldEvent = held[0];
+    if (heldEvent == null) {
+      return;
+    }
+    if (_closed) {
+      release(key, heldEvent);
+      return;
+    }
+    try {
+      _executor.schedule(() -> release(key, heldEvent), _windowMillis, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      release(key, heldEvent);
+    }
+  }
+
+  private void release(@Nonnull EventKey<URN> key, @Nonnull HeldEvent heldEvent) {
+    if (!_heldEvents.remove(key, heldEvent)) {
+      // Already released by a flush, a later event of the key may be held by then and keeps its own window
+      return;
+    }
+    try {
+      if (key.isAspectSpecific()) {
+        _delegate.produceAspectSpecificMetadataAuditEvent(key.getUrn(), heldEvent._oldValue, heldEvent._newValue);
+      } else {
+        _delegate.produceMetadataAuditEvent(key.getUrn(), heldEvent._oldValue, heldEvent._newValue);
+      }
+    } catch (RuntimeException e) {
+      // Mostly runs on the executor, where the exception would go unnoticed
+      final long failedCount = _failedCount.incrementAndGet();
+      log.warn("Failed to produce coalesced audit event of {}, {} events failed so far", key.getUrn(), failedCount, e);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.ArrayDataSchema;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.metadata.validator.InvalidSchemaException;
+import com.linkedin.metadata.validator.ValidationUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.apache.commons.lang.StringUtils;
+
+
+/**
+ * Reads the value of a pegasus path from records of a given class, see {@link RecordUtils#compilePath(Class, String)}.
+ *
+ * <p>Unlike {@link RecordUtils#getFieldValue(RecordTemplate, String)}, which parses the path and walks the record through
+ * its getters on every call, the path is resolved against the schema of the record once, and values are then read from
+ * the underlying {@link DataMap}s. Values are returned as they're stored in the data map, with numbers coerced to the
+ * type of their schema: records and unions as {@link DataMap}s, arrays as {@link List}s, enums and custom types such as
+ * urns as their underlying primitive. As with {@link RecordUtils#getFieldValue(RecordTemplate, String)}, the value of a
+ * path going through an array is the list of the values found in its items, and missing fields are read as their
+ * default value if they have one.</p>
+ */
+public final class FieldValueExtractor {
+
+  private static final String ARRAY_WILDCARD = "*";
+
+  private final Class<? extends RecordTemplate> _recordClass;
+  private final String _path;
+  private final Step _firstStep; // null for an empty path
+
+  private FieldValueExtractor(@Nonnull Class<? extends RecordTemplate> recordClass, @Nonnull String path,
+      @Nullable Step firstStep) {
+    _recordClass = recordClass;
+    _path = path;
+    _firstStep = firstStep;
+  }
+
+  /**
+   * Gets the value of the path in a record.
+   *
+   * @param record a record of the class the path was compiled for
+   * @return the value, or empty if the path isn't set in the record
+   */
+  @Nonnull
+  public Optional<Object> extract(@Nonnull RecordTemplate record) {
+    if (!_recordClass.isInstance(record)) {
+      throw new IllegalArgumentException(
+          String.format("Path %s is compiled for %s, not for %s", _path, _recordClass.getCanonicalName(),
+              record.getClass().getCanonicalName()));
+    }
+    return _firstStep == null ? Optional.empty() : Optional.ofNullable(_firstStep.read(record.data()));
+  }
+
+  /**
+   * Gets the path, as given when compiled.
+   */
+  @Nonnull
+  public String getPath() {
+    return _path;
+  }
+
+  @Nonnull
+  static FieldValueExtractor compile(@Nonnull Class<? extends RecordTemplate> recordClass, @Nonnull String path) {
+    DataSchema schema = ValidationUtils.getRecordSchema(recordClass);
+    Step firstStep = null;
+    Step lastStep = null;
+
+    for (String part : RecordUtils.getPathSpecAsArray(path)) {
+      if (part.equals(ARRAY_WILDCARD)) {
+        continue;
+      }
+      if (StringUtils.isNumeric(part)) {
+        throw new UnsupportedOperationException(String.format("Array indexing is not supported for %s (%s)", part, path));
+      }
+
+      // As with RecordUtils#getFieldValue, the wildcard of an array is optional
+      final List<Step> steps = new ArrayList<>();
+      while (schema.getDereferencedType() == DataSchema.Type.ARRAY) {
+        schema = ((ArrayDataSchema) schema.getDereferencedDataSchema()).getItems();
+        steps.add(new ArrayStep(schema));
+      }
+
+      final DataSchema dereferencedSchema = schema.getDereferencedDataSchema();
+      if (dereferencedSchema.getType() == DataSchema.Type.RECORD) {
+        final RecordDataSchema.Field field = ((RecordDataSchema) dereferencedSchema).getField(part);
+        if (field == null) {
+          throw new InvalidSchemaException(
+              String.format("Missing field %s in %s (%s)", part, ((RecordDataSchema) dereferencedSchema).getFullName(), path));
+        }
+        schema = field.getType();
+        steps.add(new FieldStep(schema, part, field.getDefault()));
+      } else if (dereferencedSchema.getType() == DataSchema.Type.UNION) {
+        final UnionDataSchema.Member member = ((UnionDataSchema) dereferencedSchema).getMembers()
+            .stream()
+            .filter(m -> m.getUnionMemberKey().equals(part))
+            .findFirst()
+            .orElseThrow(() -> new InvalidSchemaException(String.format("Missing union member %s (%s)", part, path)));
+        schema = member.getType();
+        steps.add(new FieldStep(schema, part, null));
+      } else {
+        throw new UnsupportedOperationException(
+            String.format("Failed at extracting %s (%s from %s)", part, path, recordClass.getCanonicalName()));
+      }
+
+      for (Step step : steps) {
+        if (lastStep == null) {
+          firstStep = step;
+        } else {
+          lastStep._next = step;
+        }
+        lastStep = step;
+      }
+    }
+
+    return new FieldValueExtractor(recordClass, path, firstStep);
+  }
+
+  /**
+   * A step of a path, reading a value from the data of the previous step.
+   */
+  private abstract static class Step {
+    private final DataSchema _valueSchema;
+    private Step _next = null; // null for the last step
+
+    Step(@Nonnull DataSchema valueSchema) {
+      _valueSchema = valueSchema;
+    }
+
+    @Nullable
+    abstract Object read(@Nonnull Object data);
+
+    @Nullable
+    Object readNext(@Nullable Object value) {
+      if (value == null) {
+        return null;
+      }
+      return _next == null ? coerce(value, _valueSchema) : _next.read(value);
+    }
+  }
+
+  /**
+   * Reads a field of a record, or a member of a union.
+   */
+  private static final class FieldStep extends Step {
+    private final String _key;
+    private final Object _defaultValue;
+
+    FieldStep(@Nonnull DataSchema valueSchema, @Nonnull String key, @Nullable Object defaultValue) {
+      super(valueSchema);
+      _key = key;
+      _defaultValue = defaultValue;
+    }
+
+    @Override
+    Object read(@Nonnull Object data) {
+      if (!(data instanceof DataMap)) {
+        // e.g. the null member of a union
+        return null;
+      }
+      final Object value = ((DataMap) data).get(_key);
+      return readNext(value == null ? _defaultValue : value);
+    }
+  }
+
+  /**
+   * Reads the rest of the path from each item of an array.
+   */
+  private static final class ArrayStep extends Step {
+
+    ArrayStep(@Nonnull DataSchema itemSchema) {
+      super(itemSchema);
+    }
+
+    @Override
+    Object read(@Nonnull Object data) {
+      final DataList items = (DataList) data;
+      final List<Object> values = new ArrayList<>(items.size());
+      for (Object item : items) {
+        final Object value = readNext(item);
+        if (value != null) {
+          values.add(value);
+        }
+      }
+      return values;
+    }
+  }
+
+  @Nonnull
+  private static Object coerce(@Nonnull Object value, @Nonnull DataSchema schema) {
+    switch (schema.getDereferencedType()) {
+      case INT:
+        return value instanceof Number ? (Object) ((Number) value).intValue() : value;
+      case LONG:
+        return value instanceof Number ? (Object) ((Number) value).longValue() : value;
+      case FLOAT:
+        return value instanceof Number ? (Object) ((Number) value).floatValue() : value;
+      case DOUBLE:
+        return value instanceof Number ? (Object) ((Number) value).doubleValue() : value;
+      case ARRAY:
+        final DataSchema itemSchema = ((ArrayDataSchema) schema.getDereferencedDataSchema()).getItems();
+        if (!isNumber(itemSchema.getDereferencedType())) {
+          return value;
+        }
+        final List<Object> items = new ArrayList<>(((DataList) value).size());
+        ((DataList) value).forEach(item -> items.add(coerce(item, itemSchema)));
+        return items;
+      default:
+        return value;
+    }
+  }
+
+  private static boolean isNumber(@Nonnull DataSchema.Type type) {
+    return type == DataSchema.Type.INT || type == DataSchema.Type.LONG || type == DataSchema.Type.FLOAT
+        || type == DataSchema.Type.DOUBLE;
+  }
+}
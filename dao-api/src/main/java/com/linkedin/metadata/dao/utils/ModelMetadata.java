@@ -0,0 +1,260 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.data.DataMap;
+import com.linkedin.data.schema.DataSchema;
+import com.linkedin.data.schema.RecordDataSchema;
+import com.linkedin.data.schema.UnionDataSchema;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.data.template.UnionTemplate;
+import com.linkedin.data.template.WrappingArrayTemplate;
+import com.linkedin.metadata.validator.ValidationUtils;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import lombok.Value;
+
+
+/**
+ * Registry of what {@link ModelUtils} needs to know about model classes, such as the urn class of a snapshot or the
+ * members of a union. It's computed once per class and held in {@link ClassValue}s, so that models are created and read
+ * without going through their schemas and reflection every time.
+ *
+ * <p>The metadata isn't validated, callers are expected to validate the models first.</p>
+ */
+final class ModelMetadata {
+
+  private static final ClassValue<SnapshotMetadata> SNAPSHOTS = new ClassValue<SnapshotMetadata>() {
+    @Override
+    protected SnapshotMetadata computeValue(Class<?> type) {
+      return newSnapshotMetadata(type.asSubclass(RecordTemplate.class));
+    }
+  };
+
+  private static final ClassValue<UnionMetadata> UNIONS = new ClassValue<UnionMetadata>() {
+    @Override
+    protected UnionMetadata computeValue(Class<?> type) {
+      return newUnionMetadata(type.asSubclass(UnionTemplate.class));
+    }
+  };
+
+  // The urn classes of the fields of a record, keyed by field name, filled as the fields are looked up
+  private static final ClassValue<Map<String, Class<? extends Urn>>> URN_FIELD_CLASSES =
+      new ClassValue<Map<String, Class<? extends Urn>>>() {
+        @Override
+        protected Map<String, Class<? extends Urn>> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  private static final ClassValue<String> URN_ENTITY_TYPES = new ClassValue<String>() {
+    @Override
+    protected String computeValue(Class<?> type) {
+      try {
+        return type.getDeclaredField("ENTITY_TYPE").get(null).toString();
+      } catch (NoSuchFieldException | IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  };
+
+  private ModelMetadata() {
+    // Util class
+  }
+
+  /**
+   * Metadata of a snapshot class.
+   */
+  @Value
+  static class SnapshotMetadata {
+    Class<? extends Urn> urnClass;
+    // The entity type of the urn class returned by getUrn, null if it doesn't declare one
+    String entityType;
+    Class<? extends WrappingArrayTemplate> aspectArrayClass;
+    Class<? extends UnionTemplate> aspectUnionClass;
+    MethodHandle urnGetter; // (RecordTemplate)Urn
+    MethodHandle aspectsGetter; // (RecordTemplate)WrappingArrayTemplate
+    MethodHandle aspectsSetter; // (RecordTemplate, WrappingArrayTemplate)void
+    MethodHandle aspectArrayConstructor; // ()WrappingArrayTemplate
+
+    @Nonnull
+    Urn getUrn(@Nonnull RecordTemplate snapshot) {
+      try {
+        return (Urn) urnGetter.invokeExact(snapshot);
+      } catch (Throwable e) {
+        throw propagate(e);
+      }
+    }
+
+    @Nonnull
+    WrappingArrayTemplate getAspects(@Nonnull RecordTemplate snapshot) {
+      try {
+        return (WrappingArrayTemplate) aspectsGetter.invokeExact(snapshot);
+      } catch (Throwable e) {
+        throw propagate(e);
+      }
+    }
+
+    void setAspects(@Nonnull RecordTemplate snapshot, @Nonnull WrappingArrayTemplate aspects) {
+      try {
+        aspectsSetter.invokeExact(snapshot, aspects);
+      } catch (Throwable e) {
+        throw propagate(e);
+      }
+    }
+
+    @Nonnull
+    WrappingArrayTemplate newAspectArray() {
+      try {
+        return (WrappingArrayTemplate) aspectArrayConstructor.invokeExact();
+      } catch (Throwable e) {
+        throw propagate(e);
+      }
+    }
+  }
+
+  /**
+   * Metadata of a union class.
+   */
+  @Value
+  static class UnionMetadata {
+    MethodHandle constructor; // (Object)UnionTemplate, taking the data of the union
+    List<String> memberKeys;
+    // The aliases of the aliased record members, keyed by FQCN of the members
+    Map<String, String> aliases;
+    // The record members, including the ones referenced by typerefs
+    Set<Class<? extends RecordTemplate>> recordMembers;
+
+    /**
+     * Creates a union with the given record selected.
+     */
+    @Nonnull
+    UnionTemplate newUnion(@Nonnull RecordTemplate member) {
+      final String key = aliases.getOrDefault(member.getClass().getName(), member.schema().getUnionMemberKey());
+      final DataMap dataMap = new DataMap(2, 0.75f);
+      dataMap.put(key, member.data());
+      try {
+        return (UnionTemplate) constructor.invokeExact((Object) dataMap);
+      } catch (Throwable e) {
+        throw propagate(e);
+      }
+    }
+  }
+
+  @Nonnull
+  static SnapshotMetadata forSnapshot(@Nonnull Class<? extends RecordTemplate> snapshotClass) {
+    return SNAPSHOTS.get(snapshotClass);
+  }
+
+  @Nonnull
+  static UnionMetadata forUnion(@Nonnull Class<? extends UnionTemplate> unionClass) {
+    return UNIONS.get(unionClass);
+  }
+
+  @Nonnull
+  static Class<? extends Urn> urnClassForField(@Nonnull Class<? extends RecordTemplate> recordClass,
+      @Nonnull String fieldName) {
+    return URN_FIELD_CLASSES.get(recordClass).computeIfAbsent(fieldName, ignored -> {
+      final String urnClassName = ((DataMap) ValidationUtils.getRecordSchema(recordClass)
+          .getField(fieldName)
+          .getType()
+          .getProperties()
+          .get("java")).getString("class");
+      return ModelUtils.getClassFromName(urnClassName, Urn.class);
+    });
+  }
+
+  @Nonnull
+  static String entityTypeForUrnClass(@Nonnull Class<? extends Urn> urnClass) {
+    return URN_ENTITY_TYPES.get(urnClass);
+  }
+
+  @Nonnull
+  private static SnapshotMetadata newSnapshotMetadata(@Nonnull Class<? extends RecordTemplate> snapshotClass) {
+    final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    try {
+      final Class<?> urnReturnType = snapshotClass.getMethod("getUrn").getReturnType();
+      final Class<? extends WrappingArrayTemplate> aspectArrayClass =
+          snapshotClass.getMethod("getAspects").getReturnType().asSubclass(WrappingArrayTemplate.class);
+
+      // The items of the Fields of the aspect array are the Fields of the aspect union, which is their enclosing class
+      final Class<?> aspectArrayFieldsClass = ClassUtils.loadClass(aspectArrayClass.getCanonicalName() + "$Fields");
+      final Class<? extends UnionTemplate> aspectUnionClass =
+          aspectArrayFieldsClass.getMethod("items").getReturnType().getEnclosingClass().asSubclass(UnionTemplate.class);
+
+      String entityType = null;
+      try {
+        entityType = (String) urnReturnType.getField("ENTITY_TYPE").get(null);
+      } catch (NoSuchFieldException e) {
+        // Only needed to get the entity type of the snapshot, see ModelUtils#getUrnTypeFromSnapshot
+      }
+
+      return new SnapshotMetadata(
+          urnClassForField(snapshotClass, "urn"),
+          entityType,
+          aspectArrayClass,
+          aspectUnionClass,
+          lookup.findVirtual(snapshotClass, "getUrn", MethodType.methodType(urnReturnType))
+              .asType(MethodType.methodType(Urn.class, RecordTemplate.class)),
+          lookup.findVirtual(snapshotClass, "getAspects", MethodType.methodType(aspectArrayClass))
+              .asType(MethodType.methodType(WrappingArrayTemplate.class, RecordTemplate.class)),
+          lookup.findVirtual(snapshotClass, "setAspects", MethodType.methodType(snapshotClass, aspectArrayClass))
+              .asType(MethodType.methodType(void.class, RecordTemplate.class, WrappingArrayTemplate.class)),
+          lookup.findConstructor(aspectArrayClass, MethodType.methodType(void.class))
+              .asType(MethodType.methodType(WrappingArrayTemplate.class)));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      throw new RuntimeException("Unable to get the metadata of snapshot " + snapshotClass.getCanonicalName(), e);
+    }
+  }
+
+  @Nonnull
+  private static UnionMetadata newUnionMetadata(@Nonnull Class<? extends UnionTemplate> unionClass) {
+    final UnionDataSchema schema = ValidationUtils.getUnionSchema(unionClass);
+
+    final Map<String, String> aliases = new HashMap<>();
+    final Set<Class<? extends RecordTemplate>> recordMembers = new LinkedHashSet<>();
+    for (UnionDataSchema.Member member : schema.getMembers()) {
+      if (member.getType().getDereferencedType() != DataSchema.Type.RECORD) {
+        continue;
+      }
+      final RecordDataSchema recordSchema = (RecordDataSchema) member.getType().getDereferencedDataSchema();
+      if (member.hasAlias()) {
+        aliases.put(recordSchema.getUnionMemberKey(), member.getAlias());
+      }
+      recordMembers.add(ModelUtils.getClassFromName(recordSchema.getBindingName(), RecordTemplate.class));
+    }
+
+    try {
+      return new UnionMetadata(
+          MethodHandles.publicLookup()
+              .findConstructor(unionClass, MethodType.methodType(void.class, Object.class))
+              .asType(MethodType.methodType(UnionTemplate.class, Object.class)),
+          Collections.unmodifiableList(
+              schema.getMembers().stream().map(UnionDataSchema.Member::getUnionMemberKey).collect(Collectors.toList())),
+          Collections.unmodifiableMap(aliases),
+          Collections.unmodifiableSet(recordMembers));
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Unable to get the metadata of union " + unionClass.getCanonicalName(), e);
+    }
+  }
+
+  @Nonnull
+  private static RuntimeException propagate(@Nonnull Throwable throwable) {
+    if (throwable instanceof RuntimeException) {
+      return (RuntimeException) throwable;
+    }
+    if (throwable instanceof Error) {
+      throw (Error) throwable;
+    }
+    return new RuntimeException(throwable);
+  }
+}
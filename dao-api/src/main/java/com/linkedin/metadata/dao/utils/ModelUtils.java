@@ -2,11 +2,6 @@ package com.linkedin.metadata.dao.utils;
 
 import com.linkedin.common.urn.Urn;
 import com.linkedin.data.DataMap;
-import com.linkedin.data.schema.ArrayDataSchema;
-import com.linkedin.data.schema.DataSchema;
-import com.linkedin.data.schema.RecordDataSchema;
-import com.linkedin.data.schema.TyperefDataSchema;
-import com.linkedin.data.schema.UnionDataSchema;
 import com.linkedin.data.template.DataTemplate;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.template.UnionTemplate;
@@ -20,7 +15,6 @@ import com.linkedin.metadata.validator.EntityValidator;
 import com.linkedin.metadata.validator.InvalidSchemaException;
 import com.linkedin.metadata.validator.RelationshipValidator;
 import com.linkedin.metadata.validator.SnapshotValidator;
-import com.linkedin.metadata.validator.ValidationUtils;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -75,26 +69,7 @@ public class ModelUtils {
 
     AspectValidator.validateAspectUnionSchema(aspectUnionClass);
 
-    Set<Class<? extends RecordTemplate>> validTypes = new HashSet<>();
-    for (UnionDataSchema.Member member : ValidationUtils.getUnionSchema(aspectUnionClass).getMembers()) {
-      String fqcn = null;
-      if (member.getType().getType() == DataSchema.Type.RECORD) {
-        fqcn = ((RecordDataSchema) member.getType()).getBindingName();
-      } else if (member.getType().getType() == DataSchema.Type.TYPEREF
-          && member.getType().getDereferencedType() == DataSchema.Type.RECORD) {
-        fqcn = ((RecordDataSchema) member.getType().getDereferencedDataSchema()).getBindingName();
-      }
-
-      if (fqcn != null) {
-        try {
-          validTypes.add(CLASS_LOADER.loadClass(fqcn).asSubclass(RecordTemplate.class));
-        } catch (ClassNotFoundException | ClassCastException e) {
-          throw new RuntimeException(e);
-        }
-      }
-    }
-
-    return validTypes;
+    return new HashSet<>(ModelMetadata.forUnion(aspectUnionClass).getRecordMembers());
   }
 
   /**
@@ -132,7 +107,7 @@ public class ModelUtils {
   @Nonnull
   public static <SNAPSHOT extends RecordTemplate> Urn getUrnFromSnapshot(@Nonnull SNAPSHOT snapshot) {
     SnapshotValidator.validateSnapshotSchema(snapshot.getClass());
-    return RecordUtils.getRecordTemplateField(snapshot, "urn", urnClassForSnapshot(snapshot.getClass()));
+    return ModelMetadata.forSnapshot(snapshot.getClass()).getUrn(snapshot);
   }
 
   /**
@@ -142,11 +117,16 @@ public class ModelUtils {
    */
   @Nonnull
   public static <SNAPSHOT extends RecordTemplate> String getUrnTypeFromSnapshot(@Nonnull Class<SNAPSHOT> snapshot) {
+    String entityType = null;
     try {
-      return (String) snapshot.getMethod("getUrn").getReturnType().getField("ENTITY_TYPE").get(null);
-    } catch (Exception ignored) {
+      entityType = ModelMetadata.forSnapshot(snapshot).getEntityType();
+    } catch (RuntimeException ignored) {
+      // Reported below
+    }
+    if (entityType == null) {
       throw new IllegalArgumentException(String.format("The snapshot class %s is not valid.", snapshot.getCanonicalName()));
     }
+    return entityType;
   }
 
   /**
@@ -281,9 +261,7 @@ public class ModelUtils {
 
   @Nonnull
   private static List<RecordTemplate> getAspects(@Nonnull RecordTemplate snapshot) {
-    final Class<? extends WrappingArrayTemplate> clazz = getAspectsArrayClass(snapshot.getClass());
-
-    WrappingArrayTemplate aspectArray = RecordUtils.getRecordTemplateWrappedField(snapshot, "aspects", clazz);
+    final WrappingArrayTemplate aspectArray = ModelMetadata.forSnapshot(snapshot.getClass()).getAspects(snapshot);
 
     final List<RecordTemplate> aspects = new ArrayList<>();
     aspectArray.forEach(item -> aspects.add(RecordUtils.getSelectedRecordTemplateFromUnion((UnionTemplate) item)));
@@ -324,29 +302,14 @@ public class ModelUtils {
 
     SnapshotValidator.validateSnapshotSchema(snapshotClass);
 
-    final Class<? extends WrappingArrayTemplate> aspectArrayClass = getAspectsArrayClass(snapshotClass);
-
-    try {
-      final SNAPSHOT snapshot = snapshotClass.newInstance();
-      RecordUtils.setRecordTemplatePrimitiveField(snapshot, "urn", urn);
-      WrappingArrayTemplate aspectArray = aspectArrayClass.newInstance();
-      aspectArray.addAll(aspects);
-      RecordUtils.setRecordTemplateComplexField(snapshot, "aspects", aspectArray);
-      return snapshot;
-    } catch (InstantiationException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  @Nonnull
-  private static <SNAPSHOT extends RecordTemplate> Class<? extends WrappingArrayTemplate> getAspectsArrayClass(
-      @Nonnull Class<SNAPSHOT> snapshotClass) {
-
-    try {
-      return snapshotClass.getMethod("getAspects").getReturnType().asSubclass(WrappingArrayTemplate.class);
-    } catch (NoSuchMethodException | ClassCastException e) {
-      throw new RuntimeException((e));
-    }
+    final ModelMetadata.SnapshotMetadata metadata = ModelMetadata.forSnapshot(snapshotClass);
+    final SNAPSHOT snapshot = RecordUtils.toRecordTemplate(snapshotClass, new DataMap());
+    // The urn is set as is, as the snapshot's urn setter takes a typed urn
+    snapshot.data().put("urn", urn);
+    final WrappingArrayTemplate aspectArray = metadata.newAspectArray();
+    aspectArray.addAll(aspects);
+    metadata.setAspects(snapshot, aspectArray);
+    return snapshot;
   }
 
   /**
@@ -364,13 +327,7 @@ public class ModelUtils {
 
     AspectValidator.validateAspectUnionSchema(aspectUnionClass);
 
-    try {
-      ASPECT_UNION aspectUnion = aspectUnionClass.newInstance();
-      RecordUtils.setSelectedRecordTemplateInUnion(aspectUnion, aspect);
-      return aspectUnion;
-    } catch (InstantiationException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
+    return aspectUnionClass.cast(ModelMetadata.forUnion(aspectUnionClass).newUnion(aspect));
   }
 
   /**
@@ -393,11 +350,7 @@ public class ModelUtils {
       @Nonnull Class<? extends RecordTemplate> snapshotClass) {
     SnapshotValidator.validateSnapshotSchema(snapshotClass);
 
-    String aspectClassName = ((TyperefDataSchema) ((ArrayDataSchema) ValidationUtils.getRecordSchema(snapshotClass)
-        .getField("aspects")
-        .getType()).getItems()).getBindingName();
-
-    return getClassFromName(aspectClassName, UnionTemplate.class);
+    return ModelMetadata.forSnapshot(snapshotClass).getAspectUnionClass();
   }
 
   /**
@@ -467,13 +420,7 @@ public class ModelUtils {
   @Nonnull
   private static Class<? extends Urn> urnClassForField(@Nonnull Class<? extends RecordTemplate> recordClass,
       @Nonnull String fieldName) {
-    String urnClassName = ((DataMap) ValidationUtils.getRecordSchema(recordClass)
-        .getField(fieldName)
-        .getType()
-        .getProperties()
-        .get("java")).getString("class");
-
-    return getClassFromName(urnClassName, Urn.class);
+    return ModelMetadata.urnClassForField(recordClass, fieldName);
   }
 
   /**
@@ -520,13 +467,7 @@ public class ModelUtils {
 
     RelationshipValidator.validateRelationshipUnionSchema(relationshipUnionClass);
 
-    try {
-      RELATIONSHIP_UNION relationshipUnion = relationshipUnionClass.newInstance();
-      RecordUtils.setSelectedRecordTemplateInUnion(relationshipUnion, relationship);
-      return relationshipUnion;
-    } catch (InstantiationException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
+    return relationshipUnionClass.cast(ModelMetadata.forUnion(relationshipUnionClass).newUnion(relationship));
   }
 
   /**
@@ -545,11 +486,7 @@ public class ModelUtils {
    */
   @Nonnull
   public static String getEntityTypeFromUrnClass(@Nonnull Class<? extends Urn> urnClass) {
-    try {
-      return urnClass.getDeclaredField("ENTITY_TYPE").get(null).toString();
-    } catch (NoSuchFieldException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
+    return ModelMetadata.entityTypeForUrnClass(urnClass);
   }
 
   /**
@@ -584,13 +521,7 @@ public class ModelUtils {
 
     EntityValidator.validateEntityUnionSchema(entityUnionClass);
 
-    try {
-      ENTITY_UNION entityUnion = entityUnionClass.newInstance();
-      RecordUtils.setSelectedRecordTemplateInUnion(entityUnion, entity);
-      return entityUnion;
-    } catch (InstantiationException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
+    return entityUnionClass.cast(ModelMetadata.forUnion(entityUnionClass).newUnion(entity));
   }
 
   /**
@@ -599,13 +530,7 @@ public class ModelUtils {
    * @return A list of aspect canonical names.
    */
   public static <ASPECT_UNION extends UnionTemplate> List<String> getAspectClassNames(Class<ASPECT_UNION> unionClass) {
-    try {
-      final UnionTemplate unionTemplate = unionClass.newInstance();
-      final UnionDataSchema unionDataSchema = (UnionDataSchema) unionTemplate.schema();
-      return unionDataSchema.getMembers().stream().map(UnionDataSchema.Member::getUnionMemberKey).collect(Collectors.toList());
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+    return ModelMetadata.forUnion(unionClass).getMemberKeys();
   }
 
   /**
@@ -615,11 +540,6 @@ public class ModelUtils {
    */
   public static <SNAPSHOT extends RecordTemplate, ASPECT_UNION extends UnionTemplate> Class<ASPECT_UNION> getUnionClassFromSnapshot(
       Class<SNAPSHOT> snapshotClass) {
-    try {
-      Class<?> innerClass = ClassUtils.loadClass(snapshotClass.getMethod("getAspects").getReturnType().getCanonicalName() + "$Fields");
-      return (Class<ASPECT_UNION>) innerClass.newInstance().getClass().getMethod("items").getReturnType().getEnclosingClass();
-    } catch (Exception e) {
-      throw new RuntimeException(e);
-    }
+    return (Class<ASPECT_UNION>) ModelMetadata.forSnapshot(snapshotClass).getAspectUnionClass();
   }
 }
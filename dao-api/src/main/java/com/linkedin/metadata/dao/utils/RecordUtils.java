@@ -16,7 +16,9 @@ import com.linkedin.data.template.UnionTemplate;
 import com.linkedin.metadata.dao.exception.ModelConversionException;
 import com.linkedin.metadata.validator.InvalidSchemaException;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -50,6 +52,35 @@ public class RecordUtils {
   private static final ConcurrentHashMap<Class<? extends RecordTemplate>, Map<String, Method>> RECORD_METHOD_CACHE = new ConcurrentHashMap<>();
   private static final ConcurrentHashMap<Class<? extends UnionTemplate>, Map<String, Method>> UNION_METHOD_CACHE = new ConcurrentHashMap<>();
 
+  /**
+   * Constructor handles of RecordTemplate classes, typed as (DataMap)RecordTemplate and ()RecordTemplate respectively, so
+   * records are created without looking up the constructor and going through reflection every time. A {@link ClassValue}
+   * is used rather than a map so that the handles don't keep the classes from being unloaded.
+   */
+  private static final ClassValue<MethodHandle> DATA_MAP_CONSTRUCTOR_CACHE =
+      new ConstructorHandleCache(MethodType.methodType(void.class, DataMap.class));
+  private static final ClassValue<MethodHandle> DEFAULT_CONSTRUCTOR_CACHE =
+      new ConstructorHandleCache(MethodType.methodType(void.class));
+
+  private static final class ConstructorHandleCache extends ClassValue<MethodHandle> {
+    private final MethodType _constructorType;
+
+    ConstructorHandleCache(@Nonnull MethodType constructorType) {
+      _constructorType = constructorType;
+    }
+
+    @Override
+    protected MethodHandle computeValue(Class<?> type) {
+      try {
+        return MethodHandles.publicLookup()
+            .findConstructor(type, _constructorType)
+            .asType(_constructorType.changeReturnType(RecordTemplate.class));
+      } catch (NoSuchMethodException | IllegalAccessException e) {
+        throw new ModelConversionException("Unable to find constructor for " + type.getCanonicalName(), e);
+      }
+    }
+  }
+
   private RecordUtils() {
     // Util class
   }
@@ -107,16 +138,10 @@ public class RecordUtils {
    */
   @Nonnull
   public static <T extends RecordTemplate> T toRecordTemplate(@Nonnull Class<T> type, @Nonnull DataMap dataMap) {
-    Constructor<T> constructor;
-    try {
-      constructor = type.getConstructor(DataMap.class);
-    } catch (NoSuchMethodException e) {
-      throw new ModelConversionException("Unable to find constructor for " + type.getCanonicalName(), e);
-    }
-
+    final MethodHandle constructor = DATA_MAP_CONSTRUCTOR_CACHE.get(type);
     try {
-      return constructor.newInstance(dataMap);
-    } catch (Exception e) {
+      return type.cast((RecordTemplate) constructor.invokeExact(dataMap));
+    } catch (Throwable e) {
       throw new ModelConversionException("Failed to invoke constructor for " + type.getCanonicalName(), e);
     }
   }
@@ -130,16 +155,33 @@ public class RecordUtils {
    */
   @Nonnull
   public static RecordTemplate toRecordTemplate(@Nonnull String className, @Nonnull DataMap dataMap) {
-    Class<? extends RecordTemplate> clazz;
+    final Class<? extends RecordTemplate> clazz;
     try {
-      clazz = Class.forName(className).asSubclass(RecordTemplate.class);
-    } catch (ClassNotFoundException e) {
-      throw new ModelConversionException("Unable to find class " + className, e);
+      clazz = ClassUtils.loadClass(className).asSubclass(RecordTemplate.class);
+    } catch (ClassCastException e) {
+      throw new ModelConversionException(className + " is not a RecordTemplate", e);
     }
 
     return toRecordTemplate(clazz, dataMap);
   }
 
+  /**
+   * Creates a deep copy of a {@link RecordTemplate}, so that later changes to the original don't affect the copy.
+   *
+   * @param record the record to copy
+   * @param <T> the type of the record
+   * @return the copy
+   */
+  @Nonnull
+  @SuppressWarnings("unchecked")
+  public static <T extends RecordTemplate> T copy(@Nonnull T record) {
+    try {
+      return toRecordTemplate((Class<T>) record.getClass(), record.data().copy());
+    } catch (CloneNotSupportedException e) {
+      throw new ModelConversionException("Failed to copy " + record.getClass().getCanonicalName(), e);
+    }
+  }
+
   /**
    * Gets the aspect from the aspect class.
    *
@@ -148,22 +190,18 @@ public class RecordUtils {
    */
   public static <ASPECT extends RecordTemplate> ASPECT getAspectFromClass(@Nonnull Class<ASPECT> aspectClass) {
     // Create an empty aspect to extract its field names
-    final Constructor<ASPECT> constructor;
+    final MethodHandle constructor;
     try {
-      @SuppressWarnings("rawtypes")
-      final Class[] constructorParamArray = new Class[]{};
-      constructor = aspectClass.getConstructor(constructorParamArray);
-    } catch (NoSuchMethodException e) {
+      constructor = DEFAULT_CONSTRUCTOR_CACHE.get(aspectClass);
+    } catch (ModelConversionException e) {
       throw new RuntimeException("Exception occurred while trying to get the default constructor for the aspect. ", e);
     }
 
-    final ASPECT aspect;
     try {
-      aspect = constructor.newInstance();
-    } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+      return aspectClass.cast((RecordTemplate) constructor.invokeExact());
+    } catch (Throwable e) {
       throw new RuntimeException("Exception occurred while creating an instance of the aspect. ", e);
     }
-    return aspect;
   }
 
   /**
@@ -176,8 +214,8 @@ public class RecordUtils {
   public static <ASPECT extends RecordTemplate> ASPECT getAspectFromString(@Nonnull String aspectClassString) {
     final Class<ASPECT> aspectClass;
     try {
-      aspectClass = (Class<ASPECT>) Class.forName(aspectClassString);
-    } catch (ClassNotFoundException e) {
+      aspectClass = (Class<ASPECT>) ClassUtils.loadClass(aspectClassString);
+    } catch (ModelConversionException e) {
       throw new RuntimeException("Exception occurred while trying to get the aspect class. ", e);
     }
 
@@ -523,6 +561,23 @@ public class RecordUtils {
     return SLASH_PATERN.split(pathSpecAsString);
   }
 
+  /**
+   * Compiles a string representation of Pegasus PathSpec into a reusable {@link FieldValueExtractor}, which reads the
+   * value of the path from records of the given class without parsing the path or going through reflection again.
+   *
+   * @param recordClass the class of the records to read the path from
+   * @param pathSpecAsString string representation of the path
+   * @return the compiled path
+   * @throws InvalidSchemaException if the path doesn't exist in the schema of the record
+   * @throws UnsupportedOperationException if the path indexes an array or goes through a type other than records,
+   *     unions and arrays
+   */
+  @Nonnull
+  public static FieldValueExtractor compilePath(@Nonnull Class<? extends RecordTemplate> recordClass,
+      @Nonnull String pathSpecAsString) {
+    return FieldValueExtractor.compile(recordClass, pathSpecAsString);
+  }
+
   /**
    * Similar to {@link #getFieldValue(RecordTemplate, PathSpec)} but takes string representation of Pegasus PathSpec as
    * input.
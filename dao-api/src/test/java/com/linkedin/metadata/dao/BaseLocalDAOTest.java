@@ -15,17 +15,30 @@ import com.linkedin.testing.EntityAspectUnion;
 import com.linkedin.testing.urn.FooUrn;
 import java.net.URISyntaxException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.javatuples.Pair;
 import org.mockito.stubbing.OngoingStubbing;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -379,4 +392,266 @@ public class BaseLocalDAOTest {
 
     verify(_mockTransactionRunner, times(2)).run(any());
   }
+
+  @Test
+  public void testScanLatestPagesThroughUrns() throws URISyntaxException {
+    FooUrn urn1 = new FooUrn(1);
+    FooUrn urn2 = new FooUrn(2);
+    FooUrn urn3 = new FooUrn(3);
+    AspectFoo foo1 = new AspectFoo().setValue("1");
+    AspectFoo foo3 = new AspectFoo().setValue("3");
+    DummyLocalDAO dao = spy(_dummyLocalDAO);
+
+    doReturn(ListResult.<FooUrn>builder().values(Arrays.asList(urn1, urn2)).nextStart(2).havingMore(true).build())
+        .when(dao).listUrns(AspectFoo.class, 0, 2);
+    doReturn(ListResult.<FooUrn>builder().values(Collections.singletonList(urn3))
+        .nextStart(ListResult.INVALID_NEXT_START).havingMore(false).build())
+        .when(dao).listUrns(AspectFoo.class, 2, 2);
+    Map<FooUrn, Optional<AspectFoo>> firstPage = new HashMap<>();
+    firstPage.put(urn1, Optional.of(foo1));
+    firstPage.put(urn2, Optional.empty());
+    doReturn(firstPage).when(dao).get(AspectFoo.class, new HashSet<>(Arrays.asList(urn1, urn2)));
+    doReturn(Collections.singletonMap(urn3, Optional.of(foo3))).when(dao).get(AspectFoo.class, Collections.singleton(urn3));
+
+    List<Pair<FooUrn, AspectFoo>> scanned;
+    try (Stream<Pair<FooUrn, AspectFoo>> stream = dao.scanLatest(AspectFoo.class, 2)) {
+      scanned = stream.collect(Collectors.toList());
+    }
+
+    assertEquals(scanned, Arrays.asList(Pair.with(urn1, foo1), Pair.with(urn3, foo3)));
+    verify(dao, times(2)).listUrns(eq(AspectFoo.class), anyInt(), eq(2));
+  }
+
+  @Test
+  public void testScanLatestIsLazy() {
+    DummyLocalDAO dao = spy(_dummyLocalDAO);
+
+    dao.scanLatest(AspectFoo.class, 10).close();
+
+    verify(dao, never()).listUrns(eq(AspectFoo.class), anyInt(), anyInt());
+  }
+
+  @Test
+  public void testAddBatch() throws URISyntaxException {
+    FooUrn urn1 = new FooUrn(1);
+    FooUrn urn2 = new FooUrn(2);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    AspectBar bar = new AspectBar().setValue("bar");
+    expectGetLatest(urn1, AspectFoo.class, Collections.singletonList(makeAspectEntry(null, null)));
+    expectGetLatest(urn2, AspectFoo.class, Collections.singletonList(makeAspectEntry(foo, _dummyAuditStamp)));
+    expectGetLatest(urn1, AspectBar.class, Collections.singletonList(makeAspectEntry(null, null)));
+
+    List<BatchAddResult<FooUrn>> results = _dummyLocalDAO.addBatch(Arrays.asList(
+        new BatchAddItem<>(urn1, foo, _dummyAuditStamp),
+        new BatchAddItem<>(urn2, foo, _dummyAuditStamp),
+        new BatchAddItem<>(urn1, bar, _dummyAuditStamp)));
+
+    assertEquals(results.stream().map(BatchAddResult::isSuccess).collect(Collectors.toList()),
+        Arrays.asList(true, true, true));
+    assertEquals(results.stream().map(BatchAddResult::isUpdated).collect(Collectors.toList()),
+        Arrays.asList(true, false, true));
+    verify(_mockTransactionRunner, times(1)).run(any());
+    verify(_mockEventProducer, times(1)).produceMetadataAuditEvent(urn1, null, foo);
+    verify(_mockEventProducer, times(1)).produceMetadataAuditEvent(urn1, null, bar);
+    verifyNoMoreInteractions(_mockEventProducer);
+  }
+
+  @Test
+  public void testAddBatchAppliesUpdatesOfSameAspectInOrder() throws URISyntaxException {
+    FooUrn urn = new FooUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("foo1");
+    AspectFoo foo2 = new AspectFoo().setValue("foo2");
+    expectGetLatest(urn, AspectFoo.class,
+        Arrays.asList(makeAspectEntry(null, null), makeAspectEntry(foo1, _dummyAuditStamp)));
+
+    List<BatchAddResult<FooUrn>> results = _dummyLocalDAO.addBatch(Arrays.asList(
+        new BatchAddItem<>(urn, foo1, _dummyAuditStamp),
+        new BatchAddItem<>(urn, foo2, _dummyAuditStamp)));
+
+    assertTrue(results.stream().allMatch(BatchAddResult::isUpdated));
+    verify(_mockTransactionRunner, times(2)).run(any());
+    verify(_mockEventProducer, times(1)).produceMetadataAuditEvent(urn, null, foo1);
+    verify(_mockEventProducer, times(1)).produceMetadataAuditEvent(urn, foo1, foo2);
+    verifyNoMoreInteractions(_mockEventProducer);
+  }
+
+  @Test
+  public void testAddBatchIsolatesFailingItems() throws URISyntaxException {
+    FooUrn urn1 = new FooUrn(1);
+    FooUrn urn2 = new FooUrn(2);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    when(_mockGetLatestFunction.apply(any(), eq(AspectFoo.class))).thenReturn(makeAspectEntry(null, null));
+    AtomicInteger urn1HookInvocations = new AtomicInteger();
+    BiConsumer<FooUrn, AspectFoo> hook = (urn, aspect) -> {
+      if (urn.equals(urn1)) {
+        urn1HookInvocations.incrementAndGet();
+      }
+      if (urn.equals(urn2)) {
+        throw new IllegalStateException("rejected");
+      }
+    };
+    _dummyLocalDAO.addPreUpdateHook(AspectFoo.class, hook);
+
+    List<BatchAddResult<FooUrn>> results = _dummyLocalDAO.addBatch(Arrays.asList(
+        new BatchAddItem<>(urn1, foo, _dummyAuditStamp),
+        new BatchAddItem<>(urn2, foo, _dummyAuditStamp)));
+
+    assertTrue(results.get(0).isSuccess());
+    assertTrue(results.get(0).isUpdated());
+    assertFalse(results.get(1).isSuccess());
+    assertTrue(results.get(1).getError() instanceof IllegalStateException);
+    // The hooks of urn1 ran when the batch was prepared, and not again when it was retried on its own
+    assertEquals(urn1HookInvocations.get(), 1);
+    verify(_mockEventProducer, times(1)).produceMetadataAuditEvent(urn1, null, foo);
+    verifyNoMoreInteractions(_mockEventProducer);
+  }
+
+  @Test
+  public void testAsyncRetention() throws URISyntaxException {
+    FooUrn urn = new FooUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("foo1");
+    AspectFoo foo2 = new AspectFoo().setValue("foo2");
+    VersionBasedRetention retention = new VersionBasedRetention(1);
+    DummyLocalDAO dao = spy(_dummyLocalDAO);
+    dao.setRetention(AspectFoo.class, retention);
+    dao.enableAsyncRetention(10);
+    expectGetLatest(urn, AspectFoo.class,
+        Arrays.asList(makeAspectEntry(null, null), makeAspectEntry(foo1, _dummyAuditStamp)));
+    doReturn(3L).when(dao).getNextVersion(urn, AspectFoo.class);
+
+    dao.add(urn, foo1, _dummyAuditStamp);
+    dao.add(urn, foo2, _dummyAuditStamp);
+
+    verify(dao, never()).applyVersionBasedRetention(any(), any(), any(), anyLong());
+    assertEquals(dao.getPendingRetentionCount(), 1);
+
+    assertEquals(dao.sweepRetention(10), 1);
+
+    verify(dao, times(1)).applyVersionBasedRetention(AspectFoo.class, urn, retention, 2L);
+    assertEquals(dao.getPendingRetentionCount(), 0);
+    assertEquals(dao.sweepRetention(10), 0);
+  }
+
+  @Test
+  public void testAsyncRetentionEnqueuesAfterCommit() throws URISyntaxException {
+    FooUrn urn = new FooUrn(1);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    DummyLocalDAO dao = spy(_dummyLocalDAO);
+    dao.setRetention(AspectFoo.class, new VersionBasedRetention(1));
+    dao.enableAsyncRetention(10);
+    when(_mockGetLatestFunction.apply(any(), eq(AspectFoo.class))).thenReturn(makeAspectEntry(null, null));
+    List<Runnable> afterCommit = new ArrayList<>();
+    doAnswer(invocation -> afterCommit.add(invocation.getArgument(0))).when(dao).runAfterCommit(any());
+
+    dao.add(urn, foo, _dummyAuditStamp);
+
+    assertEquals(dao.getPendingRetentionCount(), 0);
+    assertEquals(afterCommit.size(), 1);
+
+    afterCommit.forEach(Runnable::run);
+
+    assertEquals(dao.getPendingRetentionCount(), 1);
+    verify(dao, never()).applyVersionBasedRetention(any(), any(), any(), anyLong());
+  }
+
+  @Test
+  public void testAsyncRetentionAppliesOnWriteWhenBacklogIsFull() throws URISyntaxException {
+    FooUrn urn1 = new FooUrn(1);
+    FooUrn urn2 = new FooUrn(2);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    VersionBasedRetention retention = new VersionBasedRetention(1);
+    DummyLocalDAO dao = spy(_dummyLocalDAO);
+    dao.setRetention(AspectFoo.class, retention);
+    dao.enableAsyncRetention(1);
+    when(_mockGetLatestFunction.apply(any(), eq(AspectFoo.class))).thenReturn(makeAspectEntry(null, null));
+
+    dao.add(urn1, foo, _dummyAuditStamp);
+    dao.add(urn2, foo, _dummyAuditStamp);
+
+    verify(dao, never()).applyVersionBasedRetention(AspectFoo.class, urn1, retention, 0L);
+    verify(dao, times(1)).applyVersionBasedRetention(AspectFoo.class, urn2, retention, 0L);
+    assertEquals(dao.getPendingRetentionCount(), 1);
+  }
+
+  @Test
+  public void testSweepRetentionKeepsCandidatesOfFailedChunk() throws URISyntaxException {
+    FooUrn urn = new FooUrn(1);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    DummyLocalDAO dao = spy(_dummyLocalDAO);
+    dao.setRetention(AspectFoo.class, new TimeBasedRetention(1000L));
+    dao.enableAsyncRetention(10);
+    when(_mockGetLatestFunction.apply(any(), eq(AspectFoo.class))).thenReturn(makeAspectEntry(null, null));
+    dao.add(urn, foo, _dummyAuditStamp);
+    doThrow(new IllegalStateException()).when(dao).applyTimeBasedRetention(any(), any(), any(), anyLong());
+
+    assertThrows(IllegalStateException.class, () -> dao.sweepRetention(10));
+
+    assertEquals(dao.getPendingRetentionCount(), 1);
+  }
+
+  @Test
+  public void testWriteSerialization() throws Exception {
+    FooUrn urn = new FooUrn(1);
+    AtomicInteger concurrentWrites = new AtomicInteger();
+    AtomicInteger maxConcurrentWrites = new AtomicInteger();
+    CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    CountDownLatch firstWriteReleased = new CountDownLatch(1);
+    when(_mockGetLatestFunction.apply(any(), eq(AspectFoo.class))).thenReturn(makeAspectEntry(null, null));
+    _dummyLocalDAO.addPreUpdateHook(AspectFoo.class, (ignored, foo) -> {
+      maxConcurrentWrites.accumulateAndGet(concurrentWrites.incrementAndGet(), Math::max);
+      if (foo.getValue().equals("foo0")) {
+        // hold the first write until the others are submitted
+        firstWriteStarted.countDown();
+        try {
+          firstWriteReleased.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      concurrentWrites.decrementAndGet();
+    });
+    _dummyLocalDAO.enableWriteSerialization(4);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(executor.submit(() -> _dummyLocalDAO.add(urn, new AspectFoo().setValue("foo0"), _dummyAuditStamp)));
+      assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+      IntStream.range(1, 40)
+          .forEach(i -> futures.add(
+              executor.submit(() -> _dummyLocalDAO.add(urn, new AspectFoo().setValue("foo" + i), _dummyAuditStamp))));
+      firstWriteReleased.countDown();
+
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      firstWriteReleased.countDown();
+      executor.shutdownNow();
+    }
+
+    assertEquals(maxConcurrentWrites.get(), 1);
+  }
+
+  @Test
+  public void testTransactionRetryBackoff() {
+    _dummyLocalDAO.setTransactionRetryBackoff(10, 50);
+    for (int retryCount = 1; retryCount <= 10; retryCount++) {
+      long backoff = _dummyLocalDAO.getRetryBackoffMillis(retryCount);
+      assertTrue(backoff >= 0 && backoff <= Math.min(50, 10L << (retryCount - 1)), "backoff: " + backoff);
+    }
+    assertTrue(_dummyLocalDAO.getRetryBackoffMillis(Integer.MAX_VALUE) <= 50);
+
+    _dummyLocalDAO.setTransactionRetryBackoff(0, 0);
+    assertEquals(_dummyLocalDAO.getRetryBackoffMillis(3), 0);
+    _dummyLocalDAO.backoffBeforeRetry(1);
+    _dummyLocalDAO.backoffBeforeRetry(2);
+    _dummyLocalDAO.onRetryLimitReached();
+    assertEquals(_dummyLocalDAO.getTransactionRetryCount(), 2);
+    assertEquals(_dummyLocalDAO.getRetryLimitReachedCount(), 1);
+
+    assertThrows(IllegalArgumentException.class, () -> _dummyLocalDAO.setTransactionRetryBackoff(10, 5));
+  }
 }
@@ -0,0 +1,56 @@
+package com.linkedin.metadata.dao;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class RetentionSweeperTest {
+
+  private BaseLocalDAO<?, ?> _mockLocalDAO;
+  private ScheduledExecutorService _mockExecutor;
+
+  @BeforeMethod
+  public void setup() {
+    _mockLocalDAO = mock(BaseLocalDAO.class);
+    _mockExecutor = mock(ScheduledExecutorService.class);
+  }
+
+  @Test
+  public void testStartSchedulesAtMaxChunkRate() {
+    ScheduledFuture<?> future = mock(ScheduledFuture.class);
+    doReturn(future).when(_mockExecutor).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+    RetentionSweeper sweeper = new RetentionSweeper(_mockLocalDAO, _mockExecutor, 100, 4);
+
+    sweeper.start();
+    sweeper.start();
+    sweeper.close();
+
+    verify(_mockExecutor, times(1)).scheduleWithFixedDelay(any(), eq(250_000_000L), eq(250_000_000L),
+        eq(TimeUnit.NANOSECONDS));
+    verify(future, times(1)).cancel(false);
+  }
+
+  @Test
+  public void testSweepChunk() {
+    when(_mockLocalDAO.sweepRetention(100)).thenReturn(100, 30).thenThrow(new IllegalStateException());
+    RetentionSweeper sweeper = new RetentionSweeper(_mockLocalDAO, _mockExecutor, 100, 1);
+
+    sweeper.sweepChunk();
+    sweeper.sweepChunk();
+    sweeper.sweepChunk();
+
+    assertEquals(sweeper.getSweptCount(), 130L);
+    assertEquals(sweeper.getFailedChunkCount(), 1L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidChunkSize() {
+    new RetentionSweeper(_mockLocalDAO, _mockExecutor, 0, 1);
+  }
+}
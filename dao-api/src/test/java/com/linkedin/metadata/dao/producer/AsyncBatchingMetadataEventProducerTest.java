@@ -0,0 +1,193 @@
+package com.linkedin.metadata.dao.producer;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.metadata.dao.producer.AsyncBatchingMetadataEventProducer.BackPressure;
+import com.linkedin.metadata.dummy.DummyAspect;
+import com.linkedin.metadata.dummy.DummySnapshot;
+import com.linkedin.testing.AspectFoo;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static com.linkedin.testing.TestUtils.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class AsyncBatchingMetadataEventProducerTest {
+
+  private DummyMetadataEventProducer<Urn> _delegate;
+  private ExecutorService _executor;
+
+  @BeforeMethod
+  public void setup() {
+    _delegate = spy(new DummyMetadataEventProducer<>());
+    _executor = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterMethod
+  public void teardown() {
+    _executor.shutdownNow();
+  }
+
+  @Test
+  public void testProducesEventsOfUrnInOrder() throws InterruptedException {
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, _executor, 2, 100, 10, BackPressure.BLOCK);
+    Urn urn1 = makeUrn(1);
+    Urn urn2 = makeUrn(2);
+
+    for (int i = 0; i < 20; i++) {
+      producer.produceMetadataAuditEvent(urn1, new AspectFoo().setValue("" + i), new AspectFoo().setValue("" + (i + 1)));
+      producer.produceAspectSpecificMetadataAuditEvent(urn2, null, new AspectFoo().setValue("" + i));
+    }
+    producer.close();
+
+    InOrder inOrder = inOrder(_delegate);
+    for (int i = 0; i < 20; i++) {
+      inOrder.verify(_delegate).produceMetadataAuditEvent(urn1, new AspectFoo().setValue("" + i),
+          new AspectFoo().setValue("" + (i + 1)));
+    }
+    inOrder = inOrder(_delegate);
+    for (int i = 0; i < 20; i++) {
+      inOrder.verify(_delegate).produceAspectSpecificMetadataAuditEvent(urn2, null, new AspectFoo().setValue("" + i));
+    }
+    assertEquals(producer.getProducedCount(), 40);
+    assertEquals(producer.getQueueDepth(), 0);
+    assertTrue(producer.getBatchCount() > 0 && producer.getBatchCount() <= 40);
+  }
+
+  @Test
+  public void testFlush() throws InterruptedException {
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, _executor, 1, 100, 10, BackPressure.BLOCK);
+    Urn urn = makeUrn(1);
+    doThrow(new IllegalStateException()).when(_delegate).produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("bad"));
+
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("bad"));
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("good"));
+
+    assertTrue(producer.flush(10, TimeUnit.SECONDS));
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("good"));
+    assertEquals(producer.getProducedCount(), 1);
+    assertEquals(producer.getFailedCount(), 1);
+    producer.close();
+  }
+
+  @Test
+  public void testProducesCopiesOfAspects() throws InterruptedException {
+    // the worker only runs once the caller is done with the aspects
+    ExecutorService mockExecutor = mock(ExecutorService.class);
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, mockExecutor, 1, 10, 10, BackPressure.FAIL);
+    ArgumentCaptor<Runnable> worker = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockExecutor).execute(worker.capture());
+    Urn urn = makeUrn(1);
+    AspectFoo oldValue = new AspectFoo().setValue("old");
+    AspectFoo newValue = new AspectFoo().setValue("new");
+
+    producer.produceMetadataAuditEvent(urn, oldValue, newValue);
+    oldValue.setValue("changed");
+    newValue.setValue("changed");
+    _executor.execute(worker.getValue());
+    producer.close();
+
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, new AspectFoo().setValue("old"),
+        new AspectFoo().setValue("new"));
+  }
+
+  @Test
+  public void testHandsBatchesToDelegate() throws InterruptedException {
+    // the worker only runs once all the events are queued, so it hands them over in one batch
+    ExecutorService mockExecutor = mock(ExecutorService.class);
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, mockExecutor, 1, 10, 10, BackPressure.FAIL);
+    ArgumentCaptor<Runnable> worker = ArgumentCaptor.forClass(Runnable.class);
+    verify(mockExecutor).execute(worker.capture());
+    Urn urn = makeUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("1");
+    AspectFoo foo2 = new AspectFoo().setValue("2");
+
+    producer.produceMetadataAuditEvent(urn, null, foo1);
+    producer.produceAspectSpecificMetadataAuditEvent(urn, foo1, foo2);
+    _executor.execute(worker.getValue());
+    producer.close();
+
+    verify(_delegate, times(1)).produceMetadataAuditEvents(
+        Arrays.asList(new AuditEvent<>(urn, null, foo1, false), new AuditEvent<>(urn, foo1, foo2, true)));
+    assertEquals(producer.getBatchCount(), 1);
+    assertEquals(producer.getProducedCount(), 2);
+  }
+
+  @Test
+  public void testFailedBatchIsSkipped() throws InterruptedException {
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, _executor, 1, 10, 10, BackPressure.BLOCK);
+    doThrow(new IllegalStateException()).when(_delegate).produceMetadataAuditEvents(anyList());
+
+    producer.produceMetadataAuditEvent(makeUrn(1), null, new AspectFoo().setValue("foo"));
+
+    assertTrue(producer.flush(10, TimeUnit.SECONDS));
+    assertEquals(producer.getProducedCount(), 0);
+    assertEquals(producer.getFailedCount(), 1);
+    producer.close();
+  }
+
+  @Test
+  public void testMetadataChangeEventIsProducedSynchronously() throws InterruptedException {
+    // no worker ever runs, yet the MCE is produced
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, mock(ExecutorService.class), 1, 1, 1, BackPressure.FAIL);
+    Urn urn = makeUrn(1);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+
+    producer.produceSnapshotBasedMetadataChangeEvent(urn, foo);
+
+    verify(_delegate, times(1)).produceSnapshotBasedMetadataChangeEvent(urn, foo);
+  }
+
+  @Test
+  public void testFailBackPressure() {
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, mock(ExecutorService.class), 1, 2, 10, BackPressure.FAIL);
+    Urn urn = makeUrn(1);
+
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("1"));
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("2"));
+
+    assertThrows(RejectedExecutionException.class,
+        () -> producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("3")));
+    assertEquals(producer.getQueueDepth(), 2);
+  }
+
+  @Test
+  public void testDropOldestBackPressure() {
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, mock(ExecutorService.class), 1, 2, 10, BackPressure.DROP_OLDEST);
+    Urn urn = makeUrn(1);
+
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("1"));
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("2"));
+    producer.produceMetadataAuditEvent(urn, null, new AspectFoo().setValue("3"));
+
+    assertEquals(producer.getDroppedCount(), 1);
+    assertEquals(producer.getQueueDepth(), 2);
+  }
+
+  @Test
+  public void testProduceAfterCloseFails() throws InterruptedException {
+    AsyncBatchingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> producer =
+        new AsyncBatchingMetadataEventProducer<>(_delegate, _executor, 1, 10, 10, BackPressure.BLOCK);
+    producer.close();
+
+    assertThrows(IllegalStateException.class,
+        () -> producer.produceMetadataAuditEvent(makeUrn(1), null, new AspectFoo().setValue("foo")));
+  }
+}
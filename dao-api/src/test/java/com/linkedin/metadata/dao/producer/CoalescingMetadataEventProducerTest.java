@@ -0,0 +1,142 @@
+package com.linkedin.metadata.dao.producer;
+
+import com.linkedin.common.urn.Urn;
+import com.linkedin.metadata.dummy.DummyAspect;
+import com.linkedin.metadata.dummy.DummySnapshot;
+import com.linkedin.testing.AspectBar;
+import com.linkedin.testing.AspectFoo;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static com.linkedin.testing.TestUtils.*;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class CoalescingMetadataEventProducerTest {
+
+  private DummyMetadataEventProducer<Urn> _delegate;
+  private ScheduledExecutorService _mockExecutor;
+  private CoalescingMetadataEventProducer<DummySnapshot, DummyAspect, Urn> _producer;
+
+  @BeforeMethod
+  public void setup() {
+    _delegate = spy(new DummyMetadataEventProducer<>());
+    _mockExecutor = mock(ScheduledExecutorService.class);
+    _producer = new CoalescingMetadataEventProducer<>(_delegate, _mockExecutor, 500);
+  }
+
+  private List<Runnable> getScheduledReleases(int count) {
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(_mockExecutor, times(count)).schedule(captor.capture(), eq(500L), eq(TimeUnit.MILLISECONDS));
+    return captor.getAllValues();
+  }
+
+  @Test
+  public void testCoalescesEventsOfSameAspect() {
+    Urn urn = makeUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("1");
+    AspectFoo foo2 = new AspectFoo().setValue("2");
+    AspectFoo foo3 = new AspectFoo().setValue("3");
+
+    _producer.produceMetadataAuditEvent(urn, null, foo1);
+    _producer.produceMetadataAuditEvent(urn, foo1, foo2);
+    _producer.produceMetadataAuditEvent(urn, foo2, foo3);
+
+    verify(_delegate, never()).produceMetadataAuditEvent(any(), any(), any());
+    assertEquals(_producer.getHeldCount(), 1);
+    getScheduledReleases(1).forEach(Runnable::run);
+
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, null, foo3);
+    verify(_delegate, times(1)).produceMetadataAuditEvent(any(), any(), any());
+    assertEquals(_producer.getCoalescedCount(), 2);
+    assertEquals(_producer.getHeldCount(), 0);
+  }
+
+  @Test
+  public void testHoldsAspectsAndEventTypesSeparately() {
+    Urn urn1 = makeUrn(1);
+    Urn urn2 = makeUrn(2);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    AspectBar bar = new AspectBar().setValue("bar");
+
+    _producer.produceMetadataAuditEvent(urn1, null, foo);
+    _producer.produceMetadataAuditEvent(urn1, null, bar);
+    _producer.produceMetadataAuditEvent(urn2, null, foo);
+    _producer.produceAspectSpecificMetadataAuditEvent(urn1, null, foo);
+
+    assertEquals(_producer.getHeldCount(), 4);
+    getScheduledReleases(4).forEach(Runnable::run);
+
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn1, null, foo);
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn1, null, bar);
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn2, null, foo);
+    verify(_delegate, times(1)).produceAspectSpecificMetadataAuditEvent(urn1, null, foo);
+    assertEquals(_producer.getCoalescedCount(), 0);
+  }
+
+  @Test
+  public void testCloseReleasesHeldEvents() {
+    Urn urn = makeUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("1");
+    AspectFoo foo2 = new AspectFoo().setValue("2");
+    _producer.produceMetadataAuditEvent(urn, null, foo1);
+
+    _producer.close();
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, null, foo1);
+
+    // a release scheduled before the close is a no-op, later events go through right away
+    getScheduledReleases(1).forEach(Runnable::run);
+    _producer.produceMetadataAuditEvent(urn, foo1, foo2);
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, foo1, foo2);
+    verify(_delegate, times(2)).produceMetadataAuditEvent(any(), any(), any());
+  }
+
+  @Test
+  public void testEventHeldAfterFlushKeepsItsWindow() {
+    Urn urn = makeUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("1");
+    AspectFoo foo2 = new AspectFoo().setValue("2");
+    _producer.produceMetadataAuditEvent(urn, null, foo1);
+    _producer.flush();
+    _producer.produceMetadataAuditEvent(urn, foo1, foo2);
+
+    // the release scheduled for the flushed event doesn't release the later one
+    List<Runnable> releases = getScheduledReleases(2);
+    releases.get(0).run();
+    verify(_delegate, never()).produceMetadataAuditEvent(urn, foo1, foo2);
+    assertEquals(_producer.getHeldCount(), 1);
+
+    releases.get(1).run();
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, foo1, foo2);
+  }
+
+  @Test
+  public void testHoldsCopiesOfAspects() {
+    Urn urn = makeUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("1");
+    AspectFoo foo2 = new AspectFoo().setValue("2");
+    _producer.produceMetadataAuditEvent(urn, foo1, foo2);
+    foo1.setValue("changed");
+    foo2.setValue("changed");
+
+    getScheduledReleases(1).forEach(Runnable::run);
+
+    verify(_delegate, times(1)).produceMetadataAuditEvent(urn, new AspectFoo().setValue("1"), new AspectFoo().setValue("2"));
+  }
+
+  @Test
+  public void testMetadataChangeEventIsNotHeld() {
+    Urn urn = makeUrn(1);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+
+    _producer.produceSnapshotBasedMetadataChangeEvent(urn, foo);
+
+    verify(_delegate, times(1)).produceSnapshotBasedMetadataChangeEvent(urn, foo);
+    assertEquals(_producer.getHeldCount(), 0);
+  }
+}
@@ -0,0 +1,73 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.google.common.collect.ImmutableSet;
+import com.linkedin.testing.AspectBar;
+import com.linkedin.testing.AspectFoo;
+import com.linkedin.testing.EntityAspectUnion;
+import com.linkedin.testing.EntityAspectUnionArray;
+import com.linkedin.testing.EntityBar;
+import com.linkedin.testing.EntityFoo;
+import com.linkedin.testing.EntitySnapshot;
+import com.linkedin.testing.EntityUnionAlias;
+import com.linkedin.testing.FooSnapshot;
+import com.linkedin.testing.urn.FooUrn;
+import org.testng.annotations.Test;
+
+import static com.linkedin.testing.TestUtils.*;
+import static org.testng.Assert.*;
+
+
+public class ModelMetadataTest {
+
+  @Test
+  public void testSnapshotMetadata() {
+    ModelMetadata.SnapshotMetadata metadata = ModelMetadata.forSnapshot(FooSnapshot.class);
+
+    assertSame(ModelMetadata.forSnapshot(FooSnapshot.class), metadata);
+    assertEquals(metadata.getUrnClass(), FooUrn.class);
+    assertEquals(metadata.getEntityType(), FooUrn.ENTITY_TYPE);
+    assertEquals(metadata.getAspectArrayClass(), EntityAspectUnionArray.class);
+    assertEquals(metadata.getAspectUnionClass(), EntityAspectUnion.class);
+
+    FooUrn urn = makeFooUrn(1);
+    EntityAspectUnionArray aspects = (EntityAspectUnionArray) metadata.newAspectArray();
+    aspects.add(EntityAspectUnion.create(new AspectFoo().setValue("foo")));
+    FooSnapshot snapshot = new FooSnapshot().setUrn(urn);
+    metadata.setAspects(snapshot, aspects);
+
+    assertEquals(metadata.getUrn(snapshot), urn);
+    assertEquals(metadata.getAspects(snapshot), aspects);
+    assertEquals(snapshot.getAspects(), aspects);
+  }
+
+  @Test
+  public void testSnapshotMetadataWithoutEntityType() {
+    assertNull(ModelMetadata.forSnapshot(EntitySnapshot.class).getEntityType());
+  }
+
+  @Test
+  public void testUnionMetadata() {
+    ModelMetadata.UnionMetadata metadata = ModelMetadata.forUnion(EntityAspectUnion.class);
+
+    assertSame(ModelMetadata.forUnion(EntityAspectUnion.class), metadata);
+    assertEquals(metadata.getRecordMembers(), ImmutableSet.of(AspectFoo.class, AspectBar.class));
+    assertTrue(metadata.getAliases().isEmpty());
+
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    EntityAspectUnion union = (EntityAspectUnion) metadata.newUnion(foo);
+    assertEquals(union.getAspectFoo(), foo);
+  }
+
+  @Test
+  public void testUnionMetadataWithAliases() {
+    ModelMetadata.UnionMetadata metadata = ModelMetadata.forUnion(EntityUnionAlias.class);
+
+    assertEquals(metadata.getMemberKeys().size(), 2);
+    assertTrue(metadata.getMemberKeys().containsAll(ImmutableSet.of("foo", "bar")));
+    assertEquals(metadata.getAliases().get(EntityFoo.class.getName()), "foo");
+
+    EntityBar bar = new EntityBar().setUrn(makeBarUrn(1));
+    EntityUnionAlias union = (EntityUnionAlias) metadata.newUnion(bar);
+    assertEquals(union.getBar(), bar);
+  }
+}
@@ -1,6 +1,7 @@
 package com.linkedin.metadata.dao.utils;
 
 import com.linkedin.common.urn.Urn;
+import com.linkedin.data.DataMap;
 import com.linkedin.data.schema.PathSpec;
 import com.linkedin.data.schema.RecordDataSchema;
 import com.linkedin.data.template.RecordTemplate;
@@ -73,6 +74,27 @@ public class RecordUtilsTest {
     RecordUtils.toRecordTemplate(AspectFoo.class, "invalid_json");
   }
 
+  @Test
+  public void testToRecordTemplateReusesConstructor() {
+    DataMap dataMap1 = new AspectFoo().setValue("foo").data();
+    DataMap dataMap2 = new AspectFoo().setValue("bar").data();
+
+    AspectFoo foo = RecordUtils.toRecordTemplate(AspectFoo.class, dataMap1);
+    AspectFoo bar = RecordUtils.toRecordTemplate(AspectFoo.class, dataMap2);
+
+    assertSame(foo.data(), dataMap1);
+    assertSame(bar.data(), dataMap2);
+    assertEquals(foo.getValue(), "foo");
+    assertEquals(bar.getValue(), "bar");
+  }
+
+  @Test
+  public void testToRecordTemplateFromInvalidClass() {
+    assertThrows(ModelConversionException.class, () -> RecordUtils.toRecordTemplate(RecordTemplate.class, new DataMap()));
+    assertThrows(ModelConversionException.class, () -> RecordUtils.toRecordTemplate("com.linkedin.testing.Missing", new DataMap()));
+    assertThrows(ModelConversionException.class, () -> RecordUtils.toRecordTemplate(String.class.getName(), new DataMap()));
+  }
+
   @Test
   public void testGetValidRecordDataSchemaField() {
     RecordDataSchema schema = ValidationUtils.getRecordSchema(AspectFoo.class);
@@ -506,6 +528,69 @@ public class RecordUtilsTest {
     assertEquals(ps7.toString(), "/recordUnionAlias/bar/value");
   }
 
+  @Test(description = "Test compilePath() reads the same values as getFieldValue()")
+  public void testCompilePath() {
+    FooUrn urn = makeFooUrn(1);
+    AspectFooArray aspectFooArray =
+        new AspectFooArray(Arrays.asList(new AspectFoo().setValue("val1"), new AspectFoo().setValue("val2")));
+    AspectBarArray aspectBarArray =
+        new AspectBarArray(Arrays.asList(new AspectBar().setValue("bar0"), new AspectBar().setValue("bar1")));
+    final MixedRecord mixedRecord = new MixedRecord().setValue("fooVal")
+        .setFooUrn(urn)
+        .setIntTypeRef(2)
+        .setRecordTypeRef(new AspectFoo().setValue("typeRefVal"))
+        .setRecordArray(aspectFooArray)
+        .setRecordUnion(EntityAspectUnion.create(new AspectFoo().setValue("foo0")))
+        .setRecordUnionComplex(EntityAspectUnionComplex.create(new AspectBaz().setArrayRecordsField(aspectBarArray)));
+
+    FieldValueExtractor extractor = RecordUtils.compilePath(MixedRecord.class, "/value");
+    assertEquals(extractor.getPath(), "/value");
+    assertEquals(extractor.extract(mixedRecord).get(), "fooVal");
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/defaultField").extract(mixedRecord).get(), "defaultVal");
+    assertFalse(RecordUtils.compilePath(MixedRecord.class, "/flag").extract(mixedRecord).isPresent());
+
+    // custom types and typerefs are read as their underlying primitive
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/fooUrn").extract(mixedRecord).get(), urn.toString());
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/intTypeRef").extract(mixedRecord).get(), 2);
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/recordTypeRef/value").extract(mixedRecord).get(),
+        "typeRefVal");
+
+    // arrays, with or without wildcard
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/recordArray/*/value").extract(mixedRecord).get(),
+        Arrays.asList("val1", "val2"));
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/recordArray/value").extract(mixedRecord).get(),
+        Arrays.asList("val1", "val2"));
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/nestedRecordArray/*/foo/value").extract(mixedRecord),
+        Optional.empty());
+
+    // unions of records
+    assertEquals(RecordUtils.compilePath(MixedRecord.class, "/recordUnion/com.linkedin.testing.AspectFoo/value")
+        .extract(mixedRecord)
+        .get(), "foo0");
+    assertFalse(RecordUtils.compilePath(MixedRecord.class, "/recordUnion/com.linkedin.testing.AspectBar/value")
+        .extract(mixedRecord)
+        .isPresent());
+    assertEquals(RecordUtils.compilePath(MixedRecord.class,
+        "/recordUnionComplex/com.linkedin.testing.AspectBaz/arrayRecordsField/*/value").extract(mixedRecord).get(),
+        Arrays.asList("bar0", "bar1"));
+
+    // the values match the ones of getFieldValue, as stored in the local secondary index
+    for (String path : Arrays.asList("/value", "/defaultField", "/fooUrn", "/intTypeRef", "/recordUnion/com.linkedin.testing.AspectFoo/value")) {
+      assertEquals(RecordUtils.compilePath(MixedRecord.class, path).extract(mixedRecord).get().toString(),
+          RecordUtils.getFieldValue(mixedRecord, path).get().toString());
+    }
+  }
+
+  @Test
+  public void testCompileInvalidPath() {
+    assertThrows(InvalidSchemaException.class, () -> RecordUtils.compilePath(MixedRecord.class, "/invalidField"));
+    assertThrows(UnsupportedOperationException.class,
+        () -> RecordUtils.compilePath(MixedRecord.class, "/recordArray/0/value"));
+    assertThrows(UnsupportedOperationException.class, () -> RecordUtils.compilePath(MixedRecord.class, "/value/length"));
+    assertThrows(IllegalArgumentException.class,
+        () -> RecordUtils.compilePath(MixedRecord.class, "/value").extract(new AspectFoo().setValue("foo")));
+  }
+
   @Test
   public void testCapitalizeFirst() {
     String s = "field1";
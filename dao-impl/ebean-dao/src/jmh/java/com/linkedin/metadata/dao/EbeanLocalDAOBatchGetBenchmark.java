@@ -0,0 +1,101 @@
+package com.linkedin.metadata.dao;
+
+import com.linkedin.common.AuditStamp;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.metadata.dao.EbeanLocalDAO.RecordKey;
+import com.linkedin.metadata.dao.producer.BaseMetadataEventProducer;
+import com.linkedin.metadata.dao.utils.EbeanServerUtils;
+import com.linkedin.metadata.dao.utils.ModelUtils;
+import com.linkedin.testing.AspectFoo;
+import com.linkedin.testing.EntityAspectUnion;
+import com.linkedin.testing.urn.FooUrn;
+import io.ebean.EbeanServer;
+import io.ebean.EbeanServerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static com.linkedin.testing.TestUtils.*;
+import static org.mockito.Mockito.*;
+
+
+/**
+ * Measures how the cost of matching the keys of a batch get with the fetched records grows with the number of keys.
+ * {@link EbeanLocalDAO} joins them with a hash index, see {@link EbeanLocalDAO#indexRecords(List)}, so the time per key
+ * of {@link #indexAndMatch()} should stay flat from 1k to 5k keys, while a scan of the records per key would grow
+ * linearly with the number of keys. {@link #batchGet()} measures the whole {@link EbeanLocalDAO#get(Set)} on H2.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EbeanLocalDAOBatchGetBenchmark {
+
+  @Param({"1000", "2000", "5000"})
+  private int _keyCount;
+
+  private EbeanServer _server;
+  private EbeanLocalDAO<EntityAspectUnion, FooUrn> _dao;
+  private Set<AspectKey<FooUrn, ? extends RecordTemplate>> _keys;
+  private List<EbeanMetadataAspect> _records;
+
+  @Setup
+  public void setup() {
+    _server = EbeanServerFactory.create(EbeanServerUtils.createTestingH2ServerConfig());
+    _dao = new EbeanLocalDAO<>(EntityAspectUnion.class, mock(BaseMetadataEventProducer.class), _server, FooUrn.class);
+
+    _keys = new HashSet<>();
+    _records = new ArrayList<>(_keyCount);
+    final AuditStamp auditStamp = makeAuditStamp("foo", 1234);
+    for (int i = 0; i < _keyCount; i++) {
+      final FooUrn urn = makeFooUrn(i);
+      _dao.add(urn, new AspectFoo().setValue("foo" + i), auditStamp);
+      _keys.add(new AspectKey<>(AspectFoo.class, urn, 0L));
+
+      final EbeanMetadataAspect record = new EbeanMetadataAspect();
+      record.setKey(new EbeanMetadataAspect.PrimaryKey(urn.toString(), ModelUtils.getAspectName(AspectFoo.class), 0L));
+      record.setMetadata("{}");
+      _records.add(record);
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    _server.shutdown(false, false);
+  }
+
+  @Benchmark
+  public int indexAndMatch() {
+    final Map<RecordKey, EbeanMetadataAspect> index = EbeanLocalDAO.indexRecords(_records);
+    int matched = 0;
+    for (AspectKey<FooUrn, ? extends RecordTemplate> key : _keys) {
+      if (index.get(RecordKey.of(key)) != null) {
+        matched++;
+      }
+    }
+    return matched;
+  }
+
+  @Benchmark
+  public Map<AspectKey<FooUrn, ? extends RecordTemplate>, Optional<? extends RecordTemplate>> batchGet() {
+    return _dao.get(_keys);
+  }
+}
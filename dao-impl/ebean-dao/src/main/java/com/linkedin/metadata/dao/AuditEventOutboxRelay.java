@@ -0,0 +1,82 @@
+package com.linkedin.metadata.dao;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+import lombok.extern.slf4j.Slf4j;
+
+
+/**
+ * Background relay which produces the audit events saved to the outbox of an {@link EbeanLocalDAO}, see
+ * {@link EbeanLocalDAO#enableAuditEventOutbox(boolean)}.
+ *
+ * <p>Every {@code pollIntervalMillis}, events are relayed in batches of at most {@code batchSize} until the outbox is
+ * drained or a batch fails. Running a single relay per outbox table keeps the latency of pending events the lowest, as
+ * concurrent relays wait for each other's batches.</p>
+ */
+@Slf4j
+public class AuditEventOutboxRelay extends PeriodicRunner {
+
+  private final EbeanLocalDAO<?, ?> _localDAO;
+  private final int _batchSize;
+
+  private final AtomicLong _relayedCount = new AtomicLong();
+
+  /**
+   * Constructor for AuditEventOutboxRelay.
+   *
+   * @param localDAO the DAO whose outbox is relayed
+   * @param executor the executor to run the relay on
+   * @param batchSize the max number of events to relay per transaction
+   * @param pollIntervalMillis the delay between the time the outbox is drained and the next poll, in milliseconds
+   */
+  public AuditEventOutboxRelay(@Nonnull EbeanLocalDAO<?, ?> localDAO, @Nonnull ScheduledExecutorService executor,
+      int batchSize, long pollIntervalMillis) {
+    super(executor, validatePollInterval(batchSize, pollIntervalMillis), TimeUnit.MILLISECONDS);
+    _localDAO = localDAO;
+    _batchSize = batchSize;
+  }
+
+  private static long validatePollInterval(int batchSize, long pollIntervalMillis) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    if (pollIntervalMillis <= 0) {
+      throw new IllegalArgumentException("Poll interval must be positive: " + pollIntervalMillis);
+    }
+    return pollIntervalMillis;
+  }
+
+  /**
+   * Gets the number of events relayed so far.
+   */
+  public long getRelayedCount() {
+    return _relayedCount.get();
+  }
+
+  /**
+   * Gets the number of batches which failed so far. The events of a failed batch are still pending.
+   */
+  public long getFailedBatchCount() {
+    return getFailedRunCount();
+  }
+
+  @Override
+  protected void runTask() {
+    int drained = 0;
+    int relayed;
+    do {
+      relayed = _localDAO.relayAuditEvents(_batchSize);
+      _relayedCount.addAndGet(relayed);
+      drained += relayed;
+    } while (relayed == _batchSize && !Thread.currentThread().isInterrupted());
+    if (drained > 0) {
+      log.debug("Relayed {} audit events from the outbox", drained);
+    }
+  }
+
+  void drain() {
+    runOnce();
+  }
+}
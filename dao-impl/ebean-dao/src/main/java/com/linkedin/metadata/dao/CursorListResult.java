@@ -0,0 +1,31 @@
+package com.linkedin.metadata.dao;
+
+import java.util.List;
+import javax.annotation.Nullable;
+import lombok.Builder;
+import lombok.Value;
+
+
+/**
+ * An immutable value class that holds a page of a keyset paginated list operation.
+ *
+ * <p>Unlike {@link ListResult}, it carries no total count, which would require scanning every matching row for each
+ * page. Counts can be requested separately when they are actually needed.
+ *
+ * @param <T> the result type
+ */
+@Builder
+@Value
+public class CursorListResult<T> {
+
+  // A single page of results
+  List<T> values;
+
+  // Opaque continuation token to pass in to get the next page, null if this is the last page
+  @Nullable
+  String nextCursor;
+
+  public boolean isHavingMore() {
+    return nextCursor != null;
+  }
+}
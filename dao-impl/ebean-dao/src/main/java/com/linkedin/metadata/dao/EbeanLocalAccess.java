@@ -1,5 +1,7 @@
 package com.linkedin.metadata.dao;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.linkedin.common.AuditStamp;
 import com.linkedin.common.urn.Urn;
 import com.linkedin.data.template.RecordTemplate;
@@ -7,6 +9,9 @@ import com.linkedin.data.template.SetMode;
 import com.linkedin.metadata.aspect.AuditedAspect;
 import com.linkedin.metadata.dao.builder.BaseLocalRelationshipBuilder;
 import com.linkedin.metadata.dao.builder.LocalRelationshipBuilderRegistry;
+import com.linkedin.metadata.dao.utils.AuditedAspectDecoder;
+import com.linkedin.metadata.dao.utils.AuditedAspectDecoder.DecodedAuditedAspect;
+import com.linkedin.metadata.dao.utils.KeysetCursor;
 import com.linkedin.metadata.dao.utils.ModelUtils;
 import com.linkedin.metadata.dao.utils.RecordUtils;
 import com.linkedin.metadata.dao.utils.SQLSchemaUtils;
@@ -21,6 +26,7 @@ import io.ebean.SqlUpdate;
 import io.ebean.annotation.Transactional;
 import io.ebean.config.ServerConfig;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -28,15 +34,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 import static com.linkedin.metadata.dao.utils.EBeanDAOUtils.*;
 import static com.linkedin.metadata.dao.utils.SQLIndexFilterUtils.*;
@@ -52,10 +59,12 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
   private final EbeanLocalRelationshipWriterDAO _localRelationshipWriterDAO;
   private LocalRelationshipBuilderRegistry _localRelationshipBuilderRegistry;
 
+  // total counts keyed by count SQL and its bind parameters, null if counts are not cached
+  private volatile Cache<List<Object>, Integer> _totalCountCache;
+
   // TODO confirm if the default page size is 1000 in other code context.
   private static final int DEFAULT_PAGE_SIZE = 1000;
   private static final long LATEST_VERSION = 0L;
-  private static final JSONParser JSON_PARSER = new JSONParser();
   private static final String ASPECT_JSON_PLACEHOLDER = "__PLACEHOLDER__";
   private static final String DEFAULT_ACTOR = "urn:li:principal:UNKNOWN";
 
@@ -124,18 +133,16 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
   public <ASPECT extends RecordTemplate> List<EbeanMetadataAspect> batchGetOr(
       @Nonnull List<AspectKey<URN, ? extends RecordTemplate>> aspectKeys, int keysCount, int position) {
     // batchGetOr is discouraged due to its performance disadvantage comparing to batchGetUnion approach
-    // TODO one optimization could be done is to group queries for the same entity type, to reduce union query statements,
-    // TODO but it should be done on batchGetUnion() method.
     return batchGetUnion(aspectKeys, keysCount, position);
   }
 
   /**
-   * Construct and execute a SQL statement as follows.
-   * SELECT urn, aspect1, lastmodifiedon, lastmodifiedby FROM metadata_entity_foo WHERE urn = 'urn:1' AND aspect1 != '{"gma_deleted":true}'
-   * UNION ALL
-   * SELECT urn, aspect2, lastmodifiedon, lastmodifiedby FROM metadata_entity_foo WHERE urn = 'urn:1' AND aspect2 != '{"gma_deleted":true}'
-   * UNION ALL
-   * SELECT urn, aspect1, lastmodifiedon, lastmodifiedby FROM metadata_entity_foo WHERE urn = 'urn:2' AND aspect1 != '{"gma_deleted":true}'
+   * Reads the requested aspects with one statement per entity table. All aspects of an entity are columns of the same
+   * entity table row, so each entity row is read once no matter how many of its aspects are requested:
+   * SELECT urn, a_aspect1, a_aspect2 FROM metadata_entity_foo WHERE urn IN (?, ?)
+   *
+   * <p>Each row is then fanned out into one {@link EbeanMetadataAspect} per requested (urn, aspect) pair which is present
+   * and not soft-deleted.
    * @param aspectKeys a List of keys (urn, aspect pairings) to query for
    * @param keysCount number of keys to query
    * @param position position of the key to start from
@@ -145,27 +152,43 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
       @Nonnull List<AspectKey<URN, ? extends RecordTemplate>> aspectKeys, int keysCount, int position) {
 
     final int end = Math.min(aspectKeys.size(), position + keysCount);
-    final Map<Class<ASPECT>, Set<Urn>> keysToQueryMap = new HashMap<>();
+
+    // entity table -> urns to read, and urn -> aspect columns requested for that urn
+    final Map<String, Set<Urn>> urnsByTable = new HashMap<>();
+    final Map<String, Set<String>> columnsByTable = new HashMap<>();
+    final Map<String, Set<String>> requestedColumnsByUrn = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
     for (int index = position; index < end; index++) {
       final Urn entityUrn = aspectKeys.get(index).getUrn();
-      final Class<ASPECT> aspectClass = (Class<ASPECT>) aspectKeys.get(index).getAspectClass();
-      keysToQueryMap.computeIfAbsent(aspectClass, unused -> new HashSet<>()).add(entityUrn);
+      final String tableName = SQLSchemaUtils.getTableName(entityUrn);
+      final String columnName = SQLSchemaUtils.getAspectColumnName(aspectKeys.get(index).getAspectClass());
+      urnsByTable.computeIfAbsent(tableName, unused -> new LinkedHashSet<>()).add(entityUrn);
+      columnsByTable.computeIfAbsent(tableName, unused -> new TreeSet<>()).add(columnName);
+      requestedColumnsByUrn.computeIfAbsent(entityUrn.toString(), unused -> new HashSet<>()).add(columnName);
     }
 
-    // each statement is for a single aspect class
-    List<String> selectStatements = keysToQueryMap.entrySet().stream()
-        .map(entry -> SQLStatementUtils.createAspectReadSql(entry.getKey(), entry.getValue()))
-        .collect(Collectors.toList());
-
-    // consolidate/join the results
-    List<SqlRow> sqlRows = selectStatements.stream().flatMap(sql -> _server.createSqlQuery(sql).findList().stream()).collect(Collectors.toList());
-    return readSqlRows(sqlRows);
+    final List<EbeanMetadataAspect> results = new ArrayList<>();
+    for (Map.Entry<String, Set<Urn>> entry : urnsByTable.entrySet()) {
+      final List<Object> params = new ArrayList<>();
+      final String sql =
+          SQLStatementUtils.createEntityAspectsReadSql(columnsByTable.get(entry.getKey()), entry.getValue(), params);
+      for (SqlRow sqlRow : bindParameters(_server.createSqlQuery(sql), params).findList()) {
+        final String urn = sqlRow.getString("urn");
+        final Set<String> requestedColumns = requestedColumnsByUrn.getOrDefault(urn, Collections.emptySet());
+        for (String columnName : requestedColumns) {
+          final String auditedAspect = sqlRow.getString(columnName);
+          if (auditedAspect != null && !isSoftDeletedAuditedAspect(auditedAspect)) {
+            results.add(toEbeanMetadataAspect(urn, auditedAspect));
+          }
+        }
+      }
+    }
+    return results;
   }
 
   @Override
   public List<URN> listUrns(@Nonnull IndexFilter indexFilter, @Nullable IndexSortCriterion indexSortCriterion,
       @Nullable URN lastUrn, int pageSize) {
-    SqlQuery sqlQuery = createFilterSqlQuery(indexFilter, indexSortCriterion, lastUrn, 0, pageSize);
+    SqlQuery sqlQuery = createFilterSqlQuery(indexFilter, indexSortCriterion, lastUrn, 0, pageSize, false);
     final List<SqlRow> sqlRows = sqlQuery.setFirstRow(0).findList();
     return sqlRows.stream().map(sqlRow -> getUrn(sqlRow.getString("urn"), _urnClass)).collect(Collectors.toList());
   }
@@ -173,21 +196,79 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
   @Override
   public ListResult<URN> listUrns(@Nonnull IndexFilter indexFilter, @Nullable IndexSortCriterion indexSortCriterion,
       int start, int pageSize) {
-    final SqlQuery sqlQuery = createFilterSqlQuery(indexFilter, indexSortCriterion, null, start, pageSize);
+    final SqlQuery sqlQuery = createFilterSqlQuery(indexFilter, indexSortCriterion, null, start, pageSize, true);
     final List<SqlRow> sqlRows = sqlQuery.findList();
     if (sqlRows.size() == 0) {
-      final List<SqlRow> totalCountResults = createFilterSqlQuery(indexFilter, indexSortCriterion, null, 0, DEFAULT_PAGE_SIZE).findList();
-      final int actualTotalCount = totalCountResults.isEmpty() ? 0 : totalCountResults.get(0).getInteger("_total_count");
-      return toListResult(actualTotalCount, start, pageSize);
+      return toListResult(countUrns(indexFilter), start, pageSize);
     }
     final List<URN> values = sqlRows.stream().map(sqlRow -> getUrn(sqlRow.getString("urn"), _urnClass)).collect(Collectors.toList());
     return toListResult(values, sqlRows, start, pageSize);
   }
 
+  @Nonnull
+  @Override
+  public CursorListResult<URN> listUrnsWithCursor(@Nonnull IndexFilter indexFilter,
+      @Nullable IndexSortCriterion indexSortCriterion, @Nullable String cursor, int pageSize) {
+    validateIndexFilter(indexFilter);
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+    }
+
+    final String sortColumn = SQLStatementUtils.getSortColumn(indexSortCriterion);
+    final KeysetCursor lastPosition = cursor == null ? null : KeysetCursor.decode(cursor, sortColumn);
+    final List<Object> params = new ArrayList<>();
+    // read one extra row to learn whether there is a next page
+    final String keysetSql = SQLStatementUtils.createKeysetFilterSql(SQLSchemaUtils.getTableName(_entityType), indexFilter,
+        indexSortCriterion, lastPosition, pageSize + 1, params);
+    final List<SqlRow> sqlRows = bindParameters(_server.createSqlQuery(keysetSql), params).findList();
+
+    final boolean havingMore = sqlRows.size() > pageSize;
+    final List<SqlRow> page = havingMore ? sqlRows.subList(0, pageSize) : sqlRows;
+    final List<URN> values = page.stream().map(sqlRow -> getUrn(sqlRow.getString("urn"), _urnClass)).collect(Collectors.toList());
+
+    String nextCursor = null;
+    if (havingMore) {
+      final SqlRow lastRow = page.get(page.size() - 1);
+      nextCursor = KeysetCursor.of(sortColumn, sortColumn == null ? null : lastRow.get(sortColumn), lastRow.getString("urn"))
+          .encode();
+    }
+    return CursorListResult.<URN>builder().values(values).nextCursor(nextCursor).build();
+  }
+
+  @Override
+  public int countUrns(@Nonnull IndexFilter indexFilter) {
+    validateIndexFilter(indexFilter);
+    final List<Object> params = new ArrayList<>();
+    final String countSql = SQLStatementUtils.createCountSql(SQLSchemaUtils.getTableName(_entityType), indexFilter, params);
+
+    final Cache<List<Object>, Integer> totalCountCache = _totalCountCache;
+    if (totalCountCache == null) {
+      return executeCount(countSql, params);
+    }
+    final List<Object> cacheKey = new ArrayList<>(params.size() + 1);
+    cacheKey.add(countSql);
+    cacheKey.addAll(params);
+    return totalCountCache.get(cacheKey, unused -> executeCount(countSql, params));
+  }
+
+  private int executeCount(@Nonnull String countSql, @Nonnull List<Object> params) {
+    final SqlRow sqlRow = bindParameters(_server.createSqlQuery(countSql), params).findOne();
+    return sqlRow == null ? 0 : sqlRow.getInteger("_total_count");
+  }
+
+  @Override
+  public void enableTotalCountCache(long maximumSize, @Nonnull Duration expireAfterWrite) {
+    _totalCountCache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+        .build();
+  }
+
   @Override
   public boolean exists(@Nonnull URN urn) {
-    final String existSql = SQLStatementUtils.createExistSql(urn);
-    final SqlQuery sqlQuery = _server.createSqlQuery(existSql);
+    final List<Object> params = new ArrayList<>();
+    final String existSql = SQLStatementUtils.createExistSql(urn, params);
+    final SqlQuery sqlQuery = bindParameters(_server.createSqlQuery(existSql), params);
     return sqlQuery.findList().size() > 0;
   }
 
@@ -195,13 +276,15 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
   @Override
   public <ASPECT extends RecordTemplate> ListResult<URN> listUrns(@Nonnull Class<ASPECT> aspectClass, int start,
       int pageSize) {
-    final String browseSql = SQLStatementUtils.createAspectBrowseSql(_entityType, aspectClass, start, pageSize);
-    final SqlQuery sqlQuery = _server.createSqlQuery(browseSql);
+    final List<Object> params = new ArrayList<>();
+    final String browseSql = SQLStatementUtils.createAspectBrowseSql(_entityType, aspectClass, start, pageSize, params);
+    final SqlQuery sqlQuery = bindParameters(_server.createSqlQuery(browseSql), params);
 
     final List<SqlRow> sqlRows = sqlQuery.findList();
     if (sqlRows.size() == 0) {
-      final List<SqlRow> totalCountResults = _server.createSqlQuery(
-          SQLStatementUtils.createAspectBrowseSql(_entityType, aspectClass, 0, DEFAULT_PAGE_SIZE)).findList();
+      final List<Object> totalCountParams = new ArrayList<>();
+      final String totalCountSql = SQLStatementUtils.createAspectBrowseSql(_entityType, aspectClass, 0, DEFAULT_PAGE_SIZE, totalCountParams);
+      final List<SqlRow> totalCountResults = bindParameters(_server.createSqlQuery(totalCountSql), totalCountParams).findList();
       final int actualTotalCount = totalCountResults.isEmpty() ? 0 : totalCountResults.get(0).getInteger("_total_count");
       return toListResult(actualTotalCount, start, pageSize);
     }
@@ -226,8 +309,9 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
     }
 
     // now run the actual GROUP BY query
-    final String groupBySql = SQLStatementUtils.createGroupBySql(tableName, indexFilter, indexGroupByCriterion);
-    final SqlQuery sqlQuery = _server.createSqlQuery(groupBySql);
+    final List<Object> params = new ArrayList<>();
+    final String groupBySql = SQLStatementUtils.createGroupBySql(tableName, indexFilter, indexGroupByCriterion, params);
+    final SqlQuery sqlQuery = bindParameters(_server.createSqlQuery(groupBySql), params);
     final List<SqlRow> sqlRows = sqlQuery.findList();
     Map<String, Long> resultMap = new HashMap<>();
     for (SqlRow sqlRow : sqlRows) {
@@ -244,28 +328,34 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
     return resultMap;
   }
 
+  private static void validateIndexFilter(@Nonnull IndexFilter indexFilter) {
+    if (indexFilter.hasCriteria() && indexFilter.getCriteria().isEmpty()) {
+      throw new UnsupportedOperationException("Empty Index Filter is not supported by EbeanLocalDAO");
+    }
+  }
+
   /**
    * Produce {@link SqlQuery} for list urn by offset (start) and by lastUrn.
    * @param indexFilter index filter conditions
    * @param indexSortCriterion sorting criterion, default ACS
    * @param lastUrn last urn of the previous fetched page. For the first page, this should be set as NULL
+   * @param includeTotalCount whether to select the total count of matching rows as _total_count
    * @return SqlQuery a SQL query which can be executed by ebean server.
    */
   private SqlQuery createFilterSqlQuery(@Nonnull IndexFilter indexFilter,
-      @Nullable IndexSortCriterion indexSortCriterion, @Nullable URN lastUrn, int offset, int pageSize) {
-    if (indexFilter.hasCriteria() && indexFilter.getCriteria().isEmpty()) {
-      throw new UnsupportedOperationException("Empty Index Filter is not supported by EbeanLocalDAO");
-    }
+      @Nullable IndexSortCriterion indexSortCriterion, @Nullable URN lastUrn, int offset, int pageSize,
+      boolean includeTotalCount) {
+    validateIndexFilter(indexFilter);
 
     final String tableName = SQLSchemaUtils.getTableName(_entityType);
+    final List<Object> params = new ArrayList<>();
     StringBuilder filterSql = new StringBuilder();
-    filterSql.append(SQLStatementUtils.createFilterSql(tableName, indexFilter, indexSortCriterion));
+    filterSql.append(SQLStatementUtils.createFilterSql(tableName, indexFilter, indexSortCriterion, includeTotalCount, params));
 
     // append last urn where condition
     if (lastUrn != null) {
-      filterSql.append(" AND urn > '");
-      filterSql.append(lastUrn);
-      filterSql.append("'");
+      filterSql.append(" AND urn > ?");
+      params.add(lastUrn.toString());
     }
 
     if (indexSortCriterion != null) {
@@ -273,34 +363,36 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
       filterSql.append(parseSortCriteria(indexSortCriterion));
     }
 
-    filterSql.append(String.format(" LIMIT %d", Math.max(pageSize, 0)));
-    filterSql.append(String.format(" OFFSET %d", Math.max(offset, 0)));
-    return _server.createSqlQuery(filterSql.toString());
+    filterSql.append(" LIMIT ? OFFSET ?");
+    params.add(Math.max(pageSize, 0));
+    params.add(Math.max(offset, 0));
+    return bindParameters(_server.createSqlQuery(filterSql.toString()), params);
+  }
+
+  /**
+   * Convert an AuditedAspect string in its DB format into a {@link EbeanMetadataAspect} of the latest version.
+   * @param urn urn of the entity
+   * @param auditedAspectString an AuditedAspect string in its DB format
+   * @return {@link EbeanMetadataAspect}
+   */
+  @Nonnull
+  private static EbeanMetadataAspect toEbeanMetadataAspect(@Nonnull String urn, @Nonnull String auditedAspectString) {
+    final DecodedAuditedAspect<String> auditedAspect = AuditedAspectDecoder.decodeRaw(auditedAspectString);
+    EbeanMetadataAspect ebeanMetadataAspect = new EbeanMetadataAspect();
+    EbeanMetadataAspect.PrimaryKey primaryKey = new EbeanMetadataAspect.PrimaryKey(urn, auditedAspect.getCanonicalName(), LATEST_VERSION);
+    ebeanMetadataAspect.setKey(primaryKey);
+    ebeanMetadataAspect.setCreatedBy(auditedAspect.getLastmodifiedby());
+    ebeanMetadataAspect.setCreatedOn(Timestamp.valueOf(LocalDateTime.parse(auditedAspect.getLastmodifiedon())));
+    ebeanMetadataAspect.setCreatedFor(auditedAspect.getCreatedfor());
+    ebeanMetadataAspect.setMetadata(auditedAspect.getAspect());
+    return ebeanMetadataAspect;
   }
 
   /**
-   * Read {@link SqlRow} list into a {@link EbeanMetadataAspect} list.
-   * @param sqlRows list of {@link SqlRow}
-   * @return list of {@link EbeanMetadataAspect}
+   * Soft-deleted aspects are stored as {@code DELETED_VALUE} in the aspect column.
    */
-  private List<EbeanMetadataAspect> readSqlRows(List<SqlRow> sqlRows) {
-    return sqlRows.stream().flatMap(sqlRow -> {
-      List<String> columns = new ArrayList<>();
-      sqlRow.keySet().stream().filter(key -> key.startsWith(SQLSchemaUtils.ASPECT_PREFIX) && sqlRow.get(key) != null).forEach(columns::add);
-
-      return columns.stream().map(columnName -> {
-        EbeanMetadataAspect ebeanMetadataAspect = new EbeanMetadataAspect();
-        String urn = sqlRow.getString("urn");
-        AuditedAspect auditedAspect = RecordUtils.toRecordTemplate(AuditedAspect.class, sqlRow.getString(columnName));
-        EbeanMetadataAspect.PrimaryKey primaryKey = new EbeanMetadataAspect.PrimaryKey(urn, auditedAspect.getCanonicalName(), LATEST_VERSION);
-        ebeanMetadataAspect.setKey(primaryKey);
-        ebeanMetadataAspect.setCreatedBy(auditedAspect.getLastmodifiedby());
-        ebeanMetadataAspect.setCreatedOn(Timestamp.valueOf(LocalDateTime.parse(auditedAspect.getLastmodifiedon())));
-        ebeanMetadataAspect.setCreatedFor(auditedAspect.getCreatedfor());
-        ebeanMetadataAspect.setMetadata(extractAspectJsonString(sqlRow.getString(columnName)));
-        return ebeanMetadataAspect;
-      });
-    }).collect(Collectors.toList());
+  private static boolean isSoftDeletedAuditedAspect(@Nonnull String auditedAspectString) {
+    return DELETED_VALUE.equals(auditedAspectString);
   }
 
   /**
@@ -405,16 +497,7 @@ public class EbeanLocalAccess<URN extends Urn> implements IEbeanLocalAccess<URN>
    */
   @Nullable
   public static String extractAspectJsonString(@Nonnull final String auditedAspect) {
-    try {
-      JSONObject map = (JSONObject) JSON_PARSER.parse(auditedAspect);
-      if (map.containsKey("aspect")) {
-        return map.get("aspect").toString();
-      }
-
-      return null;
-    } catch (ParseException e) {
-      throw new RuntimeException(String.format("Failed to parse string %s as AuditedAspect.", auditedAspect));
-    }
+    return AuditedAspectDecoder.decodeRaw(auditedAspect).getAspect();
   }
 
   /**
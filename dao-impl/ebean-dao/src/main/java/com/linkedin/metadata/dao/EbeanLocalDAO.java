@@ -1,5 +1,8 @@
 package com.linkedin.metadata.dao;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.annotations.VisibleForTesting;
 import com.linkedin.common.AuditStamp;
 import com.linkedin.common.urn.Urn;
@@ -17,6 +20,7 @@ import com.linkedin.metadata.dao.scsi.EmptyPathExtractor;
 import com.linkedin.metadata.dao.scsi.UrnPathExtractor;
 import com.linkedin.metadata.dao.storage.LocalDAOStorageConfig;
 import com.linkedin.metadata.dao.utils.EBeanDAOUtils;
+import com.linkedin.metadata.dao.utils.FieldValueExtractor;
 import com.linkedin.metadata.dao.utils.ModelUtils;
 import com.linkedin.metadata.dao.utils.QueryUtils;
 import com.linkedin.metadata.dao.utils.RecordUtils;
@@ -37,32 +41,65 @@ import io.ebean.EbeanServer;
 import io.ebean.ExpressionList;
 import io.ebean.PagedList;
 import io.ebean.Query;
+import io.ebean.SqlRow;
 import io.ebean.SqlUpdate;
 import io.ebean.Transaction;
+import io.ebean.TransactionCallbackAdapter;
+import io.ebean.TxScope;
 import io.ebean.config.ServerConfig;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
 import javax.persistence.RollbackException;
 import javax.persistence.Table;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.javatuples.Pair;
+import org.javatuples.Quartet;
 
 import static com.linkedin.metadata.dao.EbeanMetadataAspect.*;
 import static com.linkedin.metadata.dao.utils.EBeanDAOUtils.*;
@@ -78,13 +115,91 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
 
   private static final int INDEX_QUERY_TIMEOUT_IN_SEC = 5;
 
+  private static final int LATEST_ASPECT_CACHE_STRIPES = 1024;
+
+  private static final int DEFAULT_RETENTION_DELETE_BATCH_SIZE = 1000;
+  private static final int DEFAULT_AUDIT_EVENT_OUTBOX_MAX_ATTEMPTS = 10;
+
+  private static final String BATCH_INSERT_SQL = "INSERT INTO metadata_aspect "
+      + "(urn, aspect, version, metadata, createdOn, createdBy, createdFor) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String BATCH_UPDATE_SQL = "UPDATE metadata_aspect SET metadata = ?, createdOn = ?, createdBy = ? "
+      + "WHERE urn = ? AND aspect = ? AND version = ? AND createdOn = ?";
+
+  private static final String BATCH_UPDATE_WITH_VERSION_TRACKING_SQL = "UPDATE metadata_aspect "
+      + "SET metadata = ?, createdOn = ?, createdBy = ?, nextVersion = ?, lockVersion = COALESCE(lockVersion, -1) + 1 "
+      + "WHERE urn = ? AND aspect = ? AND version = ? AND COALESCE(lockVersion, -1) = ?";
+
+  private static final String SELECT_UPDATED_LATEST_SQL = "SELECT metadata, createdOn, createdBy FROM metadata_aspect "
+      + "WHERE urn = ? AND aspect = ? AND version = 0";
+
+  private static final String SELECT_VERSION_COUNTERS_SQL = "SELECT nextVersion, lockVersion, createdOn FROM metadata_aspect "
+      + "WHERE urn = ? AND aspect = ? AND version = 0 FOR UPDATE";
+
+  private static final String SELECT_LATEST_WITH_LOCK_VERSION_SQL = "SELECT urn, aspect, metadata, createdOn, createdBy, "
+      + "createdFor, COALESCE(lockVersion, -1) AS lockVersion FROM metadata_aspect WHERE version = 0 AND (%s)";
+
+  private static final String UPDATE_WITH_VERSION_TRACKING_SQL = "UPDATE metadata_aspect "
+      + "SET metadata = :metadata, createdOn = :createdOn, createdBy = :createdBy, nextVersion = :nextVersion, "
+      + "lockVersion = :lockVersion + 1 "
+      + "WHERE urn = :urn AND aspect = :aspect AND version = :version AND COALESCE(lockVersion, -1) = :lockVersion";
+
+  private static final String LARGEST_VERSIONS_SQL =
+      "SELECT urn, aspect, MAX(version) AS version FROM metadata_aspect WHERE %s GROUP BY urn, aspect";
+
+  private static final String TRACKED_LARGEST_VERSIONS_SQL = "SELECT urn, aspect, nextVersion - 1 AS version "
+      + "FROM metadata_aspect WHERE version = 0 AND nextVersion IS NOT NULL AND (%s)";
+
+  private static final String SCAN_LATEST_SQL = "SELECT urn, metadata FROM metadata_aspect "
+      + "WHERE aspect = ? AND version = 0 AND metadata != ? ORDER BY urn";
+
+  private static final String MYSQL_PRODUCT_NAME = "MySQL";
+  private static final String MYSQL_CURSOR_FETCH_PROPERTY = "useCursorFetch=true";
+
+  private static final String INSERT_AUDIT_EVENT_OUTBOX_SQL = "INSERT INTO metadata_audit_event_outbox "
+      + "(urn, aspect, oldValue, newValue, aspectSpecific, createdOn) "
+      + "VALUES (:urn, :aspect, :oldValue, :newValue, :aspectSpecific, :createdOn)";
+
+  private static final String SELECT_AUDIT_EVENT_OUTBOX_HEAD_SQL = "SELECT id FROM metadata_audit_event_outbox "
+      + "WHERE attempts < ? ORDER BY id LIMIT 1 FOR UPDATE";
+
+  private static final String SELECT_AUDIT_EVENT_OUTBOX_SQL = "SELECT id, urn, aspect, oldValue, newValue, aspectSpecific, "
+      + "attempts FROM metadata_audit_event_outbox WHERE id >= ? AND attempts < ? ORDER BY id LIMIT %d";
+
+  private static final String INCREMENT_AUDIT_EVENT_OUTBOX_ATTEMPTS_SQL = "UPDATE metadata_audit_event_outbox "
+      + "SET attempts = attempts + 1 WHERE id = ?";
+
+  private static final String DELETE_EXPIRED_VERSIONS_SQL = "DELETE FROM metadata_aspect "
+      + "WHERE urn = ? AND aspect = ? AND version != 0 AND version <= ? LIMIT ?";
+
+  private static final String DELETE_EXPIRED_AGES_SQL = "DELETE FROM metadata_aspect "
+      + "WHERE urn = ? AND aspect = ? AND createdOn < ? LIMIT ?";
+
+  private static final String DELETE_AUDIT_EVENT_OUTBOX_SQL = "DELETE FROM metadata_audit_event_outbox WHERE id IN (%s)";
+
   protected final EbeanServer _server;
   protected final Class<URN> _urnClass;
 
+  // Extractors of the strongly consistent indexed paths of each aspect, compiled once from the storage config
+  private final Map<Class<? extends RecordTemplate>, List<FieldValueExtractor>> _indexedPathExtractors;
+
   private int _queryKeysCount = 0; // 0 means no pagination on keys
   private IEbeanLocalAccess<URN> _localAccess;
   private UrnPathExtractor<URN> _urnPathExtractor;
   private SchemaConfig _schemaConfig = SchemaConfig.OLD_SCHEMA_ONLY;
+  private ExecutorService _batchGetExecutor = null; // null means paged sub queries run serially
+  private int _batchGetParallelism = 1;
+  private BatchGetPageListener _batchGetPageListener = null;
+  private Cache<RecordKey, CachedLatestAspect> _latestAspectCache = null; // null means the cache is disabled
+  // Invalidation counters of the latest aspect cache per stripe of keys, see fillLatestAspectCache
+  private final AtomicLongArray _latestAspectCacheGenerations = new AtomicLongArray(LATEST_ASPECT_CACHE_STRIPES);
+  private boolean _versionTrackingOnLatestRow = false;
+  private int _idBlockSize = 1; // 1 means a transaction per numeric id
+  private final Map<String, IdBlock> _idBlocks = new ConcurrentHashMap<>();
+  private final Map<String, Object> _idBlockLocks = new ConcurrentHashMap<>();
+  private boolean _auditEventOutboxEnabled = false;
+  private int _auditEventOutboxMaxAttempts = DEFAULT_AUDIT_EVENT_OUTBOX_MAX_ATTEMPTS;
+  private int _retentionDeleteBatchSize = DEFAULT_RETENTION_DELETE_BATCH_SIZE;
 
   public enum SchemaConfig {
     OLD_SCHEMA_ONLY, // Default: read from and write to the old schema table
@@ -92,6 +207,22 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     DUAL_SCHEMA // Write to both the old and new tables and perform a comparison between values when reading
   }
 
+  /**
+   * Listener notified after each paged sub query of a batch get completes.
+   */
+  public interface BatchGetPageListener {
+
+    /**
+     * Called after a single sub query of a batch get returns.
+     *
+     * @param position index of the first key of the page within the batch
+     * @param keysCount number of keys in the page
+     * @param resultCount number of rows returned by the sub query
+     * @param latencyNanos wall clock time spent running the sub query, in nanoseconds
+     */
+    void onPageFetched(int position, int keysCount, int resultCount, long latencyNanos);
+  }
+
   @Value
   static class GMAIndexPair {
     public String valueType;
@@ -118,6 +249,7 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     _server = server;
     _urnClass = urnClass;
     _urnPathExtractor = new EmptyPathExtractor<>();
+    _indexedPathExtractors = compileIndexedPaths(_storageConfig);
   }
 
   @VisibleForTesting
@@ -165,6 +297,7 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     _server = server;
     _urnClass = urnClass;
     _urnPathExtractor = urnPathExtractor;
+    _indexedPathExtractors = compileIndexedPaths(_storageConfig);
   }
 
   @VisibleForTesting
@@ -262,22 +395,47 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   @Nonnull
   @Override
   protected <T> T runInTransactionWithRetry(@Nonnull Supplier<T> block, int maxTransactionRetry) {
+    return runInTransactionWithRetry(block, maxTransactionRetry, _server::beginTransaction);
+  }
+
+  @Override
+  protected void runAfterCommit(@Nonnull Runnable action) {
+    final Transaction transaction = _server.currentTransaction();
+    if (transaction == null) {
+      action.run();
+      return;
+    }
+    transaction.register(new TransactionCallbackAdapter() {
+      @Override
+      public void postCommit() {
+        action.run();
+      }
+    });
+  }
+
+  @Nonnull
+  private <T> T runInTransactionWithRetry(@Nonnull Supplier<T> block, int maxTransactionRetry,
+      @Nonnull Supplier<Transaction> transactionSupplier) {
     int retryCount = 0;
     Exception lastException;
 
     T result = null;
     do {
-      try (Transaction transaction = _server.beginTransaction()) {
+      try (Transaction transaction = transactionSupplier.get()) {
         result = block.get();
         transaction.commit();
         lastException = null;
         break;
       } catch (RollbackException | DuplicateKeyException | OptimisticLockException exception) {
         lastException = exception;
+        if (retryCount < maxTransactionRetry) {
+          backoffBeforeRetry(retryCount + 1);
+        }
       }
     } while (++retryCount <= maxTransactionRetry);
 
     if (lastException != null) {
+      onRetryLimitReached();
       throw new RetryLimitReached("Failed to add after " + maxTransactionRetry + " retries", lastException);
     }
 
@@ -288,9 +446,19 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   protected <ASPECT extends RecordTemplate> long saveLatest(@Nonnull URN urn, @Nonnull Class<ASPECT> aspectClass,
       @Nullable ASPECT oldValue, @Nullable AuditStamp oldAuditStamp, @Nullable ASPECT newValue,
       @Nonnull AuditStamp newAuditStamp, boolean isSoftDeleted) {
+    return saveLatest(urn, aspectClass, oldValue, oldAuditStamp, newValue, newAuditStamp, isSoftDeleted, null);
+  }
+
+  @Override
+  protected <ASPECT extends RecordTemplate> long saveLatest(@Nonnull URN urn, @Nonnull Class<ASPECT> aspectClass,
+      @Nullable ASPECT oldValue, @Nullable AuditStamp oldAuditStamp, @Nullable ASPECT newValue,
+      @Nonnull AuditStamp newAuditStamp, boolean isSoftDeleted, @Nullable Long oldLockVersion) {
     // Save oldValue as the largest version + 1
     long largestVersion = 0;
-    if ((isSoftDeleted || oldValue != null) && oldAuditStamp != null) {
+    if ((isSoftDeleted || oldValue != null) && oldAuditStamp != null && _versionTrackingOnLatestRow) {
+      largestVersion = saveLatestWithVersionTracking(urn, aspectClass, oldValue, oldAuditStamp, newValue, newAuditStamp,
+          oldLockVersion);
+    } else if ((isSoftDeleted || oldValue != null) && oldAuditStamp != null) {
       largestVersion = getNextVersion(urn, aspectClass);
       // Move latest version to historical version by insert a new record.
       insert(urn, oldValue, aspectClass, oldAuditStamp, largestVersion);
@@ -303,6 +471,220 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     return largestVersion;
   }
 
+  /**
+   * Saves a new latest version using the version counters kept in the latest row, see
+   * {@link #enableVersionTrackingOnLatestRow(boolean)}. The latest row is locked for the rest of the transaction by a
+   * single read, the previous latest value is inserted as the next version and the latest row is updated with a
+   * compare-and-set on the lock counter the previous latest value was read with.
+   *
+   * @param oldLockVersion the lock counter read along with the previous latest value, if null the createdOn of the
+   *                       locked row is compared with the previous audit stamp instead
+   * @return the version the previous latest value was saved as
+   */
+  private <ASPECT extends RecordTemplate> long saveLatestWithVersionTracking(@Nonnull URN urn,
+      @Nonnull Class<ASPECT> aspectClass, @Nullable ASPECT oldValue, @Nonnull AuditStamp oldAuditStamp,
+      @Nullable ASPECT newValue, @Nonnull AuditStamp newAuditStamp, @Nullable Long oldLockVersion) {
+
+    final SqlRow counters = _server.createSqlQuery(SELECT_VERSION_COUNTERS_SQL)
+        .setParameter(1, urn.toString())
+        .setParameter(2, ModelUtils.getAspectName(aspectClass))
+        .findOne();
+
+    if (counters == null) {
+      throw new OptimisticLockException(
+          String.format("Latest version of %s for %s changed since it was read", aspectClass.getCanonicalName(), urn));
+    }
+
+    // The counters are null until the first update after the row was inserted or the table was migrated
+    final Long nextVersion = counters.getLong(NEXT_VERSION_COLUMN);
+    final Long lockVersion = counters.getLong(LOCK_VERSION_COLUMN);
+    final long currentLockVersion = lockVersion == null ? -1L : lockVersion;
+    final boolean unchanged = oldLockVersion != null
+        ? oldLockVersion == currentLockVersion
+        : new Timestamp(oldAuditStamp.getTime()).equals(counters.getTimestamp(CREATED_ON_COLUMN));
+    if (!unchanged) {
+      throw new OptimisticLockException(
+          String.format("Latest version of %s for %s changed since it was read", aspectClass.getCanonicalName(), urn));
+    }
+
+    final long largestVersion = nextVersion != null ? nextVersion : getNextVersion(urn, aspectClass);
+
+    // Move latest version to historical version by insert a new record.
+    insert(urn, oldValue, aspectClass, oldAuditStamp, largestVersion);
+
+    final EbeanMetadataAspect aspect =
+        buildMetadataAspectBean(urn, newValue, aspectClass, newAuditStamp, LATEST_VERSION);
+    invalidateLatestAspect(aspect.getKey());
+
+    final SqlUpdate update = _server.createSqlUpdate(UPDATE_WITH_VERSION_TRACKING_SQL);
+    update.setParameter("urn", aspect.getKey().getUrn());
+    update.setParameter("aspect", aspect.getKey().getAspect());
+    update.setParameter("version", aspect.getKey().getVersion());
+    update.setParameter("metadata", aspect.getMetadata());
+    update.setParameter("createdOn", aspect.getCreatedOn());
+    update.setParameter("createdBy", aspect.getCreatedBy());
+    update.setParameter("nextVersion", largestVersion + 1);
+    update.setParameter("lockVersion", currentLockVersion);
+    executeLatestUpdate(urn, newValue, aspectClass, newAuditStamp, update);
+
+    return largestVersion;
+  }
+
+  /**
+   * Enables keeping the version number of the next historical version and a monotonic lock counter in the latest
+   * (version 0) row of each aspect, in its nextVersion and lockVersion columns.
+   *
+   * <p>With version tracking, saving a new latest version no longer scans all versions of the aspect for the largest
+   * one, and the latest row is updated with a compare-and-set on the lock counter instead of on createdOn. Existing
+   * metadata_aspect tables need both columns added first, see metadata-aspect-version-tracking.sql. Rows without
+   * counters, e.g. rows written before the migration, get them initialized by their next update. As writes without
+   * version tracking don't maintain the counters, it must be enabled for all writers of the table at once.
+   */
+  public void enableVersionTrackingOnLatestRow(boolean enabled) {
+    _versionTrackingOnLatestRow = enabled;
+  }
+
+  /**
+   * Sets the number of numeric ids {@link #newNumericId(String, int)} reserves at once per namespace.
+   *
+   * <p>With a block size greater than 1, a block of ids is reserved by inserting its last id into metadata_id, in its
+   * own transaction, and the ids of the block are then handed out from memory. The unique (namespace, id) constraint
+   * keeps blocks of different DAO instances apart, and also apart from ids generated one at a time, as both start
+   * after the largest id of the namespace. Ids left in a block when the DAO goes away are never used, so generated
+   * ids aren't contiguous.</p>
+   *
+   * @param blockSize the number of ids to reserve at once, 1 to generate each id in its own transaction
+   */
+  public void setIdBlockSize(int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Id block size must be positive: " + blockSize);
+    }
+    _idBlockSize = blockSize;
+  }
+
+  /**
+   * Enables or disables the audit event outbox. When enabled, MAEs are saved to the metadata_audit_event_outbox table
+   * by the transaction of each update instead of being produced after it commits, and are produced by
+   * {@link #relayAuditEvents(int)}, e.g. via an {@link AuditEventOutboxRelay}.
+   *
+   * <p>This should be set before any write, events of updates in flight while it's changed may be produced twice or
+   * not at all.</p>
+   */
+  public void enableAuditEventOutbox(boolean enabled) {
+    _auditEventOutboxEnabled = enabled;
+  }
+
+  /**
+   * Sets the max number of times {@link #relayAuditEvents(int)} tries to produce an event of the audit event outbox.
+   * An event which failed this many times is parked: it's left in the outbox but no longer relayed, and no longer holds
+   * back later events of its urn. Parked events can be found by their attempts column and re-relayed by resetting it.
+   * Defaults to {@value #DEFAULT_AUDIT_EVENT_OUTBOX_MAX_ATTEMPTS}.
+   */
+  public void setAuditEventOutboxMaxAttempts(int maxAttempts) {
+    if (maxAttempts <= 0) {
+      throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+    }
+    _auditEventOutboxMaxAttempts = maxAttempts;
+  }
+
+  @Override
+  protected boolean isAuditEventOutboxEnabled() {
+    return _auditEventOutboxEnabled;
+  }
+
+  @Override
+  protected <ASPECT extends RecordTemplate> void saveAuditEventToOutbox(@Nonnull URN urn, @Nullable ASPECT oldValue,
+      @Nonnull ASPECT newValue, boolean aspectSpecific) {
+    _server.createSqlUpdate(INSERT_AUDIT_EVENT_OUTBOX_SQL)
+        .setParameter("urn", urn.toString())
+        .setParameter("aspect", ModelUtils.getAspectName(newValue.getClass()))
+        .setParameter("oldValue", oldValue == null ? null : RecordUtils.toJsonString(oldValue))
+        .setParameter("newValue", RecordUtils.toJsonString(newValue))
+        .setParameter("aspectSpecific", aspectSpecific)
+        .setParameter("createdOn", new Timestamp(System.currentTimeMillis()))
+        .execute();
+  }
+
+  /**
+   * Produces the oldest events of the audit event outbox and removes them from it, see
+   * {@link #enableAuditEventOutbox(boolean)}.
+   *
+   * <p>Events are produced in the order they were saved. If producing an event fails, later events of the same urn are
+   * held back until it's produced by a later call, while events of other urns are still produced. An event which failed
+   * to be produced too many times is parked, see {@link #setAuditEventOutboxMaxAttempts(int)}. Events are removed
+   * from the outbox only after they're produced, so an event may be produced more than once but is never lost.</p>
+   *
+   * <p>Only the oldest pending event is locked while events are produced, so that concurrent relays wait for each other
+   * and don't produce events out of order, while updates saving new events to the outbox aren't blocked.</p>
+   *
+   * @param batchSize the max number of events to relay
+   * @return the number of events produced
+   */
+  public int relayAuditEvents(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+
+    return runInTransactionWithRetry(() -> {
+      final SqlRow head = _server.createSqlQuery(SELECT_AUDIT_EVENT_OUTBOX_HEAD_SQL)
+          .setParameter(1, _auditEventOutboxMaxAttempts)
+          .findOne();
+      if (head == null) {
+        return 0;
+      }
+
+      // Rows of the batch aren't locked, concurrent relays are serialized by the lock on its head
+      final List<SqlRow> rows = _server.createSqlQuery(String.format(SELECT_AUDIT_EVENT_OUTBOX_SQL, batchSize))
+          .setParameter(1, head.getLong("id"))
+          .setParameter(2, _auditEventOutboxMaxAttempts)
+          .findList();
+      final Set<String> failedUrns = new HashSet<>();
+      final List<Object> relayedIds = new ArrayList<>();
+      for (SqlRow row : rows) {
+        final String urn = row.getString(URN_COLUMN);
+        if (failedUrns.contains(urn)) {
+          continue;
+        }
+        final Long id = row.getLong("id");
+        try {
+          produceAuditEvent(row);
+          relayedIds.add(id);
+        } catch (RuntimeException e) {
+          failedUrns.add(urn);
+          _server.createSqlUpdate(INCREMENT_AUDIT_EVENT_OUTBOX_ATTEMPTS_SQL).setParameter(1, id).execute();
+          if (row.getInteger("attempts") + 1 >= _auditEventOutboxMaxAttempts) {
+            log.error("Failed to produce audit event {} of {} {} times, parking it", id, urn, _auditEventOutboxMaxAttempts, e);
+          } else {
+            log.warn("Failed to produce audit event {} of {}, holding back later events of the urn", id, urn, e);
+          }
+        }
+      }
+
+      if (!relayedIds.isEmpty()) {
+        final SqlUpdate delete = _server.createSqlUpdate(
+            String.format(DELETE_AUDIT_EVENT_OUTBOX_SQL, String.join(", ", Collections.nCopies(relayedIds.size(), "?"))));
+        for (int i = 0; i < relayedIds.size(); i++) {
+          delete.setParameter(i + 1, relayedIds.get(i));
+        }
+        delete.execute();
+      }
+      return relayedIds.size();
+    }, 0);
+  }
+
+  private void produceAuditEvent(@Nonnull SqlRow row) {
+    final URN urn = getUrn(row.getString(URN_COLUMN));
+    final Class<? extends RecordTemplate> aspectClass = ModelUtils.getAspectClass(row.getString(ASPECT_COLUMN));
+    final String oldValueJson = row.getString("oldValue");
+    final RecordTemplate oldValue = oldValueJson == null ? null : RecordUtils.toRecordTemplate(aspectClass, oldValueJson);
+    final RecordTemplate newValue = RecordUtils.toRecordTemplate(aspectClass, row.getString("newValue"));
+    if (row.getBoolean("aspectSpecific")) {
+      _producer.produceAspectSpecificMetadataAuditEvent(urn, oldValue, newValue);
+    } else {
+      _producer.produceMetadataAuditEvent(urn, oldValue, newValue);
+    }
+  }
+
   @Override
   public <ASPECT extends RecordTemplate> void updateLocalIndex(@Nonnull URN urn, @Nonnull ASPECT newValue,
       long version) {
@@ -316,10 +698,49 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
 
     // Process and save URN
     // Only do this with the first version of each aspect
-    if (version == FIRST_VERSION) {
-      updateUrnInLocalIndex(urn);
+    final boolean updateUrn = version == FIRST_VERSION;
+    final LocalDAOStorageConfig.AspectStorageConfig aspectStorageConfig =
+        _storageConfig.getAspectStorageConfigMap().get(newValue.getClass());
+    if (!updateUrn && aspectStorageConfig == null) {
+      return;
+    }
+
+    // Existing rows of the urn and of the aspect are read by a single query, which also tells if the urn is indexed
+    final String urnAspect = _urnClass.getCanonicalName();
+    final String aspectName = ModelUtils.getAspectName(newValue.getClass());
+    final List<String> aspects = new ArrayList<>();
+    if (updateUrn) {
+      aspects.add(urnAspect);
+    }
+    if (aspectStorageConfig != null) {
+      aspects.add(aspectName);
+    }
+    final Map<String, List<EbeanMetadataIndex>> existingRows = _server.find(EbeanMetadataIndex.class)
+        .where()
+        .eq(URN_COLUMN, urn.toString())
+        .in(ASPECT_COLUMN, aspects)
+        .findList()
+        .stream()
+        .collect(Collectors.groupingBy(EbeanMetadataIndex::getAspect));
+
+    final List<EbeanMetadataIndex> insertedRows = new ArrayList<>();
+    final List<Long> removedIds = new ArrayList<>();
+    if (updateUrn && !existingRows.containsKey(urnAspect)) {
+      _urnPathExtractor.extractPaths(urn)
+          .forEach((path, value) -> insertedRows.add(toLocalIndexRecord(urn, urnAspect, path, value)));
+    }
+    if (aspectStorageConfig != null) {
+      diffAspectInLocalIndex(urn, newValue, _indexedPathExtractors.getOrDefault(newValue.getClass(), Collections.emptyList()),
+          existingRows.getOrDefault(aspectName, Collections.emptyList()), insertedRows, removedIds);
+    }
+
+    // Nothing is written if none of the indexed values changed
+    if (!removedIds.isEmpty()) {
+      _server.find(EbeanMetadataIndex.class).where().idIn(removedIds).delete();
+    }
+    if (!insertedRows.isEmpty()) {
+      _server.insertAll(insertedRows);
     }
-    updateAspectInLocalIndex(urn, newValue);
   }
 
   @Override
@@ -346,17 +767,107 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   protected <ASPECT extends RecordTemplate> AspectEntry<ASPECT> getLatest(@Nonnull URN urn,
       @Nonnull Class<ASPECT> aspectClass) {
     final PrimaryKey key = new PrimaryKey(urn.toString(), ModelUtils.getAspectName(aspectClass), 0L);
-    EbeanMetadataAspect latest = _server.find(EbeanMetadataAspect.class, key);
+    if (_versionTrackingOnLatestRow) {
+      // The cache doesn't keep the lock counters, which the entries returned with version tracking carry
+      final List<EbeanMetadataAspect> latest =
+          getLatestWithLockVersions(Collections.singletonList(new AspectKey<>(aspectClass, urn, LATEST_VERSION)));
+      return toAspectEntry(aspectClass, latest.isEmpty() ? null : latest.get(0));
+    }
+    if (!isLatestAspectCacheUsable()) {
+      return toAspectEntry(aspectClass, _server.find(EbeanMetadataAspect.class, key));
+    }
+
+    final RecordKey cacheKey = RecordKey.of(key);
+    final CachedLatestAspect cached = _latestAspectCache.getIfPresent(cacheKey);
+    if (cached != null) {
+      return toAspectEntry(aspectClass, cached.toBean());
+    }
+    final long generation = getLatestAspectCacheGeneration(cacheKey);
+    final EbeanMetadataAspect latest = _server.find(EbeanMetadataAspect.class, key);
+    if (latest != null) {
+      fillLatestAspectCache(cacheKey, latest, generation);
+    }
+    return toAspectEntry(aspectClass, latest);
+  }
+
+  @Override
+  @Nonnull
+  protected Map<AspectKey<URN, ? extends RecordTemplate>, AspectEntry<? extends RecordTemplate>> getLatest(
+      @Nonnull Set<AspectKey<URN, ? extends RecordTemplate>> keys) {
+    if (keys.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    // Always read from metadata_aspect and bypass the latest aspect cache, as the entries are the base of optimistically
+    // locked updates
+    final List<AspectKey<URN, ? extends RecordTemplate>> keyList = new ArrayList<>(keys);
+    final List<EbeanMetadataAspect> records;
+    if (_versionTrackingOnLatestRow) {
+      records = getLatestWithLockVersions(keyList);
+    } else {
+      final int keysCount = _queryKeysCount == 0 ? keyList.size() : _queryKeysCount;
+      records = new ArrayList<>(keyList.size());
+      for (int position = 0; position < keyList.size(); position += keysCount) {
+        records.addAll(batchGetUnion(keyList, keysCount, position));
+      }
+    }
+    final Map<RecordKey, EbeanMetadataAspect> recordIndex = indexRecords(records);
+
+    final Map<AspectKey<URN, ? extends RecordTemplate>, AspectEntry<? extends RecordTemplate>> result = new HashMap<>();
+    keys.forEach(key -> result.put(key, toAspectEntry(key.getAspectClass(), recordIndex.get(RecordKey.of(key)))));
+    return result;
+  }
+
+  /**
+   * Reads the latest versions of the given aspects along with their lock counters, with a query per page of keys. The
+   * counters are read by the same statement as the values, so that they belong to them.
+   */
+  @Nonnull
+  private List<EbeanMetadataAspect> getLatestWithLockVersions(
+      @Nonnull List<AspectKey<URN, ? extends RecordTemplate>> keys) {
+    final List<EbeanMetadataAspect> records = new ArrayList<>(keys.size());
+    final int keysCount = _queryKeysCount == 0 ? keys.size() : _queryKeysCount;
+    for (int position = 0; position < keys.size(); position += keysCount) {
+      final List<Object> params = new ArrayList<>();
+      final String conditions = keys.subList(position, Math.min(keys.size(), position + keysCount))
+          .stream()
+          .map(key -> {
+            params.add(key.getUrn().toString());
+            params.add(ModelUtils.getAspectName(key.getAspectClass()));
+            return "(urn = ? AND aspect = ?)";
+          })
+          .collect(Collectors.joining(" OR "));
+
+      bindParameters(_server.createSqlQuery(String.format(SELECT_LATEST_WITH_LOCK_VERSION_SQL, conditions)), params)
+          .findList()
+          .forEach(row -> {
+            final EbeanMetadataAspect record = new EbeanMetadataAspect();
+            record.setKey(new PrimaryKey(row.getString(URN_COLUMN), row.getString(ASPECT_COLUMN), LATEST_VERSION));
+            record.setMetadata(row.getString(METADATA_COLUMN));
+            record.setCreatedOn(row.getTimestamp(CREATED_ON_COLUMN));
+            record.setCreatedBy(row.getString(CREATED_BY_COLUMN));
+            record.setCreatedFor(row.getString(CREATED_FOR_COLUMN));
+            record.setLockVersion(row.getLong(LOCK_VERSION_COLUMN));
+            records.add(record);
+          });
+    }
+    return records;
+  }
+
+  @Nonnull
+  private static <ASPECT extends RecordTemplate> AspectEntry<ASPECT> toAspectEntry(@Nonnull Class<ASPECT> aspectClass,
+      @Nullable EbeanMetadataAspect latest) {
     if (latest == null) {
       return new AspectEntry<>(null, null);
     }
     final ExtraInfo extraInfo = toExtraInfo(latest);
 
     if (isSoftDeletedAspect(latest, aspectClass)) {
-      return new AspectEntry<>(null, extraInfo, true);
+      return new AspectEntry<>(null, extraInfo, true, latest.getLockVersion());
     }
 
-    return new AspectEntry<>(RecordUtils.toRecordTemplate(aspectClass, latest.getMetadata()), extraInfo);
+    return new AspectEntry<>(RecordUtils.toRecordTemplate(aspectClass, latest.getMetadata()), extraInfo, false,
+        latest.getLockVersion());
   }
 
   @Nonnull
@@ -390,6 +901,9 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
       long version, @Nonnull Timestamp oldTimestamp) {
 
     final EbeanMetadataAspect aspect = buildMetadataAspectBean(urn, value, aspectClass, newAuditStamp, version);
+    if (version == LATEST_VERSION) {
+      invalidateLatestAspect(aspect.getKey());
+    }
 
     // Build manual SQL update query to enable optimistic locking on a given column
     // Optimistic locking is supported on ebean using @version, see https://ebean.io/docs/mapping/jpa/version
@@ -412,6 +926,14 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     update.setParameter("createdBy", aspect.getCreatedBy());
     update.setParameter("oldTimestamp", oldTimestamp);
 
+    executeLatestUpdate(urn, value, aspectClass, newAuditStamp, update);
+  }
+
+  /**
+   * Executes an optimistically locked update of the latest version, along with the new schema update if enabled.
+   */
+  private <ASPECT extends RecordTemplate> void executeLatestUpdate(@Nonnull URN urn, @Nullable RecordTemplate value,
+      @Nonnull Class<ASPECT> aspectClass, @Nonnull AuditStamp newAuditStamp, @Nonnull SqlUpdate update) {
     int numOfUpdatedRows;
     if (_schemaConfig == SchemaConfig.NEW_SCHEMA_ONLY || _schemaConfig == SchemaConfig.DUAL_SCHEMA) {
       // ensure atomicity by running old schema update + new schema update in a transaction
@@ -435,6 +957,9 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
       @Nonnull Class<ASPECT> aspectClass, @Nonnull AuditStamp auditStamp, long version) {
 
     final EbeanMetadataAspect aspect = buildMetadataAspectBean(urn, value, aspectClass, auditStamp, version);
+    if (version == LATEST_VERSION) {
+      invalidateLatestAspect(aspect.getKey());
+    }
 
     if (_schemaConfig == SchemaConfig.NEW_SCHEMA_ONLY || _schemaConfig == SchemaConfig.DUAL_SCHEMA) {
       if (version == LATEST_VERSION) {
@@ -452,20 +977,229 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     _server.insert(aspect);
   }
 
-  protected void saveRecordsToLocalIndex(@Nonnull URN urn, @Nonnull String aspect, @Nonnull String path,
-      @Nonnull Object value) {
-    if (value instanceof List) {
-      for (Object obj : (List<?>) value) {
-        saveSingleRecordToLocalIndex(urn, aspect, path, obj);
+  /**
+   * Writes the whole batch with two JDBC batch statements, one inserting the new rows (historical versions and first
+   * versions) and one updating the existing latest versions with optimistic locking, instead of the SELECT, INSERT and
+   * UPDATE round trips {@link #saveLatest} takes per aspect. The next versions of all updated aspects are read with a
+   * single query.
+   */
+  @Override
+  protected void saveLatestBatch(@Nonnull List<LatestUpdate<URN, ? extends RecordTemplate>> updates) {
+    if (updates.isEmpty()) {
+      return;
+    }
+
+    final Transaction transaction = _server.currentTransaction();
+    if (transaction == null) {
+      throw new IllegalStateException("Batch saves must run within a transaction");
+    }
+
+    final Map<RecordKey, Long> largestVersions = getLargestVersions(
+        updates.stream().filter(EbeanLocalDAO::hasHistoricalVersion).collect(Collectors.toList()));
+
+    final List<EbeanMetadataAspect> inserts = new ArrayList<>(updates.size());
+    final List<Quartet<EbeanMetadataAspect, Timestamp, Long, Long>> latestUpdates = new ArrayList<>(updates.size());
+    final long[] newLargestVersions = new long[updates.size()];
+    for (int i = 0; i < updates.size(); i++) {
+      final LatestUpdate<URN, ? extends RecordTemplate> update = updates.get(i);
+      final EbeanMetadataAspect latest = buildMetadataAspectBean(update.getUrn(), update.getNewValue(),
+          update.getAspectClass(), update.getNewAuditStamp(), LATEST_VERSION);
+      invalidateLatestAspect(latest.getKey());
+
+      if (hasHistoricalVersion(update)) {
+        // Move latest version to historical version by inserting a new record, then update the latest version
+        final long version = largestVersions.getOrDefault(RecordKey.of(latest.getKey()), LATEST_VERSION) + 1L;
+        inserts.add(buildMetadataAspectBean(update.getUrn(), update.getOldValue(), update.getAspectClass(),
+            update.getOldAuditStamp(), version));
+        latestUpdates.add(Quartet.with(latest, new Timestamp(update.getOldAuditStamp().getTime()), version + 1,
+            update.getOldLockVersion()));
+        newLargestVersions[i] = version;
+      } else {
+        inserts.add(latest);
+      }
+    }
+
+    try {
+      final Connection connection = transaction.getConnection();
+      insertBatch(connection, inserts);
+      updateBatchWithOptimisticLocking(connection, latestUpdates, _versionTrackingOnLatestRow);
+    } catch (SQLException e) {
+      throw new PersistenceException("Failed to batch save " + updates.size() + " aspects", e);
+    }
+
+    for (int i = 0; i < updates.size(); i++) {
+      completeLatestUpdate(updates.get(i), newLargestVersions[i]);
+    }
+  }
+
+  private static boolean hasHistoricalVersion(@Nonnull LatestUpdate<?, ? extends RecordTemplate> update) {
+    return (update.isSoftDeleted() || update.getOldValue() != null) && update.getOldAuditStamp() != null;
+  }
+
+  private <ASPECT extends RecordTemplate> void completeLatestUpdate(@Nonnull LatestUpdate<URN, ASPECT> update,
+      long largestVersion) {
+    if (_schemaConfig == SchemaConfig.NEW_SCHEMA_ONLY || _schemaConfig == SchemaConfig.DUAL_SCHEMA) {
+      _localAccess.add(update.getUrn(), update.getNewValue(), update.getAspectClass(), update.getNewAuditStamp());
+    }
+    applyRetentionAndIndex(update.getUrn(), update.getAspectClass(), update.getNewValue(), largestVersion);
+  }
+
+  /**
+   * Gets the largest version of each of the given aspects, from the version counters of the latest rows if version
+   * tracking is enabled and by a scan of all versions otherwise.
+   */
+  @Nonnull
+  private Map<RecordKey, Long> getLargestVersions(@Nonnull List<LatestUpdate<URN, ? extends RecordTemplate>> updates) {
+    if (!_versionTrackingOnLatestRow) {
+      return queryLargestVersions(LARGEST_VERSIONS_SQL, updates);
+    }
+
+    final Map<RecordKey, Long> result = queryLargestVersions(TRACKED_LARGEST_VERSIONS_SQL, updates);
+    final List<LatestUpdate<URN, ? extends RecordTemplate>> untracked = updates.stream()
+        .filter(update -> !result.containsKey(
+            RecordKey.of(new AspectKey<>(update.getAspectClass(), update.getUrn(), LATEST_VERSION))))
+        .collect(Collectors.toList());
+    if (!untracked.isEmpty()) {
+      result.putAll(queryLargestVersions(LARGEST_VERSIONS_SQL, untracked));
+    }
+    return result;
+  }
+
+  /**
+   * Runs a query returning a version per (urn, aspect) for the given aspects with a single query, paginated on keys.
+   */
+  @Nonnull
+  private Map<RecordKey, Long> queryLargestVersions(@Nonnull String sqlTemplate,
+      @Nonnull List<LatestUpdate<URN, ? extends RecordTemplate>> updates) {
+    final Map<RecordKey, Long> result = new HashMap<>();
+    final int keysCount = _queryKeysCount == 0 ? updates.size() : _queryKeysCount;
+    for (int position = 0; position < updates.size(); position += keysCount) {
+      final List<Object> params = new ArrayList<>();
+      final String conditions = updates.subList(position, Math.min(updates.size(), position + keysCount))
+          .stream()
+          .map(update -> {
+            params.add(update.getUrn().toString());
+            params.add(ModelUtils.getAspectName(update.getAspectClass()));
+            return "(urn = ? AND aspect = ?)";
+          })
+          .collect(Collectors.joining(" OR "));
+
+      bindParameters(_server.createSqlQuery(String.format(sqlTemplate, conditions)), params).findList()
+          .forEach(row -> result.put(
+              RecordKey.of(new PrimaryKey(row.getString(URN_COLUMN), row.getString(ASPECT_COLUMN), LATEST_VERSION)),
+              row.getLong(VERSION_COLUMN)));
+    }
+    return result;
+  }
+
+  private static void insertBatch(@Nonnull Connection connection, @Nonnull List<EbeanMetadataAspect> aspects)
+      throws SQLException {
+    if (aspects.isEmpty()) {
+      return;
+    }
+
+    try (PreparedStatement statement = connection.prepareStatement(BATCH_INSERT_SQL)) {
+      for (EbeanMetadataAspect aspect : aspects) {
+        statement.setString(1, aspect.getKey().getUrn());
+        statement.setString(2, aspect.getKey().getAspect());
+        statement.setLong(3, aspect.getKey().getVersion());
+        statement.setString(4, aspect.getMetadata());
+        statement.setTimestamp(5, aspect.getCreatedOn());
+        statement.setString(6, aspect.getCreatedBy());
+        if (aspect.getCreatedFor() != null) {
+          statement.setString(7, aspect.getCreatedFor());
+        } else {
+          statement.setNull(7, Types.VARCHAR);
+        }
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  /**
+   * Updates the latest versions, each given as its new row, its previous createdOn, its next version number and its
+   * previous lock counter.
+   */
+  private static void updateBatchWithOptimisticLocking(@Nonnull Connection connection,
+      @Nonnull List<Quartet<EbeanMetadataAspect, Timestamp, Long, Long>> aspects, boolean versionTracking)
+      throws SQLException {
+    if (aspects.isEmpty()) {
+      return;
+    }
+
+    // Same optimistic locking as saveLatest, on the lock counter with version tracking and on createdOn otherwise
+    try (PreparedStatement statement =
+        connection.prepareStatement(versionTracking ? BATCH_UPDATE_WITH_VERSION_TRACKING_SQL : BATCH_UPDATE_SQL)) {
+      for (Quartet<EbeanMetadataAspect, Timestamp, Long, Long> quartet : aspects) {
+        final EbeanMetadataAspect aspect = quartet.getValue0();
+        int index = 1;
+        statement.setString(index++, aspect.getMetadata());
+        statement.setTimestamp(index++, aspect.getCreatedOn());
+        statement.setString(index++, aspect.getCreatedBy());
+        if (versionTracking) {
+          statement.setLong(index++, quartet.getValue2());
+        }
+        statement.setString(index++, aspect.getKey().getUrn());
+        statement.setString(index++, aspect.getKey().getAspect());
+        statement.setLong(index++, aspect.getKey().getVersion());
+        if (versionTracking) {
+          if (quartet.getValue3() == null) {
+            throw new IllegalStateException(
+                "Latest version of " + aspect.getKey().getUrn() + " was read without its lock counter");
+          }
+          statement.setLong(index, quartet.getValue3());
+        } else {
+          statement.setTimestamp(index, quartet.getValue1());
+        }
+        statement.addBatch();
+      }
+
+      final int[] numOfUpdatedRows = statement.executeBatch();
+      for (int i = 0; i < numOfUpdatedRows.length; i++) {
+        // Drivers which rewrite batches may not report the updated row counts, verify those by reading the rows back
+        if (numOfUpdatedRows[i] == Statement.SUCCESS_NO_INFO && isLatestUpdated(connection, aspects.get(i).getValue0())) {
+          continue;
+        }
+        // If there is no single updated row, emit OptimisticLockException
+        if (numOfUpdatedRows[i] != 1) {
+          throw new OptimisticLockException(
+              numOfUpdatedRows[i] + " rows updated during batch save of " + aspects.get(i).getValue0().getKey().getUrn());
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks whether the latest version row holds the given new latest version, as read within the transaction which
+   * updated it.
+   */
+  private static boolean isLatestUpdated(@Nonnull Connection connection, @Nonnull EbeanMetadataAspect aspect)
+      throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(SELECT_UPDATED_LATEST_SQL)) {
+      statement.setString(1, aspect.getKey().getUrn());
+      statement.setString(2, aspect.getKey().getAspect());
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next()
+            && aspect.getMetadata().equals(resultSet.getString(1))
+            && aspect.getCreatedOn().equals(resultSet.getTimestamp(2))
+            && aspect.getCreatedBy().equals(resultSet.getString(3));
       }
-    } else {
-      saveSingleRecordToLocalIndex(urn, aspect, path, value);
     }
   }
 
   protected long saveSingleRecordToLocalIndex(@Nonnull URN urn, @Nonnull String aspect, @Nonnull String path,
       @Nonnull Object value) {
 
+    final EbeanMetadataIndex record = toLocalIndexRecord(urn, aspect, path, value);
+    _server.insert(record);
+    return record.getId();
+  }
+
+  @Nonnull
+  private EbeanMetadataIndex toLocalIndexRecord(@Nonnull URN urn, @Nonnull String aspect, @Nonnull String path,
+      @Nonnull Object value) {
+
     final EbeanMetadataIndex record = new EbeanMetadataIndex().setUrn(urn.toString()).setAspect(aspect).setPath(path);
     if (value instanceof Integer || value instanceof Long) {
       record.setLongVal(Long.valueOf(value.toString()));
@@ -474,9 +1208,7 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     } else {
       record.setStringVal(value.toString());
     }
-
-    _server.insert(record);
-    return record.getId();
+    return record;
   }
 
   @Nonnull
@@ -484,38 +1216,75 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     return Collections.unmodifiableMap(new HashMap<>(_storageConfig.getAspectStorageConfigMap()));
   }
 
-  private void updateUrnInLocalIndex(@Nonnull URN urn) {
-    if (existsInLocalIndex(urn)) {
-      return;
+  /**
+   * Compiles the strongly consistent indexed paths of each aspect of the storage config, so that they're resolved against
+   * the aspect schemas once rather than on every update of the local index.
+   */
+  @Nonnull
+  private static Map<Class<? extends RecordTemplate>, List<FieldValueExtractor>> compileIndexedPaths(
+      @Nonnull LocalDAOStorageConfig storageConfig) {
+    final Map<Class<? extends RecordTemplate>, List<FieldValueExtractor>> extractors = new HashMap<>();
+    storageConfig.getAspectStorageConfigMap().forEach((aspectClass, aspectStorageConfig) -> {
+      if (aspectStorageConfig == null) {
+        return;
+      }
+      extractors.put(aspectClass, aspectStorageConfig.getPathStorageConfigMap()
+          .entrySet()
+          .stream()
+          .filter(entry -> entry.getValue().isStrongConsistentSecondaryIndex())
+          .map(entry -> RecordUtils.compilePath(aspectClass, entry.getKey()))
+          .collect(Collectors.toList()));
+    });
+    return Collections.unmodifiableMap(extractors);
+  }
+
+  /**
+   * Diffs the indexed path values of a new aspect value against the existing index rows of the (urn, aspect) pair.
+   * Rows whose value is still indexed are kept as is, values not indexed yet are added to {@code insertedRows} and ids
+   * of rows whose value is no longer indexed are added to {@code removedIds}.
+   */
+  private <ASPECT extends RecordTemplate> void diffAspectInLocalIndex(@Nonnull URN urn, @Nonnull ASPECT newValue,
+      @Nonnull List<FieldValueExtractor> indexedPathExtractors, @Nonnull List<EbeanMetadataIndex> existingRows, @Nonnull List<EbeanMetadataIndex> insertedRows,
+      @Nonnull List<Long> removedIds) {
+
+    // ids of the existing rows per indexed value, a list holds duplicated values, e.g. of a repeated array item
+    final Map<LocalIndexValue, List<Long>> unmatchedIds = new HashMap<>();
+    existingRows.forEach(
+        row -> unmatchedIds.computeIfAbsent(LocalIndexValue.of(row), key -> new ArrayList<>()).add(row.getId()));
+
+    final String aspectName = ModelUtils.getAspectName(newValue.getClass());
+    for (FieldValueExtractor extractor : indexedPathExtractors) {
+      extractor.extract(newValue).ifPresent(value -> {
+        final List<?> values = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+        for (Object obj : values) {
+          final EbeanMetadataIndex record = toLocalIndexRecord(urn, aspectName, extractor.getPath(), obj);
+          final List<Long> ids = unmatchedIds.get(LocalIndexValue.of(record));
+          if (ids == null || ids.isEmpty()) {
+            insertedRows.add(record);
+          } else {
+            ids.remove(ids.size() - 1);
+          }
+        }
+      });
     }
 
-    final Map<String, Object> pathValueMap = _urnPathExtractor.extractPaths(urn);
-    pathValueMap.forEach((path, value) -> saveSingleRecordToLocalIndex(urn, _urnClass.getCanonicalName(), path, value));
+    unmatchedIds.values().forEach(removedIds::addAll);
   }
 
-  private <ASPECT extends RecordTemplate> void updateAspectInLocalIndex(@Nonnull URN urn, @Nonnull ASPECT newValue) {
+  /**
+   * Indexed (path, value) of a row of the local secondary index, used to diff the rows of an aspect.
+   */
+  @Value
+  static class LocalIndexValue {
+    String path;
+    Long longVal;
+    Double doubleVal;
+    String stringVal;
 
-    if (!_storageConfig.getAspectStorageConfigMap().containsKey(newValue.getClass())
-        || _storageConfig.getAspectStorageConfigMap().get(newValue.getClass()) == null) {
-      return;
+    @Nonnull
+    static LocalIndexValue of(@Nonnull EbeanMetadataIndex record) {
+      return new LocalIndexValue(record.getPath(), record.getLongVal(), record.getDoubleVal(), record.getStringVal());
     }
-    // step1: remove all rows from the index table corresponding to <urn, aspect> pair
-    _server.find(EbeanMetadataIndex.class)
-        .where()
-        .eq(URN_COLUMN, urn.toString())
-        .eq(ASPECT_COLUMN, ModelUtils.getAspectName(newValue.getClass()))
-        .delete();
-
-    // step2: add fields of the aspect that need to be indexed
-    final Map<String, LocalDAOStorageConfig.PathStorageConfig> pathStorageConfigMap =
-        _storageConfig.getAspectStorageConfigMap().get(newValue.getClass()).getPathStorageConfigMap();
-
-    pathStorageConfigMap.keySet()
-        .stream()
-        .filter(path -> pathStorageConfigMap.get(path).isStrongConsistentSecondaryIndex())
-        .collect(Collectors.toMap(Function.identity(), path -> RecordUtils.getFieldValue(newValue, path)))
-        .forEach((k, v) -> v.ifPresent(
-            value -> saveRecordsToLocalIndex(urn, newValue.getClass().getCanonicalName(), k, value)));
   }
 
   @Override
@@ -537,25 +1306,43 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   protected <ASPECT extends RecordTemplate> void applyVersionBasedRetention(@Nonnull Class<ASPECT> aspectClass,
       @Nonnull URN urn, @Nonnull VersionBasedRetention retention, long largestVersion) {
 
-    _server.find(EbeanMetadataAspect.class)
-        .where()
-        .eq(URN_COLUMN, urn.toString())
-        .eq(ASPECT_COLUMN, ModelUtils.getAspectName(aspectClass))
-        .ne(VERSION_COLUMN, LATEST_VERSION)
-        .le(VERSION_COLUMN, largestVersion - retention.getMaxVersionsToRetain() + 1)
-        .delete();
+    deleteInBatches(DELETE_EXPIRED_VERSIONS_SQL, urn.toString(), ModelUtils.getAspectName(aspectClass),
+        largestVersion - retention.getMaxVersionsToRetain() + 1);
   }
 
   @Override
   protected <ASPECT extends RecordTemplate> void applyTimeBasedRetention(@Nonnull Class<ASPECT> aspectClass,
       @Nonnull URN urn, @Nonnull TimeBasedRetention retention, long currentTime) {
 
-    _server.find(EbeanMetadataAspect.class)
-        .where()
-        .eq(URN_COLUMN, urn.toString())
-        .eq(ASPECT_COLUMN, ModelUtils.getAspectName(aspectClass))
-        .lt(CREATED_ON_COLUMN, new Timestamp(currentTime - retention.getMaxAgeToRetain()))
-        .delete();
+    deleteInBatches(DELETE_EXPIRED_AGES_SQL, urn.toString(), ModelUtils.getAspectName(aspectClass),
+        new Timestamp(currentTime - retention.getMaxAgeToRetain()));
+  }
+
+  /**
+   * Runs a DELETE statement whose last parameter is its LIMIT until it deletes less than a batch of rows.
+   */
+  private void deleteInBatches(@Nonnull String sql, @Nonnull Object... params) {
+    final int batchSize = _retentionDeleteBatchSize;
+    int deleted;
+    do {
+      final SqlUpdate delete = _server.createSqlUpdate(sql);
+      for (int i = 0; i < params.length; i++) {
+        delete.setParameter(i + 1, params[i]);
+      }
+      delete.setParameter(params.length + 1, batchSize);
+      deleted = delete.execute();
+    } while (deleted >= batchSize);
+  }
+
+  /**
+   * Sets the max number of rows a single DELETE statement of retention removes. Expired versions of an aspect are
+   * deleted by as many statements as needed, so that a large backlog of versions isn't deleted by one long statement.
+   */
+  public void setRetentionDeleteBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Retention delete batch size must be positive: " + batchSize);
+    }
+    _retentionDeleteBatchSize = batchSize;
   }
 
   @Override
@@ -566,21 +1353,13 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
       return Collections.emptyMap();
     }
 
-    final List<EbeanMetadataAspect> records;
-
-    if (_queryKeysCount == 0) {
-      records = batchGet(keys, keys.size());
-    } else {
-      records = batchGet(keys, _queryKeysCount);
-    }
-
-    // TODO: Improve this O(n^2) search
+    final List<EbeanMetadataAspect> records = batchGetWithCache(keys, _queryKeysCount);
+    final Map<RecordKey, EbeanMetadataAspect> recordIndex = indexRecords(records);
 
     return keys.stream()
-        .collect(Collectors.toMap(Function.identity(), key -> records.stream()
-            .filter(record -> matchKeys(key, record.getKey()))
-            .findFirst()
-            .flatMap(record -> toRecordTemplate(key.getAspectClass(), record))));
+        .collect(Collectors.toMap(Function.identity(),
+            key -> Optional.ofNullable(recordIndex.get(RecordKey.of(key)))
+                .flatMap(record -> toRecordTemplate(key.getAspectClass(), record))));
   }
 
   @Override
@@ -591,20 +1370,22 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
       return Collections.emptyMap();
     }
 
-    final List<EbeanMetadataAspect> records = batchGet(keys, keys.size());
+    final List<EbeanMetadataAspect> records = batchGetWithCache(keys, 0);
+
+    final Map<RecordKey, EbeanMetadataAspect> recordIndex = indexRecords(records);
 
     final Map<AspectKey<URN, ? extends RecordTemplate>, AspectWithExtraInfo<? extends RecordTemplate>> result =
         new HashMap<>();
-    keys.forEach(key -> records.stream()
-        .filter(record -> matchKeys(key, record.getKey()))
-        .findFirst()
-        .map(record -> {
-          final Class<RecordTemplate> aspectClass = (Class<RecordTemplate>) key.getAspectClass();
-          final Optional<AspectWithExtraInfo<RecordTemplate>> aspectWithExtraInfo = toRecordTemplateWithExtraInfo(aspectClass, record);
-          aspectWithExtraInfo.ifPresent(
-              recordTemplateAspectWithExtraInfo -> result.put(key, recordTemplateAspectWithExtraInfo));
-          return null;
-        }));
+    keys.forEach(key -> {
+      final EbeanMetadataAspect record = recordIndex.get(RecordKey.of(key));
+      if (record == null) {
+        return;
+      }
+      final Class<RecordTemplate> aspectClass = (Class<RecordTemplate>) key.getAspectClass();
+      final Optional<AspectWithExtraInfo<RecordTemplate>> aspectWithExtraInfo = toRecordTemplateWithExtraInfo(aspectClass, record);
+      aspectWithExtraInfo.ifPresent(
+          recordTemplateAspectWithExtraInfo -> result.put(key, recordTemplateAspectWithExtraInfo));
+    });
     return result;
   }
 
@@ -656,8 +1437,213 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   }
 
   /**
-   * BatchGet that allows pagination on keys to avoid large queries.
-   * TODO: can further improve by running the sub queries in parallel
+   * Sets the executor used to run the paged sub queries of a batch get concurrently.
+   *
+   * <p>At most {@code maxParallelism} sub queries of the same batch get are in flight at any time. Passing a null
+   * executor restores the default behavior of running the sub queries serially. Sub queries are always run serially
+   * when the calling thread has an ongoing transaction, so that they see the transaction's uncommitted writes.
+   *
+   * @param executor executor to run the sub queries on, or null to run them serially
+   * @param maxParallelism the max number of sub queries of a single batch get running at the same time
+   */
+  public void setBatchGetExecutor(@Nullable ExecutorService executor, int maxParallelism) {
+    if (maxParallelism <= 0) {
+      throw new IllegalArgumentException("Batch get parallelism must be positive: " + maxParallelism);
+    }
+    _batchGetExecutor = executor;
+    _batchGetParallelism = maxParallelism;
+  }
+
+  /**
+   * Enables an in-process read-through cache of the latest version of aspects, keyed by (urn, aspect).
+   *
+   * <p>The cache is consulted by {@link #getLatest}, {@link #get(Set)} and {@link #getWithExtraInfo(Set)} outside of
+   * transactions, and the cached entry is invalidated both when the latest version is written and when the writing
+   * transaction completes. Writes from other hosts are only picked up once the entry expires, so {@code expireAfterWrite}
+   * bounds the staleness of the cache.
+   *
+   * @param maximumSize the max number of latest aspects held in the cache
+   * @param expireAfterWrite how long an entry stays in the cache after it's loaded
+   */
+  public void enableLatestAspectCache(long maximumSize, @Nonnull Duration expireAfterWrite) {
+    _latestAspectCache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Disables the latest aspect cache and drops all its entries.
+   */
+  public void disableLatestAspectCache() {
+    _latestAspectCache = null;
+  }
+
+  /**
+   * Returns hit, miss and eviction counters of the latest aspect cache, or null if the cache is disabled.
+   */
+  @Nullable
+  public CacheStats getLatestAspectCacheStats() {
+    return _latestAspectCache == null ? null : _latestAspectCache.stats();
+  }
+
+  /**
+   * The cache must be bypassed within a transaction, as the transaction may read its own uncommitted writes.
+   */
+  private boolean isLatestAspectCacheUsable() {
+    return _latestAspectCache != null && _server.currentTransaction() == null;
+  }
+
+  private void invalidateLatestAspect(@Nonnull PrimaryKey pk) {
+    final Cache<RecordKey, CachedLatestAspect> cache = _latestAspectCache;
+    if (cache == null) {
+      return;
+    }
+
+    final RecordKey key = RecordKey.of(pk);
+    invalidateLatestAspect(cache, key);
+
+    // A concurrent reader may re-populate the entry with the old value before the write commits, hence invalidate
+    // again once the transaction completes. Readers which read the old value before then and fill the cache after are
+    // turned away by the generation check of fillLatestAspectCache.
+    final Transaction transaction = _server.currentTransaction();
+    if (transaction != null) {
+      transaction.register(new TransactionCallbackAdapter() {
+        @Override
+        public void postCommit() {
+          invalidateLatestAspect(cache, key);
+        }
+
+        @Override
+        public void postRollback() {
+          invalidateLatestAspect(cache, key);
+        }
+      });
+    }
+  }
+
+  private void invalidateLatestAspect(@Nonnull Cache<RecordKey, CachedLatestAspect> cache, @Nonnull RecordKey key) {
+    // The generation is bumped before the entry is removed, so that a fill either sees it or is removed
+    _latestAspectCacheGenerations.incrementAndGet(latestAspectCacheStripe(key));
+    cache.asMap().remove(key);
+  }
+
+  /**
+   * Gets the invalidation generation of a key of the latest aspect cache, to be taken before reading the record the
+   * cache is filled with, see {@link #fillLatestAspectCache(RecordKey, EbeanMetadataAspect, long)}.
+   */
+  @VisibleForTesting
+  long getLatestAspectCacheGeneration(@Nonnull RecordKey key) {
+    return _latestAspectCacheGenerations.get(latestAspectCacheStripe(key));
+  }
+
+  /**
+   * Fills the latest aspect cache with a record, unless the key was invalidated since {@code generation} was taken, i.e.
+   * since before the record was read. A reader could otherwise read the previous value before a write commits, and fill
+   * the cache with it after the write invalidated the key, where it'd be served until it expires.
+   */
+  @VisibleForTesting
+  void fillLatestAspectCache(@Nonnull RecordKey key, @Nonnull EbeanMetadataAspect record, long generation) {
+    final Cache<RecordKey, CachedLatestAspect> cache = _latestAspectCache;
+    if (cache == null) {
+      return;
+    }
+    final int stripe = latestAspectCacheStripe(key);
+    cache.asMap().compute(key, (ignored, cached) ->
+        _latestAspectCacheGenerations.get(stripe) == generation ? CachedLatestAspect.of(record) : cached);
+  }
+
+  private static int latestAspectCacheStripe(@Nonnull RecordKey key) {
+    return Math.floorMod(key.hashCode(), LATEST_ASPECT_CACHE_STRIPES);
+  }
+
+  /**
+   * Immutable copy of a latest aspect held by the latest aspect cache, so that callers can't change cached records.
+   */
+  @Value
+  static class CachedLatestAspect {
+    String urn;
+    String aspect;
+    String metadata;
+    Instant createdOn;
+    String createdBy;
+    String createdFor;
+
+    @Nonnull
+    static CachedLatestAspect of(@Nonnull EbeanMetadataAspect record) {
+      return new CachedLatestAspect(record.getKey().getUrn(), record.getKey().getAspect(), record.getMetadata(),
+          record.getCreatedOn().toInstant(), record.getCreatedBy(), record.getCreatedFor());
+    }
+
+    /**
+     * Creates a new record with the values of the cached one.
+     */
+    @Nonnull
+    EbeanMetadataAspect toBean() {
+      final EbeanMetadataAspect record = new EbeanMetadataAspect();
+      record.setKey(new PrimaryKey(urn, aspect, LATEST_VERSION));
+      record.setMetadata(metadata);
+      record.setCreatedOn(Timestamp.from(createdOn));
+      record.setCreatedBy(createdBy);
+      record.setCreatedFor(createdFor);
+      return record;
+    }
+  }
+
+  /**
+   * Serves latest version keys from the latest aspect cache if possible, and batch gets the remaining keys.
+   *
+   * @param keys a set of keys with urn, aspect and version
+   * @param keysCount the max number of keys for each sub query, 0 means no pagination on keys
+   */
+  @Nonnull
+  private List<EbeanMetadataAspect> batchGetWithCache(@Nonnull Set<AspectKey<URN, ? extends RecordTemplate>> keys,
+      int keysCount) {
+    if (!isLatestAspectCacheUsable()) {
+      return batchGet(keys, keysCount == 0 ? keys.size() : keysCount);
+    }
+
+    final List<EbeanMetadataAspect> records = new ArrayList<>(keys.size());
+    final Set<AspectKey<URN, ? extends RecordTemplate>> misses = new HashSet<>();
+    final Map<RecordKey, Long> generations = new HashMap<>();
+    for (AspectKey<URN, ? extends RecordTemplate> key : keys) {
+      final RecordKey cacheKey = RecordKey.of(key);
+      final CachedLatestAspect cached =
+          key.getVersion() == LATEST_VERSION ? _latestAspectCache.getIfPresent(cacheKey) : null;
+      if (cached != null) {
+        records.add(cached.toBean());
+      } else {
+        misses.add(key);
+        if (key.getVersion() == LATEST_VERSION) {
+          generations.put(cacheKey, getLatestAspectCacheGeneration(cacheKey));
+        }
+      }
+    }
+
+    if (!misses.isEmpty()) {
+      final List<EbeanMetadataAspect> fetched = batchGet(misses, keysCount == 0 ? misses.size() : keysCount);
+      for (EbeanMetadataAspect record : fetched) {
+        final Long generation = generations.get(RecordKey.of(record.getKey()));
+        if (generation != null) {
+          fillLatestAspectCache(RecordKey.of(record.getKey()), record, generation);
+        }
+      }
+      records.addAll(fetched);
+    }
+    return records;
+  }
+
+  /**
+   * Sets a listener which is notified with the latency of every paged sub query of a batch get.
+   */
+  public void setBatchGetPageListener(@Nullable BatchGetPageListener batchGetPageListener) {
+    _batchGetPageListener = batchGetPageListener;
+  }
+
+  /**
+   * BatchGet that allows pagination on keys to avoid large queries. Sub queries run in parallel if an executor is set
+   * via {@link #setBatchGetExecutor(ExecutorService, int)}.
    *
    * @param keys a set of keys with urn, aspect and version
    * @param keysCount the max number of keys for each sub query
@@ -666,16 +1652,120 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   private List<EbeanMetadataAspect> batchGet(@Nonnull Set<AspectKey<URN, ? extends RecordTemplate>> keys,
       int keysCount) {
 
-    int position = 0;
-    final int totalPageCount = QueryUtils.getTotalPageCount(keys.size(), keysCount);
+    final List<AspectKey<URN, ? extends RecordTemplate>> keyList = new ArrayList<>(keys);
+    final int totalPageCount = QueryUtils.getTotalPageCount(keyList.size(), keysCount);
+
+    if (totalPageCount <= 1 || _batchGetExecutor == null || _server.currentTransaction() != null) {
+      int position = 0;
+      final List<List<EbeanMetadataAspect>> pages = new ArrayList<>(Math.max(1, totalPageCount));
+      pages.add(timedBatchGetPage(keyList, keysCount, position));
+      while (QueryUtils.hasMore(position, keysCount, totalPageCount)) {
+        position += keysCount;
+        pages.add(timedBatchGetPage(keyList, keysCount, position));
+      }
+      return concatPages(pages);
+    }
+
+    return parallelBatchGet(keyList, keysCount, totalPageCount);
+  }
+
+  /**
+   * Runs the paged sub queries of a batch get on {@link #_batchGetExecutor}, with at most
+   * {@link #_batchGetParallelism} of them in flight, and concatenates their results in page order.
+   */
+  @Nonnull
+  private List<EbeanMetadataAspect> parallelBatchGet(@Nonnull List<AspectKey<URN, ? extends RecordTemplate>> keys,
+      int keysCount, int totalPageCount) {
+
+    final Semaphore permits = new Semaphore(_batchGetParallelism);
+    final List<Future<List<EbeanMetadataAspect>>> pages = new ArrayList<>(totalPageCount);
+    try {
+      for (int page = 0; page < totalPageCount; page++) {
+        final int position = page * keysCount;
+        permits.acquire();
+        try {
+          pages.add(_batchGetExecutor.submit(() -> {
+            try {
+              return timedBatchGetPage(keys, keysCount, position);
+            } finally {
+              permits.release();
+            }
+          }));
+        } catch (RejectedExecutionException e) {
+          permits.release();
+          throw e;
+        }
+      }
 
-    List<EbeanMetadataAspect> finalResult = batchGetHelper(new ArrayList<>(keys), keysCount, position);
-    while (QueryUtils.hasMore(position, keysCount, totalPageCount)) {
-      position += keysCount;
-      final List<EbeanMetadataAspect> oneStatementResult = batchGetHelper(new ArrayList<>(keys), keysCount, position);
-      finalResult.addAll(oneStatementResult);
+      final List<List<EbeanMetadataAspect>> results = new ArrayList<>(totalPageCount);
+      for (Future<List<EbeanMetadataAspect>> page : pages) {
+        results.add(page.get());
+      }
+      return concatPages(results);
+    } catch (InterruptedException e) {
+      pages.forEach(page -> page.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while running batch get sub queries", e);
+    } catch (ExecutionException e) {
+      pages.forEach(page -> page.cancel(true));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to run batch get sub query", e.getCause());
     }
-    return finalResult;
+  }
+
+  /**
+   * Returns a read-only view of the records of the given pages in page order, so that merging the pages of a batch get
+   * doesn't copy their records again. Iterating over the view is linear, while {@link List#get(int)} walks the pages.
+   */
+  @Nonnull
+  static <T> List<T> concatPages(@Nonnull List<List<T>> pages) {
+    if (pages.size() == 1) {
+      return pages.get(0);
+    }
+    final int size = pages.stream().mapToInt(List::size).sum();
+    return new AbstractList<T>() {
+      @Override
+      public T get(int index) {
+        if (index < 0 || index >= size) {
+          throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        int offset = index;
+        for (List<T> page : pages) {
+          if (offset < page.size()) {
+            return page.get(offset);
+          }
+          offset -= page.size();
+        }
+        throw new IllegalStateException("Pages changed after they were concatenated");
+      }
+
+      @Override
+      public Iterator<T> iterator() {
+        return pages.stream().flatMap(List::stream).iterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Nonnull
+  private List<EbeanMetadataAspect> timedBatchGetPage(@Nonnull List<AspectKey<URN, ? extends RecordTemplate>> keys,
+      int keysCount, int position) {
+    final BatchGetPageListener listener = _batchGetPageListener;
+    if (listener == null) {
+      return batchGetHelper(keys, keysCount, position);
+    }
+
+    final long start = System.nanoTime();
+    final List<EbeanMetadataAspect> result = batchGetHelper(keys, keysCount, position);
+    listener.onPageFetched(position, Math.min(keysCount, keys.size() - position), result.size(),
+        System.nanoTime() - start);
+    return result;
   }
 
   /**
@@ -776,13 +1866,40 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
   }
 
   /**
-   * Checks if an {@link AspectKey} and a {@link PrimaryKey} for Ebean are equivalent.
+   * Indexes the records fetched by a batch get by their normalized {@link RecordKey}, so that each requested
+   * {@link AspectKey} can be matched in constant time instead of scanning the whole result list.
    *
-   * @param aspectKey Urn needs to do a ignore case match
+   * <p>If several records map to the same key, the first one wins, mirroring the previous findFirst() semantics.
+   */
+  @Nonnull
+  static Map<RecordKey, EbeanMetadataAspect> indexRecords(@Nonnull List<EbeanMetadataAspect> records) {
+    final Map<RecordKey, EbeanMetadataAspect> index = new HashMap<>(records.size() * 2);
+    for (EbeanMetadataAspect record : records) {
+      index.putIfAbsent(RecordKey.of(record.getKey()), record);
+    }
+    return index;
+  }
+
+  /**
+   * Normalized (urn, aspect, version) key used to join requested {@link AspectKey}s with fetched
+   * {@link EbeanMetadataAspect}s. Urn is lower-cased as urn matching is case insensitive.
    */
-  boolean matchKeys(@Nonnull AspectKey<URN, ? extends RecordTemplate> aspectKey, @Nonnull PrimaryKey pk) {
-    return aspectKey.getUrn().toString().equalsIgnoreCase(pk.getUrn()) && aspectKey.getVersion() == pk.getVersion()
-        && ModelUtils.getAspectName(aspectKey.getAspectClass()).equals(pk.getAspect());
+  @Value
+  static class RecordKey {
+    String urn;
+    String aspect;
+    long version;
+
+    @Nonnull
+    static RecordKey of(@Nonnull AspectKey<? extends Urn, ? extends RecordTemplate> aspectKey) {
+      return new RecordKey(aspectKey.getUrn().toString().toLowerCase(Locale.ROOT),
+          ModelUtils.getAspectName(aspectKey.getAspectClass()), aspectKey.getVersion());
+    }
+
+    @Nonnull
+    static RecordKey of(@Nonnull PrimaryKey pk) {
+      return new RecordKey(pk.getUrn().toLowerCase(Locale.ROOT), pk.getAspect(), pk.getVersion());
+    }
   }
 
   @Override
@@ -840,6 +1957,136 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     return urnsOld;
   }
 
+  /**
+   * Streams the latest version of an aspect with a single query, iterating over its rows as they're consumed instead of
+   * materializing pages. {@code fetchSize} is passed to the JDBC driver as its fetch size. MySQL Connector/J only honors
+   * it with {@code useCursorFetch=true} set on the connection URL and otherwise reads the full result into memory, so
+   * without it the rows are streamed one at a time instead, see {@link #getScanFetchSize(Connection, int)}.
+   *
+   * <p>The query runs on a connection of its own, in a read-only transaction which isn't bound to the calling thread.
+   * The connection is held until the rows are exhausted or the stream is closed, so the stream must be closed. When using
+   * only the new schema, this falls back to the paged implementation of {@link BaseLocalDAO}.
+   */
+  @Override
+  @Nonnull
+  public <ASPECT extends RecordTemplate> Stream<Pair<URN, ASPECT>> scanLatest(@Nonnull Class<ASPECT> aspectClass,
+      int fetchSize) {
+    if (_schemaConfig == SchemaConfig.NEW_SCHEMA_ONLY) {
+      return super.scanLatest(aspectClass, fetchSize);
+    }
+    checkValidAspect(aspectClass);
+    if (fetchSize <= 0) {
+      throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+    }
+
+    final Transaction transaction = _server.createTransaction();
+    final LatestAspectIterator iterator = new LatestAspectIterator(transaction);
+    try {
+      transaction.setReadOnly(true);
+      final Connection connection = transaction.getConnection();
+      final PreparedStatement statement =
+          connection.prepareStatement(SCAN_LATEST_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      iterator.setStatement(statement);
+      statement.setFetchSize(getScanFetchSize(connection, fetchSize));
+      statement.setString(1, ModelUtils.getAspectName(aspectClass));
+      statement.setString(2, DELETED_VALUE);
+      iterator.setResultSet(statement.executeQuery());
+    } catch (SQLException e) {
+      iterator.close();
+      throw new PersistenceException("Failed to scan " + aspectClass.getCanonicalName(), e);
+    }
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+        false)
+        .onClose(iterator::close)
+        .map(row -> Pair.with(getUrn(row.getValue0()), RecordUtils.toRecordTemplate(aspectClass, row.getValue1())));
+  }
+
+  /**
+   * Gets the fetch size to scan with on the given connection. MySQL Connector/J streams the rows one at a time with a fetch
+   * size of {@link Integer#MIN_VALUE}, and only reads {@code fetchSize} rows at a time with cursor fetch enabled.
+   */
+  static int getScanFetchSize(@Nonnull Connection connection, int fetchSize) throws SQLException {
+    final DatabaseMetaData metaData = connection.getMetaData();
+    if (MYSQL_PRODUCT_NAME.equalsIgnoreCase(metaData.getDatabaseProductName())
+        && !metaData.getURL().contains(MYSQL_CURSOR_FETCH_PROPERTY)) {
+      return Integer.MIN_VALUE;
+    }
+    return fetchSize;
+  }
+
+  /**
+   * Iterates over the (urn, metadata) rows of a scan, and ends its transaction once the rows are exhausted or it's closed.
+   */
+  static final class LatestAspectIterator implements Iterator<Pair<String, String>>, AutoCloseable {
+    private final Transaction _transaction;
+    private PreparedStatement _statement;
+    private ResultSet _resultSet;
+    private Pair<String, String> _next;
+    private boolean _closed;
+
+    LatestAspectIterator(@Nonnull Transaction transaction) {
+      _transaction = transaction;
+    }
+
+    void setStatement(@Nonnull PreparedStatement statement) {
+      _statement = statement;
+    }
+
+    void setResultSet(@Nonnull ResultSet resultSet) {
+      _resultSet = resultSet;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (_next != null) {
+        return true;
+      }
+      if (_closed) {
+        return false;
+      }
+      try {
+        if (_resultSet.next()) {
+          _next = Pair.with(_resultSet.getString(1), _resultSet.getString(2));
+          return true;
+        }
+      } catch (SQLException e) {
+        close();
+        throw new PersistenceException("Failed to read the next scanned aspect", e);
+      }
+      close();
+      return false;
+    }
+
+    @Override
+    public Pair<String, String> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Pair<String, String> next = _next;
+      _next = null;
+      return next;
+    }
+
+    @Override
+    public void close() {
+      if (_closed) {
+        return;
+      }
+      _closed = true;
+      try {
+        // closing the statement closes its result set
+        if (_statement != null) {
+          _statement.close();
+        }
+      } catch (SQLException e) {
+        log.warn("Failed to close the scan statement", e);
+      } finally {
+        _transaction.end();
+      }
+    }
+  }
+
   @Nonnull
   <ASPECT extends RecordTemplate> ListResult<ASPECT> getListResult(@Nonnull Class<ASPECT> aspectClass,
       @Nonnull PagedList<EbeanMetadataAspect> pagedList, int start) {
@@ -994,20 +2241,59 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
 
   @Override
   public long newNumericId(@Nonnull String namespace, int maxTransactionRetry) {
-    return runInTransactionWithRetry(() -> {
-      final Optional<EbeanMetadataId> result = _server.find(EbeanMetadataId.class)
-          .where()
-          .eq(EbeanMetadataId.NAMESPACE_COLUMN, namespace)
-          .orderBy()
-          .desc(EbeanMetadataId.ID_COLUMN)
-          .setMaxRows(1)
-          .findOneOrEmpty();
+    if (_idBlockSize == 1) {
+      return runInTransactionWithRetry(() -> reserveNumericIds(namespace, 1), maxTransactionRetry);
+    }
+
+    while (true) {
+      final IdBlock block = _idBlocks.get(namespace);
+      if (block != null) {
+        final long id = block.getNextId().getAndIncrement();
+        if (id <= block.getLastId()) {
+          return id;
+        }
+      }
+
+      synchronized (_idBlockLocks.computeIfAbsent(namespace, key -> new Object())) {
+        // Only one caller reserves the next block, the others pick ids from it
+        if (_idBlocks.get(namespace) == block) {
+          final int blockSize = _idBlockSize;
+          // The reservation must commit even if the caller's transaction rolls back, as its ids may be handed out
+          final long lastId = runInTransactionWithRetry(() -> reserveNumericIds(namespace, blockSize),
+              maxTransactionRetry, () -> _server.beginTransaction(TxScope.requiresNew()));
+          _idBlocks.put(namespace, new IdBlock(new AtomicLong(lastId - blockSize + 1), lastId));
+        }
+      }
+    }
+  }
 
-      EbeanMetadataId id = result.orElse(new EbeanMetadataId(namespace, 0));
-      id.setId(id.getId() + 1);
-      _server.insert(id);
-      return id;
-    }, maxTransactionRetry).getId();
+  /**
+   * Reserves the next {@code count} ids of a namespace by inserting the last of them.
+   *
+   * @return the last reserved id
+   */
+  private long reserveNumericIds(@Nonnull String namespace, int count) {
+    final Optional<EbeanMetadataId> result = _server.find(EbeanMetadataId.class)
+        .where()
+        .eq(EbeanMetadataId.NAMESPACE_COLUMN, namespace)
+        .orderBy()
+        .desc(EbeanMetadataId.ID_COLUMN)
+        .setMaxRows(1)
+        .findOneOrEmpty();
+
+    final EbeanMetadataId id = result.orElse(new EbeanMetadataId(namespace, 0));
+    id.setId(id.getId() + count);
+    _server.insert(id);
+    return id.getId();
+  }
+
+  /**
+   * Block of numeric ids reserved by {@link #newNumericId(String, int)}, from the next id to hand out to the last one.
+   */
+  @Value
+  static class IdBlock {
+    AtomicLong nextId;
+    long lastId;
   }
 
   @Nonnull
@@ -1326,6 +2612,47 @@ public class EbeanLocalDAO<ASPECT_UNION extends UnionTemplate, URN extends Urn>
     return urnsOld;
   }
 
+  /**
+   * Similar to {@link #listUrns(IndexFilter, IndexSortCriterion, Urn, int)} but paginates with a keyset (seek) on the sort
+   * column and urn instead of an offset, so deep pages cost as much as the first one. No total count is computed, use
+   * {@link #countUrns(IndexFilter)} if it's needed.
+   *
+   * <p>NOTE: This is only supported when using only the new schema.
+   *
+   * @param cursor continuation token returned with the previous page. For the first page, this should be set as NULL
+   * @return a {@link CursorListResult} containing a list of urns and the continuation token of the next page
+   */
+  @Nonnull
+  public CursorListResult<URN> listUrnsWithCursor(@Nonnull IndexFilter indexFilter,
+      @Nullable IndexSortCriterion indexSortCriterion, @Nullable String cursor, int pageSize) {
+    if (_schemaConfig != SchemaConfig.NEW_SCHEMA_ONLY) {
+      throw new UnsupportedOperationException("Cursor pagination is only supported when using only the new schema");
+    }
+    return _localAccess.listUrnsWithCursor(indexFilter, indexSortCriterion, cursor, pageSize);
+  }
+
+  /**
+   * Returns the number of urns that satisfy the given filter conditions.
+   *
+   * <p>NOTE: This is only supported when using only the new schema.
+   */
+  public int countUrns(@Nonnull IndexFilter indexFilter) {
+    if (_schemaConfig != SchemaConfig.NEW_SCHEMA_ONLY) {
+      throw new UnsupportedOperationException("Counting urns is only supported when using only the new schema");
+    }
+    return _localAccess.countUrns(indexFilter);
+  }
+
+  /**
+   * Enables caching of the total counts of entity table listings, see {@link IEbeanLocalAccess#enableTotalCountCache}.
+   * Has no effect when using only the old schema.
+   */
+  public void enableTotalCountCache(long maximumSize, @Nonnull Duration expireAfterWrite) {
+    if (_localAccess != null) {
+      _localAccess.enableTotalCountCache(maximumSize, expireAfterWrite);
+    }
+  }
+
   /**
    * Constructs SQL query to count agggregate urns that contains positioned parameters (with `?`),
    * based on whether {@link IndexCriterion} of a given condition has field `pathParams`.
@@ -1,7 +1,9 @@
 package com.linkedin.metadata.dao;
 
+import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.template.UnionTemplate;
+import com.linkedin.metadata.dao.utils.AuditedAspectDecoder;
 import com.linkedin.metadata.dao.utils.ClassUtils;
 import com.linkedin.metadata.dao.utils.ModelUtils;
 import com.linkedin.metadata.dao.utils.MultiHopsTraversalSqlGenerator;
@@ -19,27 +21,55 @@ import io.ebean.SqlRow;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.javatuples.Pair;
 import org.javatuples.Triplet;
 
+import static com.linkedin.metadata.dao.utils.EBeanDAOUtils.*;
+
 
 /**
  * An Ebean implementation of {@link BaseQueryDAO} backed by local relationship tables.
  */
 public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
+  private static final int DEFAULT_FRONTIER_BATCH_SIZE = 1000;
   private final EbeanServer _server;
   private final MultiHopsTraversalSqlGenerator _sqlGenerator;
+  private int _frontierBatchSize = DEFAULT_FRONTIER_BATCH_SIZE;
+  private LocalRelationshipGraphIndex _graphIndex = null;
 
   public EbeanLocalRelationshipQueryDAO(EbeanServer server) {
     _server = server;
     _sqlGenerator = new MultiHopsTraversalSqlGenerator(SUPPORTED_CONDITIONS);
   }
 
+  /**
+   * Sets the max number of frontier URNs bound to a single query when traversing paths, larger frontiers are expanded by
+   * several queries.
+   */
+  public void setFrontierBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Frontier batch size must be positive: " + batchSize);
+    }
+    _frontierBatchSize = batchSize;
+  }
+
+  /**
+   * Sets the graph index to traverse paths with when it can serve them, null to always traverse the relationship tables.
+   * The index is kept up to date with the writes of the writer DAOs it's set on, and with the writes of other processes
+   * by its periodic rebuilds.
+   */
+  public void setGraphIndex(@Nullable LocalRelationshipGraphIndex graphIndex) {
+    _graphIndex = graphIndex;
+  }
+
   static final Map<Condition, String> SUPPORTED_CONDITIONS =
       Collections.unmodifiableMap(new HashMap<Condition, String>() {
         {
@@ -69,15 +99,18 @@ public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
 
     // Build SQL
     final String tableName = SQLSchemaUtils.getTableName(ModelUtils.getUrnTypeFromSnapshot(snapshotClass));
+    final List<Object> params = new ArrayList<>();
     final StringBuilder sqlBuilder = new StringBuilder();
     sqlBuilder.append("SELECT * FROM ").append(tableName);
     if (filter.hasCriteria() && filter.getCriteria().size() > 0) {
-      sqlBuilder.append(" WHERE ").append(SQLStatementUtils.whereClause(filter, SUPPORTED_CONDITIONS, null));
+      sqlBuilder.append(" WHERE ").append(SQLStatementUtils.whereClause(filter, SUPPORTED_CONDITIONS, null, params));
     }
-    sqlBuilder.append(" ORDER BY urn LIMIT ").append(Math.max(1, count)).append(" OFFSET ").append(Math.max(0, offset));
+    sqlBuilder.append(" ORDER BY urn LIMIT ? OFFSET ?");
+    params.add(Math.max(1, count));
+    params.add(Math.max(0, offset));
 
     // Execute SQL
-    return _server.createSqlQuery(sqlBuilder.toString()).findList().stream()
+    return bindParameters(_server.createSqlQuery(sqlBuilder.toString()), params).findList().stream()
         .map(sqlRow -> constructSnapshot(sqlRow, snapshotClass))
         .collect(Collectors.toList());
   }
@@ -97,24 +130,183 @@ public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
     final String relationshipTable = SQLSchemaUtils.getRelationshipTableName(relationshipType);
     final String srcEntityTable = SQLSchemaUtils.getTableName(ModelUtils.getUrnTypeFromSnapshot(sourceEntityClass));
     final String destEntityTable = SQLSchemaUtils.getTableName(ModelUtils.getUrnTypeFromSnapshot(destinationEntityClass));
+    final List<Object> params = new ArrayList<>();
     final String sql = _sqlGenerator.multiHopTraversalSql(minHops, maxHops, Math.max(1, count), Math.max(0, offset), relationshipTable,
-        srcEntityTable, destEntityTable, relationshipFilter, sourceEntityFilter, destinationEntityFilter);
+        srcEntityTable, destEntityTable, relationshipFilter, sourceEntityFilter, destinationEntityFilter, params);
 
     final Class snapshotClass = relationshipFilter.getDirection() == RelationshipDirection.INCOMING ? sourceEntityClass : destinationEntityClass;
 
     // Execute SQL
     List<RecordTemplate> results = new ArrayList<>();
-    _server.createSqlQuery(sql).findList().forEach(sqlRow -> results.add(constructSnapshot(sqlRow, snapshotClass)));
+    bindParameters(_server.createSqlQuery(sql), params).findList()
+        .forEach(sqlRow -> results.add(constructSnapshot(sqlRow, snapshotClass)));
     return results;
   }
 
+  /**
+   * Finds the entities at the end of the given traverse paths, by a breadth-first traversal of the local relationship
+   * tables. Each hop expands the whole frontier of the previous hop with a single query, or a query per batch of
+   * {@link #setFrontierBatchSize(int)} URNs for larger frontiers. Entities already visited by a previous hop, including
+   * the source entities, aren't visited again. The expansion of the last hop stops as soon as {@code offset + count}
+   * entities are found.
+   *
+   * <p>When a graph index is set and can serve the paths, the hops are traversed in memory instead, see
+   * {@link #setGraphIndex(LocalRelationshipGraphIndex)}. The source entities and the entities of the page are still read
+   * from the entity tables, and the entities found by the index without a row in the entity table are skipped before
+   * paging, by batches of {@link #setFrontierBatchSize(int)} URNs until {@code offset + count} entities are found.</p>
+   *
+   * <p>The source entity class and the intermediate entity classes are snapshot classes, as for the other methods of the
+   * DAO, and a traverse path without relationship filter is undirected.</p>
+   */
   @Nonnull
   @Override
   public <SRC_ENTITY extends RecordTemplate, RELATIONSHIP extends RecordTemplate, INTER_ENTITY extends RecordTemplate> List<RecordTemplate> findEntities(
       @Nullable Class<SRC_ENTITY> sourceEntityClass, @Nonnull Filter sourceEntityFilter,
       @Nonnull List<Triplet<Class<RELATIONSHIP>, RelationshipFilter, Class<INTER_ENTITY>>> traversePaths, int offset,
       int count) {
-    throw new UnsupportedOperationException("Multi-hops traversal by traversePaths is not supported yet.");
+    if (sourceEntityClass == null) {
+      throw new IllegalArgumentException("Source entity class is required to traverse local relationships.");
+    }
+    if (traversePaths.isEmpty()) {
+      throw new IllegalArgumentException("Traverse paths cannot be empty.");
+    }
+    validateEntityFilter(sourceEntityFilter, sourceEntityClass);
+    for (Triplet<Class<RELATIONSHIP>, RelationshipFilter, Class<INTER_ENTITY>> path : traversePaths) {
+      if (path.getValue2() == null) {
+        throw new IllegalArgumentException("Intermediate entity class is required to traverse local relationships.");
+      }
+      if (path.getValue1() != null) {
+        validateRelationshipFilter(path.getValue1());
+      }
+    }
+
+    final int start = Math.max(0, offset);
+    final int limit = start + Math.max(1, count);
+
+    // The first frontier is made of the source entities
+    final List<Object> params = new ArrayList<>();
+    final StringBuilder sqlBuilder = new StringBuilder("SELECT urn FROM ")
+        .append(SQLSchemaUtils.getTableName(ModelUtils.getUrnTypeFromSnapshot(sourceEntityClass)));
+    if (sourceEntityFilter.hasCriteria() && sourceEntityFilter.getCriteria().size() > 0) {
+      sqlBuilder.append(" WHERE ").append(SQLStatementUtils.whereClause(sourceEntityFilter, SUPPORTED_CONDITIONS, null, params));
+    }
+    sqlBuilder.append(" ORDER BY urn");
+    final List<String> sources = bindParameters(_server.createSqlQuery(sqlBuilder.toString()), params).findList()
+        .stream()
+        .map(sqlRow -> sqlRow.getString("urn"))
+        .collect(Collectors.toList());
+    final Class<INTER_ENTITY> snapshotClass = traversePaths.get(traversePaths.size() - 1).getValue2();
+    final String entityTable = SQLSchemaUtils.getTableName(ModelUtils.getUrnTypeFromSnapshot(snapshotClass));
+    final Optional<List<String>> indexedFrontier = traverseGraphIndex(sources, traversePaths);
+    final List<String> frontier = indexedFrontier.isPresent()
+        ? filterExistingEntities(entityTable, indexedFrontier.get(), limit)
+        : traverseTables(sources, traversePaths, limit);
+
+    if (frontier.size() <= start) {
+      return Collections.emptyList();
+    }
+
+    // Read the entities of the requested page, in the order they were found
+    final List<String> page = frontier.subList(start, Math.min(frontier.size(), limit));
+    final String pageSql = String.format("SELECT * FROM %s WHERE urn IN (%s)", entityTable,
+        String.join(", ", Collections.nCopies(page.size(), "?")));
+    final Map<String, SqlRow> rows = bindParameters(_server.createSqlQuery(pageSql), new ArrayList<>(page)).findList()
+        .stream()
+        .collect(Collectors.toMap(sqlRow -> sqlRow.getString("urn"), sqlRow -> sqlRow));
+
+    return page.stream()
+        .filter(rows::containsKey)
+        .map(rows::get)
+        .map(sqlRow -> constructSnapshot(sqlRow, snapshotClass))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Traverses the paths with the graph index, if it's set and can serve them: none of the paths filters on relationship
+   * columns, their relationship tables are indexed and the index isn't stale.
+   *
+   * @return the urns reached by the last path, or empty if the paths can't be served by the index
+   */
+  @Nonnull
+  private <RELATIONSHIP extends RecordTemplate, INTER_ENTITY extends RecordTemplate> Optional<List<String>> traverseGraphIndex(
+      @Nonnull List<String> sources,
+      @Nonnull List<Triplet<Class<RELATIONSHIP>, RelationshipFilter, Class<INTER_ENTITY>>> traversePaths) {
+    if (_graphIndex == null) {
+      return Optional.empty();
+    }
+
+    final List<LocalRelationshipGraphIndex.Hop> hops = new ArrayList<>();
+    for (Triplet<Class<RELATIONSHIP>, RelationshipFilter, Class<INTER_ENTITY>> path : traversePaths) {
+      final RelationshipFilter relationshipFilter = path.getValue1();
+      if (relationshipFilter != null && relationshipFilter.hasCriteria() && relationshipFilter.getCriteria().size() > 0) {
+        return Optional.empty();
+      }
+      hops.add(new LocalRelationshipGraphIndex.Hop(SQLSchemaUtils.getRelationshipTableName(path.getValue0()),
+          relationshipFilter != null ? relationshipFilter.getDirection() : RelationshipDirection.UNDIRECTED,
+          ModelUtils.getUrnTypeFromSnapshot(path.getValue2())));
+    }
+    return _graphIndex.traverse(sources, hops);
+  }
+
+  /**
+   * Keeps the urns which have a row in the entity table, in their order, checking them by batches of URNs until at least
+   * {@code limit} are kept.
+   *
+   * @return the kept urns
+   */
+  @Nonnull
+  private List<String> filterExistingEntities(@Nonnull String entityTable, @Nonnull List<String> urns, int limit) {
+    final List<String> existing = new ArrayList<>();
+    for (int position = 0; position < urns.size() && existing.size() < limit; position += _frontierBatchSize) {
+      final List<String> batch = urns.subList(position, Math.min(urns.size(), position + _frontierBatchSize));
+      final String existSql = String.format("SELECT urn FROM %s WHERE urn IN (%s)", entityTable,
+          String.join(", ", Collections.nCopies(batch.size(), "?")));
+      final Set<String> batchExisting = bindParameters(_server.createSqlQuery(existSql), new ArrayList<>(batch)).findList()
+          .stream()
+          .map(sqlRow -> sqlRow.getString("urn"))
+          .collect(Collectors.toSet());
+      batch.stream().filter(batchExisting::contains).forEach(existing::add);
+    }
+    return existing;
+  }
+
+  /**
+   * Traverses the paths with queries on the relationship tables, expanding each frontier by batches of URNs. The last
+   * frontier stops being expanded once it has at least {@code limit} URNs.
+   *
+   * @return the urns reached by the last path
+   */
+  @Nonnull
+  private <RELATIONSHIP extends RecordTemplate, INTER_ENTITY extends RecordTemplate> List<String> traverseTables(
+      @Nonnull List<String> sources,
+      @Nonnull List<Triplet<Class<RELATIONSHIP>, RelationshipFilter, Class<INTER_ENTITY>>> traversePaths, int limit) {
+    List<String> frontier = sources;
+    final Set<String> visited = new HashSet<>(frontier);
+
+    for (int hop = 0; hop < traversePaths.size() && !frontier.isEmpty(); hop++) {
+      final Triplet<Class<RELATIONSHIP>, RelationshipFilter, Class<INTER_ENTITY>> path = traversePaths.get(hop);
+      final String relationshipTable = SQLSchemaUtils.getRelationshipTableName(path.getValue0());
+      final String entityTable = SQLSchemaUtils.getTableName(ModelUtils.getUrnTypeFromSnapshot(path.getValue2()));
+      final RelationshipFilter relationshipFilter = path.getValue1() != null ? path.getValue1()
+          : new RelationshipFilter().setDirection(RelationshipDirection.UNDIRECTED).setCriteria(new CriterionArray());
+      final boolean lastHop = hop == traversePaths.size() - 1;
+
+      final List<String> nextFrontier = new ArrayList<>();
+      for (int position = 0; position < frontier.size() && !(lastHop && nextFrontier.size() >= limit);
+          position += _frontierBatchSize) {
+        final List<Object> hopParams = new ArrayList<>();
+        final String hopSql = _sqlGenerator.nextHopUrnsSql(relationshipTable, entityTable, relationshipFilter,
+            frontier.subList(position, Math.min(frontier.size(), position + _frontierBatchSize)), hopParams);
+        for (SqlRow sqlRow : bindParameters(_server.createSqlQuery(hopSql), hopParams).findList()) {
+          final String urn = sqlRow.getString("urn");
+          if (visited.add(urn)) {
+            nextFrontier.add(urn);
+          }
+        }
+      }
+      frontier = nextFrontier;
+    }
+    return frontier;
   }
 
   /**
@@ -153,15 +345,17 @@ public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
 
     final String relationshipTableName = SQLSchemaUtils.getRelationshipTableName(relationshipType);
 
+    final List<Object> params = new ArrayList<>();
     final String sql = buildFindRelationshipSQL(
         destTableName,
         sourceTableName,
         relationshipTableName,
         sourceEntityFilter,
         destinationEntityFilter,
-        relationshipFilter);
+        relationshipFilter,
+        params);
 
-    return _server.createSqlQuery(sql).findList().stream()
+    return bindParameters(_server.createSqlQuery(sql), params).findList().stream()
         .map(row -> RecordUtils.toRecordTemplate(relationshipType, row.getString("metadata")))
         .collect(Collectors.toList());
   }
@@ -249,10 +443,15 @@ public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
       String colName = SQLSchemaUtils.getAspectColumnName(aspectCanonicalName);
       String auditedAspectStr = sqlRow.getString(colName);
 
-      if (auditedAspectStr != null) {
-        RecordTemplate aspect = RecordUtils.toRecordTemplate(ClassUtils.loadClass(aspectCanonicalName),
-            EbeanLocalAccess.extractAspectJsonString(auditedAspectStr));
-        aspects.add(ModelUtils.newAspectUnion(ModelUtils.getUnionClassFromSnapshot(snapshotClass), aspect));
+      if (auditedAspectStr == null) {
+        continue;
+      }
+
+      // soft-deleted aspects have no aspect field in their envelope
+      final DataMap aspectDataMap = AuditedAspectDecoder.decode(auditedAspectStr).getAspect();
+      if (aspectDataMap != null) {
+        RecordTemplate aspect = RecordUtils.toRecordTemplate(ClassUtils.loadClass(aspectCanonicalName), aspectDataMap);
+        aspects.add(ModelUtils.newAspectUnion(unionTemplateClass, aspect));
       }
     }
 
@@ -270,7 +469,7 @@ public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
   @Nonnull
   private String buildFindRelationshipSQL(@Nullable final String destTableName, @Nullable final String sourceTableName,
       @Nonnull final String relationshipTableName, @Nonnull final Filter sourceEntityFilter, @Nonnull final Filter destinationEntityFilter,
-      @Nonnull final Filter relationshipFilter) {
+      @Nonnull final Filter relationshipFilter, @Nonnull final List<Object> outputParams) {
 
     StringBuilder sqlBuilder = new StringBuilder();
     sqlBuilder.append("SELECT rt.* FROM ").append(relationshipTableName).append(" rt ");
@@ -283,7 +482,7 @@ public class EbeanLocalRelationshipQueryDAO extends BaseQueryDAO {
       sqlBuilder.append("INNER JOIN ").append(sourceTableName).append(" st ON st.urn=rt.source ");
     }
 
-    String whereClause = SQLStatementUtils.whereClause(SUPPORTED_CONDITIONS,
+    String whereClause = SQLStatementUtils.whereClause(SUPPORTED_CONDITIONS, outputParams,
         new Pair<>(sourceEntityFilter, "st"),
         new Pair<>(destinationEntityFilter, "dt"),
         new Pair<>(relationshipFilter, "rt"));
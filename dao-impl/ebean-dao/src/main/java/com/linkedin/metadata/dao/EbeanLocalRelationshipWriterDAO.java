@@ -1,6 +1,7 @@
 package com.linkedin.metadata.dao;
 
 import com.linkedin.common.urn.Urn;
+import com.linkedin.data.template.DataTemplateUtil;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.metadata.dao.builder.BaseLocalRelationshipBuilder;
 import com.linkedin.metadata.dao.internal.BaseGraphWriterDAO;
@@ -10,24 +11,41 @@ import com.linkedin.metadata.dao.utils.SQLSchemaUtils;
 import com.linkedin.metadata.dao.utils.SQLStatementUtils;
 import com.linkedin.metadata.validator.RelationshipValidator;
 import io.ebean.EbeanServer;
+import io.ebean.SqlQuery;
+import io.ebean.SqlRow;
 import io.ebean.SqlUpdate;
+import io.ebean.Transaction;
+import io.ebean.TransactionCallbackAdapter;
 import io.ebean.annotation.Transactional;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import org.javatuples.Pair;
 
 import static com.linkedin.metadata.dao.utils.ModelUtils.*;
 
 public class EbeanLocalRelationshipWriterDAO extends BaseGraphWriterDAO {
   private static final String DEFAULT_ACTOR = "urn:li:principal:UNKNOWN";
+  private static final int DEFAULT_INSERT_BATCH_SIZE = 100;
+  private static final int DEFAULT_DELETE_BATCH_SIZE = 1000;
   private final EbeanServer _server;
+  private int _insertBatchSize = DEFAULT_INSERT_BATCH_SIZE;
+  private int _deleteBatchSize = DEFAULT_DELETE_BATCH_SIZE;
+  private boolean _edgeDiffEnabled = false;
+  private LocalRelationshipGraphIndex _graphIndex = null;
 
   // Common column names shared by all local relationship tables.
   private static class CommonColumnName {
+    private static final String ID = "id";
     private static final String SOURCE = "source";
     private static final String DESTINATION = "destination";
     private static final String SOURCE_TYPE = "source_type";
@@ -41,6 +59,49 @@ public class EbeanLocalRelationshipWriterDAO extends BaseGraphWriterDAO {
     _server = server;
   }
 
+  /**
+   * Sets the max number of relationships inserted by a single multi-row INSERT statement.
+   *
+   * @param batchSize the max number of rows per statement, 1 to insert relationships one at a time
+   */
+  public void setInsertBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Insert batch size must be positive: " + batchSize);
+    }
+    _insertBatchSize = batchSize;
+  }
+
+  /**
+   * Sets the max number of relationships deleted by id by a single DELETE statement, when edge diffing removes edges.
+   *
+   * @param batchSize the max number of ids per statement
+   */
+  public void setDeleteBatchSize(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Delete batch size must be positive: " + batchSize);
+    }
+    _deleteBatchSize = batchSize;
+  }
+
+  /**
+   * Enables or disables edge diffing. When enabled, the existing local relationships in the scope of the removal option
+   * are read and diffed against the new relationships, and only the edges that were added or removed are written.
+   * Otherwise, all the edges in the scope are deleted and the new ones are inserted again.
+   *
+   * <p>Unchanged edges keep their lastmodifiedon and lastmodifiedby when diffed.</p>
+   */
+  public void setEdgeDiffEnabled(boolean enabled) {
+    _edgeDiffEnabled = enabled;
+  }
+
+  /**
+   * Sets the graph index to apply the written relationships to, null to not update any. Relationships written within a
+   * transaction are applied once it's committed.
+   */
+  public void setGraphIndex(@Nullable LocalRelationshipGraphIndex graphIndex) {
+    _graphIndex = graphIndex;
+  }
+
   /**
    * Process the local relationship updates with transaction guarantee.
    * @param relationshipUpdates Updates to local relationship tables.
@@ -92,28 +153,144 @@ public class EbeanLocalRelationshipWriterDAO extends BaseGraphWriterDAO {
       return;
     }
 
+    // All relationships of a group have the same class, so the schema is validated and the table resolved once
     RELATIONSHIP firstRelationship = relationshipGroup.get(0);
     RelationshipValidator.validateRelationshipSchema(firstRelationship.getClass());
+    final String tableName = SQLSchemaUtils.getRelationshipTableName(firstRelationship);
+
+    final List<RELATIONSHIP> addedRelationships;
+    if (_edgeDiffEnabled && removalOption != RemovalOption.REMOVE_NONE) {
+      addedRelationships = diffRelationshipGroup(tableName, relationshipGroup, removalOption);
+    } else {
+      // Process remove option to delete some local relationships if nedded before adding new relationships.
+      processRemovalOption(tableName, firstRelationship, removalOption);
+      addedRelationships = relationshipGroup;
+    }
+
+    insertRelationships(tableName, addedRelationships);
+
+    if (_graphIndex != null) {
+      updateGraphIndex(_graphIndex, tableName, relationshipGroup, removalOption);
+    }
+  }
+
+  /**
+   * Applies a group of relationships to the graph index, after the current transaction is committed if there's one.
+   */
+  @ParametersAreNonnullByDefault
+  private <RELATIONSHIP extends RecordTemplate> void updateGraphIndex(LocalRelationshipGraphIndex graphIndex,
+      String tableName, List<RELATIONSHIP> relationshipGroup, RemovalOption removalOption) {
+    final List<Pair<String, String>> edges = relationshipGroup.stream()
+        .map(relationship -> Pair.with(getSourceUrnFromRelationship(relationship).toString(),
+            getDestinationUrnFromRelationship(relationship).toString()))
+        .collect(Collectors.toList());
+
+    final Transaction transaction = _server.currentTransaction();
+    if (transaction == null) {
+      graphIndex.applyRelationshipGroup(tableName, removalOption, edges);
+      return;
+    }
+    transaction.register(new TransactionCallbackAdapter() {
+      @Override
+      public void postCommit() {
+        graphIndex.applyRelationshipGroup(tableName, removalOption, edges);
+      }
+    });
+  }
+
+  /**
+   * Inserts relationships of the same class by batches of multi-row INSERT statements, full batches sharing the same
+   * statement.
+   */
+  @ParametersAreNonnullByDefault
+  private <RELATIONSHIP extends RecordTemplate> void insertRelationships(String tableName, List<RELATIONSHIP> relationships) {
+    if (relationships.isEmpty()) {
+      return;
+    }
+
+    final Timestamp now = new Timestamp(Instant.now().toEpochMilli());
+
+    final int batchSize = Math.min(_insertBatchSize, relationships.size());
+    final String batchSQL = SQLStatementUtils.insertLocalRelationshipsSQL(tableName, batchSize);
+    for (int position = 0; position < relationships.size(); position += batchSize) {
+      final List<RELATIONSHIP> batch =
+          relationships.subList(position, Math.min(relationships.size(), position + batchSize));
+      final SqlUpdate insertSQL = _server.createSqlUpdate(batch.size() == batchSize ? batchSQL
+          : SQLStatementUtils.insertLocalRelationshipsSQL(tableName, batch.size()));
+
+      int parameterIndex = 1;
+      for (RELATIONSHIP relationship : batch) {
+        Urn source = getSourceUrnFromRelationship(relationship);
+        Urn destination = getDestinationUrnFromRelationship(relationship);
+
+        insertSQL.setParameter(parameterIndex++, RecordUtils.toJsonString(relationship))
+            .setParameter(parameterIndex++, source.toString())
+            .setParameter(parameterIndex++, destination.toString())
+            .setParameter(parameterIndex++, source.getEntityType())
+            .setParameter(parameterIndex++, destination.getEntityType())
+            .setParameter(parameterIndex++, now)
+            .setParameter(parameterIndex++, DEFAULT_ACTOR);
+      }
+      insertSQL.execute();
+    }
+  }
 
-    // Process remove option to delete some local relationships if nedded before adding new relationships.
-    processRemovalOption(SQLSchemaUtils.getRelationshipTableName(firstRelationship), firstRelationship, removalOption);
+  /**
+   * Diffs a group of relationships against the existing local relationships in the scope of the removal option. Existing
+   * edges that aren't in the group are deleted, and the relationships of the group that don't exist yet are returned to
+   * be inserted. An edge is matched on its source, destination and metadata, and duplicated edges are matched one to one.
+   */
+  @Nonnull
+  @ParametersAreNonnullByDefault
+  private <RELATIONSHIP extends RecordTemplate> List<RELATIONSHIP> diffRelationshipGroup(String tableName,
+      List<RELATIONSHIP> relationshipGroup, RemovalOption removalOption) {
+    final RELATIONSHIP firstRelationship = relationshipGroup.get(0);
+    final SqlQuery selectSQL = _server.createSqlQuery(SQLStatementUtils.selectLocalRelationshipSQL(tableName, removalOption));
+    bindRemovalScope(selectSQL::setParameter, firstRelationship, removalOption);
 
-    long now = Instant.now().toEpochMilli();
+    // Existing edges per (source, destination), as (id, relationship) pairs
+    final Map<Pair<String, String>, List<Pair<Long, RecordTemplate>>> existingEdges = new HashMap<>();
+    for (SqlRow row : selectSQL.findList()) {
+      existingEdges.computeIfAbsent(
+          Pair.with(row.getString(CommonColumnName.SOURCE), row.getString(CommonColumnName.DESTINATION)),
+          key -> new ArrayList<>())
+          .add(Pair.with(row.getLong(CommonColumnName.ID),
+              RecordUtils.toRecordTemplate(firstRelationship.getClass(), row.getString(CommonColumnName.METADATA))));
+    }
 
+    final List<RELATIONSHIP> addedRelationships = new ArrayList<>();
     for (RELATIONSHIP relationship : relationshipGroup) {
-      Urn source = getSourceUrnFromRelationship(relationship);
-      Urn destination = getDestinationUrnFromRelationship(relationship);
-
-      _server.createSqlUpdate(SQLStatementUtils.insertLocalRelationshipSQL(SQLSchemaUtils.getRelationshipTableName(relationship)))
-          .setParameter(CommonColumnName.METADATA, RecordUtils.toJsonString(relationship))
-          .setParameter(CommonColumnName.SOURCE_TYPE, source.getEntityType())
-          .setParameter(CommonColumnName.DESTINATION_TYPE, destination.getEntityType())
-          .setParameter(CommonColumnName.SOURCE, source.toString())
-          .setParameter(CommonColumnName.DESTINATION, destination.toString())
-          .setParameter(CommonColumnName.LAST_MODIFIED_ON, new Timestamp(now))
-          .setParameter(CommonColumnName.LAST_MODIFIED_BY, DEFAULT_ACTOR)
-          .execute();
+      final List<Pair<Long, RecordTemplate>> candidates = existingEdges.getOrDefault(
+          Pair.with(getSourceUrnFromRelationship(relationship).toString(),
+              getDestinationUrnFromRelationship(relationship).toString()), Collections.emptyList());
+      int matched = -1;
+      for (int i = 0; i < candidates.size() && matched < 0; i++) {
+        if (DataTemplateUtil.areEqual(candidates.get(i).getValue1(), relationship)) {
+          matched = i;
+        }
+      }
+      if (matched < 0) {
+        addedRelationships.add(relationship);
+      } else {
+        candidates.remove(matched);
+      }
     }
+
+    final List<Long> removedIds = existingEdges.values()
+        .stream()
+        .flatMap(List::stream)
+        .map(Pair::getValue0)
+        .collect(Collectors.toList());
+    for (int position = 0; position < removedIds.size(); position += _deleteBatchSize) {
+      final List<Long> batch = removedIds.subList(position, Math.min(removedIds.size(), position + _deleteBatchSize));
+      final SqlUpdate deleteSQL = _server.createSqlUpdate(SQLStatementUtils.deleteLocalRelationshipsByIdSQL(tableName, batch.size()));
+      for (int i = 0; i < batch.size(); i++) {
+        deleteSQL.setParameter(i + 1, batch.get(i));
+      }
+      deleteSQL.execute();
+    }
+
+    return addedRelationships;
   }
 
   @ParametersAreNonnullByDefault
@@ -125,18 +302,26 @@ public class EbeanLocalRelationshipWriterDAO extends BaseGraphWriterDAO {
     }
 
     SqlUpdate deletionSQL = _server.createSqlUpdate(SQLStatementUtils.deleteLocaRelationshipSQL(tableName, removalOption));
+    bindRemovalScope(deletionSQL::setParameter, relationship, removalOption);
+    deletionSQL.execute();
+  }
+
+  /**
+   * Binds the named parameters of the source and/or destination defining the scope of a removal option.
+   */
+  @ParametersAreNonnullByDefault
+  private <RELATIONSHIP extends RecordTemplate> void bindRemovalScope(BiConsumer<String, Object> binder,
+      RELATIONSHIP relationship, RemovalOption removalOption) {
     Urn source = getSourceUrnFromRelationship(relationship);
     Urn destination = getDestinationUrnFromRelationship(relationship);
 
     if (removalOption == RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE_TO_DESTINATION) {
-      deletionSQL.setParameter(CommonColumnName.DESTINATION, destination.toString());
-      deletionSQL.setParameter(CommonColumnName.SOURCE, source.toString());
+      binder.accept(CommonColumnName.DESTINATION, destination.toString());
+      binder.accept(CommonColumnName.SOURCE, source.toString());
     } else if (removalOption == RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE) {
-      deletionSQL.setParameter(CommonColumnName.SOURCE, source.toString());
+      binder.accept(CommonColumnName.SOURCE, source.toString());
     } else if (removalOption == RemovalOption.REMOVE_ALL_EDGES_TO_DESTINATION) {
-      deletionSQL.setParameter(CommonColumnName.DESTINATION, destination.toString());
+      binder.accept(CommonColumnName.DESTINATION, destination.toString());
     }
-
-    deletionSQL.execute();
   }
 }
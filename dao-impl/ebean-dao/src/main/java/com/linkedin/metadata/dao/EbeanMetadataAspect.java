@@ -9,6 +9,7 @@ import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
 import javax.persistence.Lob;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -38,6 +39,11 @@ public class EbeanMetadataAspect extends Model {
   public static final String CREATED_BY_COLUMN = "createdBy";
   public static final String CREATED_FOR_COLUMN = "createdFor";
 
+  // Version counters of the latest row, only present once the table is migrated for version tracking. They're
+  // intentionally not mapped, so that tables without them keep working.
+  public static final String NEXT_VERSION_COLUMN = "nextVersion";
+  public static final String LOCK_VERSION_COLUMN = "lockVersion";
+
   /**
    * Key for an aspect in the table.
    */
@@ -85,6 +91,11 @@ public class EbeanMetadataAspect extends Model {
   @Column(name = CREATED_FOR_COLUMN, nullable = true)
   private String createdFor;
 
+  // Lock counter of a latest row read with version tracking enabled, -1 if the row has none yet. Not persisted by the
+  // bean, see NEXT_VERSION_COLUMN.
+  @Transient
+  private Long lockVersion;
+
   @Override
   public boolean equals(Object o) {
     if (o == null) {
@@ -7,6 +7,7 @@ import com.linkedin.metadata.dao.builder.LocalRelationshipBuilderRegistry;
 import com.linkedin.metadata.query.IndexFilter;
 import com.linkedin.metadata.query.IndexGroupByCriterion;
 import com.linkedin.metadata.query.IndexSortCriterion;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -81,6 +82,35 @@ public interface IEbeanLocalAccess<URN extends Urn> {
       int start, int pageSize);
 
 
+  /**
+   * Similar to {@link #listUrns(IndexFilter, IndexSortCriterion, Urn, int)} but paginates with a keyset (seek) on the sort
+   * column and urn, so that the cost of a page doesn't depend on its depth and pages stay consistent under a sort.
+   *
+   * @param cursor continuation token returned with the previous page. For the first page, this should be set as NULL
+   * @return a {@link CursorListResult} containing a list of urns and the continuation token of the next page
+   */
+  @Nonnull
+  CursorListResult<URN> listUrnsWithCursor(@Nonnull IndexFilter indexFilter, @Nullable IndexSortCriterion indexSortCriterion,
+      @Nullable String cursor, int pageSize);
+
+  /**
+   * Returns the number of urns that satisfy the given filter conditions. The count is served from the total count
+   * cache when enabled, see {@link #enableTotalCountCache(long, Duration)}.
+   *
+   * @param indexFilter {@link IndexFilter} containing filter conditions to be applied
+   * @return number of urns satisfying the filter conditions
+   */
+  int countUrns(@Nonnull IndexFilter indexFilter);
+
+  /**
+   * Enables caching of total counts, so that repeatedly paging over the same filter doesn't count every matching row
+   * for each page. Cached counts may be stale by up to expireAfterWrite.
+   *
+   * @param maximumSize maximum number of distinct filters whose count is cached
+   * @param expireAfterWrite how long a count is cached for
+   */
+  void enableTotalCountCache(long maximumSize, @Nonnull Duration expireAfterWrite);
+
   /**
    * Returns a boolean representing if an Urn has any Aspects associated with it (i.e. if it exists in the DB).
    * @param urn {@link Urn} for the entity
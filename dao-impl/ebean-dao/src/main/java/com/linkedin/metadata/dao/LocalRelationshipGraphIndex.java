@@ -0,0 +1,490 @@
+package com.linkedin.metadata.dao;
+
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.metadata.dao.internal.BaseGraphWriterDAO.RemovalOption;
+import com.linkedin.metadata.dao.utils.SQLSchemaUtils;
+import com.linkedin.metadata.query.RelationshipDirection;
+import io.ebean.EbeanServer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.javatuples.Pair;
+
+
+/**
+ * In-memory index of the edges of local relationship tables, serving the path traversals of
+ * {@link EbeanLocalRelationshipQueryDAO} without a round trip per hop, see
+ * {@link EbeanLocalRelationshipQueryDAO#setGraphIndex(LocalRelationshipGraphIndex)}.
+ *
+ * <p>URNs are interned as int ids, and the edges of each relationship table are held in compressed sparse row form, both
+ * forward (source to destinations) and reverse (destination to sources): the neighbors of node {@code n} are
+ * {@code targets[offsets[n]]} to {@code targets[offsets[n + 1] - 1]}. Only the distinct (source, destination) pairs are
+ * indexed, so traversals filtering on relationship columns aren't served by the index.</p>
+ *
+ * <p>The index is rebuilt from the tables every {@code rebuildIntervalMillis} once started, and the writes of an
+ * {@link EbeanLocalRelationshipWriterDAO} are applied to it as they're committed, see
+ * {@link EbeanLocalRelationshipWriterDAO#setGraphIndex(LocalRelationshipGraphIndex)}. Nodes whose edges changed since the
+ * last rebuild have their neighbors copied to overrides of the compressed arrays. Writes made by other processes are only
+ * seen after a rebuild, hence the index only serves traversals while its last rebuild started less than
+ * {@code maxStalenessMillis} ago.</p>
+ *
+ * <p>Traversals run concurrently with each other, writes and the swap of a rebuilt index wait for the traversals in
+ * progress.</p>
+ */
+@Slf4j
+public class LocalRelationshipGraphIndex implements AutoCloseable {
+
+  private static final String SELECT_EDGES = "SELECT DISTINCT source, destination FROM %s";
+  private static final int[] NO_NEIGHBORS = new int[0];
+
+  private final EbeanServer _server;
+  private final Set<String> _relationshipTables;
+  private final ScheduledExecutorService _executor;
+  private final long _rebuildIntervalMillis;
+  private final long _maxStalenessMillis;
+
+  private final AtomicLong _failedRebuildCount = new AtomicLong();
+  private final Object _rebuildLock = new Object();
+
+  // Guards _graph, _builtAt and _journal, traversals hold the read lock and writes the write lock
+  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+  private Graph _graph = new Graph();
+  private long _builtAt = -1; // start of the last rebuild in epoch millis, -1 until built
+  private List<Consumer<Graph>> _journal = null; // writes applied while rebuilding, replayed on the rebuilt graph
+
+  private ScheduledFuture<?> _future = null;
+
+  /**
+   * Constructor for LocalRelationshipGraphIndex.
+   *
+   * @param server the server of the local relationship tables
+   * @param relationshipClasses the relationship classes whose tables are indexed
+   * @param executor the executor to rebuild the index on
+   * @param rebuildIntervalMillis the delay between the end of a rebuild and the next one, in milliseconds
+   * @param maxStalenessMillis how long after the start of its last rebuild the index serves traversals, in milliseconds
+   */
+  public LocalRelationshipGraphIndex(@Nonnull EbeanServer server,
+      @Nonnull Collection<Class<? extends RecordTemplate>> relationshipClasses, @Nonnull ScheduledExecutorService executor,
+      long rebuildIntervalMillis, long maxStalenessMillis) {
+    if (rebuildIntervalMillis <= 0) {
+      throw new IllegalArgumentException("Rebuild interval must be positive: " + rebuildIntervalMillis);
+    }
+    if (maxStalenessMillis <= rebuildIntervalMillis) {
+      throw new IllegalArgumentException(
+          String.format("Max staleness must be longer than the rebuild interval: %d <= %d", maxStalenessMillis,
+              rebuildIntervalMillis));
+    }
+    _server = server;
+    _relationshipTables = Collections.unmodifiableSet(relationshipClasses.stream()
+        .map(relationshipClass -> SQLSchemaUtils.getRelationshipTableName(relationshipClass))
+        .collect(Collectors.toSet()));
+    _executor = executor;
+    _rebuildIntervalMillis = rebuildIntervalMillis;
+    _maxStalenessMillis = maxStalenessMillis;
+  }
+
+  /**
+   * A hop of a traversal.
+   */
+  @Value
+  public static class Hop {
+    String relationshipTable;
+    RelationshipDirection direction;
+    // The entity type of the entities reached by the hop, others are skipped
+    String entityType;
+  }
+
+  /**
+   * Starts rebuilding the index in the background, right away and then periodically. Does nothing if already started.
+   */
+  public synchronized void start() {
+    if (_future == null) {
+      _future = _executor.scheduleWithFixedDelay(this::tryRebuild, 0, _rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops rebuilding the index. It keeps being updated by the writer DAOs, and serves traversals until it's stale.
+   */
+  @Override
+  public synchronized void close() {
+    if (_future != null) {
+      _future.cancel(false);
+      _future = null;
+    }
+  }
+
+  /**
+   * Gets the number of background rebuilds which failed so far.
+   */
+  public long getFailedRebuildCount() {
+    return _failedRebuildCount.get();
+  }
+
+  /**
+   * Returns whether the index serves traversals, i.e. its last rebuild started less than the max staleness ago.
+   */
+  public boolean isFresh() {
+    _lock.readLock().lock();
+    try {
+      return isFreshLocked();
+    } finally {
+      _lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the index from the relationship tables. Traversals are served by the previous index meanwhile, and the writes
+   * applied meanwhile are replayed on the rebuilt index.
+   */
+  public void rebuild() {
+    synchronized (_rebuildLock) {
+      final long startedAt = System.currentTimeMillis();
+      _lock.writeLock().lock();
+      try {
+        _journal = new ArrayList<>();
+      } finally {
+        _lock.writeLock().unlock();
+      }
+
+      final Graph graph = new Graph();
+      try {
+        for (String relationshipTable : _relationshipTables) {
+          final IntList sources = new IntList();
+          final IntList destinations = new IntList();
+          _server.createSqlQuery(String.format(SELECT_EDGES, relationshipTable)).findEach(sqlRow -> {
+            sources.add(graph.intern(sqlRow.getString("source")));
+            destinations.add(graph.intern(sqlRow.getString("destination")));
+          });
+          graph._adjacencies.put(relationshipTable, new Adjacency(sources, destinations));
+        }
+      } catch (RuntimeException e) {
+        _lock.writeLock().lock();
+        try {
+          _journal = null;
+        } finally {
+          _lock.writeLock().unlock();
+        }
+        throw e;
+      }
+
+      _lock.writeLock().lock();
+      try {
+        _journal.forEach(write -> write.accept(graph));
+        _journal = null;
+        _graph = graph;
+        _builtAt = startedAt;
+      } finally {
+        _lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Applies a group of relationships written to a relationship table: the edges in the scope of the removal option are
+   * replaced by the given ones. Does nothing if the table isn't indexed.
+   *
+   * @param relationshipTable the relationship table written to
+   * @param removalOption the removal option the group was written with, its scope is given by the first edge
+   * @param edges the (source, destination) pairs of the relationships of the group
+   */
+  @ParametersAreNonnullByDefault
+  public void applyRelationshipGroup(String relationshipTable, RemovalOption removalOption,
+      List<Pair<String, String>> edges) {
+    if (!_relationshipTables.contains(relationshipTable) || edges.isEmpty()) {
+      return;
+    }
+
+    final Consumer<Graph> write = graph -> graph.apply(relationshipTable, removalOption, edges);
+    _lock.writeLock().lock();
+    try {
+      write.accept(_graph);
+      if (_journal != null) {
+        _journal.add(write);
+      }
+    } finally {
+      _lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Traverses hops from source entities, breadth first. As when traversing the tables, an entity is only reached once,
+   * by the first hop finding it, and the source entities aren't reached again.
+   *
+   * <p>Unlike the tables, whose traversals only reach entities with a row in the entity table of the hop, the index only
+   * checks the entity type of the urns, so callers must skip the reached urns without an entity row.</p>
+   *
+   * @param sourceUrns the urns of the source entities
+   * @param hops the hops to traverse
+   * @return the urns reached by the last hop sorted, or empty if the index is stale or a relationship table isn't indexed
+   */
+  @Nonnull
+  @ParametersAreNonnullByDefault
+  public Optional<List<String>> traverse(Collection<String> sourceUrns, List<Hop> hops) {
+    _lock.readLock().lock();
+    try {
+      if (!isFreshLocked() || hops.stream().anyMatch(hop -> !_relationshipTables.contains(hop.getRelationshipTable()))) {
+        return Optional.empty();
+      }
+      return Optional.of(_graph.traverse(sourceUrns, hops));
+    } finally {
+      _lock.readLock().unlock();
+    }
+  }
+
+  private boolean isFreshLocked() {
+    return _builtAt >= 0 && System.currentTimeMillis() - _builtAt < _maxStalenessMillis;
+  }
+
+  private void tryRebuild() {
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      // An exception would cancel the periodic rebuild, the index keeps serving traversals until it's stale
+      final long failedRebuildCount = _failedRebuildCount.incrementAndGet();
+      log.warn("Rebuild of the local relationship graph index failed, {} rebuilds failed so far", failedRebuildCount, e);
+    }
+  }
+
+  /**
+   * The interned urns and the adjacency of each relationship table.
+   */
+  private static final class Graph {
+    private final Map<String, Integer> _ids = new HashMap<>();
+    private final List<String> _urns = new ArrayList<>();
+    private final List<String> _entityTypes = new ArrayList<>();
+    private final Map<String, Adjacency> _adjacencies = new HashMap<>();
+
+    int intern(@Nonnull String urn) {
+      Integer id = _ids.get(urn);
+      if (id == null) {
+        id = _urns.size();
+        _ids.put(urn, id);
+        _urns.add(urn);
+        _entityTypes.add(entityTypeOf(urn));
+      }
+      return id;
+    }
+
+    @ParametersAreNonnullByDefault
+    void apply(String relationshipTable, RemovalOption removalOption, List<Pair<String, String>> edges) {
+      final Adjacency adjacency = _adjacencies.computeIfAbsent(relationshipTable, table -> new Adjacency(new IntList(), new IntList()));
+      final int source = intern(edges.get(0).getValue0());
+      final int destination = intern(edges.get(0).getValue1());
+
+      if (removalOption == RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE) {
+        for (int neighbor : adjacency.neighbors(source, true)) {
+          adjacency.removeEdge(source, neighbor);
+        }
+      } else if (removalOption == RemovalOption.REMOVE_ALL_EDGES_TO_DESTINATION) {
+        for (int neighbor : adjacency.neighbors(destination, false)) {
+          adjacency.removeEdge(neighbor, destination);
+        }
+      } else if (removalOption == RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE_TO_DESTINATION) {
+        adjacency.removeEdge(source, destination);
+      }
+
+      for (Pair<String, String> edge : edges) {
+        adjacency.addEdge(intern(edge.getValue0()), intern(edge.getValue1()));
+      }
+    }
+
+    @Nonnull
+    @ParametersAreNonnullByDefault
+    List<String> traverse(Collection<String> sourceUrns, List<Hop> hops) {
+      final BitSet visited = new BitSet(_urns.size());
+      IntList frontier = new IntList();
+      for (String urn : sourceUrns) {
+        final Integer id = _ids.get(urn);
+        if (id != null && !visited.get(id)) {
+          visited.set(id);
+          frontier.add(id);
+        }
+      }
+
+      for (int hop = 0; hop < hops.size() && frontier._size > 0; hop++) {
+        final Adjacency adjacency = _adjacencies.get(hops.get(hop).getRelationshipTable());
+        final RelationshipDirection direction = hops.get(hop).getDirection();
+        final String entityType = hops.get(hop).getEntityType();
+
+        final IntList nextFrontier = new IntList();
+        final IntConsumer visit = neighbor -> {
+          if (!visited.get(neighbor) && _entityTypes.get(neighbor).equals(entityType)) {
+            visited.set(neighbor);
+            nextFrontier.add(neighbor);
+          }
+        };
+        for (int i = 0; i < frontier._size && adjacency != null; i++) {
+          if (direction != RelationshipDirection.INCOMING) {
+            adjacency.forEachNeighbor(frontier._values[i], true, visit);
+          }
+          if (direction != RelationshipDirection.OUTGOING) {
+            adjacency.forEachNeighbor(frontier._values[i], false, visit);
+          }
+        }
+        frontier = nextFrontier;
+      }
+
+      final List<String> urns = new ArrayList<>(frontier._size);
+      for (int i = 0; i < frontier._size; i++) {
+        urns.add(_urns.get(frontier._values[i]));
+      }
+      Collections.sort(urns);
+      return urns;
+    }
+
+    // The entity type of a urn is its third part, e.g. foo for urn:li:foo:1
+    @Nonnull
+    private static String entityTypeOf(@Nonnull String urn) {
+      final int typeStart = urn.indexOf(':', urn.indexOf(':') + 1) + 1;
+      final int typeEnd = typeStart > 0 ? urn.indexOf(':', typeStart) : -1;
+      return typeEnd < 0 ? "" : urn.substring(typeStart, typeEnd);
+    }
+  }
+
+  /**
+   * The forward and reverse adjacency of a relationship table, as compressed sparse rows of the edges at the time it was
+   * built, and copy-on-write overrides of the neighbors of the nodes changed since.
+   */
+  private static final class Adjacency {
+    private final int[] _forwardOffsets;
+    private final int[] _forwardTargets;
+    private final int[] _reverseOffsets;
+    private final int[] _reverseTargets;
+    private final Map<Integer, int[]> _forwardOverrides = new HashMap<>();
+    private final Map<Integer, int[]> _reverseOverrides = new HashMap<>();
+
+    Adjacency(@Nonnull IntList sources, @Nonnull IntList destinations) {
+      int nodeCount = 0;
+      for (int i = 0; i < sources._size; i++) {
+        nodeCount = Math.max(nodeCount, Math.max(sources._values[i], destinations._values[i]) + 1);
+      }
+      _forwardOffsets = new int[nodeCount + 1];
+      _forwardTargets = new int[sources._size];
+      compress(sources, destinations, _forwardOffsets, _forwardTargets);
+      _reverseOffsets = new int[nodeCount + 1];
+      _reverseTargets = new int[sources._size];
+      compress(destinations, sources, _reverseOffsets, _reverseTargets);
+    }
+
+    void forEachNeighbor(int node, boolean forward, @Nonnull IntConsumer action) {
+      final int[] override = (forward ? _forwardOverrides : _reverseOverrides).get(node);
+      if (override != null) {
+        for (int neighbor : override) {
+          action.accept(neighbor);
+        }
+        return;
+      }
+      final int[] offsets = forward ? _forwardOffsets : _reverseOffsets;
+      final int[] targets = forward ? _forwardTargets : _reverseTargets;
+      if (node + 1 < offsets.length) {
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+          action.accept(targets[i]);
+        }
+      }
+    }
+
+    // The returned array must not be modified, it may be an override
+    @Nonnull
+    int[] neighbors(int node, boolean forward) {
+      final int[] override = (forward ? _forwardOverrides : _reverseOverrides).get(node);
+      if (override != null) {
+        return override;
+      }
+      final int[] offsets = forward ? _forwardOffsets : _reverseOffsets;
+      if (node + 1 >= offsets.length) {
+        return NO_NEIGHBORS;
+      }
+      return Arrays.copyOfRange(forward ? _forwardTargets : _reverseTargets, offsets[node], offsets[node + 1]);
+    }
+
+    void addEdge(int source, int destination) {
+      link(source, destination, true);
+      link(destination, source, false);
+    }
+
+    void removeEdge(int source, int destination) {
+      unlink(source, destination, true);
+      unlink(destination, source, false);
+    }
+
+    private void link(int node, int neighbor, boolean forward) {
+      final int[] neighbors = neighbors(node, forward);
+      if (indexOf(neighbors, neighbor) < 0) {
+        final int[] updated = Arrays.copyOf(neighbors, neighbors.length + 1);
+        updated[neighbors.length] = neighbor;
+        (forward ? _forwardOverrides : _reverseOverrides).put(node, updated);
+      }
+    }
+
+    private void unlink(int node, int neighbor, boolean forward) {
+      final int[] neighbors = neighbors(node, forward);
+      final int index = indexOf(neighbors, neighbor);
+      if (index >= 0) {
+        final int[] updated = new int[neighbors.length - 1];
+        System.arraycopy(neighbors, 0, updated, 0, index);
+        System.arraycopy(neighbors, index + 1, updated, index, updated.length - index);
+        (forward ? _forwardOverrides : _reverseOverrides).put(node, updated);
+      }
+    }
+
+    private static int indexOf(@Nonnull int[] values, int value) {
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] == value) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    // Counting sort of the edges by their from node
+    @ParametersAreNonnullByDefault
+    private static void compress(IntList from, IntList to, int[] offsets, int[] targets) {
+      for (int i = 0; i < from._size; i++) {
+        offsets[from._values[i] + 1]++;
+      }
+      for (int node = 1; node < offsets.length; node++) {
+        offsets[node] += offsets[node - 1];
+      }
+      final int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+      for (int i = 0; i < from._size; i++) {
+        targets[next[from._values[i]]++] = to._values[i];
+      }
+    }
+  }
+
+  /**
+   * A growable list of ints.
+   */
+  private static final class IntList {
+    private int[] _values = new int[16];
+    private int _size = 0;
+
+    void add(int value) {
+      if (_size == _values.length) {
+        _values = Arrays.copyOf(_values, _size * 2);
+      }
+      _values[_size++] = value;
+    }
+  }
+}
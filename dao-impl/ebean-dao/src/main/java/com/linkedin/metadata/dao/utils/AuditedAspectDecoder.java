@@ -0,0 +1,200 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.linkedin.data.Data;
+import com.linkedin.data.DataList;
+import com.linkedin.data.DataMap;
+import com.linkedin.metadata.aspect.AuditedAspect;
+import com.linkedin.metadata.dao.exception.ModelConversionException;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+
+/**
+ * Decodes an {@link AuditedAspect} in its DB format in a single streaming pass.
+ *
+ * <p>In the DB format the aspect is embedded as a nested JSON object rather than as the string the schema declares, so
+ * decoding it through {@link AuditedAspect} and then re-parsing the aspect walks the same bytes several times. This
+ * decoder reads the envelope once, collecting the audit fields as it goes and either materializing the aspect as a
+ * {@link DataMap} or slicing its JSON text out of the input untouched.
+ */
+public final class AuditedAspectDecoder {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final String ASPECT_FIELD = "aspect";
+  private static final String CANONICAL_NAME_FIELD = "canonicalName";
+  private static final String LASTMODIFIEDON_FIELD = "lastmodifiedon";
+  private static final String LASTMODIFIEDBY_FIELD = "lastmodifiedby";
+  private static final String CREATEDFOR_FIELD = "createdfor";
+
+  private AuditedAspectDecoder() {
+    // Util class
+  }
+
+  /**
+   * Audit fields of an {@link AuditedAspect} together with its aspect value.
+   *
+   * @param <T> representation of the aspect value, either {@link DataMap} or its JSON string
+   */
+  @Value
+  public static class DecodedAuditedAspect<T> {
+    @Nullable T aspect;
+    @Nullable String canonicalName;
+    @Nullable String lastmodifiedon;
+    @Nullable String lastmodifiedby;
+    @Nullable String createdfor;
+  }
+
+  /**
+   * Decodes an AuditedAspect string in its DB format, materializing the aspect as a {@link DataMap}.
+   *
+   * @param auditedAspect an AuditedAspect string in its DB format
+   * @return the audit fields and the aspect {@link DataMap}, or a null aspect if the envelope doesn't contain one
+   */
+  @Nonnull
+  public static DecodedAuditedAspect<DataMap> decode(@Nonnull String auditedAspect) {
+    return decode(auditedAspect, true);
+  }
+
+  /**
+   * Decodes an AuditedAspect string in its DB format, returning the aspect JSON exactly as it appears in the input.
+   *
+   * @param auditedAspect an AuditedAspect string in its DB format
+   * @return the audit fields and the aspect JSON string, or a null aspect if the envelope doesn't contain one
+   */
+  @Nonnull
+  public static DecodedAuditedAspect<String> decodeRaw(@Nonnull String auditedAspect) {
+    return decode(auditedAspect, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nonnull
+  private static <T> DecodedAuditedAspect<T> decode(@Nonnull String auditedAspect, boolean materializeAspect) {
+    Object aspect = null;
+    String canonicalName = null;
+    String lastmodifiedon = null;
+    String lastmodifiedby = null;
+    String createdfor = null;
+
+    try (JsonParser parser = JSON_FACTORY.createParser(auditedAspect)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new ModelConversionException("AuditedAspect is not a JSON object: " + auditedAspect);
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String fieldName = parser.getCurrentName();
+        final JsonToken valueToken = parser.nextToken();
+        switch (fieldName) {
+          case ASPECT_FIELD:
+            aspect = materializeAspect ? readAspectDataMap(parser, valueToken) : readAspectJson(parser, valueToken, auditedAspect);
+            break;
+          case CANONICAL_NAME_FIELD:
+            canonicalName = parser.getValueAsString();
+            break;
+          case LASTMODIFIEDON_FIELD:
+            lastmodifiedon = parser.getValueAsString();
+            break;
+          case LASTMODIFIEDBY_FIELD:
+            lastmodifiedby = parser.getValueAsString();
+            break;
+          case CREATEDFOR_FIELD:
+            createdfor = parser.getValueAsString();
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      throw new ModelConversionException("Failed to parse string as AuditedAspect: " + auditedAspect, e);
+    }
+
+    return new DecodedAuditedAspect<>((T) aspect, canonicalName, lastmodifiedon, lastmodifiedby, createdfor);
+  }
+
+  @Nullable
+  private static DataMap readAspectDataMap(@Nonnull JsonParser parser, @Nonnull JsonToken valueToken) throws IOException {
+    switch (valueToken) {
+      case START_OBJECT:
+        return readDataMap(parser);
+      case VALUE_STRING:
+        // aspect stored as an escaped JSON string, as declared by the AuditedAspect schema
+        try (JsonParser nested = JSON_FACTORY.createParser(parser.getText())) {
+          return nested.nextToken() == JsonToken.START_OBJECT ? readDataMap(nested) : null;
+        }
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new ModelConversionException("Unexpected token for aspect: " + valueToken);
+    }
+  }
+
+  @Nullable
+  private static String readAspectJson(@Nonnull JsonParser parser, @Nonnull JsonToken valueToken, @Nonnull String source)
+      throws IOException {
+    switch (valueToken) {
+      case START_OBJECT:
+        final int start = (int) parser.getTokenLocation().getCharOffset();
+        parser.skipChildren();
+        final int end = (int) parser.getTokenLocation().getCharOffset() + 1;
+        return source.substring(start, end);
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NULL:
+        return null;
+      default:
+        throw new ModelConversionException("Unexpected token for aspect: " + valueToken);
+    }
+  }
+
+  /**
+   * Reads the object the parser is positioned at into a {@link DataMap}, leaving the parser at its END_OBJECT.
+   */
+  @Nonnull
+  private static DataMap readDataMap(@Nonnull JsonParser parser) throws IOException {
+    final DataMap dataMap = new DataMap();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      dataMap.put(fieldName, readValue(parser, parser.nextToken()));
+    }
+    return dataMap;
+  }
+
+  @Nonnull
+  private static DataList readDataList(@Nonnull JsonParser parser) throws IOException {
+    final DataList dataList = new DataList();
+    JsonToken token;
+    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+      dataList.add(readValue(parser, token));
+    }
+    return dataList;
+  }
+
+  @Nonnull
+  private static Object readValue(@Nonnull JsonParser parser, @Nonnull JsonToken token) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+        return readDataMap(parser);
+      case START_ARRAY:
+        return readDataList(parser);
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberType() == JsonParser.NumberType.INT ? (Object) parser.getIntValue() : (Object) parser.getLongValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_NULL:
+        return Data.NULL;
+      default:
+        throw new ModelConversionException("Unexpected JSON token: " + token);
+    }
+  }
+}
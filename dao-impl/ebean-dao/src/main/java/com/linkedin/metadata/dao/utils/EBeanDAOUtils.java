@@ -4,6 +4,7 @@ import com.linkedin.metadata.dao.EbeanMetadataAspect;
 import com.linkedin.metadata.dao.ListResult;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.metadata.aspect.SoftDeletedAspect;
+import io.ebean.SqlQuery;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
@@ -119,4 +120,19 @@ public class EBeanDAOUtils {
     final RecordTemplate metadataRecord = RecordUtils.toRecordTemplate(aspectClass, aspect.getMetadata());
     return metadataRecord.equals(DELETED_METADATA);
   }
+
+  /**
+   * Binds values to the positional bind parameters of a SQL query.
+   *
+   * @param sqlQuery query with positional (?) bind parameters
+   * @param params values of the bind parameters, in the order they appear in the SQL
+   * @return the same query, for chaining
+   */
+  @Nonnull
+  public static SqlQuery bindParameters(@Nonnull SqlQuery sqlQuery, @Nonnull List<Object> params) {
+    for (int i = 0; i < params.size(); i++) {
+      sqlQuery.setParameter(i + 1, params.get(i));
+    }
+    return sqlQuery;
+  }
 }
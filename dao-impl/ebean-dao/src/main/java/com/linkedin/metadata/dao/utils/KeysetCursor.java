@@ -0,0 +1,113 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.codec.JacksonDataCodec;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Base64;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Value;
+
+
+/**
+ * Position of the last row of a keyset (seek) paginated listing, i.e. its sort column value and its urn.
+ *
+ * <p>The next page is read by seeking past this position instead of skipping rows with OFFSET, so the cost of a page
+ * doesn't depend on how deep it is. Callers only ever see the {@link #encode() encoded} form, which is opaque.
+ */
+@Value
+public class KeysetCursor {
+
+  private static final JacksonDataCodec CODEC = new JacksonDataCodec();
+
+  private static final String SORT_COLUMN_FIELD = "c";
+  private static final String SORT_VALUE_FIELD = "v";
+  private static final String URN_FIELD = "u";
+
+  // generated column the listing is sorted by, null if sorted by urn only
+  @Nullable String sortColumn;
+
+  // sort column value of the last row, either a String, Long, Double or Boolean
+  @Nullable Object sortValue;
+
+  @Nonnull String urn;
+
+  /**
+   * Creates the cursor of a row read from an entity table, normalizing the JDBC type of the sort column value.
+   */
+  @Nonnull
+  public static KeysetCursor of(@Nullable String sortColumn, @Nullable Object sortValue, @Nonnull String urn) {
+    return new KeysetCursor(sortColumn, normalize(sortValue), urn);
+  }
+
+  @Nullable
+  private static Object normalize(@Nullable Object value) {
+    if (value == null || value instanceof String || value instanceof Long || value instanceof Double
+        || value instanceof Boolean) {
+      return value;
+    }
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof BigInteger) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof BigDecimal) {
+      final BigDecimal decimal = (BigDecimal) value;
+      return decimal.scale() <= 0 ? (Object) decimal.longValueExact() : (Object) decimal.doubleValue();
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    return value.toString();
+  }
+
+  /**
+   * Encodes the cursor into an opaque, URL safe continuation token.
+   */
+  @Nonnull
+  public String encode() {
+    final DataMap dataMap = new DataMap();
+    if (sortColumn != null) {
+      dataMap.put(SORT_COLUMN_FIELD, sortColumn);
+    }
+    if (sortValue != null) {
+      dataMap.put(SORT_VALUE_FIELD, sortValue);
+    }
+    dataMap.put(URN_FIELD, urn);
+    try {
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(CODEC.mapToBytes(dataMap));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to encode cursor of urn " + urn, e);
+    }
+  }
+
+  /**
+   * Decodes a continuation token produced by {@link #encode()}.
+   *
+   * @param token continuation token
+   * @param sortColumn generated column the current listing is sorted by, null if sorted by urn only
+   * @return decoded cursor
+   * @throws IllegalArgumentException if the token is malformed or was produced by a listing with a different sort
+   */
+  @Nonnull
+  public static KeysetCursor decode(@Nonnull String token, @Nullable String sortColumn) {
+    final DataMap dataMap;
+    try {
+      dataMap = CODEC.bytesToMap(Base64.getUrlDecoder().decode(token));
+    } catch (IOException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + token, e);
+    }
+
+    final Object urn = dataMap.get(URN_FIELD);
+    if (!(urn instanceof String)) {
+      throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+    final String cursorSortColumn = dataMap.getString(SORT_COLUMN_FIELD);
+    if (!Objects.equals(cursorSortColumn, sortColumn)) {
+      throw new IllegalArgumentException(
+          String.format("Cursor sorted by %s cannot be used to list urns sorted by %s", cursorSortColumn, sortColumn));
+    }
+    return of(cursorSortColumn, dataMap.get(SORT_VALUE_FIELD), (String) urn);
+  }
+}
@@ -4,7 +4,9 @@ import com.linkedin.metadata.query.Condition;
 import com.linkedin.metadata.query.Filter;
 import com.linkedin.metadata.query.RelationshipDirection;
 import com.linkedin.metadata.query.RelationshipFilter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -15,6 +17,9 @@ import org.javatuples.Pair;
  * Multi-hops traversal on graph backed by local relationship tables.
  */
 public class MultiHopsTraversalSqlGenerator {
+  // Max length of the source and destination columns of the local relationship tables
+  private static final int MAX_URN_LENGTH = 255;
+
   private static Map<Condition, String> _supportedConditions;
 
   public MultiHopsTraversalSqlGenerator(Map<Condition, String> supportedConditions) {
@@ -22,20 +27,22 @@ public class MultiHopsTraversalSqlGenerator {
   }
 
   /**
-   * Construct a SQL query which finds entities by traversing the graph based on the given filters.
+   * Construct a SQL query which finds entities by traversing the graph based on the given filters. Filter values are
+   * bound as positional parameters, whose values are appended to {@code outputParams} in the order they appear in the SQL.
+   *
+   * <p>The traversal starts from the source entities for OUTGOING and UNDIRECTED relationships and from the destination
+   * entities for INCOMING relationships, and finds the entities at the other end of a path of {@code minHop} to
+   * {@code maxHop} relationships. One-hop traversals are plain joins, longer ones use a recursive common table expression
+   * (MySQL 8, H2), so that the whole traversal runs as a single query.</p>
    */
   @Nonnull
   @ParametersAreNonnullByDefault
   public String multiHopTraversalSql(int minHop, int maxHop, int count, int offset, String relationshipTable,
-      String srcEntityTable, String destEntityTable, RelationshipFilter relationshipFilter, Filter srcFilter, Filter destFilter) {
+      String srcEntityTable, String destEntityTable, RelationshipFilter relationshipFilter, Filter srcFilter, Filter destFilter,
+      List<Object> outputParams) {
 
-    /*
-     * For now, only one-hop traversal is supported because multi-hops traversal using SQL is expensive
-     * and implementation is error-prone. Application side can also perform multi-hops traversal with one-hop traversal.
-     * We might consider to support multi-hop traversal in the future if strong use case appears.
-     */
-    if (minHop != 1 || maxHop != 1) {
-      throw new UnsupportedOperationException("Only one-hop traversal is supported.");
+    if (minHop < 1 || maxHop < minHop) {
+      throw new IllegalArgumentException(String.format("Invalid hop range [%d, %d].", minHop, maxHop));
     }
 
     if (relationshipFilter.getDirection() == RelationshipDirection.UNDIRECTED && !srcEntityTable.equals(destEntityTable)) {
@@ -44,17 +51,151 @@ public class MultiHopsTraversalSqlGenerator {
 
     final String entityTable = relationshipFilter.getDirection() == RelationshipDirection.INCOMING ? srcEntityTable : destEntityTable;
 
+    if (maxHop > 1) {
+      if (relationshipFilter.getDirection() == RelationshipDirection.INCOMING) {
+        return multiHopTraversalSqlRecursive(minHop, maxHop, count, offset, relationshipTable, destEntityTable, destFilter,
+            srcEntityTable, srcFilter, relationshipFilter, outputParams);
+      }
+      return multiHopTraversalSqlRecursive(minHop, maxHop, count, offset, relationshipTable, srcEntityTable, srcFilter,
+          destEntityTable, destFilter, relationshipFilter, outputParams);
+    }
+
     // If relationship direction is directed.
     if (relationshipFilter.getDirection() == RelationshipDirection.INCOMING
         || relationshipFilter.getDirection() == RelationshipDirection.OUTGOING) {
       String urnSql = firstHopUrnsDirected(relationshipTable, srcEntityTable, destEntityTable, relationshipFilter, srcFilter,
-          destFilter, relationshipFilter.getDirection());
-      return String.format("SELECT * FROM %s WHERE urn IN (%s) ORDER BY urn LIMIT %d OFFSET %d", entityTable, urnSql, count, offset);
+          destFilter, relationshipFilter.getDirection(), outputParams);
+      outputParams.add(count);
+      outputParams.add(offset);
+      return String.format("SELECT * FROM %s WHERE urn IN (%s) ORDER BY urn LIMIT ? OFFSET ?", entityTable, urnSql);
     }
 
     // Relationship is undirected.
-    String urnSql = firstHopUrnsUndirected(relationshipTable, entityTable, relationshipFilter, srcFilter);
-    return findEntitiesUndirected(entityTable, relationshipTable, urnSql, destFilter);
+    final List<Object> urnParams = new ArrayList<>();
+    String urnSql = firstHopUrnsUndirected(relationshipTable, entityTable, relationshipFilter, srcFilter, urnParams);
+    return findEntitiesUndirected(entityTable, relationshipTable, urnSql, urnParams, destFilter, outputParams);
+  }
+
+  /**
+   * Construct a SQL query which finds entities more than one hop away, similar to following for OUTGOING relationships:
+   *
+   * <p>WITH RECURSIVE traversal (urn, hops) AS (
+   * SELECT st.urn, 0 FROM start_entity_table st WHERE start entity filters
+   * UNION
+   * SELECT rt.destination, t.hops + 1 FROM traversal t
+   * INNER JOIN relationship_table rt ON rt.source=t.urn
+   * WHERE t.hops &lt; maxHop AND relationship filters)
+   * SELECT * FROM result_entity_table et WHERE et.urn IN (SELECT urn FROM traversal GROUP BY urn HAVING MIN(hops) &gt;= minHop)
+   * AND result entity filters ORDER BY et.urn LIMIT count OFFSET offset
+   *
+   * <p>INCOMING relationships are walked from destination to source, and UNDIRECTED ones both ways. The UNION keeps a
+   * single row per entity and hop count, so the traversal has at most one row per entity per hop however many paths reach
+   * it, and cycles are bounded by the max hop. An entity is found at its shortest distance from the start entities, as by
+   * the breadth-first traversals, so entities closer than {@code minHop}, including the start entities, aren't found.
+   */
+  @Nonnull
+  @ParametersAreNonnullByDefault
+  private String multiHopTraversalSqlRecursive(int minHop, int maxHop, int count, int offset, String relationshipTable,
+      String startEntityTable, Filter startFilter, String resultEntityTable, Filter resultFilter,
+      RelationshipFilter relationshipFilter, List<Object> outputParams) {
+
+    final String nextUrn;
+    final String joinCondition;
+    if (relationshipFilter.getDirection() == RelationshipDirection.OUTGOING) {
+      nextUrn = "rt.destination";
+      joinCondition = "rt.source=t.urn";
+    } else if (relationshipFilter.getDirection() == RelationshipDirection.INCOMING) {
+      nextUrn = "rt.source";
+      joinCondition = "rt.destination=t.urn";
+    } else {
+      nextUrn = "CASE WHEN rt.source=t.urn THEN rt.destination ELSE rt.source END";
+      joinCondition = "(rt.source=t.urn OR rt.destination=t.urn)";
+    }
+
+    // the anchor sets the type of the urn column, which must fit the urns of the relationship tables
+    StringBuilder sqlBuilder = new StringBuilder(String.format(
+        "WITH RECURSIVE traversal (urn, hops) AS (SELECT CAST(st.urn AS CHAR(%d)), 0 FROM %s st", MAX_URN_LENGTH,
+        startEntityTable));
+
+    String startWhereClause = SQLStatementUtils.whereClause(_supportedConditions, outputParams, new Pair<>(startFilter, "st"));
+    if (startWhereClause != null) {
+      sqlBuilder.append(" WHERE ").append(startWhereClause);
+    }
+
+    sqlBuilder.append(String.format(" UNION SELECT %s, t.hops + 1 FROM traversal t INNER JOIN %s rt ON %s WHERE t.hops < ?",
+        nextUrn, relationshipTable, joinCondition));
+    outputParams.add(maxHop);
+
+    String relationshipWhereClause = SQLStatementUtils.whereClause(_supportedConditions, outputParams,
+        new Pair<>(new Filter().setCriteria(relationshipFilter.getCriteria()), "rt"));
+    if (relationshipWhereClause != null) {
+      sqlBuilder.append(" AND ").append(String.format("(%s)", relationshipWhereClause));
+    }
+
+    sqlBuilder.append(String.format(
+        ") SELECT * FROM %s et WHERE et.urn IN (SELECT urn FROM traversal GROUP BY urn HAVING MIN(hops) >= ?)", resultEntityTable));
+    outputParams.add(minHop);
+
+    String resultWhereClause = SQLStatementUtils.whereClause(_supportedConditions, outputParams, new Pair<>(resultFilter, "et"));
+    if (resultWhereClause != null) {
+      sqlBuilder.append(" AND ").append(String.format("(%s)", resultWhereClause));
+    }
+
+    sqlBuilder.append(" ORDER BY et.urn LIMIT ? OFFSET ?");
+    outputParams.add(count);
+    outputParams.add(offset);
+
+    return sqlBuilder.toString();
+  }
+
+  /**
+   * Construct a SQL query which finds the distinct URNs of the entities one hop away from a frontier of entities, i.e. the
+   * next frontier of a breadth-first traversal. The entities must be in {@code entityTable} and the relationships must
+   * match the relationship filter. The frontier URNs are bound as positional parameters of an IN clause.
+   */
+  @Nonnull
+  @ParametersAreNonnullByDefault
+  public String nextHopUrnsSql(String relationshipTable, String entityTable, RelationshipFilter relationshipFilter,
+      List<String> frontier, List<Object> outputParams) {
+    if (frontier.isEmpty()) {
+      throw new IllegalArgumentException("Frontier cannot be empty.");
+    }
+
+    if (relationshipFilter.getDirection() == RelationshipDirection.OUTGOING) {
+      return nextHopUrnsDirected(relationshipTable, entityTable, relationshipFilter, "source", "destination", frontier,
+          outputParams) + " ORDER BY urn";
+    } else if (relationshipFilter.getDirection() == RelationshipDirection.INCOMING) {
+      return nextHopUrnsDirected(relationshipTable, entityTable, relationshipFilter, "destination", "source", frontier,
+          outputParams) + " ORDER BY urn";
+    }
+
+    // Relationship is undirected, the UNION also removes the URNs found both ways.
+    return String.format("%s UNION %s ORDER BY urn",
+        nextHopUrnsDirected(relationshipTable, entityTable, relationshipFilter, "source", "destination", frontier, outputParams),
+        nextHopUrnsDirected(relationshipTable, entityTable, relationshipFilter, "destination", "source", frontier, outputParams));
+  }
+
+  /**
+   * Construct a SQL query which finds the URNs at the {@code toColumn} end of the relationships whose {@code fromColumn}
+   * end is in the frontier.
+   */
+  @Nonnull
+  @ParametersAreNonnullByDefault
+  private String nextHopUrnsDirected(String relationshipTable, String entityTable, RelationshipFilter relationshipFilter,
+      String fromColumn, String toColumn, List<String> frontier, List<Object> outputParams) {
+
+    StringBuilder sqlBuilder = new StringBuilder(
+        String.format("SELECT DISTINCT rt.%s AS urn FROM %s rt INNER JOIN %s et ON rt.%s=et.urn WHERE rt.%s IN (%s)",
+            toColumn, relationshipTable, entityTable, toColumn, fromColumn, String.join(", ", Collections.nCopies(frontier.size(), "?"))));
+    outputParams.addAll(frontier);
+
+    String whereClause = SQLStatementUtils.whereClause(_supportedConditions, outputParams,
+        new Pair<>(new Filter().setCriteria(relationshipFilter.getCriteria()), "rt"));
+    if (whereClause != null) {
+      sqlBuilder.append(" AND ").append(String.format("(%s)", whereClause));
+    }
+
+    return sqlBuilder.toString();
   }
 
   /**
@@ -64,7 +205,8 @@ public class MultiHopsTraversalSqlGenerator {
   @Nonnull
   @ParametersAreNonnullByDefault
   private String firstHopUrnsDirected(String relationshipTable, String srcEntityTable, String destEntityTable,
-      RelationshipFilter relationshipFilter, Filter srcFilter, Filter destFilter, RelationshipDirection direction) {
+      RelationshipFilter relationshipFilter, Filter srcFilter, Filter destFilter, RelationshipDirection direction,
+      List<Object> outputParams) {
 
     String urnColumn = "destination";
     if (direction == RelationshipDirection.INCOMING) {
@@ -75,7 +217,7 @@ public class MultiHopsTraversalSqlGenerator {
         String.format("SELECT rt.%s FROM %s rt INNER JOIN %s dt ON rt.destination=dt.urn INNER JOIN %s st ON rt.source=st.urn",
             urnColumn, relationshipTable, destEntityTable, srcEntityTable));
 
-    String whereClause = SQLStatementUtils.whereClause(_supportedConditions,
+    String whereClause = SQLStatementUtils.whereClause(_supportedConditions, outputParams,
         new Pair<>(new Filter().setCriteria(relationshipFilter.getCriteria()), "rt"),
         new Pair<>(destFilter, "dt"),
         new Pair<>(srcFilter, "st"));
@@ -93,7 +235,7 @@ public class MultiHopsTraversalSqlGenerator {
   @Nonnull
   @ParametersAreNonnullByDefault
   private String firstHopUrnsUndirected(String relationshipTable, String entityTable, RelationshipFilter relationshipFilter,
-      Filter srcFilter) {
+      Filter srcFilter, List<Object> outputParams) {
 
     StringBuilder sourceUrnsSql = new StringBuilder(
         String.format("SELECT rt.source FROM %s rt INNER JOIN %s et ON rt.source=et.urn", relationshipTable, entityTable));
@@ -101,7 +243,8 @@ public class MultiHopsTraversalSqlGenerator {
     StringBuilder destUrnsSql = new StringBuilder(
         String.format("SELECT rt.destination FROM %s rt INNER JOIN %s et ON rt.destination=et.urn", relationshipTable, entityTable));
 
-    String whereClause = SQLStatementUtils.whereClause(_supportedConditions,
+    final List<Object> whereParams = new ArrayList<>();
+    String whereClause = SQLStatementUtils.whereClause(_supportedConditions, whereParams,
         new Pair<>(new Filter().setCriteria(relationshipFilter.getCriteria()), "rt"),
         new Pair<>(srcFilter, "et"));
 
@@ -110,6 +253,10 @@ public class MultiHopsTraversalSqlGenerator {
       destUrnsSql.append(" WHERE ").append(whereClause);
     }
 
+    // the where clause is used by both sides of the UNION
+    outputParams.addAll(whereParams);
+    outputParams.addAll(whereParams);
+
     return String.format("%s UNION %s", sourceUrnsSql, destUrnsSql);
   }
 
@@ -118,8 +265,10 @@ public class MultiHopsTraversalSqlGenerator {
    */
   @Nonnull
   @ParametersAreNonnullByDefault
-  private String findEntitiesUndirected(String entityTable, String relationshipTable, String firstHopUrnSql, Filter destFilter) {
-    String whereClause = SQLStatementUtils.whereClause(_supportedConditions, new Pair<>(destFilter, "et"));
+  private String findEntitiesUndirected(String entityTable, String relationshipTable, String firstHopUrnSql,
+      List<Object> firstHopUrnParams, Filter destFilter, List<Object> outputParams) {
+    final List<Object> whereParams = new ArrayList<>();
+    String whereClause = SQLStatementUtils.whereClause(_supportedConditions, whereParams, new Pair<>(destFilter, "et"));
 
     StringBuilder sourceEntitySql = new StringBuilder(
         String.format("SELECT et.* FROM %s et INNER JOIN %s rt ON et.urn=rt.source WHERE rt.destination IN (%s)",
@@ -134,6 +283,12 @@ public class MultiHopsTraversalSqlGenerator {
       destEntitySql.append(" AND ").append(String.format("(%s)", whereClause));
     }
 
+    // both sides of the UNION bind the first hop urn sub query followed by the where clause
+    for (int i = 0; i < 2; i++) {
+      outputParams.addAll(firstHopUrnParams);
+      outputParams.addAll(whereParams);
+    }
+
     return String.format("%s UNION %s", sourceEntitySql, destEntitySql);
   }
 }
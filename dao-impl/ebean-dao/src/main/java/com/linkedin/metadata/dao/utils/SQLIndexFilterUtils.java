@@ -11,13 +11,12 @@ import com.linkedin.metadata.query.IndexSortCriterion;
 import com.linkedin.metadata.query.IndexValue;
 import com.linkedin.metadata.query.SortOrder;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import org.apache.commons.lang.StringEscapeUtils;
 
 import static com.linkedin.metadata.dao.utils.EBeanDAOUtils.*;
 import static com.linkedin.metadata.dao.utils.SQLSchemaUtils.*;
@@ -33,38 +32,34 @@ public class SQLIndexFilterUtils {
   }
 
   /**
-   * Get value from {@link IndexValue} and convert into SQL syntax.
+   * Get value from {@link IndexValue} as the object to be bound to a SQL bind parameter.
    * @param indexValue {@link IndexValue} to be parsed.
-   * @return SQL syntax compatible representation of the Index Value
+   * @return bind parameter value of the Index Value, null if the Index Value is null
    */
-  private static String parseIndexValue(@Nullable IndexValue indexValue) {
+  @Nullable
+  private static Object parseIndexValue(@Nullable IndexValue indexValue) {
     if (indexValue == null) {
-      return "NULL";
+      return null;
     }
-    if (indexValue.isArray()) {
-      StringArray stringArray = indexValue.getArray();
-      return "(" + String.join(", ",
-          stringArray.stream().map(s -> "'" + StringEscapeUtils.escapeSql(s) + "'").collect(Collectors.toList())) + ")";
-    } else if (indexValue.isBoolean()) {
-      return indexValue.getBoolean().toString();
+    if (indexValue.isBoolean()) {
+      return indexValue.getBoolean();
     } else if (indexValue.isInt()) {
-      return String.valueOf(Long.valueOf(indexValue.getInt()));
+      return Long.valueOf(indexValue.getInt());
     } else if (indexValue.isDouble()) {
-      return String.valueOf(indexValue.getDouble());
+      return indexValue.getDouble();
     } else if (indexValue.isFloat()) {
-      return String.valueOf(indexValue.getFloat().doubleValue());
+      return indexValue.getFloat().doubleValue();
     } else if (indexValue.isLong()) {
-      return String.valueOf(indexValue.getLong());
+      return indexValue.getLong();
     } else if (indexValue.isString()) {
-      return StringEscapeUtils.escapeSql(indexValue.getString());
+      return indexValue.getString();
     } else if (indexValue.isNull()) {
-      return "NULL";
+      return null;
     } else {
       throw new UnsupportedOperationException("Invalid index value: " + indexValue);
     }
   }
 
-
   /**
    * Parse {@link IndexSortCriterion} into SQL syntax.
    * @param indexSortCriterion filter sorting criterion
@@ -85,13 +80,15 @@ public class SQLIndexFilterUtils {
   }
 
   /**
-   * Parse {@link IndexFilter} into MySQL syntax.
+   * Parse {@link IndexFilter} into MySQL syntax. Index values are not inlined but replaced by positional bind parameters,
+   * so that the statement only depends on the shape of the filter.
    * @param indexFilter index filter
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
    * @return translated SQL condition expression, e.g. WHERE ...
    */
-  public static String parseIndexFilter(@Nonnull IndexFilter indexFilter) {
+  public static String parseIndexFilter(@Nonnull IndexFilter indexFilter, @Nonnull List<Object> outputParams) {
     List<String> sqlFilters = new ArrayList<>();
-    Set<String> aspectColumns = new HashSet<>(); // aspect columns (i.e. start with a_) to check if soft-deleted
+    Set<String> aspectColumns = new LinkedHashSet<>(); // aspect columns (i.e. start with a_) to check if soft-deleted
     for (IndexCriterion indexCriterion : indexFilter.getCriteria()) {
       final String aspect = indexCriterion.getAspect();
       if (!(isUrn(aspect))) {
@@ -105,7 +102,7 @@ public class SQLIndexFilterUtils {
         final Condition condition = pathParams.getCondition();
         final String indexColumn = getGeneratedColumnName(indexCriterion.getAspect(), path);
         sqlFilters.add(
-            indexColumn + parseConditionExpr(condition, indexCriterion.getPathParams().getValue(GetMode.NULL)));
+            indexColumn + parseConditionExpr(condition, indexCriterion.getPathParams().getValue(GetMode.NULL), outputParams));
       } else if (!isUrn(indexCriterion.getAspect())) {
         // if not given a path and condition, assume we are checking if the aspect exists.
         final String aspectColumn = getAspectColumnName(indexCriterion.getAspect());
@@ -126,30 +123,47 @@ public class SQLIndexFilterUtils {
    * Parse condition expression.
    * @param condition {@link Condition} filter condition
    * @param indexValue {@link IndexValue} index value
+   * @param outputParams values of the bind parameters are appended to this list
    * @return SQL expression of the condition expression
    */
-  private static String parseConditionExpr(Condition condition, IndexValue indexValue) {
+  private static String parseConditionExpr(@Nonnull Condition condition, @Nullable IndexValue indexValue,
+      @Nonnull List<Object> outputParams) {
     switch (condition) {
       case IN:
       case CONTAIN:
-        return " IN " + parseIndexValue(indexValue);
+        if (indexValue == null || !indexValue.isArray()) {
+          outputParams.add(parseIndexValue(indexValue));
+          return " IN (?)";
+        }
+        final StringArray values = indexValue.getArray();
+        outputParams.addAll(values);
+        return " IN (" + String.join(", ", Collections.nCopies(values.size(), "?")) + ")";
       case EQUAL:
-        if (indexValue.isString() || indexValue.isBoolean()) {
-          return " = '" + parseIndexValue(indexValue) + "'";
+        if (indexValue != null && indexValue.isBoolean()) {
+          // boolean values are stored as strings in the index columns
+          outputParams.add(indexValue.getBoolean().toString());
+        } else {
+          outputParams.add(parseIndexValue(indexValue));
         }
-        return " = " + parseIndexValue(indexValue);
+        return " = ?";
       case START_WITH:
-        return " LIKE '" + parseIndexValue(indexValue) + "%'";
+        outputParams.add(parseIndexValue(indexValue) + "%");
+        return " LIKE ?";
       case END_WITH:
-        return " LIKE '%" + parseIndexValue(indexValue) + "'";
+        outputParams.add("%" + parseIndexValue(indexValue));
+        return " LIKE ?";
       case GREATER_THAN_OR_EQUAL_TO:
-        return " >= " + parseIndexValue(indexValue);
+        outputParams.add(parseIndexValue(indexValue));
+        return " >= ?";
       case GREATER_THAN:
-        return " > " + parseIndexValue(indexValue);
+        outputParams.add(parseIndexValue(indexValue));
+        return " > ?";
       case LESS_THAN_OR_EQUAL_TO:
-        return " <= " + parseIndexValue(indexValue);
+        outputParams.add(parseIndexValue(indexValue));
+        return " <= ?";
       case LESS_THAN:
-        return " < " + parseIndexValue(indexValue);
+        outputParams.add(parseIndexValue(indexValue));
+        return " < ?";
       default:
         throw new UnsupportedOperationException("Unsupported condition operation: " + condition);
     }
@@ -8,12 +8,14 @@ import com.linkedin.metadata.query.Filter;
 import com.linkedin.metadata.query.IndexFilter;
 import com.linkedin.metadata.query.IndexGroupByCriterion;
 import com.linkedin.metadata.query.IndexSortCriterion;
+import com.linkedin.metadata.query.SortOrder;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -33,18 +35,18 @@ public class SQLStatementUtils {
       "INSERT INTO %s (urn, %s, lastmodifiedon, lastmodifiedby) VALUE (:urn, :metadata, :lastmodifiedon, :lastmodifiedby) "
           + "ON DUPLICATE KEY UPDATE %s = :metadata;";
 
-  private static final String SQL_READ_ASPECT_TEMPLATE =
-      String.format("SELECT urn, %%s, lastmodifiedon, lastmodifiedby FROM %%s WHERE urn = '%%s' AND %%s != '%s'", DELETED_VALUE);
+  private static final String SQL_READ_ENTITY_ASPECTS_TEMPLATE = "SELECT urn, %s FROM %s WHERE urn IN (%s)";
 
   private static final String INDEX_GROUP_BY_CRITERION = "SELECT count(*) as COUNT, %s FROM %s";
   private static final String SQL_GROUP_BY_COLUMN_EXISTS_TEMPLATE =
       "SELECT * FROM information_schema.COLUMNS WHERE TABLE_NAME = '%s' AND COLUMN_NAME = '%s'";
 
-  private static final String SQL_URN_EXIST_TEMPLATE = "SELECT urn FROM %s WHERE urn = '%s'";
+  private static final String SQL_URN_EXIST_TEMPLATE = "SELECT urn FROM %s WHERE urn = ?";
 
-  private static final String INSERT_LOCAL_RELATIONSHIP = "INSERT INTO %s (metadata, source, destination, source_type, "
-      + "destination_type, lastmodifiedon, lastmodifiedby) VALUE (:metadata, :source, :destination, :source_type,"
-      + " :destination_type, :lastmodifiedon, :lastmodifiedby)";
+  private static final String INSERT_LOCAL_RELATIONSHIPS = "INSERT INTO %s (metadata, source, destination, source_type, "
+      + "destination_type, lastmodifiedon, lastmodifiedby) VALUES %s";
+
+  private static final String INSERT_LOCAL_RELATIONSHIPS_ROW = "(?, ?, ?, ?, ?, ?, ?)";
 
   private static final String DELETE_BY_SOURCE = "DELETE FROM %s WHERE source = :source";
 
@@ -52,6 +54,16 @@ public class SQLStatementUtils {
 
   private static final String DELETE_BY_SOURCE_AND_DESTINATION = "DELETE FROM %s WHERE destination = :destination AND source = :source";
 
+  private static final String DELETE_BY_IDS = "DELETE FROM %s WHERE id IN (%s)";
+
+  private static final String SELECT_BY_SOURCE = "SELECT id, metadata, source, destination FROM %s WHERE source = :source";
+
+  private static final String SELECT_BY_DESTINATION =
+      "SELECT id, metadata, source, destination FROM %s WHERE destination = :destination";
+
+  private static final String SELECT_BY_SOURCE_AND_DESTINATION =
+      "SELECT id, metadata, source, destination FROM %s WHERE destination = :destination AND source = :source";
+
   /**
    *  Filter query has pagination params in the existing APIs. To accommodate this, we use subquery to include total result counts in the query response.
    *  For example, we will build the following filter query statement:
@@ -61,9 +73,16 @@ public class SQLStatementUtils {
    *  WHERE i_aspectfoo$value >= 25 AND i_aspectfoo$value < 50 AND a_aspectfoo != '{\"gma_deleted\":true}';
    */
   private static final String SQL_FILTER_TEMPLATE = "SELECT *, (%s) as _total_count FROM %s";
+  private static final String SQL_FILTER_WITHOUT_COUNT_TEMPLATE = "SELECT * FROM %s";
+  private static final String SQL_KEYSET_FILTER_TEMPLATE = "SELECT urn%s FROM %s";
+  private static final String SQL_COUNT_TEMPLATE = "SELECT COUNT(urn) as _total_count FROM %s";
   private static final String SQL_BROWSE_ASPECT_TEMPLATE =
       String.format("SELECT urn, %%s, lastmodifiedon, lastmodifiedby, (SELECT COUNT(urn) FROM %%s) as _total_count "
-          + "FROM %%s WHERE %%s != '%s' LIMIT %%d OFFSET %%d", DELETED_VALUE);
+          + "FROM %%s WHERE %%s != '%s' LIMIT ? OFFSET ?", DELETED_VALUE);
+
+  // SQL statements whose shape only depends on table and column names, keyed by table name and then column name.
+  private static final Map<String, String> EXIST_SQL_CACHE = new ConcurrentHashMap<>();
+  private static final Map<String, Map<String, String>> BROWSE_ASPECT_SQL_CACHE = new ConcurrentHashMap<>();
 
   private SQLStatementUtils() {
     // Util class
@@ -72,42 +91,48 @@ public class SQLStatementUtils {
   /**
    * Create entity exist SQL statement.
    * @param urn entity urn
+   * @param outputParams values of the bind parameters are appended to this list
    * @return entity exist sql
    */
-  public static String createExistSql(@Nonnull Urn urn) {
+  public static String createExistSql(@Nonnull Urn urn, @Nonnull List<Object> outputParams) {
     final String tableName = getTableName(urn);
-    return String.format(SQL_URN_EXIST_TEMPLATE, tableName, urn.toString());
+    outputParams.add(urn.toString());
+    return EXIST_SQL_CACHE.computeIfAbsent(tableName, table -> String.format(SQL_URN_EXIST_TEMPLATE, table));
   }
 
   /**
-   * Create read aspect SQL statement for one aspect class (but could include many urns). Essentially, this will query for a
-   * single aspect column in the metadata entity tables. The query includes a filter for filtering out soft-deleted aspects.
+   * Create read SQL statement for many aspects of many urns of the same entity type. As all aspects of an entity are
+   * columns of the same entity table row, this reads each entity row once regardless of the number of aspects.
    *
    * <p>Example:
-   * SELECT urn, aspect1, lastmodifiedon, lastmodifiedby FROM metadata_entity_foo WHERE urn = 'urn:1' AND aspect1 != '{"gma_deleted":true}'
-   * UNION ALL
-   * SELECT urn, aspect1, lastmodifiedon, lastmodifiedby FROM metadata_entity_foo WHERE urn = 'urn:2' AND aspect1 != '{"gma_deleted":true}'
-   * UNION ALL
-   * SELECT urn, aspect1, lastmodifiedon, lastmodifiedby FROM metadata_entity_bar WHERE urn = 'urn:1' AND aspect1 != '{"gma_deleted":true}'
-   * </p>
-   * @param aspectClass aspect class to query for
-   * @param urns a Set of Urns to query for
-   * @param <ASPECT> aspect type
-   * @return aspect read sql statement for a single aspect (across multiple tables and urns)
+   * SELECT urn, a_aspect1, a_aspect2 FROM metadata_entity_foo WHERE urn IN (?, ?, ?)
+   *
+   * <p>Soft-deleted aspects are not filtered out by the statement, as a row may contain both soft-deleted and live aspects.
+   * @param aspectColumns aspect columns to read, e.g. a_aspect1
+   * @param urns urns to read, must all be of the same entity type
+   * @param outputParams the urns are appended to this list, in the order they are bound in the statement
+   * @return aspects read sql statement for a single entity table
    */
-  public static <ASPECT extends RecordTemplate> String createAspectReadSql(@Nonnull Class<ASPECT> aspectClass,
-      @Nonnull Set<Urn> urns) {
-    if (urns.size() == 0) {
-      throw new IllegalArgumentException("Need at least 1 urn to query.");
+  public static String createEntityAspectsReadSql(@Nonnull Collection<String> aspectColumns, @Nonnull Collection<Urn> urns,
+      @Nonnull List<Object> outputParams) {
+    if (urns.isEmpty() || aspectColumns.isEmpty()) {
+      throw new IllegalArgumentException("Need at least 1 urn and 1 aspect to query.");
     }
-    final String columnName = getAspectColumnName(aspectClass);
-    StringBuilder stringBuilder = new StringBuilder();
-    List<String> selectStatements = urns.stream().map(urn -> {
-          final String tableName = getTableName(urn);
-          return String.format(SQL_READ_ASPECT_TEMPLATE, columnName, tableName, urn.toString(), columnName);
-        }).collect(Collectors.toList());
-    stringBuilder.append(String.join(" UNION ALL ", selectStatements));
-    return stringBuilder.toString();
+
+    String tableName = null;
+    for (Urn urn : urns) {
+      final String urnTableName = getTableName(urn);
+      if (tableName == null) {
+        tableName = urnTableName;
+      } else if (!tableName.equals(urnTableName)) {
+        throw new IllegalArgumentException(
+            String.format("All urns must belong to the same entity table, found %s and %s", tableName, urnTableName));
+      }
+      outputParams.add(urn.toString());
+    }
+
+    return String.format(SQL_READ_ENTITY_ASPECTS_TEMPLATE, String.join(", ", aspectColumns), tableName,
+        String.join(", ", Collections.nCopies(urns.size(), "?")));
   }
 
   /**
@@ -129,11 +154,34 @@ public class SQLStatementUtils {
    * @param tableName table name
    * @param indexFilter index filter
    * @param indexSortCriterion sorting criterion
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
+   * @return translated SQL where statement
+   */
+  public static String createFilterSql(String tableName, @Nonnull IndexFilter indexFilter,
+      @Nullable IndexSortCriterion indexSortCriterion, @Nonnull List<Object> outputParams) {
+    return createFilterSql(tableName, indexFilter, indexSortCriterion, true, outputParams);
+  }
+
+  /**
+   * Create filter SQL statement, optionally without the total count sub query. Pages that don't report a total count,
+   * e.g. the ones listed after a last urn, should leave it out as it scans every matching row.
+   * @param tableName table name
+   * @param indexFilter index filter
+   * @param indexSortCriterion sorting criterion
+   * @param includeTotalCount whether to select the total count of matching rows as _total_count
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
    * @return translated SQL where statement
    */
   public static String createFilterSql(String tableName, @Nonnull IndexFilter indexFilter,
-      @Nullable IndexSortCriterion indexSortCriterion) {
-    String whereClause = parseIndexFilter(indexFilter);
+      @Nullable IndexSortCriterion indexSortCriterion, boolean includeTotalCount, @Nonnull List<Object> outputParams) {
+    if (!includeTotalCount) {
+      return String.format(SQL_FILTER_WITHOUT_COUNT_TEMPLATE, tableName) + "\n" + parseIndexFilter(indexFilter, outputParams);
+    }
+    final List<Object> whereParams = new ArrayList<>();
+    String whereClause = parseIndexFilter(indexFilter, whereParams);
+    // the where clause appears both in the total count sub query and in the outer query
+    outputParams.addAll(whereParams);
+    outputParams.addAll(whereParams);
     String totalCountSql = String.format("SELECT COUNT(urn) FROM %s %s", tableName, whereClause);
     StringBuilder sb = new StringBuilder();
     sb.append(String.format(SQL_FILTER_TEMPLATE, totalCountSql, tableName));
@@ -142,20 +190,118 @@ public class SQLStatementUtils {
     return sb.toString();
   }
 
+  /**
+   * Create keyset (seek) paginated filter SQL statement. Rows are ordered by the sort column and then by urn, which makes
+   * the order total, and the page starts right after the given cursor instead of at an offset.
+   *
+   * <p>Example, sorted by i_aspectfoo$value ascending after a cursor:
+   * SELECT urn, i_aspectfoo$value FROM metadata_entity_foo
+   * WHERE i_aspectfoo$value >= ? AND a_aspectfoo != '{"gma_deleted":true}'
+   * AND (i_aspectfoo$value > ? OR (i_aspectfoo$value = ? AND urn > ?))
+   * ORDER BY i_aspectfoo$value ASC, urn ASC LIMIT ?
+   *
+   * <p>MySQL sorts NULL before any value, so rows with a NULL sort value come first in ascending and last in descending
+   * order; the seek condition accounts for that.
+   * @param tableName table name
+   * @param indexFilter index filter
+   * @param indexSortCriterion sorting criterion, or null to sort by urn only
+   * @param cursor position of the last row of the previous page, or null for the first page
+   * @param limit maximum number of rows to return
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
+   * @return keyset paginated filter SQL
+   */
+  public static String createKeysetFilterSql(String tableName, @Nonnull IndexFilter indexFilter,
+      @Nullable IndexSortCriterion indexSortCriterion, @Nullable KeysetCursor cursor, int limit,
+      @Nonnull List<Object> outputParams) {
+    final String sortColumn = getSortColumn(indexSortCriterion);
+    final boolean descending = indexSortCriterion != null && indexSortCriterion.hasOrder()
+        && indexSortCriterion.getOrder() == SortOrder.DESCENDING;
+
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format(SQL_KEYSET_FILTER_TEMPLATE, sortColumn == null ? "" : ", " + sortColumn, tableName));
+    final String whereClause = parseIndexFilter(indexFilter, outputParams);
+    if (!whereClause.isEmpty()) {
+      sb.append("\n").append(whereClause);
+    }
+    if (cursor != null) {
+      sb.append(whereClause.isEmpty() ? "\nWHERE " : "\nAND ");
+      sb.append(seekCondition(sortColumn, descending, cursor, outputParams));
+    }
+
+    final String direction = descending ? "DESC" : "ASC";
+    sb.append("\nORDER BY ");
+    if (sortColumn != null) {
+      sb.append(sortColumn).append(" ").append(direction).append(", ");
+    }
+    sb.append("urn ").append(direction);
+    sb.append(" LIMIT ?");
+    outputParams.add(Math.max(limit, 0));
+    return sb.toString();
+  }
+
+  /**
+   * Generated column a keyset paginated listing is sorted by, or null if it is sorted by urn only.
+   */
+  @Nullable
+  public static String getSortColumn(@Nullable IndexSortCriterion indexSortCriterion) {
+    return indexSortCriterion == null ? null
+        : getGeneratedColumnName(indexSortCriterion.getAspect(), indexSortCriterion.getPath());
+  }
+
+  @Nonnull
+  private static String seekCondition(@Nullable String sortColumn, boolean descending, @Nonnull KeysetCursor cursor,
+      @Nonnull List<Object> outputParams) {
+    final String urnComparison = descending ? "urn < ?" : "urn > ?";
+    if (sortColumn == null) {
+      outputParams.add(cursor.getUrn());
+      return urnComparison;
+    }
+
+    final Object sortValue = cursor.getSortValue();
+    if (sortValue == null) {
+      outputParams.add(cursor.getUrn());
+      return descending
+          // NULLs come last, only the rest of the NULLs are left
+          ? String.format("(%s IS NULL AND %s)", sortColumn, urnComparison)
+          // NULLs come first, the rest of the NULLs and every non-NULL are left
+          : String.format("((%s IS NULL AND %s) OR %s IS NOT NULL)", sortColumn, urnComparison, sortColumn);
+    }
+
+    outputParams.add(sortValue);
+    outputParams.add(sortValue);
+    outputParams.add(cursor.getUrn());
+    return descending
+        ? String.format("(%s < ? OR (%s = ? AND %s) OR %s IS NULL)", sortColumn, sortColumn, urnComparison, sortColumn)
+        : String.format("(%s > ? OR (%s = ? AND %s))", sortColumn, sortColumn, urnComparison);
+  }
+
+  /**
+   * Create SQL statement counting the rows matching an index filter.
+   * @param tableName table name
+   * @param indexFilter index filter
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
+   * @return count SQL, selecting the count as _total_count
+   */
+  public static String createCountSql(String tableName, @Nonnull IndexFilter indexFilter,
+      @Nonnull List<Object> outputParams) {
+    return String.format(SQL_COUNT_TEMPLATE, tableName) + "\n" + parseIndexFilter(indexFilter, outputParams);
+  }
+
   /**
    * Create index group by SQL statement.
    * @param tableName table name
    * @param indexFilter index filter
    * @param indexGroupByCriterion group by
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
    * @return translated group by SQL
    */
   public static String createGroupBySql(String tableName, @Nonnull IndexFilter indexFilter,
-      @Nonnull IndexGroupByCriterion indexGroupByCriterion) {
+      @Nonnull IndexGroupByCriterion indexGroupByCriterion, @Nonnull List<Object> outputParams) {
     final String columnName = getGeneratedColumnName(indexGroupByCriterion.getAspect(), indexGroupByCriterion.getPath());
     StringBuilder sb = new StringBuilder();
     sb.append(String.format(INDEX_GROUP_BY_CRITERION, columnName, tableName));
     sb.append("\n");
-    sb.append(parseIndexFilter(indexFilter));
+    sb.append(parseIndexFilter(indexFilter, outputParams));
     sb.append("\nGROUP BY ");
     sb.append(columnName);
     return sb.toString();
@@ -170,24 +316,34 @@ public class SQLStatementUtils {
    * Create aspect browse SQL statement.
    * @param entityType entity type.
    * @param aspectClass aspect class
+   * @param outputParams page size and offset are appended to this list
    * @param <ASPECT> {@link RecordTemplate}
    * @return aspect browse SQL.
    */
   public static <ASPECT extends RecordTemplate> String createAspectBrowseSql(String entityType,
-      Class<ASPECT> aspectClass, int offset, int pageSize) {
+      Class<ASPECT> aspectClass, int offset, int pageSize, @Nonnull List<Object> outputParams) {
     final String tableName = getTableName(entityType);
     final String columnName = getAspectColumnName(aspectClass);
-    return String.format(SQL_BROWSE_ASPECT_TEMPLATE, columnName, tableName, tableName, columnName,
-        Math.max(pageSize, 0), Math.max(offset, 0));
+    outputParams.add(Math.max(pageSize, 0));
+    outputParams.add(Math.max(offset, 0));
+    return BROWSE_ASPECT_SQL_CACHE.computeIfAbsent(tableName, unused -> new ConcurrentHashMap<>())
+        .computeIfAbsent(columnName, column -> String.format(SQL_BROWSE_ASPECT_TEMPLATE, column, tableName, tableName, column));
   }
 
   /**
-   * Generate "Create Statement SQL" for local relation.
+   * Generate a multi-row "Insert Statement SQL" for local relations, with positional parameters bound row by row in the
+   * order metadata, source, destination, source_type, destination_type, lastmodifiedon, lastmodifiedby.
    * @param tableName Name of the table where the local relation metadata will be inserted.
-   * @return SQL statement for inserting local relation.
+   * @param rowCount Number of local relations inserted by the statement.
+   * @return SQL statement for inserting local relations.
    */
-  public static String insertLocalRelationshipSQL(String tableName) {
-    return String.format(INSERT_LOCAL_RELATIONSHIP, tableName);
+  @Nonnull
+  public static String insertLocalRelationshipsSQL(@Nonnull String tableName, int rowCount) {
+    if (rowCount <= 0) {
+      throw new IllegalArgumentException("Row count must be positive: " + rowCount);
+    }
+    return String.format(INSERT_LOCAL_RELATIONSHIPS, tableName,
+        String.join(", ", Collections.nCopies(rowCount, INSERT_LOCAL_RELATIONSHIPS_ROW)));
   }
 
   @Nonnull
@@ -204,19 +360,56 @@ public class SQLStatementUtils {
     throw new IllegalArgumentException(String.format("Removal option %s is not valid.", removalOption));
   }
 
+  /**
+   * Generate "Select Statement SQL" reading the local relations in the scope of a removal option, i.e. the ones
+   * {@link #deleteLocaRelationshipSQL(String, BaseGraphWriterDAO.RemovalOption)} would delete.
+   * @param tableName Name of the local relation table.
+   * @param removalOption Removal option defining the scope of the local relations.
+   * @return SQL statement selecting the id, metadata, source and destination of the local relations.
+   */
+  @Nonnull
+  @ParametersAreNonnullByDefault
+  public static String selectLocalRelationshipSQL(final String tableName, final BaseGraphWriterDAO.RemovalOption removalOption) {
+    if (removalOption == BaseGraphWriterDAO.RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE) {
+      return String.format(SELECT_BY_SOURCE, tableName);
+    } else if (removalOption == BaseGraphWriterDAO.RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE_TO_DESTINATION) {
+      return String.format(SELECT_BY_SOURCE_AND_DESTINATION, tableName);
+    } else if (removalOption == BaseGraphWriterDAO.RemovalOption.REMOVE_ALL_EDGES_TO_DESTINATION) {
+      return String.format(SELECT_BY_DESTINATION, tableName);
+    }
+
+    throw new IllegalArgumentException(String.format("Removal option %s is not valid.", removalOption));
+  }
+
+  /**
+   * Generate "Delete Statement SQL" for local relations given by id, with a positional parameter per id.
+   * @param tableName Name of the local relation table.
+   * @param idCount Number of local relations deleted by the statement.
+   * @return SQL statement for deleting local relations.
+   */
+  @Nonnull
+  public static String deleteLocalRelationshipsByIdSQL(@Nonnull String tableName, int idCount) {
+    if (idCount <= 0) {
+      throw new IllegalArgumentException("Id count must be positive: " + idCount);
+    }
+    return String.format(DELETE_BY_IDS, tableName, String.join(", ", Collections.nCopies(idCount, "?")));
+  }
+
   /**
    * Construct where clause SQL from multiple filters. Return null if all filters are empty.
    * @param supportedCondition contains supported conditions such as EQUAL.
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
    * @param filters An array of pairs which are filter and table prefix.
    * @return sql that can be appended after where clause.
    */
   @SafeVarargs
   @Nullable
-  public static String whereClause(@Nonnull Map<Condition, String> supportedCondition, @Nonnull Pair<Filter, String>... filters) {
+  public static String whereClause(@Nonnull Map<Condition, String> supportedCondition, @Nonnull List<Object> outputParams,
+      @Nonnull Pair<Filter, String>... filters) {
     List<String> andClauses = new ArrayList<>();
     for (Pair<Filter, String> filter : filters) {
       if (filter.getValue0().hasCriteria() && filter.getValue0().getCriteria().size() > 0) {
-        andClauses.add("(" + whereClause(filter.getValue0(), supportedCondition, filter.getValue1()) + ")");
+        andClauses.add("(" + whereClause(filter.getValue0(), supportedCondition, filter.getValue1(), outputParams) + ")");
       }
     }
 
@@ -230,37 +423,39 @@ public class SQLStatementUtils {
   }
 
   /**
-   * Construct where clause SQL from a filter. Throw IllegalArgumentException if filter is empty.
+   * Construct where clause SQL from a filter. Throw IllegalArgumentException if filter is empty. Values are not inlined
+   * but replaced by positional bind parameters.
    * @param filter contains field, condition and value
    * @param supportedCondition contains supported conditions such as EQUAL.
    * @param tablePrefix Table prefix append to the field name. Useful during SQL joining across multiple tables.
+   * @param outputParams values of the bind parameters are appended to this list, in the order they appear in the SQL
    * @return sql that can be appended after where clause.
    */
   @Nonnull
-  public static String whereClause(@Nonnull Filter filter, @Nonnull Map<Condition, String> supportedCondition, @Nullable String tablePrefix) {
+  public static String whereClause(@Nonnull Filter filter, @Nonnull Map<Condition, String> supportedCondition,
+      @Nullable String tablePrefix, @Nonnull List<Object> outputParams) {
     if (!filter.hasCriteria() || filter.getCriteria().size() == 0) {
       throw new IllegalArgumentException("Empty filter cannot construct where clause.");
     }
 
-    if (tablePrefix != null) {
-      filter.getCriteria().forEach(criterion -> {
-        criterion.setField(tablePrefix + "." + criterion.getField());
-      });
-    }
-
     // Group the conditions by field.
     Map<String, List<Pair<Condition, String>>> groupByField = new HashMap<>();
     filter.getCriteria().forEach(criterion -> {
-      List<Pair<Condition, String>> group = groupByField.getOrDefault(criterion.getField(), new ArrayList<>());
-      group.add(new Pair<>(criterion.getCondition(), criterion.getValue()));
-      groupByField.put(criterion.getField(), group);
+      final String field = tablePrefix == null ? criterion.getField() : tablePrefix + "." + criterion.getField();
+      groupByField.computeIfAbsent(field, unused -> new ArrayList<>())
+          .add(new Pair<>(criterion.getCondition(), criterion.getValue()));
     });
 
     List<String> andClauses = new ArrayList<>();
     for (Map.Entry<String, List<Pair<Condition, String>>> entry : groupByField.entrySet()) {
       List<String> orClauses = new ArrayList<>();
       for (Pair<Condition, String> pair : entry.getValue()) {
-        orClauses.add(entry.getKey() + supportedCondition.get(pair.getValue0()) + "'" + pair.getValue1() + "'");
+        if (pair.getValue0() == Condition.IN) {
+          orClauses.add(entry.getKey() + " " + supportedCondition.get(pair.getValue0()) + " (?)");
+        } else {
+          orClauses.add(entry.getKey() + supportedCondition.get(pair.getValue0()) + "?");
+        }
+        outputParams.add(pair.getValue1());
       }
 
       if (orClauses.size() == 1) {
@@ -6,6 +6,8 @@ create table metadata_aspect (
   createdon                     timestamp not null,
   createdby                     varchar(255) not null,
   createdfor                    varchar(255),
+  nextversion                   bigint,
+  lockversion                   bigint,
   constraint pk_metadata_aspect primary key (urn,aspect,version)
 );
 
@@ -15,6 +17,18 @@ create table metadata_id (
   constraint uq_metadata_id_namespace_id unique (namespace,id)
 );
 
+create table metadata_audit_event_outbox (
+  id                            bigint auto_increment not null,
+  urn                           varchar(500) not null,
+  aspect                        varchar(200) not null,
+  oldvalue                      varchar,
+  newvalue                      varchar not null,
+  aspectspecific                boolean not null,
+  createdon                     timestamp not null,
+  attempts                      integer default 0 not null,
+  constraint pk_metadata_audit_event_outbox primary key (id)
+);
+
 create table metadata_index (
   id                            bigint auto_increment not null,
   urn                           varchar(500) not null,
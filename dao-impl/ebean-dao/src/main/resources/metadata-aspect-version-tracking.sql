@@ -0,0 +1,16 @@
+-- Migrates an existing metadata_aspect table for EbeanLocalDAO#enableVersionTrackingOnLatestRow (MySQL).
+--
+-- Step 1 is required before version tracking is enabled. The counters of rows written before the migration are
+-- initialized by the next update of each aspect, so step 2 is optional. It only saves that first update the scan for
+-- the largest version. As writers without version tracking don't maintain the counters, only run step 2 once no such
+-- writer is left.
+
+-- step 1: add the version counters of the latest (version 0) rows
+ALTER TABLE metadata_aspect ADD COLUMN nextversion BIGINT, ADD COLUMN lockversion BIGINT;
+
+-- step 2: backfill the counters of the existing latest rows
+UPDATE metadata_aspect t
+  JOIN (SELECT urn, aspect, MAX(version) AS maxversion FROM metadata_aspect GROUP BY urn, aspect) m
+    ON t.urn = m.urn AND t.aspect = m.aspect
+   SET t.nextversion = m.maxversion + 1, t.lockversion = 0
+ WHERE t.version = 0;
@@ -0,0 +1,20 @@
+-- Creates the outbox table used by EbeanLocalDAO#enableAuditEventOutbox (MySQL).
+--
+-- Rows are inserted by the transactions of the updates and deleted once relayed to the producer, so the table only
+-- holds the events which are pending, in the order of their id. Rows whose attempts reached the max attempts of the
+-- relay are parked and no longer relayed.
+--
+-- Tables created before the attempts column was added need:
+-- ALTER TABLE metadata_audit_event_outbox ADD COLUMN attempts INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS metadata_audit_event_outbox (
+    id BIGINT AUTO_INCREMENT NOT NULL,
+    urn VARCHAR(500) NOT NULL,
+    aspect VARCHAR(200) NOT NULL,
+    oldvalue LONGTEXT,
+    newvalue LONGTEXT NOT NULL,
+    aspectspecific BOOLEAN NOT NULL,
+    createdon DATETIME(6) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_metadata_audit_event_outbox PRIMARY KEY (id)
+);
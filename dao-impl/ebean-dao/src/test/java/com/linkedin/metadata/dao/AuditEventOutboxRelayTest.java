@@ -0,0 +1,65 @@
+package com.linkedin.metadata.dao;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class AuditEventOutboxRelayTest {
+
+  private EbeanLocalDAO<?, ?> _mockLocalDAO;
+  private ScheduledExecutorService _mockExecutor;
+
+  @BeforeMethod
+  public void setup() {
+    _mockLocalDAO = mock(EbeanLocalDAO.class);
+    _mockExecutor = mock(ScheduledExecutorService.class);
+  }
+
+  @Test
+  public void testStartSchedulesAtPollInterval() {
+    ScheduledFuture<?> future = mock(ScheduledFuture.class);
+    doReturn(future).when(_mockExecutor).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+    AuditEventOutboxRelay relay = new AuditEventOutboxRelay(_mockLocalDAO, _mockExecutor, 100, 50);
+
+    relay.start();
+    relay.start();
+    relay.close();
+
+    verify(_mockExecutor, times(1)).scheduleWithFixedDelay(any(), eq(50L), eq(50L), eq(TimeUnit.MILLISECONDS));
+    verify(future, times(1)).cancel(false);
+  }
+
+  @Test
+  public void testDrainRelaysUntilOutboxIsEmpty() {
+    when(_mockLocalDAO.relayAuditEvents(100)).thenReturn(100, 100, 30);
+    AuditEventOutboxRelay relay = new AuditEventOutboxRelay(_mockLocalDAO, _mockExecutor, 100, 50);
+
+    relay.drain();
+
+    verify(_mockLocalDAO, times(3)).relayAuditEvents(100);
+    assertEquals(relay.getRelayedCount(), 230L);
+    assertEquals(relay.getFailedBatchCount(), 0L);
+  }
+
+  @Test
+  public void testDrainCountsFailedBatches() {
+    when(_mockLocalDAO.relayAuditEvents(100)).thenReturn(100).thenThrow(new IllegalStateException());
+    AuditEventOutboxRelay relay = new AuditEventOutboxRelay(_mockLocalDAO, _mockExecutor, 100, 50);
+
+    relay.drain();
+
+    assertEquals(relay.getRelayedCount(), 100L);
+    assertEquals(relay.getFailedBatchCount(), 1L);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidBatchSize() {
+    new AuditEventOutboxRelay(_mockLocalDAO, _mockExecutor, 0, 50);
+  }
+}
@@ -2,6 +2,7 @@ package com.linkedin.metadata.dao;
 
 import com.google.common.io.Resources;
 import com.linkedin.common.AuditStamp;
+import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.metadata.aspect.AuditedAspect;
 import com.linkedin.metadata.dao.localrelationship.SampleLocalRelationshipRegistryImpl;
 import com.linkedin.metadata.dao.utils.MysqlDevInstance;
@@ -31,9 +32,15 @@ import io.ebean.SqlRow;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -112,6 +119,26 @@ public class EbeanLocalAccessTest {
     assertTrue(ebeanMetadataAspectList.isEmpty());
   }
 
+  @Test
+  public void testBatchGetMultipleUrns() {
+
+    // Given: metadata_entity_foo table with fooUrns from 0 ~ 99, and urn:li:foo:2's AspectFoo soft-deleted
+    _ebeanLocalAccessFoo.add(makeFooUrn(2), null, AspectFoo.class, makeAuditStamp("foo", System.currentTimeMillis()));
+    List<AspectKey<FooUrn, ? extends RecordTemplate>> aspectKeys = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      aspectKeys.add(new AspectKey<>(AspectFoo.class, makeFooUrn(i), 0L));
+    }
+    aspectKeys.add(new AspectKey<>(AspectFoo.class, makeFooUrn(9999), 0L));
+
+    // When: get AspectFoo of urn:li:foo:0 ~ 3 and the non-existing urn:li:foo:9999
+    List<EbeanMetadataAspect> ebeanMetadataAspectList = _ebeanLocalAccessFoo.batchGetUnion(aspectKeys, 1000, 0);
+
+    // Expect: only the existing, not soft-deleted aspects are returned
+    assertEquals(3, ebeanMetadataAspectList.size());
+    Set<String> urns = ebeanMetadataAspectList.stream().map(aspect -> aspect.getKey().getUrn()).collect(Collectors.toSet());
+    assertEquals(new HashSet<>(Arrays.asList("urn:li:foo:0", "urn:li:foo:1", "urn:li:foo:3")), urns);
+  }
+
   @Test
   public void testListUrnsWithOffset() {
 
@@ -177,6 +204,62 @@ public class EbeanLocalAccessTest {
     assertEquals("30", listUrns.get(0).getId());
   }
 
+  @Test
+  public void testListUrnsWithCursor() {
+
+    // Given: metadata_entity_foo table with fooUrns from 0 ~ 99
+    // When: paging through urns where ids >= 25 and id < 50 sorting by DESC, 10 at a time
+
+    IndexFilter indexFilter = new IndexFilter();
+    IndexCriterionArray indexCriterionArray = new IndexCriterionArray();
+    indexCriterionArray.add(SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "value",
+        Condition.GREATER_THAN_OR_EQUAL_TO, IndexValue.create(25)));
+    indexCriterionArray.add(
+        SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "value", Condition.LESS_THAN, IndexValue.create(50)));
+    indexFilter.setCriteria(indexCriterionArray);
+
+    IndexSortCriterion indexSortCriterion =
+        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.DESCENDING);
+
+    List<FooUrn> urns = new ArrayList<>();
+    List<Integer> pageSizes = new ArrayList<>();
+    String cursor = null;
+    do {
+      CursorListResult<FooUrn> page = _ebeanLocalAccessFoo.listUrnsWithCursor(indexFilter, indexSortCriterion, cursor, 10);
+      urns.addAll(page.getValues());
+      pageSizes.add(page.getValues().size());
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+
+    // Expect: 3 pages covering 'urn:li:foo:49' down to 'urn:li:foo:25', without duplicates
+    assertEquals(Arrays.asList(10, 10, 5), pageSizes);
+    assertEquals(25, urns.size());
+    assertEquals("49", urns.get(0).getId());
+    assertEquals("25", urns.get(24).getId());
+    assertEquals(25, new HashSet<>(urns).size());
+
+    // Expect: the total count is available separately
+    assertEquals(25, _ebeanLocalAccessFoo.countUrns(indexFilter));
+  }
+
+  @Test
+  public void testCountUrnsWithCache() {
+    // Given: metadata_entity_foo table with fooUrns from 0 ~ 99
+    IndexFilter indexFilter = new IndexFilter().setCriteria(
+        new IndexCriterionArray(new IndexCriterion().setAspect(FooUrn.class.getCanonicalName())));
+    IEbeanLocalAccess<FooUrn> localAccess = new EbeanLocalAccess<>(_server, MysqlDevInstance.SERVER_CONFIG, FooUrn.class);
+    localAccess.enableTotalCountCache(10, Duration.ofMinutes(10));
+    assertEquals(100, localAccess.countUrns(indexFilter));
+
+    // When: another urn is added
+    _ebeanLocalAccessFoo.add(makeFooUrn(100), new AspectFoo().setValue("100"), AspectFoo.class,
+        makeAuditStamp("foo", System.currentTimeMillis()));
+
+    // Expect: the cached count is served until it expires, while the uncached count is up to date
+    assertEquals(100, localAccess.countUrns(indexFilter));
+    assertEquals(101, _ebeanLocalAccessFoo.countUrns(indexFilter));
+  }
+
   @Test
   public void testExists() throws URISyntaxException {
     // Given: metadata_entity_foo table with fooUrns from 0 ~ 99
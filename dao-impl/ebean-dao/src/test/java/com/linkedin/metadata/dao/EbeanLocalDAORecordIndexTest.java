@@ -0,0 +1,84 @@
+package com.linkedin.metadata.dao;
+
+import com.linkedin.metadata.dao.EbeanLocalDAO.RecordKey;
+import com.linkedin.metadata.dao.utils.ModelUtils;
+import com.linkedin.testing.AspectBar;
+import com.linkedin.testing.AspectFoo;
+import com.linkedin.testing.urn.FooUrn;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+import static com.linkedin.testing.TestUtils.*;
+import static org.testng.Assert.*;
+
+
+public class EbeanLocalDAORecordIndexTest {
+
+  private static final String FOO_ASPECT = ModelUtils.getAspectName(AspectFoo.class);
+
+  @Test
+  public void testIndexRecordsMatchesKeys() {
+    FooUrn urn1 = makeFooUrn(1);
+    FooUrn urn2 = makeFooUrn(2);
+    EbeanMetadataAspect foo1 = makeRecord(urn1.toString(), FOO_ASPECT, 0L);
+    EbeanMetadataAspect foo1v1 = makeRecord(urn1.toString(), FOO_ASPECT, 1L);
+    EbeanMetadataAspect bar2 = makeRecord(urn2.toString(), ModelUtils.getAspectName(AspectBar.class), 0L);
+
+    Map<RecordKey, EbeanMetadataAspect> index = EbeanLocalDAO.indexRecords(Arrays.asList(foo1, foo1v1, bar2));
+
+    assertEquals(index.size(), 3);
+    assertSame(index.get(RecordKey.of(new AspectKey<>(AspectFoo.class, urn1, 0L))), foo1);
+    assertSame(index.get(RecordKey.of(new AspectKey<>(AspectFoo.class, urn1, 1L))), foo1v1);
+    assertSame(index.get(RecordKey.of(new AspectKey<>(AspectBar.class, urn2, 0L))), bar2);
+    assertNull(index.get(RecordKey.of(new AspectKey<>(AspectBar.class, urn1, 0L))));
+    assertNull(index.get(RecordKey.of(new AspectKey<>(AspectFoo.class, urn1, 2L))));
+  }
+
+  @Test
+  public void testIndexRecordsIgnoresUrnCase() {
+    FooUrn urn = makeFooUrn(1);
+    EbeanMetadataAspect record = makeRecord("URN:LI:Foo:1", FOO_ASPECT, 0L);
+
+    Map<RecordKey, EbeanMetadataAspect> index = EbeanLocalDAO.indexRecords(Arrays.asList(record));
+
+    assertSame(index.get(RecordKey.of(new AspectKey<>(AspectFoo.class, urn, 0L))), record);
+  }
+
+  @Test
+  public void testIndexRecordsKeepsFirstDuplicate() {
+    EbeanMetadataAspect first = makeRecord("urn:li:foo:1", FOO_ASPECT, 0L);
+    EbeanMetadataAspect second = makeRecord("urn:li:foo:1", FOO_ASPECT, 0L);
+
+    Map<RecordKey, EbeanMetadataAspect> index = EbeanLocalDAO.indexRecords(Arrays.asList(first, second));
+
+    assertEquals(index.size(), 1);
+    assertSame(index.get(RecordKey.of(new AspectKey<>(AspectFoo.class, makeFooUrn(1), 0L))), first);
+  }
+
+  @Test
+  public void testConcatPagesKeepsPageOrder() {
+    EbeanMetadataAspect foo1 = makeRecord("urn:li:foo:1", FOO_ASPECT, 0L);
+    EbeanMetadataAspect foo2 = makeRecord("urn:li:foo:2", FOO_ASPECT, 0L);
+    EbeanMetadataAspect foo3 = makeRecord("urn:li:foo:3", FOO_ASPECT, 0L);
+    List<EbeanMetadataAspect> page = Arrays.asList(foo1, foo2);
+
+    List<EbeanMetadataAspect> records = EbeanLocalDAO.concatPages(
+        Arrays.asList(page, Collections.<EbeanMetadataAspect>emptyList(), Collections.singletonList(foo3)));
+
+    assertEquals(records, Arrays.asList(foo1, foo2, foo3));
+    assertEquals(records.size(), 3);
+    assertSame(records.get(2), foo3);
+    assertThrows(IndexOutOfBoundsException.class, () -> records.get(3));
+    assertSame(EbeanLocalDAO.concatPages(Collections.singletonList(page)), page);
+  }
+
+  private static EbeanMetadataAspect makeRecord(String urn, String aspect, long version) {
+    EbeanMetadataAspect record = new EbeanMetadataAspect();
+    record.setKey(new EbeanMetadataAspect.PrimaryKey(urn, aspect, version));
+    record.setMetadata("{}");
+    return record;
+  }
+}
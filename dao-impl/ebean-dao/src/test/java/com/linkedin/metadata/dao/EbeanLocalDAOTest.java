@@ -56,11 +56,18 @@ import io.ebean.EbeanServerFactory;
 import io.ebean.PagedList;
 import io.ebean.SqlRow;
 import io.ebean.Transaction;
+import io.ebean.TxScope;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -71,12 +78,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.persistence.OptimisticLockException;
 import javax.persistence.RollbackException;
+import org.javatuples.Pair;
 import org.mockito.InOrder;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
@@ -303,6 +316,39 @@ public class EbeanLocalDAOTest {
     assertNotNull(getMetadata(urn, aspectName, 0));
   }
 
+  @Test
+  public void testAsyncRetentionDeletesInBatches() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.setRetention(AspectFoo.class, new VersionBasedRetention(2));
+    dao.enableAsyncRetention(10);
+    dao.setRetentionDeleteBatchSize(2);
+    FooUrn urn = makeFooUrn(1);
+    String aspectName = ModelUtils.getAspectName(AspectFoo.class);
+    for (int i = 0; i < 7; i++) {
+      dao.add(urn, new AspectFoo().setValue("foo" + i), _dummyAuditStamp);
+    }
+
+    // the aspect is a candidate once its writes committed
+    assertEquals(dao.getPendingRetentionCount(), 1);
+    assertNotNull(getMetadata(urn, aspectName, 1));
+
+    assertEquals(dao.sweepRetention(10), 1);
+
+    for (long version = 1; version < 6; version++) {
+      assertNull(getMetadata(urn, aspectName, version));
+    }
+    assertNotNull(getMetadata(urn, aspectName, 6));
+    assertNotNull(getMetadata(urn, aspectName, 0));
+    assertEquals(dao.getPendingRetentionCount(), 0);
+  }
+
+  @Test
+  public void testInvalidRetentionDeleteBatchSize() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+
+    assertThrows(IllegalArgumentException.class, () -> dao.setRetentionDeleteBatchSize(0));
+  }
+
   @Test
   public void testTimeBasedRetention() {
     Clock mockClock = mock(Clock.class);
@@ -342,6 +388,8 @@ public class EbeanLocalDAOTest {
       EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(server, FooUrn.class);
       when(server.find(any(), any())).thenReturn(null);
       dao.add(makeFooUrn(1), new AspectFoo().setValue("foo"), _dummyAuditStamp);
+      assertEquals(dao.getTransactionRetryCount(), 1);
+      assertEquals(dao.getRetryLimitReachedCount(), 0);
     }
   }
 
@@ -1540,6 +1588,49 @@ public class EbeanLocalDAOTest {
     assertEquals(id3, 1);
   }
 
+  @Test
+  void testNewNumericIdWithIdBlocks() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao1 = createDao(FooUrn.class);
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao2 = createDao(FooUrn.class);
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao3 = createDao(FooUrn.class);
+    dao1.setIdBlockSize(10);
+    dao2.setIdBlockSize(10);
+
+    assertEquals(dao1.newNumericId("namespace"), 1);
+    assertEquals(dao1.newNumericId("namespace"), 2);
+    // other instances start after the blocks reserved so far, whether they use blocks or not
+    assertEquals(dao2.newNumericId("namespace"), 11);
+    assertEquals(dao3.newNumericId("namespace"), 21);
+    assertEquals(dao1.newNumericId("another namespace"), 1);
+
+    // ids are handed out from the reserved block until it's used up
+    for (long id = 3; id <= 10; id++) {
+      assertEquals(dao1.newNumericId("namespace"), id);
+    }
+    assertEquals(dao1.newNumericId("namespace"), 22);
+    assertEquals(dao2.newNumericId("namespace"), 12);
+  }
+
+  @Test
+  void testNewNumericIdWithIdBlocksIsUniqueUnderConcurrency() throws Exception {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.setIdBlockSize(7);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Long>> futures = IntStream.range(0, 200)
+          .mapToObj(i -> executor.submit(() -> dao.newNumericId("namespace")))
+          .collect(Collectors.toList());
+      Set<Long> ids = new HashSet<>();
+      for (Future<Long> future : futures) {
+        ids.add(future.get());
+      }
+      assertEquals(ids.size(), 200);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   void testSaveSingleEntryToLocalIndex() {
     EbeanLocalDAO<EntityAspectUnion, BarUrn> dao = createDao(BarUrn.class);
@@ -1821,6 +1912,48 @@ public class EbeanLocalDAOTest {
     assertEquals(fooRecord8.getStringVal(), "val3");
   }
 
+  @Test
+  void testUpdateLocalIndexOnlyWritesChangedRows() {
+    if (_schemaConfig == SchemaConfig.NEW_SCHEMA_ONLY) {
+      // SCSI is not supported by the new schema
+      return;
+    }
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = new EbeanLocalDAO<>(_mockProducer, _server, MysqlDevInstance.SERVER_CONFIG,
+        makeLocalDAOStorageConfig(AspectFooEvolved.class, Arrays.asList("/value", "/newValue")), FooUrn.class, _schemaConfig);
+    dao.enableLocalSecondaryIndex(true);
+    dao.setUrnPathExtractor(new FooUrnPathExtractor());
+    FooUrn urn = makeFooUrn(1);
+
+    dao.updateLocalIndex(urn, new AspectFooEvolved().setValue("val1").setNewValue("newVal1"), 0);
+    Map<String, EbeanMetadataIndex> records1 = getAllRecordsFromLocalIndex(urn).stream()
+        .collect(Collectors.toMap(EbeanMetadataIndex::getPath, Function.identity()));
+    assertEquals(records1.size(), 3);
+
+    // unchanged indexed values leave all rows as is, the urn rows aren't duplicated by another first version
+    dao.updateLocalIndex(urn, new AspectFooEvolved().setValue("val1").setNewValue("newVal1"), 0);
+    Map<String, EbeanMetadataIndex> records2 = getAllRecordsFromLocalIndex(urn).stream()
+        .collect(Collectors.toMap(EbeanMetadataIndex::getPath, Function.identity()));
+    assertEquals(records2.size(), 3);
+    records1.forEach((path, record) -> assertEquals(records2.get(path).getId(), record.getId()));
+
+    // only the row of the changed value is replaced
+    dao.updateLocalIndex(urn, new AspectFooEvolved().setValue("val2").setNewValue("newVal1"), 1);
+    Map<String, EbeanMetadataIndex> records3 = getAllRecordsFromLocalIndex(urn).stream()
+        .collect(Collectors.toMap(EbeanMetadataIndex::getPath, Function.identity()));
+    assertEquals(records3.size(), 3);
+    assertEquals(records3.get("/fooId").getId(), records1.get("/fooId").getId());
+    assertEquals(records3.get("/newValue").getId(), records1.get("/newValue").getId());
+    assertNotEquals(records3.get("/value").getId(), records1.get("/value").getId());
+    assertEquals(records3.get("/value").getStringVal(), "val2");
+
+    // the row of a value no longer set is removed
+    dao.updateLocalIndex(urn, new AspectFooEvolved().setValue("val2"), 2);
+    Map<String, EbeanMetadataIndex> records4 = getAllRecordsFromLocalIndex(urn).stream()
+        .collect(Collectors.toMap(EbeanMetadataIndex::getPath, Function.identity()));
+    assertEquals(records4.keySet(), new HashSet<>(Arrays.asList("/fooId", "/value")));
+    assertEquals(records4.get("/value").getId(), records3.get("/value").getId());
+  }
+
   @Test
   void testUpdateLocalIndex() {
     EbeanLocalDAO<EntityAspectUnion, BarUrn> dao = createDao(BarUrn.class);
@@ -2823,6 +2956,458 @@ public class EbeanLocalDAOTest {
     testGetWithQuerySize(1000);
   }
 
+  @Test
+  public void testParallelPagedSubQueries() {
+    // given
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    List<Integer> pagePositions = Collections.synchronizedList(new ArrayList<>());
+    dao.setBatchGetExecutor(executor, 2);
+    dao.setBatchGetPageListener((position, keysCount, resultCount, latencyNanos) -> {
+      assertTrue(keysCount <= 2);
+      assertTrue(latencyNanos >= 0);
+      pagePositions.add(position);
+    });
+    dao.setQueryKeysCount(2);
+
+    Set<AspectKey<FooUrn, ? extends RecordTemplate>> keys = new HashSet<>();
+    for (int i = 0; i < 5; i++) {
+      FooUrn fooUrn = makeFooUrn(i);
+      dao.add(fooUrn, new AspectFoo().setValue("foo" + i), _dummyAuditStamp);
+      keys.add(new AspectKey<>(AspectFoo.class, fooUrn, 0L));
+    }
+
+    try {
+      // when
+      Map<AspectKey<FooUrn, ? extends RecordTemplate>, Optional<? extends RecordTemplate>> records = dao.get(keys);
+
+      // then
+      assertEquals(records.size(), 5);
+      for (int i = 0; i < 5; i++) {
+        assertEquals(records.get(new AspectKey<>(AspectFoo.class, makeFooUrn(i), 0L)),
+            Optional.of(new AspectFoo().setValue("foo" + i)));
+      }
+      assertEquals(new HashSet<>(pagePositions), new HashSet<>(Arrays.asList(0, 2, 4)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLatestAspectCache() {
+    // given
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableLatestAspectCache(100, Duration.ofMinutes(1));
+    FooUrn urn = makeFooUrn(1);
+    AspectFoo v1 = new AspectFoo().setValue("foo1");
+    AspectFoo v2 = new AspectFoo().setValue("foo2");
+    AspectKey<FooUrn, AspectFoo> key = new AspectKey<>(AspectFoo.class, urn, 0L);
+    dao.add(urn, v1, _dummyAuditStamp);
+
+    // when
+    Optional<AspectFoo> first = dao.get(AspectFoo.class, urn);
+    Optional<AspectFoo> second = dao.get(AspectFoo.class, urn);
+
+    // then
+    assertEquals(first.get(), v1);
+    assertEquals(second.get(), v1);
+    assertEquals(dao.getLatestAspectCacheStats().missCount(), 1);
+    assertEquals(dao.getLatestAspectCacheStats().hitCount(), 1);
+
+    // when a new version is written, the cached latest version is invalidated
+    dao.add(urn, v2, makeAuditStamp("tester", 5678));
+
+    // then
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v2);
+    assertEquals(dao.getWithExtraInfo(Collections.singleton(key)).get(key).getAspect(), v2);
+
+    // when the aspect is deleted, the cached latest version is invalidated
+    dao.delete(urn, AspectFoo.class, makeAuditStamp("tester", 9012));
+
+    // then
+    assertFalse(dao.get(AspectFoo.class, urn).isPresent());
+    assertNull(dao.getWithExtraInfo(Collections.singleton(key)).get(key));
+  }
+
+  @Test
+  public void testLatestAspectCacheIgnoresFillsOfInvalidatedReads() {
+    // given
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableLatestAspectCache(100, Duration.ofMinutes(1));
+    FooUrn urn = makeFooUrn(1);
+    AspectFoo v2 = new AspectFoo().setValue("foo2");
+    dao.add(urn, new AspectFoo().setValue("foo1"), _dummyAuditStamp);
+    EbeanMetadataAspect.PrimaryKey pk =
+        new EbeanMetadataAspect.PrimaryKey(urn.toString(), AspectFoo.class.getCanonicalName(), 0L);
+    EbeanLocalDAO.RecordKey cacheKey = EbeanLocalDAO.RecordKey.of(pk);
+
+    // when a reader reads the latest version, a write commits, then the reader fills the cache with what it read
+    long generation = dao.getLatestAspectCacheGeneration(cacheKey);
+    EbeanMetadataAspect stale = _server.find(EbeanMetadataAspect.class, pk);
+    dao.add(urn, v2, makeAuditStamp("tester", 5678));
+    dao.fillLatestAspectCache(cacheKey, stale, generation);
+
+    // then the stale version isn't cached
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v2);
+    assertEquals(dao.getLatestAspectCacheStats().missCount(), 1);
+
+    // and reads which aren't invalidated are cached
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v2);
+    assertEquals(dao.getLatestAspectCacheStats().hitCount(), 1);
+  }
+
+  @Test
+  public void testScanLatest() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    List<Pair<FooUrn, AspectFoo>> expected = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      FooUrn urn = makeFooUrn(i);
+      dao.add(urn, new AspectFoo().setValue("old" + i), _dummyAuditStamp);
+      AspectFoo latest = new AspectFoo().setValue("latest" + i);
+      dao.add(urn, latest, _dummyAuditStamp);
+      if (i != 2) {
+        expected.add(Pair.with(urn, latest));
+      }
+    }
+    dao.delete(makeFooUrn(2), AspectFoo.class, _dummyAuditStamp);
+    dao.add(makeFooUrn(9), new AspectBar().setValue("bar"), _dummyAuditStamp);
+
+    List<Pair<FooUrn, AspectFoo>> scanned;
+    try (Stream<Pair<FooUrn, AspectFoo>> stream = dao.scanLatest(AspectFoo.class, 2)) {
+      scanned = stream.collect(Collectors.toList());
+    }
+
+    assertEquals(scanned, expected);
+  }
+
+  @Test
+  public void testScanLatestClosesIteratorOnStreamClose() throws SQLException {
+    if (_schemaConfig == SchemaConfig.NEW_SCHEMA_ONLY) {
+      return;
+    }
+    EbeanServer server = mock(EbeanServer.class);
+    Transaction mockTransaction = mock(Transaction.class);
+    Connection mockConnection = mock(Connection.class);
+    DatabaseMetaData mockMetaData = mock(DatabaseMetaData.class);
+    PreparedStatement mockStatement = mock(PreparedStatement.class);
+    ResultSet mockResultSet = mock(ResultSet.class);
+    when(server.createTransaction()).thenReturn(mockTransaction);
+    when(mockTransaction.getConnection()).thenReturn(mockConnection);
+    when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+    when(mockMetaData.getDatabaseProductName()).thenReturn("MySQL");
+    when(mockMetaData.getURL()).thenReturn("jdbc:mysql://localhost:3306/gma");
+    when(mockConnection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+        .thenReturn(mockStatement);
+    when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+    when(mockResultSet.next()).thenReturn(true);
+    when(mockResultSet.getString(1)).thenReturn(makeFooUrn(1).toString());
+    when(mockResultSet.getString(2)).thenReturn(RecordUtils.toJsonString(new AspectFoo().setValue("foo")));
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(server, FooUrn.class);
+
+    try (Stream<Pair<FooUrn, AspectFoo>> stream = dao.scanLatest(AspectFoo.class, 2)) {
+      assertEquals(stream.findFirst().get(), Pair.with(makeFooUrn(1), new AspectFoo().setValue("foo")));
+      // without cursor fetch on MySQL, rows are streamed one at a time and the connection is held until the stream closes
+      verify(mockStatement).setFetchSize(Integer.MIN_VALUE);
+      verify(mockStatement, never()).close();
+      verify(mockTransaction, never()).end();
+    }
+
+    verify(mockStatement).close();
+    verify(mockTransaction).end();
+  }
+
+  @Test
+  public void testScanFetchSize() throws SQLException {
+    Connection mockConnection = mock(Connection.class);
+    DatabaseMetaData mockMetaData = mock(DatabaseMetaData.class);
+    when(mockConnection.getMetaData()).thenReturn(mockMetaData);
+
+    when(mockMetaData.getDatabaseProductName()).thenReturn("MySQL");
+    when(mockMetaData.getURL()).thenReturn("jdbc:mysql://localhost:3306/gma");
+    assertEquals(EbeanLocalDAO.getScanFetchSize(mockConnection, 100), Integer.MIN_VALUE);
+    when(mockMetaData.getURL()).thenReturn("jdbc:mysql://localhost:3306/gma?useCursorFetch=true");
+    assertEquals(EbeanLocalDAO.getScanFetchSize(mockConnection, 100), 100);
+
+    when(mockMetaData.getDatabaseProductName()).thenReturn("H2");
+    when(mockMetaData.getURL()).thenReturn("jdbc:h2:mem:testdb");
+    assertEquals(EbeanLocalDAO.getScanFetchSize(mockConnection, 100), 100);
+  }
+
+  @Test
+  public void testScanLatestInvalidFetchSize() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+
+    assertThrows(IllegalArgumentException.class, () -> dao.scanLatest(AspectFoo.class, 0));
+  }
+
+  @Test
+  public void testAddBatch() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    FooUrn urn1 = makeFooUrn(1);
+    FooUrn urn2 = makeFooUrn(2);
+    String aspectName = ModelUtils.getAspectName(AspectFoo.class);
+    AspectFoo v0 = new AspectFoo().setValue("v0");
+    AspectFoo v1 = new AspectFoo().setValue("v1");
+    AspectFoo v2 = new AspectFoo().setValue("v2");
+    AspectBar bar = new AspectBar().setValue("bar");
+    dao.add(urn1, v0, makeAuditStamp("foo", 1000L));
+    dao.add(urn2, v0, makeAuditStamp("foo", 1000L));
+
+    List<BatchAddResult<FooUrn>> results = dao.addBatch(Arrays.asList(
+        new BatchAddItem<>(urn1, v1, makeAuditStamp("foo", 2000L)),
+        new BatchAddItem<>(urn2, v0, makeAuditStamp("foo", 2000L)),
+        new BatchAddItem<>(urn1, bar, makeAuditStamp("foo", 2000L)),
+        new BatchAddItem<>(urn1, v2, makeAuditStamp("foo", 3000L)),
+        new BatchAddItem<>(urn1, new AspectInvalid().setValue("invalid"), _dummyAuditStamp)));
+
+    assertEquals(results.stream().map(BatchAddResult::isSuccess).collect(Collectors.toList()),
+        Arrays.asList(true, true, true, true, false));
+    assertEquals(results.stream().map(BatchAddResult::isUpdated).collect(Collectors.toList()),
+        Arrays.asList(true, false, true, true, false));
+    assertTrue(results.get(4).getError() instanceof InvalidMetadataType);
+
+    assertEquals(dao.get(AspectFoo.class, urn1).get(), v2);
+    assertEquals(dao.get(AspectFoo.class, urn2).get(), v0);
+    assertEquals(dao.get(AspectBar.class, urn1).get(), bar);
+    assertEquals(getMetadata(urn1, aspectName, 1).getMetadata(), RecordUtils.toJsonString(v0));
+    assertEquals(getMetadata(urn1, aspectName, 2).getMetadata(), RecordUtils.toJsonString(v1));
+    assertEquals(getMetadata(urn1, aspectName, 0).getCreatedOn(), new Timestamp(3000L));
+    assertNull(getMetadata(urn2, aspectName, 1));
+
+    InOrder inOrder = inOrder(_mockProducer);
+    inOrder.verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn1, v0, v1);
+    inOrder.verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn1, v1, v2);
+    verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn1, null, bar);
+  }
+
+  @Test
+  public void testVersionTrackingOnLatestRow() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableVersionTrackingOnLatestRow(true);
+    FooUrn urn = makeFooUrn(1);
+    String aspectName = ModelUtils.getAspectName(AspectFoo.class);
+    AspectFoo v0 = new AspectFoo().setValue("v0");
+    AspectFoo v1 = new AspectFoo().setValue("v1");
+    AspectFoo v2 = new AspectFoo().setValue("v2");
+
+    dao.add(urn, v0, makeAuditStamp("foo", 1000L));
+    dao.add(urn, v1, makeAuditStamp("foo", 2000L));
+    dao.add(urn, v2, makeAuditStamp("foo", 3000L));
+
+    assertEquals(getMetadata(urn, aspectName, 1).getMetadata(), RecordUtils.toJsonString(v0));
+    assertEquals(getMetadata(urn, aspectName, 2).getMetadata(), RecordUtils.toJsonString(v1));
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v2);
+    assertVersionCounters(urn, aspectName, 3L, 1L);
+  }
+
+  @Test
+  public void testVersionTrackingInitializesCountersOfExistingRows() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    FooUrn urn = makeFooUrn(1);
+    String aspectName = ModelUtils.getAspectName(AspectFoo.class);
+    AspectFoo v0 = new AspectFoo().setValue("v0");
+    AspectFoo v1 = new AspectFoo().setValue("v1");
+    AspectFoo v2 = new AspectFoo().setValue("v2");
+    AspectFoo v3 = new AspectFoo().setValue("v3");
+    dao.add(urn, v0, makeAuditStamp("foo", 1000L));
+    dao.add(urn, v1, makeAuditStamp("foo", 2000L));
+    assertVersionCounters(urn, aspectName, null, null);
+
+    dao.enableVersionTrackingOnLatestRow(true);
+    dao.add(urn, v2, makeAuditStamp("foo", 3000L));
+    dao.addBatch(Collections.singletonList(new BatchAddItem<>(urn, v3, makeAuditStamp("foo", 4000L))));
+
+    assertEquals(getMetadata(urn, aspectName, 2).getMetadata(), RecordUtils.toJsonString(v1));
+    assertEquals(getMetadata(urn, aspectName, 3).getMetadata(), RecordUtils.toJsonString(v2));
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v3);
+    assertVersionCounters(urn, aspectName, 4L, 1L);
+  }
+
+  @Test
+  public void testVersionTrackingRejectsStaleLatestVersion() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableVersionTrackingOnLatestRow(true);
+    FooUrn urn = makeFooUrn(1);
+    AspectFoo v0 = new AspectFoo().setValue("v0");
+    AspectFoo v1 = new AspectFoo().setValue("v1");
+    dao.add(urn, v0, makeAuditStamp("foo", 1000L));
+
+    assertThrows(OptimisticLockException.class, () -> dao.saveLatest(urn, AspectFoo.class, v0,
+        makeAuditStamp("foo", 999L), v1, makeAuditStamp("foo", 2000L), false));
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v0);
+  }
+
+  @Test
+  public void testVersionTrackingRejectsConcurrentWriteWithSameCreatedOn() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableVersionTrackingOnLatestRow(true);
+    FooUrn urn = makeFooUrn(1);
+    AspectFoo v0 = new AspectFoo().setValue("v0");
+    AspectFoo v1 = new AspectFoo().setValue("v1");
+    AspectFoo v2 = new AspectFoo().setValue("v2");
+    dao.add(urn, v0, makeAuditStamp("foo", 1000L));
+
+    // both writers read the same latest version, then the first one writes a new one with the same createdOn
+    BaseLocalDAO.AspectEntry<AspectFoo> first = dao.getLatest(urn, AspectFoo.class);
+    BaseLocalDAO.AspectEntry<AspectFoo> second = dao.getLatest(urn, AspectFoo.class);
+    dao.saveLatest(urn, AspectFoo.class, v0, first.getExtraInfo().getAudit(), v1, makeAuditStamp("foo", 1000L), false,
+        first.getLockVersion());
+
+    assertThrows(OptimisticLockException.class, () -> dao.saveLatest(urn, AspectFoo.class, v0,
+        second.getExtraInfo().getAudit(), v2, makeAuditStamp("bar", 1000L), false, second.getLockVersion()));
+
+    List<BaseLocalDAO.LatestUpdate<FooUrn, ? extends RecordTemplate>> updates = new ArrayList<>();
+    updates.add(new BaseLocalDAO.LatestUpdate<>(urn, AspectFoo.class, v0, second.getExtraInfo().getAudit(), v2,
+        makeAuditStamp("bar", 1000L), false, second.getLockVersion()));
+    try (Transaction transaction = _server.beginTransaction()) {
+      assertThrows(OptimisticLockException.class, () -> dao.saveLatestBatch(updates));
+    }
+
+    assertEquals(dao.get(AspectFoo.class, urn).get(), v1);
+    assertVersionCounters(urn, ModelUtils.getAspectName(AspectFoo.class), 2L, 0L);
+  }
+
+  @Test
+  public void testAddBatchFallsBackToSingleAddsOnConflict() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    FooUrn urn1 = makeFooUrn(1);
+    FooUrn urn2 = makeFooUrn(2);
+    String aspectName = ModelUtils.getAspectName(AspectFoo.class);
+    AspectFoo foo = new AspectFoo().setValue("foo");
+    // the latest version of urn2 is written by someone else once the batch has read it
+    dao.addPreUpdateHook(AspectFoo.class, (FooUrn urn, AspectFoo aspect) -> {
+      if (urn.equals(urn2) && getMetadata(urn2, aspectName, 0) == null) {
+        try (Transaction transaction = _server.beginTransaction(TxScope.requiresNew())) {
+          _server.save(getMetadata(urn2, aspectName, 0, new AspectFoo().setValue("concurrent")), transaction);
+          transaction.commit();
+        }
+      }
+    });
+
+    List<BatchAddResult<FooUrn>> results = dao.addBatch(Arrays.asList(
+        new BatchAddItem<>(urn1, foo, _dummyAuditStamp),
+        new BatchAddItem<>(urn2, foo, _dummyAuditStamp)));
+
+    assertTrue(results.stream().allMatch(BatchAddResult::isSuccess));
+    assertEquals(dao.get(AspectFoo.class, urn1).get(), foo);
+    assertEquals(dao.get(AspectFoo.class, urn2).get(), foo);
+    verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn1, null, foo);
+    verify(_mockProducer, times(1)).produceMetadataAuditEvent(eq(urn2), any(AspectFoo.class), eq(foo));
+  }
+
+  @Test
+  public void testAuditEventOutbox() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableAuditEventOutbox(true);
+    dao.setEmitAspectSpecificAuditEvent(true);
+    FooUrn urn = makeFooUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("foo1");
+    AspectFoo foo2 = new AspectFoo().setValue("foo2");
+
+    dao.add(urn, foo1, _dummyAuditStamp);
+    dao.add(urn, foo2, _dummyAuditStamp);
+    // no change, no event
+    dao.add(urn, foo2, _dummyAuditStamp);
+
+    // events are only produced by the relay
+    verifyNoMoreInteractions(_mockProducer);
+    assertEquals(dao.relayAuditEvents(10), 4);
+    assertEquals(dao.relayAuditEvents(10), 0);
+
+    InOrder inOrder = inOrder(_mockProducer);
+    inOrder.verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn, null, foo1);
+    inOrder.verify(_mockProducer, times(1)).produceAspectSpecificMetadataAuditEvent(urn, null, foo1);
+    inOrder.verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn, foo1, foo2);
+    inOrder.verify(_mockProducer, times(1)).produceAspectSpecificMetadataAuditEvent(urn, foo1, foo2);
+    verifyNoMoreInteractions(_mockProducer);
+  }
+
+  @Test
+  public void testAuditEventOutboxHoldsBackEventsOfUrnWithFailedEvent() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableAuditEventOutbox(true);
+    FooUrn urn1 = makeFooUrn(1);
+    FooUrn urn2 = makeFooUrn(2);
+    AspectFoo foo1 = new AspectFoo().setValue("foo1");
+    AspectFoo foo2 = new AspectFoo().setValue("foo2");
+    dao.add(urn1, foo1, _dummyAuditStamp);
+    dao.add(urn2, foo1, _dummyAuditStamp);
+    dao.add(urn1, foo2, _dummyAuditStamp);
+    doThrow(new IllegalStateException()).doNothing().when(_mockProducer).produceMetadataAuditEvent(urn1, null, foo1);
+
+    // only the event of urn2 is relayed, the second event of urn1 waits for the first one
+    assertEquals(dao.relayAuditEvents(10), 1);
+    verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn2, null, foo1);
+    verify(_mockProducer, never()).produceMetadataAuditEvent(urn1, foo1, foo2);
+
+    assertEquals(dao.relayAuditEvents(10), 2);
+    InOrder inOrder = inOrder(_mockProducer);
+    inOrder.verify(_mockProducer, times(2)).produceMetadataAuditEvent(urn1, null, foo1);
+    inOrder.verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn1, foo1, foo2);
+  }
+
+  @Test
+  public void testAuditEventOutboxParksEventsFailingMaxAttempts() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableAuditEventOutbox(true);
+    dao.setAuditEventOutboxMaxAttempts(2);
+    FooUrn urn = makeFooUrn(1);
+    AspectFoo foo1 = new AspectFoo().setValue("foo1");
+    AspectFoo foo2 = new AspectFoo().setValue("foo2");
+    dao.add(urn, foo1, _dummyAuditStamp);
+    dao.add(urn, foo2, _dummyAuditStamp);
+    doThrow(new IllegalStateException()).when(_mockProducer).produceMetadataAuditEvent(urn, null, foo1);
+
+    assertEquals(dao.relayAuditEvents(10), 0);
+
+    // the first event is parked by its second failure and no longer holds back the second one
+    assertEquals(dao.relayAuditEvents(10), 0);
+    assertEquals(dao.relayAuditEvents(10), 1);
+    verify(_mockProducer, times(2)).produceMetadataAuditEvent(urn, null, foo1);
+    verify(_mockProducer, times(1)).produceMetadataAuditEvent(urn, foo1, foo2);
+
+    // the parked event stays in the outbox
+    assertEquals(dao.relayAuditEvents(10), 0);
+    assertEquals(_server.createSqlQuery("SELECT attempts FROM metadata_audit_event_outbox").findOne().getInteger("attempts"),
+        Integer.valueOf(2));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidAuditEventOutboxMaxAttempts() {
+    createDao(FooUrn.class).setAuditEventOutboxMaxAttempts(0);
+  }
+
+  @Test
+  public void testAuditEventOutboxDropsEventsOfRolledBackUpdates() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+    dao.enableAuditEventOutbox(true);
+    dao.enableAtomicMultipleUpdate(true);
+    FooUrn urn = makeFooUrn(1);
+    BaseLocalDAO.AspectUpdateLambda<AspectFoo> goodUpdate = new BaseLocalDAO.AspectUpdateLambda<>(new AspectFoo().setValue("foo"));
+    BaseLocalDAO.AspectUpdateLambda<AspectBar> badUpdate = new BaseLocalDAO.AspectUpdateLambda<>(AspectBar.class, (ignore) -> {
+      throw new IllegalStateException();
+    });
+
+    assertThrows(IllegalStateException.class, () -> dao.addMany(urn, Arrays.asList(goodUpdate, badUpdate), _dummyAuditStamp, 0));
+
+    assertEquals(dao.relayAuditEvents(10), 0);
+    verifyNoMoreInteractions(_mockProducer);
+  }
+
+  @Test
+  public void testLatestAspectCacheDisabledByDefault() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+
+    assertNull(dao.getLatestAspectCacheStats());
+  }
+
+  @Test
+  public void testInvalidBatchGetParallelism() {
+    EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
+
+    assertThrows(IllegalArgumentException.class, () -> dao.setBatchGetExecutor(null, 0));
+  }
+
   @Test(expectedExceptions = OptimisticLockException.class)
   public void testOptimisticLockException() {
     EbeanLocalDAO<EntityAspectUnion, FooUrn> dao = createDao(FooUrn.class);
@@ -3042,6 +3627,17 @@ public class EbeanLocalDAOTest {
         new EbeanMetadataAspect.PrimaryKey(urn.toString(), aspectName, version));
   }
 
+  private void assertVersionCounters(Urn urn, String aspectName, @Nullable Long nextVersion,
+      @Nullable Long lockVersion) {
+    SqlRow row = _server.createSqlQuery(
+        "SELECT nextVersion, lockVersion FROM metadata_aspect WHERE urn = ? AND aspect = ? AND version = 0")
+        .setParameter(1, urn.toString())
+        .setParameter(2, aspectName)
+        .findOne();
+    assertEquals(row.getLong("nextVersion"), nextVersion);
+    assertEquals(row.getLong("lockVersion"), lockVersion);
+  }
+
   private void assertVersionMetadata(ListResultMetadata listResultMetadata, List<Long> versions, List<Urn> urns,
       Long time, Urn actor, Urn impersonator) {
     List<ExtraInfo> extraInfos = listResultMetadata.getExtraInfos();
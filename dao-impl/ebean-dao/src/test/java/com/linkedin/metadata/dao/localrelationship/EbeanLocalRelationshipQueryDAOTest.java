@@ -1,5 +1,6 @@
 package com.linkedin.metadata.dao.localrelationship;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Resources;
 import com.linkedin.common.AuditStamp;
@@ -8,6 +9,7 @@ import com.linkedin.metadata.dao.EbeanLocalAccess;
 import com.linkedin.metadata.dao.EbeanLocalRelationshipQueryDAO;
 import com.linkedin.metadata.dao.EbeanLocalRelationshipWriterDAO;
 import com.linkedin.metadata.dao.IEbeanLocalAccess;
+import com.linkedin.metadata.dao.utils.MultiHopsTraversalSqlGenerator;
 import com.linkedin.metadata.dao.utils.MysqlDevInstance;
 import com.linkedin.metadata.query.Condition;
 import com.linkedin.metadata.query.Criterion;
@@ -28,12 +30,16 @@ import com.linkedin.testing.urn.BarUrn;
 import com.linkedin.testing.urn.FooUrn;
 import io.ebean.Ebean;
 import io.ebean.EbeanServer;
+import io.ebean.SqlQuery;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import org.javatuples.Triplet;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -268,4 +274,127 @@ public class EbeanLocalRelationshipQueryDAOTest {
     Set<FooUrn> expected = ImmutableSet.of(bob, john);
     assertEquals(actual, expected);
   }
+
+  @Test
+  public void testFindEntitiesMultiHopsIncomingDirection() throws Exception {
+    FooUrn alice = new FooUrn(1);
+    FooUrn bob = new FooUrn(2);
+    FooUrn jack = new FooUrn(3);
+    FooUrn john = new FooUrn(4);
+
+    // Add Alice, Bob, Jack and John into entity tables.
+    _fooUrnEBeanLocalAccess.add(alice, new AspectFoo().setValue("Alice"), AspectFoo.class, new AuditStamp());
+    _fooUrnEBeanLocalAccess.add(bob, new AspectFoo().setValue("Bob"), AspectFoo.class, new AuditStamp());
+    _fooUrnEBeanLocalAccess.add(jack, new AspectFoo().setValue("Jack"), AspectFoo.class, new AuditStamp());
+    _fooUrnEBeanLocalAccess.add(john, new AspectFoo().setValue("John"), AspectFoo.class, new AuditStamp());
+
+    // Jack reports to Bob, who reports to Alice, who reports to Jack. John reports to Jack.
+    _localRelationshipWriterDAO.addRelationship(new ReportsTo().setSource(bob).setDestination(alice));
+    _localRelationshipWriterDAO.addRelationship(new ReportsTo().setSource(jack).setDestination(bob));
+    _localRelationshipWriterDAO.addRelationship(new ReportsTo().setSource(alice).setDestination(jack));
+    _localRelationshipWriterDAO.addRelationship(new ReportsTo().setSource(john).setDestination(jack));
+
+    Criterion filterCriterion = new Criterion().setField("i_aspectfoo$value").setValue("Alice").setCondition(Condition.EQUAL);
+    Filter filter = new Filter().setCriteria(new CriterionArray(filterCriterion));
+    RelationshipFilter incoming = new RelationshipFilter().setDirection(RelationshipDirection.INCOMING).setCriteria(new CriterionArray());
+
+    // Find Alice's direct and indirect reports up to two levels.
+    List<RecordTemplate> aliceReports = _localRelationshipQueryDAO.findEntities(FooSnapshot.class, new Filter().setCriteria(new CriterionArray()),
+        FooSnapshot.class, filter, ReportsTo.class, incoming, 1, 2, 0, 10);
+    assertEquals(toFooUrns(aliceReports), ImmutableSet.of(bob, jack));
+
+    // Find the reports three levels below Alice, the cycle back to Alice is not followed.
+    List<RecordTemplate> thirdLevelReports = _localRelationshipQueryDAO.findEntities(FooSnapshot.class, new Filter().setCriteria(new CriterionArray()),
+        FooSnapshot.class, filter, ReportsTo.class, incoming, 3, 5, 0, 10);
+    assertEquals(toFooUrns(thirdLevelReports), ImmutableSet.of(john));
+  }
+
+  @Test
+  public void testMultiHopsTraversalOfDiamondsKeepsRowPerEntityAndHop() throws Exception {
+    // 3 stacked diamonds: 1 -> 2, 3 -> 4 -> 5, 6 -> 7 -> 8, 9 -> 10, i.e. 8 paths from 1 to 10
+    List<FooUrn> foos = new ArrayList<>();
+    for (int i = 1; i <= 10; i++) {
+      foos.add(new FooUrn(i));
+      _fooUrnEBeanLocalAccess.add(foos.get(i - 1), new AspectFoo().setValue("Foo" + i), AspectFoo.class, new AuditStamp());
+    }
+    for (int top = 0; top < 9; top += 3) {
+      for (int side = top + 1; side <= top + 2; side++) {
+        _localRelationshipWriterDAO.addRelationship(new ReportsTo().setSource(foos.get(top)).setDestination(foos.get(side)));
+        _localRelationshipWriterDAO.addRelationship(new ReportsTo().setSource(foos.get(side)).setDestination(foos.get(top + 3)));
+      }
+    }
+
+    Filter startFilter = new Filter().setCriteria(new CriterionArray(
+        new Criterion().setField("i_aspectfoo$value").setValue("Foo1").setCondition(Condition.EQUAL)));
+    RelationshipFilter outgoing = new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING).setCriteria(new CriterionArray());
+
+    // The traversal has a row per entity and hop, 1 per entity here, rather than a row per path
+    List<Object> params = new ArrayList<>();
+    String sql = new MultiHopsTraversalSqlGenerator(ImmutableMap.of(Condition.EQUAL, "=")).multiHopTraversalSql(1, 6, 10, 0,
+        "metadata_relationship_reportsto", "metadata_entity_foo", "metadata_entity_foo", outgoing, startFilter,
+        new Filter().setCriteria(new CriterionArray()), params);
+    SqlQuery countQuery = _server.createSqlQuery(
+        sql.substring(0, sql.indexOf(") SELECT * FROM ")) + ") SELECT COUNT(*) AS count FROM traversal");
+    // the start filter and the max hop are bound before the final select
+    for (int i = 0; i < 2; i++) {
+      countQuery.setParameter(i + 1, params.get(i));
+    }
+    assertEquals(countQuery.findOne().getInteger("count"), Integer.valueOf(10));
+
+    List<RecordTemplate> reports = _localRelationshipQueryDAO.findEntities(FooSnapshot.class, new Filter().setCriteria(new CriterionArray()),
+        FooSnapshot.class, startFilter, ReportsTo.class, outgoing, 1, 6, 0, 20);
+    assertEquals(toFooUrns(reports), new HashSet<>(foos.subList(1, 10)));
+  }
+
+  @Test
+  public void testFindEntitiesByTraversePaths() throws Exception {
+    FooUrn alice = new FooUrn(1);
+    FooUrn bob = new FooUrn(2);
+    FooUrn jack = new FooUrn(3);
+    FooUrn john = new FooUrn(4);
+    BarUrn stanford = new BarUrn(1);
+    BarUrn mit = new BarUrn(2);
+
+    // Add Alice, Bob, Jack and John into entity tables.
+    _fooUrnEBeanLocalAccess.add(alice, new AspectFoo().setValue("Alice"), AspectFoo.class, new AuditStamp());
+    _fooUrnEBeanLocalAccess.add(bob, new AspectFoo().setValue("Bob"), AspectFoo.class, new AuditStamp());
+    _fooUrnEBeanLocalAccess.add(jack, new AspectFoo().setValue("Jack"), AspectFoo.class, new AuditStamp());
+    _fooUrnEBeanLocalAccess.add(john, new AspectFoo().setValue("John"), AspectFoo.class, new AuditStamp());
+
+    // Add Stanford and MIT into entity tables.
+    _barUrnEBeanLocalAccess.add(stanford, new AspectFoo().setValue("Stanford"), AspectFoo.class, new AuditStamp());
+    _barUrnEBeanLocalAccess.add(mit, new AspectFoo().setValue("MIT"), AspectFoo.class, new AuditStamp());
+
+    // Alice belongs to Stanford and MIT, Bob to Stanford and John to MIT. Jack doesn't belong to any school.
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(alice).setDestination(stanford));
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(alice).setDestination(mit));
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(bob).setDestination(stanford));
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(john).setDestination(mit));
+
+    Criterion aliceFilterCriterion = new Criterion().setField("i_aspectfoo$value").setValue("Alice").setCondition(Condition.EQUAL);
+    Filter aliceFilter = new Filter().setCriteria(new CriterionArray(aliceFilterCriterion));
+
+    // Find the persons who attend a school Alice attends: person -> school <- person
+    List paths = new ArrayList();
+    paths.add(
+        Triplet.with(BelongsTo.class, new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING).setCriteria(new CriterionArray()),
+            BarSnapshot.class));
+    paths.add(
+        Triplet.with(BelongsTo.class, new RelationshipFilter().setDirection(RelationshipDirection.INCOMING).setCriteria(new CriterionArray()),
+            FooSnapshot.class));
+    List<RecordTemplate> schoolmates = _localRelationshipQueryDAO.findEntities(FooSnapshot.class, aliceFilter, paths, 0, 10);
+
+    // Alice herself was visited by the first frontier and isn't found again
+    assertEquals(toFooUrns(schoolmates), ImmutableSet.of(bob, john));
+
+    // Paginated, in URN order
+    List<RecordTemplate> secondSchoolmate = _localRelationshipQueryDAO.findEntities(FooSnapshot.class, aliceFilter, paths, 1, 1);
+    assertEquals(toFooUrns(secondSchoolmate), ImmutableSet.of(john));
+  }
+
+  private static Set<FooUrn> toFooUrns(List<RecordTemplate> results) {
+    return results.stream()
+        .map(result -> makeFooUrn(result.data().get("urn").toString()))
+        .collect(Collectors.toSet());
+  }
 }
@@ -161,6 +161,109 @@ public class EbeanLocalRelationshipWriterDAOTest {
     _server.execute(Ebean.createSqlUpdate("truncate metadata_relationship_versionof"));
   }
 
+  @Test
+  public void testAddRelationshipsInBatches() throws URISyntaxException {
+    EbeanLocalRelationshipWriterDAO writerDAO = new EbeanLocalRelationshipWriterDAO(_server);
+    writerDAO.setInsertBatchSize(2);
+
+    AspectFooBar aspectFooBar = new AspectFooBar().setBars(new BarUrnArray(
+        BarUrn.createFromString("urn:li:bar:123"),
+        BarUrn.createFromString("urn:li:bar:456"),
+        BarUrn.createFromString("urn:li:bar:789")));
+
+    List<BaseLocalRelationshipBuilder<AspectFooBar>.LocalRelationshipUpdates> updates = new ReportsToLocalRelationshipBuilder(AspectFooBar.class)
+        .buildRelationships(FooUrn.createFromString("urn:li:foo:123"), aspectFooBar);
+
+    // 3 relationships are inserted by a full batch of 2 and a partial batch of 1
+    writerDAO.processLocalRelationshipUpdates(updates);
+
+    List<SqlRow> after = _server.createSqlQuery("select * from metadata_relationship_reportsto where destination='urn:li:foo:123' "
+        + "order by source").findList();
+    assertEquals(after.size(), 3);
+    assertEquals(after.get(0).getString("source"), "urn:li:bar:123");
+    assertEquals(after.get(2).getString("source"), "urn:li:bar:789");
+    for (SqlRow row : after) {
+      assertEquals(row.getString("source_type"), "bar");
+      assertEquals(row.getString("destination_type"), "foo");
+      assertEquals(row.getString("lastmodifiedby"), "urn:li:principal:UNKNOWN");
+    }
+
+    // Clean up
+    _server.execute(Ebean.createSqlUpdate("truncate metadata_relationship_reportsto"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSetInvalidInsertBatchSize() {
+    new EbeanLocalRelationshipWriterDAO(_server).setInsertBatchSize(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSetInvalidDeleteBatchSize() {
+    new EbeanLocalRelationshipWriterDAO(_server).setDeleteBatchSize(0);
+  }
+
+  @Test
+  public void testAddRelationshipWithEdgeDiff() throws URISyntaxException {
+    EbeanLocalRelationshipWriterDAO writerDAO = new EbeanLocalRelationshipWriterDAO(_server);
+    writerDAO.setEdgeDiffEnabled(true);
+
+    AspectFooBar aspectFooBar = new AspectFooBar().setBars(new BarUrnArray(
+        BarUrn.createFromString("urn:li:bar:123"),
+        BarUrn.createFromString("urn:li:bar:456")));
+    writerDAO.processLocalRelationshipUpdates(new BelongsToLocalRelationshipBuilder(AspectFooBar.class)
+        .buildRelationships(FooUrn.createFromString("urn:li:foo:123"), aspectFooBar));
+
+    List<SqlRow> before = _server.createSqlQuery("select * from metadata_relationship_belongsto where destination='urn:li:foo:123' "
+        + "order by source").findList();
+    assertEquals(before.size(), 2);
+
+    // urn:li:bar:456 is removed and urn:li:bar:789 is added, urn:li:bar:123 is unchanged
+    aspectFooBar = new AspectFooBar().setBars(new BarUrnArray(
+        BarUrn.createFromString("urn:li:bar:123"),
+        BarUrn.createFromString("urn:li:bar:789")));
+    writerDAO.processLocalRelationshipUpdates(new BelongsToLocalRelationshipBuilder(AspectFooBar.class)
+        .buildRelationships(FooUrn.createFromString("urn:li:foo:123"), aspectFooBar));
+
+    List<SqlRow> after = _server.createSqlQuery("select * from metadata_relationship_belongsto where destination='urn:li:foo:123' "
+        + "order by source").findList();
+    assertEquals(after.size(), 2);
+    assertEquals(after.get(0).getString("source"), "urn:li:bar:123");
+    assertEquals(after.get(1).getString("source"), "urn:li:bar:789");
+
+    // the unchanged edge is neither deleted nor inserted again
+    assertEquals(after.get(0).getLong("id"), before.get(0).getLong("id"));
+
+    // Clean up
+    _server.execute(Ebean.createSqlUpdate("truncate metadata_relationship_belongsto"));
+  }
+
+  @Test
+  public void testEdgeDiffDeletesInBatches() throws URISyntaxException {
+    EbeanLocalRelationshipWriterDAO writerDAO = new EbeanLocalRelationshipWriterDAO(_server);
+    writerDAO.setEdgeDiffEnabled(true);
+    writerDAO.setDeleteBatchSize(1);
+
+    AspectFooBar aspectFooBar = new AspectFooBar().setBars(new BarUrnArray(
+        BarUrn.createFromString("urn:li:bar:123"),
+        BarUrn.createFromString("urn:li:bar:456"),
+        BarUrn.createFromString("urn:li:bar:789")));
+    writerDAO.processLocalRelationshipUpdates(new BelongsToLocalRelationshipBuilder(AspectFooBar.class)
+        .buildRelationships(FooUrn.createFromString("urn:li:foo:123"), aspectFooBar));
+
+    // 2 edges are deleted by a statement each
+    aspectFooBar = new AspectFooBar().setBars(new BarUrnArray(BarUrn.createFromString("urn:li:bar:123")));
+    writerDAO.processLocalRelationshipUpdates(new BelongsToLocalRelationshipBuilder(AspectFooBar.class)
+        .buildRelationships(FooUrn.createFromString("urn:li:foo:123"), aspectFooBar));
+
+    List<SqlRow> after = _server.createSqlQuery("select * from metadata_relationship_belongsto where destination='urn:li:foo:123'")
+        .findList();
+    assertEquals(after.size(), 1);
+    assertEquals(after.get(0).getString("source"), "urn:li:bar:123");
+
+    // Clean up
+    _server.execute(Ebean.createSqlUpdate("truncate metadata_relationship_belongsto"));
+  }
+
   private String insertRelationships(String table, String sourceUrn, String sourceType, String destinationUrn, String destinationType) {
     String insertTemplate = "INSERT INTO %s (metadata, source, source_type, destination, destination_type, lastmodifiedon, lastmodifiedby)"
         + " VALUES ('metadata', '%s', '%s', '%s', '%s', '1970-01-01 00:00:01', 'unknown')";
@@ -0,0 +1,237 @@
+package com.linkedin.metadata.dao.localrelationship;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+import com.linkedin.common.AuditStamp;
+import com.linkedin.data.template.RecordTemplate;
+import com.linkedin.metadata.dao.EbeanLocalAccess;
+import com.linkedin.metadata.dao.EbeanLocalRelationshipQueryDAO;
+import com.linkedin.metadata.dao.EbeanLocalRelationshipWriterDAO;
+import com.linkedin.metadata.dao.IEbeanLocalAccess;
+import com.linkedin.metadata.dao.LocalRelationshipGraphIndex;
+import com.linkedin.metadata.dao.internal.BaseGraphWriterDAO;
+import com.linkedin.metadata.dao.utils.MysqlDevInstance;
+import com.linkedin.metadata.query.Condition;
+import com.linkedin.metadata.query.Criterion;
+import com.linkedin.metadata.query.CriterionArray;
+import com.linkedin.metadata.query.Filter;
+import com.linkedin.metadata.query.RelationshipDirection;
+import com.linkedin.metadata.query.RelationshipFilter;
+import com.linkedin.testing.AspectFoo;
+import com.linkedin.testing.BarSnapshot;
+import com.linkedin.testing.FooSnapshot;
+import com.linkedin.testing.localrelationship.BelongsTo;
+import com.linkedin.testing.urn.BarUrn;
+import com.linkedin.testing.urn.FooUrn;
+import io.ebean.Ebean;
+import io.ebean.EbeanServer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.javatuples.Triplet;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+
+public class LocalRelationshipGraphIndexTest {
+  private static final String BELONGS_TO_TABLE = "metadata_relationship_belongsto";
+
+  private final FooUrn _alice = new FooUrn(1);
+  private final FooUrn _bob = new FooUrn(2);
+  private final FooUrn _john = new FooUrn(4);
+  private final BarUrn _stanford = new BarUrn(1);
+  private final BarUrn _mit = new BarUrn(2);
+
+  private EbeanServer _server;
+  private EbeanLocalRelationshipWriterDAO _localRelationshipWriterDAO;
+  private ScheduledExecutorService _mockExecutor;
+  private LocalRelationshipGraphIndex _graphIndex;
+
+  @BeforeClass
+  public void init() {
+    _server = MysqlDevInstance.getServer();
+  }
+
+  @BeforeMethod
+  public void setup() throws Exception {
+    _server.execute(Ebean.createSqlUpdate(
+        Resources.toString(Resources.getResource("ebean-local-relationship-dao-create-all.sql"), StandardCharsets.UTF_8)));
+    _mockExecutor = mock(ScheduledExecutorService.class);
+    _graphIndex = new LocalRelationshipGraphIndex(_server, Collections.singletonList(BelongsTo.class), _mockExecutor,
+        60000, 120000);
+    _localRelationshipWriterDAO = new EbeanLocalRelationshipWriterDAO(_server);
+
+    // Alice belongs to Stanford and MIT, Bob to Stanford and John to MIT
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(_alice).setDestination(_stanford));
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(_alice).setDestination(_mit));
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(_bob).setDestination(_stanford));
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(_john).setDestination(_mit));
+  }
+
+  @Test
+  public void testStartSchedulesRebuilds() {
+    ScheduledFuture<?> future = mock(ScheduledFuture.class);
+    doReturn(future).when(_mockExecutor).scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+
+    _graphIndex.start();
+    _graphIndex.start();
+    _graphIndex.close();
+
+    verify(_mockExecutor, times(1)).scheduleWithFixedDelay(any(), eq(0L), eq(60000L), eq(TimeUnit.MILLISECONDS));
+    verify(future, times(1)).cancel(false);
+  }
+
+  @Test
+  public void testInvalidRebuildInterval() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new LocalRelationshipGraphIndex(_server, Collections.singletonList(BelongsTo.class), _mockExecutor, 0, 1000));
+    assertThrows(IllegalArgumentException.class,
+        () -> new LocalRelationshipGraphIndex(_server, Collections.singletonList(BelongsTo.class), _mockExecutor, 1000, 1000));
+  }
+
+  @Test
+  public void testTraverse() {
+    // Not served until built
+    assertFalse(_graphIndex.isFresh());
+    assertFalse(_graphIndex.traverse(ImmutableList.of(_alice.toString()), schoolmateHops()).isPresent());
+
+    _graphIndex.rebuild();
+
+    assertTrue(_graphIndex.isFresh());
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_alice.toString()), schoolmateHops()),
+        Optional.of(ImmutableList.of(_bob.toString(), _john.toString())));
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_alice.toString()),
+        ImmutableList.of(new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.UNDIRECTED, "bar"))),
+        Optional.of(ImmutableList.of(_stanford.toString(), _mit.toString())));
+
+    // Hops reach the entities of their entity type only
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_alice.toString()),
+        ImmutableList.of(new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.OUTGOING, "foo"))),
+        Optional.of(Collections.emptyList()));
+
+    // Tables which aren't indexed are traversed with queries
+    assertFalse(_graphIndex.traverse(ImmutableList.of(_alice.toString()),
+        ImmutableList.of(new LocalRelationshipGraphIndex.Hop("metadata_relationship_pairswith", RelationshipDirection.OUTGOING,
+            "bar"))).isPresent());
+  }
+
+  @Test
+  public void testWritesAreAppliedToIndex() throws Exception {
+    _graphIndex.rebuild();
+    _localRelationshipWriterDAO.setGraphIndex(_graphIndex);
+
+    // John moves from MIT to Stanford
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(_john).setDestination(_stanford),
+        BaseGraphWriterDAO.RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE);
+
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_mit.toString()),
+        ImmutableList.of(new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.INCOMING, "foo"))),
+        Optional.of(ImmutableList.of(_alice.toString())));
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_stanford.toString()),
+        ImmutableList.of(new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.INCOMING, "foo"))),
+        Optional.of(ImmutableList.of(_alice.toString(), _bob.toString(), _john.toString())));
+
+    // Stanford only keeps Bob
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(_bob).setDestination(_stanford),
+        BaseGraphWriterDAO.RemovalOption.REMOVE_ALL_EDGES_TO_DESTINATION);
+
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_bob.toString()), schoolmateHops()),
+        Optional.of(Collections.emptyList()));
+
+    // The rebuilt index matches the tables
+    _graphIndex.rebuild();
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_alice.toString()), schoolmateHops()),
+        Optional.of(Collections.emptyList()));
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_stanford.toString()),
+        ImmutableList.of(new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.INCOMING, "foo"))),
+        Optional.of(ImmutableList.of(_bob.toString())));
+  }
+
+  @Test
+  public void testFindEntitiesWithGraphIndex() {
+    IEbeanLocalAccess<FooUrn> fooUrnEBeanLocalAccess =
+        new EbeanLocalAccess<>(_server, MysqlDevInstance.SERVER_CONFIG, FooUrn.class);
+    fooUrnEBeanLocalAccess.add(_alice, new AspectFoo().setValue("Alice"), AspectFoo.class, new AuditStamp());
+    fooUrnEBeanLocalAccess.add(_bob, new AspectFoo().setValue("Bob"), AspectFoo.class, new AuditStamp());
+    fooUrnEBeanLocalAccess.add(_john, new AspectFoo().setValue("John"), AspectFoo.class, new AuditStamp());
+
+    EbeanLocalRelationshipQueryDAO localRelationshipQueryDAO = new EbeanLocalRelationshipQueryDAO(_server);
+    localRelationshipQueryDAO.setGraphIndex(_graphIndex);
+    _graphIndex.rebuild();
+
+    // Bob belongs to MIT too, without the index knowing it until rebuilt
+    _server.execute(Ebean.createSqlUpdate(String.format(
+        "INSERT INTO %s (metadata, source, source_type, destination, destination_type, lastmodifiedon, lastmodifiedby)"
+            + " VALUES ('metadata', '%s', 'foo', '%s', 'bar', '1970-01-01 00:00:01', 'unknown')", BELONGS_TO_TABLE, _bob, _mit)));
+
+    Filter bobFilter = new Filter().setCriteria(new CriterionArray(
+        new Criterion().setField("i_aspectfoo$value").setValue("Bob").setCondition(Condition.EQUAL)));
+    List paths = new ArrayList();
+    paths.add(
+        Triplet.with(BelongsTo.class, new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING).setCriteria(new CriterionArray()),
+            BarSnapshot.class));
+    paths.add(
+        Triplet.with(BelongsTo.class, new RelationshipFilter().setDirection(RelationshipDirection.INCOMING).setCriteria(new CriterionArray()),
+            FooSnapshot.class));
+
+    List<RecordTemplate> schoolmates = localRelationshipQueryDAO.findEntities(FooSnapshot.class, bobFilter, paths, 0, 10);
+    assertEquals(schoolmates.size(), 1);
+    assertEquals(schoolmates.get(0).data().get("urn"), _alice.toString());
+
+    _graphIndex.rebuild();
+
+    schoolmates = localRelationshipQueryDAO.findEntities(FooSnapshot.class, bobFilter, paths, 0, 10);
+    assertEquals(schoolmates.size(), 2);
+    assertEquals(schoolmates.get(1).data().get("urn"), _john.toString());
+  }
+
+  @Test
+  public void testFindEntitiesWithGraphIndexSkipsEntitiesWithoutRow() {
+    IEbeanLocalAccess<FooUrn> fooUrnEBeanLocalAccess =
+        new EbeanLocalAccess<>(_server, MysqlDevInstance.SERVER_CONFIG, FooUrn.class);
+    fooUrnEBeanLocalAccess.add(_alice, new AspectFoo().setValue("Alice"), AspectFoo.class, new AuditStamp());
+    fooUrnEBeanLocalAccess.add(_bob, new AspectFoo().setValue("Bob"), AspectFoo.class, new AuditStamp());
+
+    // Ghost belongs to Stanford, without a row in the entity table, and is found first by the index
+    FooUrn ghost = new FooUrn(0);
+    _localRelationshipWriterDAO.addRelationship(new BelongsTo().setSource(ghost).setDestination(_stanford));
+
+    EbeanLocalRelationshipQueryDAO localRelationshipQueryDAO = new EbeanLocalRelationshipQueryDAO(_server);
+    localRelationshipQueryDAO.setGraphIndex(_graphIndex);
+    localRelationshipQueryDAO.setFrontierBatchSize(1);
+    _graphIndex.rebuild();
+    assertEquals(_graphIndex.traverse(ImmutableList.of(_bob.toString()), schoolmateHops()),
+        Optional.of(ImmutableList.of(ghost.toString(), _alice.toString())));
+
+    Filter bobFilter = new Filter().setCriteria(new CriterionArray(
+        new Criterion().setField("i_aspectfoo$value").setValue("Bob").setCondition(Condition.EQUAL)));
+    List paths = new ArrayList();
+    paths.add(
+        Triplet.with(BelongsTo.class, new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING).setCriteria(new CriterionArray()),
+            BarSnapshot.class));
+    paths.add(
+        Triplet.with(BelongsTo.class, new RelationshipFilter().setDirection(RelationshipDirection.INCOMING).setCriteria(new CriterionArray()),
+            FooSnapshot.class));
+
+    // The page is made of the entities with a row only
+    List<RecordTemplate> schoolmates = localRelationshipQueryDAO.findEntities(FooSnapshot.class, bobFilter, paths, 0, 1);
+    assertEquals(schoolmates.size(), 1);
+    assertEquals(schoolmates.get(0).data().get("urn"), _alice.toString());
+    assertTrue(localRelationshipQueryDAO.findEntities(FooSnapshot.class, bobFilter, paths, 1, 1).isEmpty());
+  }
+
+  private static List<LocalRelationshipGraphIndex.Hop> schoolmateHops() {
+    return ImmutableList.of(
+        new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.OUTGOING, "bar"),
+        new LocalRelationshipGraphIndex.Hop(BELONGS_TO_TABLE, RelationshipDirection.INCOMING, "foo"));
+  }
+}
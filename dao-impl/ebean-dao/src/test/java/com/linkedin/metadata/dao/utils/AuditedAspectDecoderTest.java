@@ -0,0 +1,116 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.linkedin.data.DataMap;
+import com.linkedin.data.template.StringArray;
+import com.linkedin.metadata.aspect.AuditedAspect;
+import com.linkedin.metadata.dao.EbeanLocalAccess;
+import com.linkedin.metadata.dao.exception.ModelConversionException;
+import com.linkedin.metadata.dao.utils.AuditedAspectDecoder.DecodedAuditedAspect;
+import com.linkedin.testing.AspectBar;
+import com.linkedin.testing.AspectBarArray;
+import com.linkedin.testing.AspectBaz;
+import com.linkedin.testing.AspectFoo;
+import com.linkedin.testing.PizzaSize;
+import java.util.Arrays;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class AuditedAspectDecoderTest {
+
+  private static AspectBaz makeAspectBaz() {
+    AspectBaz.UnionField unionField = new AspectBaz.UnionField();
+    unionField.setAspectBar(new AspectBar().setValue("union"));
+    return new AspectBaz()
+        .setStringField("string with \"quotes\" and {braces}")
+        .setBoolField(true)
+        .setLongField(1234567890123L)
+        .setIntField(42)
+        .setDoubleField(1.5)
+        .setFloatField(2.5f)
+        .setEnumField(PizzaSize.LARGE)
+        .setArrayField(new StringArray(Arrays.asList("a", "b")))
+        .setArrayRecordsField(new AspectBarArray(Arrays.asList(new AspectBar().setValue("bar"))))
+        .setRecordField(new AspectFoo().setValue("foo"))
+        .setUnionField(unionField);
+  }
+
+  private static String makeAuditedAspect(AspectBaz aspect, String createdFor) {
+    AuditedAspect auditedAspect = new AuditedAspect()
+        .setAspect(RecordUtils.toJsonString(aspect))
+        .setCanonicalName(AspectBaz.class.getCanonicalName())
+        .setLastmodifiedby("urn:li:corpuser:tester")
+        .setLastmodifiedon("2021-01-01T00:00:00");
+    if (createdFor != null) {
+      auditedAspect.setCreatedfor(createdFor);
+    }
+    return EbeanLocalAccess.toJsonString(auditedAspect);
+  }
+
+  @Test
+  public void testDecode() {
+    AspectBaz aspect = makeAspectBaz();
+    String auditedAspect = makeAuditedAspect(aspect, "urn:li:corpuser:impersonator");
+
+    DecodedAuditedAspect<DataMap> decoded = AuditedAspectDecoder.decode(auditedAspect);
+
+    assertEquals(decoded.getCanonicalName(), AspectBaz.class.getCanonicalName());
+    assertEquals(decoded.getLastmodifiedby(), "urn:li:corpuser:tester");
+    assertEquals(decoded.getLastmodifiedon(), "2021-01-01T00:00:00");
+    assertEquals(decoded.getCreatedfor(), "urn:li:corpuser:impersonator");
+    // the decoded DataMap must be identical to what the pegasus codec produces for the same JSON
+    assertEquals(decoded.getAspect(), RecordUtils.toRecordTemplate(AspectBaz.class, RecordUtils.toJsonString(aspect)).data());
+
+    AspectBaz decodedAspect = RecordUtils.toRecordTemplate(AspectBaz.class, decoded.getAspect());
+    assertEquals(decodedAspect.getStringField(), aspect.getStringField());
+    assertEquals(decodedAspect.getLongField(), aspect.getLongField());
+    assertEquals(decodedAspect.getFloatField(), aspect.getFloatField());
+    assertEquals(decodedAspect.getEnumField(), PizzaSize.LARGE);
+    assertEquals(decodedAspect.getArrayRecordsField(), aspect.getArrayRecordsField());
+    assertEquals(decodedAspect.getUnionField(), aspect.getUnionField());
+  }
+
+  @Test
+  public void testDecodeRaw() {
+    AspectBaz aspect = makeAspectBaz();
+    String auditedAspect = makeAuditedAspect(aspect, null);
+
+    DecodedAuditedAspect<String> decoded = AuditedAspectDecoder.decodeRaw(auditedAspect);
+
+    assertEquals(decoded.getCanonicalName(), AspectBaz.class.getCanonicalName());
+    assertNull(decoded.getCreatedfor());
+    assertEquals(decoded.getAspect(), RecordUtils.toJsonString(aspect));
+  }
+
+  @Test
+  public void testDecodeStringAspect() {
+    // an envelope serialized as declared by the AuditedAspect schema, with the aspect as an escaped string
+    AspectFoo aspect = new AspectFoo().setValue("foo");
+    AuditedAspect auditedAspect = new AuditedAspect()
+        .setAspect(RecordUtils.toJsonString(aspect))
+        .setCanonicalName(AspectFoo.class.getCanonicalName())
+        .setLastmodifiedby("urn:li:corpuser:tester")
+        .setLastmodifiedon("2021-01-01T00:00:00");
+    String json = RecordUtils.toJsonString(auditedAspect);
+
+    assertEquals(AuditedAspectDecoder.decode(json).getAspect(), aspect.data());
+    assertEquals(AuditedAspectDecoder.decodeRaw(json).getAspect(), RecordUtils.toJsonString(aspect));
+  }
+
+  @Test
+  public void testDecodeSoftDeleted() {
+    assertNull(AuditedAspectDecoder.decode(EBeanDAOUtils.DELETED_VALUE).getAspect());
+    assertNull(AuditedAspectDecoder.decodeRaw(EBeanDAOUtils.DELETED_VALUE).getAspect());
+  }
+
+  @Test(expectedExceptions = ModelConversionException.class)
+  public void testDecodeMalformed() {
+    AuditedAspectDecoder.decode("{\"aspect\": {\"value\": ");
+  }
+
+  @Test(expectedExceptions = ModelConversionException.class)
+  public void testDecodeNotAnObject() {
+    AuditedAspectDecoder.decodeRaw("[]");
+  }
+}
@@ -0,0 +1,48 @@
+package com.linkedin.metadata.dao.utils;
+
+import java.math.BigDecimal;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class KeysetCursorTest {
+
+  @Test
+  public void testRoundTrip() {
+    KeysetCursor cursor = KeysetCursor.of("i_aspectfoo$value", "some value", "urn:li:foo:1");
+    assertEquals(KeysetCursor.decode(cursor.encode(), "i_aspectfoo$value"), cursor);
+
+    cursor = KeysetCursor.of(null, null, "urn:li:foo:1");
+    assertEquals(KeysetCursor.decode(cursor.encode(), null), cursor);
+  }
+
+  @Test
+  public void testNormalizesNumericTypes() {
+    // small longs come back from JSON as ints, and JDBC drivers may return any numeric type
+    KeysetCursor cursor = KeysetCursor.of("i_aspectbaz$longfield", 5, "urn:li:foo:1");
+    assertEquals(cursor.getSortValue(), 5L);
+    assertEquals(KeysetCursor.decode(cursor.encode(), "i_aspectbaz$longfield").getSortValue(), 5L);
+
+    assertEquals(KeysetCursor.of("c", new BigDecimal("12"), "urn:li:foo:1").getSortValue(), 12L);
+    assertEquals(KeysetCursor.of("c", new BigDecimal("1.5"), "urn:li:foo:1").getSortValue(), 1.5);
+    assertEquals(KeysetCursor.of("c", 2.5f, "urn:li:foo:1").getSortValue(), 2.5);
+  }
+
+  @Test
+  public void testTokenIsUrlSafe() {
+    String token = KeysetCursor.of("i_aspectfoo$value", "a/b+c?d=e", "urn:li:foo:(1,2)").encode();
+    assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDecodeWithDifferentSort() {
+    String token = KeysetCursor.of("i_aspectfoo$value", "value", "urn:li:foo:1").encode();
+    KeysetCursor.decode(token, "i_aspectbar$value");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDecodeMalformed() {
+    KeysetCursor.decode("not a cursor", null);
+  }
+}
@@ -0,0 +1,104 @@
+package com.linkedin.metadata.dao.utils;
+
+import com.google.common.collect.ImmutableMap;
+import com.linkedin.metadata.query.Condition;
+import com.linkedin.metadata.query.Criterion;
+import com.linkedin.metadata.query.CriterionArray;
+import com.linkedin.metadata.query.Filter;
+import com.linkedin.metadata.query.RelationshipDirection;
+import com.linkedin.metadata.query.RelationshipFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+
+public class MultiHopsTraversalSqlGeneratorTest {
+
+  private final MultiHopsTraversalSqlGenerator _generator =
+      new MultiHopsTraversalSqlGenerator(ImmutableMap.of(Condition.EQUAL, "="));
+
+  private static Filter emptyFilter() {
+    return new Filter().setCriteria(new CriterionArray());
+  }
+
+  private static Filter valueFilter(String value) {
+    return new Filter().setCriteria(new CriterionArray(
+        new Criterion().setField("i_aspectfoo$value").setValue(value).setCondition(Condition.EQUAL)));
+  }
+
+  @Test
+  public void testMultiHopTraversalSqlOutgoing() {
+    List<Object> params = new ArrayList<>();
+    String sql = _generator.multiHopTraversalSql(2, 3, 10, 0, "metadata_relationship_belongsto", "metadata_entity_foo",
+        "metadata_entity_bar", new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING).setCriteria(new CriterionArray()),
+        valueFilter("Alice"), valueFilter("Stanford"), params);
+
+    assertEquals(sql, "WITH RECURSIVE traversal (urn, hops) AS (SELECT CAST(st.urn AS CHAR(255)), 0 "
+        + "FROM metadata_entity_foo st WHERE st.i_aspectfoo$value=? "
+        + "UNION SELECT rt.destination, t.hops + 1 FROM traversal t "
+        + "INNER JOIN metadata_relationship_belongsto rt ON rt.source=t.urn WHERE t.hops < ?) "
+        + "SELECT * FROM metadata_entity_bar et WHERE et.urn IN (SELECT urn FROM traversal GROUP BY urn HAVING MIN(hops) >= ?) "
+        + "AND (et.i_aspectfoo$value=?) ORDER BY et.urn LIMIT ? OFFSET ?");
+    assertEquals(params, Arrays.asList("Alice", 3, 2, "Stanford", 10, 0));
+  }
+
+  @Test
+  public void testMultiHopTraversalSqlIncoming() {
+    List<Object> params = new ArrayList<>();
+    String sql = _generator.multiHopTraversalSql(1, 2, 10, 0, "metadata_relationship_reportsto", "metadata_entity_foo",
+        "metadata_entity_foo", new RelationshipFilter().setDirection(RelationshipDirection.INCOMING).setCriteria(new CriterionArray()),
+        emptyFilter(), valueFilter("Alice"), params);
+
+    // walks from the destination entities to the source entities
+    assertTrue(sql.contains("FROM metadata_entity_foo st WHERE st.i_aspectfoo$value=? UNION SELECT rt.source"));
+    assertTrue(sql.contains("INNER JOIN metadata_relationship_reportsto rt ON rt.destination=t.urn"));
+    assertEquals(params, Arrays.asList("Alice", 2, 1, 10, 0));
+  }
+
+  @Test
+  public void testMultiHopTraversalSqlUndirected() {
+    List<Object> params = new ArrayList<>();
+    String sql = _generator.multiHopTraversalSql(1, 2, 10, 0, "metadata_relationship_pairswith", "metadata_entity_foo",
+        "metadata_entity_foo", new RelationshipFilter().setDirection(RelationshipDirection.UNDIRECTED).setCriteria(new CriterionArray()),
+        valueFilter("Alice"), emptyFilter(), params);
+
+    assertTrue(sql.contains("INNER JOIN metadata_relationship_pairswith rt ON (rt.source=t.urn OR rt.destination=t.urn)"));
+    assertTrue(sql.contains("SELECT CASE WHEN rt.source=t.urn THEN rt.destination ELSE rt.source END, t.hops + 1"));
+    assertEquals(params, Arrays.asList("Alice", 2, 1, 10, 0));
+  }
+
+  @Test
+  public void testNextHopUrnsSql() {
+    List<Object> params = new ArrayList<>();
+    RelationshipFilter outgoing = new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING)
+        .setCriteria(new CriterionArray(new Criterion().setField("metadata").setValue("foo").setCondition(Condition.EQUAL)));
+    String sql = _generator.nextHopUrnsSql("metadata_relationship_belongsto", "metadata_entity_bar", outgoing,
+        Arrays.asList("urn:li:foo:1", "urn:li:foo:2"), params);
+
+    assertEquals(sql, "SELECT DISTINCT rt.destination AS urn FROM metadata_relationship_belongsto rt "
+        + "INNER JOIN metadata_entity_bar et ON rt.destination=et.urn WHERE rt.source IN (?, ?) AND (rt.metadata=?) ORDER BY urn");
+    assertEquals(params, Arrays.asList("urn:li:foo:1", "urn:li:foo:2", "foo"));
+
+    // undirected relationships are expanded both ways
+    params.clear();
+    sql = _generator.nextHopUrnsSql("metadata_relationship_pairswith", "metadata_entity_foo",
+        new RelationshipFilter().setDirection(RelationshipDirection.UNDIRECTED).setCriteria(new CriterionArray()),
+        Arrays.asList("urn:li:foo:1"), params);
+
+    assertEquals(sql, "SELECT DISTINCT rt.destination AS urn FROM metadata_relationship_pairswith rt "
+        + "INNER JOIN metadata_entity_foo et ON rt.destination=et.urn WHERE rt.source IN (?) "
+        + "UNION SELECT DISTINCT rt.source AS urn FROM metadata_relationship_pairswith rt "
+        + "INNER JOIN metadata_entity_foo et ON rt.source=et.urn WHERE rt.destination IN (?) ORDER BY urn");
+    assertEquals(params, Arrays.asList("urn:li:foo:1", "urn:li:foo:1"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMultiHopTraversalSqlInvalidHops() {
+    _generator.multiHopTraversalSql(2, 1, 10, 0, "metadata_relationship_belongsto", "metadata_entity_foo",
+        "metadata_entity_bar", new RelationshipFilter().setDirection(RelationshipDirection.OUTGOING).setCriteria(new CriterionArray()),
+        emptyFilter(), emptyFilter(), new ArrayList<>());
+  }
+}
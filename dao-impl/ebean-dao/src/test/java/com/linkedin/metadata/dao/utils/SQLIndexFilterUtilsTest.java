@@ -1,5 +1,6 @@
 package com.linkedin.metadata.dao.utils;
 
+import com.linkedin.data.template.StringArray;
 import com.linkedin.metadata.query.Condition;
 import com.linkedin.metadata.query.IndexCriterion;
 import com.linkedin.metadata.query.IndexCriterionArray;
@@ -8,6 +9,10 @@ import com.linkedin.metadata.query.IndexSortCriterion;
 import com.linkedin.metadata.query.IndexValue;
 import com.linkedin.metadata.query.SortOrder;
 import com.linkedin.testing.AspectFoo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.*;
@@ -39,7 +44,24 @@ public class SQLIndexFilterUtilsTest {
     indexCriterionArray.add(indexCriterion);
     indexFilter.setCriteria(indexCriterionArray);
 
-    String sql = SQLIndexFilterUtils.parseIndexFilter(indexFilter);
-    assertEquals(sql, "WHERE i_aspectfoo$id < 12\nAND a_aspectfoo != '{\"gma_deleted\":true}'");
+    List<Object> params = new ArrayList<>();
+    String sql = SQLIndexFilterUtils.parseIndexFilter(indexFilter, params);
+    assertEquals(sql, "WHERE i_aspectfoo$id < ?\nAND a_aspectfoo != '{\"gma_deleted\":true}'");
+    assertEquals(params, Collections.singletonList(12L));
+  }
+
+  @Test
+  public void testParseIndexFilterBindsValues() {
+    IndexFilter indexFilter = new IndexFilter().setCriteria(new IndexCriterionArray(
+        SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "value", Condition.START_WITH, IndexValue.create("val'ue")),
+        SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "flag", Condition.EQUAL, IndexValue.create(true)),
+        SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "id", Condition.IN,
+            IndexValue.create(new StringArray("a", "b")))));
+
+    List<Object> params = new ArrayList<>();
+    String sql = SQLIndexFilterUtils.parseIndexFilter(indexFilter, params);
+    assertEquals(sql, "WHERE i_aspectfoo$value LIKE ?\nAND i_aspectfoo$flag = ?\nAND i_aspectfoo$id IN (?, ?)\n"
+        + "AND a_aspectfoo != '{\"gma_deleted\":true}'");
+    assertEquals(params, Arrays.asList("val'ue%", "true", "a", "b"));
   }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.linkedin.metadata.dao.utils;
 
-import com.linkedin.common.urn.Urn;
+import com.linkedin.metadata.dao.internal.BaseGraphWriterDAO;
 import com.linkedin.metadata.query.Condition;
 import com.linkedin.metadata.query.Criterion;
 import com.linkedin.metadata.query.CriterionArray;
@@ -12,10 +12,12 @@ import com.linkedin.metadata.query.IndexGroupByCriterion;
 import com.linkedin.metadata.query.IndexValue;
 import com.linkedin.metadata.query.SortOrder;
 import com.linkedin.testing.AspectFoo;
+import com.linkedin.testing.urn.BarUrn;
 import com.linkedin.testing.urn.FooUrn;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 import org.javatuples.Pair;
 import org.testng.annotations.Test;
 
@@ -36,17 +38,35 @@ public class SQLStatementUtilsTest {
   }
 
   @Test
-  public void testCreateAspectReadSql() {
-    FooUrn fooUrn1 = makeFooUrn(1);
-    FooUrn fooUrn2 = makeFooUrn(2);
-    Set<Urn> set = new HashSet<>();
-    set.add(fooUrn1);
-    set.add(fooUrn2);
-    String expectedSql =
-        "SELECT urn, a_aspectfoo, lastmodifiedon, lastmodifiedby FROM metadata_entity_foo WHERE urn = 'urn:li:foo:1' "
-            + "AND a_aspectfoo != '{\"gma_deleted\":true}' UNION ALL SELECT urn, a_aspectfoo, lastmodifiedon, lastmodifiedby "
-            + "FROM metadata_entity_foo WHERE urn = 'urn:li:foo:2' AND a_aspectfoo != '{\"gma_deleted\":true}'";
-    assertEquals(SQLStatementUtils.createAspectReadSql(AspectFoo.class, set), expectedSql);
+  public void testCreateEntityAspectsReadSql() {
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createEntityAspectsReadSql(Arrays.asList("a_aspectfoo", "a_aspectbar"),
+        Arrays.asList(makeFooUrn(1), makeFooUrn(2)), params);
+
+    assertEquals(sql, "SELECT urn, a_aspectfoo, a_aspectbar FROM metadata_entity_foo WHERE urn IN (?, ?)");
+    assertEquals(params, Arrays.asList("urn:li:foo:1", "urn:li:foo:2"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testCreateEntityAspectsReadSqlMixedEntityTypes() {
+    SQLStatementUtils.createEntityAspectsReadSql(Collections.singletonList("a_aspectfoo"),
+        Arrays.asList(makeFooUrn(1), new BarUrn(1)), new ArrayList<>());
+  }
+
+  @Test
+  public void testCreateExistSql() {
+    List<Object> params = new ArrayList<>();
+    assertEquals(SQLStatementUtils.createExistSql(makeFooUrn(1), params), "SELECT urn FROM metadata_entity_foo WHERE urn = ?");
+    assertEquals(params, Collections.singletonList("urn:li:foo:1"));
+  }
+
+  @Test
+  public void testCreateAspectBrowseSql() {
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createAspectBrowseSql("foo", AspectFoo.class, 10, 5, params);
+    assertEquals(sql, "SELECT urn, a_aspectfoo, lastmodifiedon, lastmodifiedby, (SELECT COUNT(urn) FROM metadata_entity_foo) "
+        + "as _total_count FROM metadata_entity_foo WHERE a_aspectfoo != '{\"gma_deleted\":true}' LIMIT ? OFFSET ?");
+    assertEquals(params, Arrays.asList(5, 10));
   }
 
   @Test
@@ -65,15 +85,103 @@ public class SQLStatementUtilsTest {
     indexCriterionArray.add(indexCriterion2);
     indexFilter.setCriteria(indexCriterionArray);
 
+    List<Object> params = new ArrayList<>();
     String sql = SQLStatementUtils.createFilterSql("metadata_entity_foo", indexFilter,
-        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.ASCENDING));
-    String expectedSql = "SELECT *, (SELECT COUNT(urn) FROM metadata_entity_foo WHERE i_aspectfoo$value >= 25\n"
-        + "AND i_aspectfoo$value < 50\n"
+        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.ASCENDING), params);
+    String expectedSql = "SELECT *, (SELECT COUNT(urn) FROM metadata_entity_foo WHERE i_aspectfoo$value >= ?\n"
+        + "AND i_aspectfoo$value < ?\n"
         + "AND a_aspectfoo != '{\"gma_deleted\":true}') as _total_count FROM metadata_entity_foo\n"
-        + "WHERE i_aspectfoo$value >= 25\n" + "AND i_aspectfoo$value < 50\n"
+        + "WHERE i_aspectfoo$value >= ?\n" + "AND i_aspectfoo$value < ?\n"
         + "AND a_aspectfoo != '{\"gma_deleted\":true}'";
 
     assertEquals(sql, expectedSql);
+    assertEquals(params, Arrays.asList(25L, 50L, 25L, 50L));
+  }
+
+  private static IndexFilter makeValueRangeFilter() {
+    IndexCriterionArray indexCriterionArray = new IndexCriterionArray();
+    indexCriterionArray.add(SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "value",
+        Condition.GREATER_THAN_OR_EQUAL_TO, IndexValue.create(25)));
+    indexCriterionArray.add(
+        SQLIndexFilterUtils.createIndexCriterion(AspectFoo.class, "value", Condition.LESS_THAN, IndexValue.create(50)));
+    return new IndexFilter().setCriteria(indexCriterionArray);
+  }
+
+  @Test
+  public void testCreateFilterSqlWithoutTotalCount() {
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createFilterSql("metadata_entity_foo", makeValueRangeFilter(), null, false, params);
+
+    assertEquals(sql, "SELECT * FROM metadata_entity_foo\n"
+        + "WHERE i_aspectfoo$value >= ?\n" + "AND i_aspectfoo$value < ?\n"
+        + "AND a_aspectfoo != '{\"gma_deleted\":true}'");
+    assertEquals(params, Arrays.asList(25L, 50L));
+  }
+
+  @Test
+  public void testCreateKeysetFilterSqlFirstPage() {
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createKeysetFilterSql("metadata_entity_foo", makeValueRangeFilter(),
+        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.ASCENDING), null, 11, params);
+
+    assertEquals(sql, "SELECT urn, i_aspectfoo$value FROM metadata_entity_foo\n"
+        + "WHERE i_aspectfoo$value >= ?\n" + "AND i_aspectfoo$value < ?\n"
+        + "AND a_aspectfoo != '{\"gma_deleted\":true}'\n"
+        + "ORDER BY i_aspectfoo$value ASC, urn ASC LIMIT ?");
+    assertEquals(params, Arrays.asList(25L, 50L, 11));
+  }
+
+  @Test
+  public void testCreateKeysetFilterSqlAfterCursor() {
+    List<Object> params = new ArrayList<>();
+    KeysetCursor cursor = KeysetCursor.of("i_aspectfoo$value", "30", "urn:li:foo:30");
+    String sql = SQLStatementUtils.createKeysetFilterSql("metadata_entity_foo", makeValueRangeFilter(),
+        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.ASCENDING), cursor, 11, params);
+
+    assertEquals(sql, "SELECT urn, i_aspectfoo$value FROM metadata_entity_foo\n"
+        + "WHERE i_aspectfoo$value >= ?\n" + "AND i_aspectfoo$value < ?\n"
+        + "AND a_aspectfoo != '{\"gma_deleted\":true}'\n"
+        + "AND (i_aspectfoo$value > ? OR (i_aspectfoo$value = ? AND urn > ?))\n"
+        + "ORDER BY i_aspectfoo$value ASC, urn ASC LIMIT ?");
+    assertEquals(params, Arrays.asList(25L, 50L, "30", "30", "urn:li:foo:30", 11));
+
+    // descending order, NULLs come after every value
+    params = new ArrayList<>();
+    sql = SQLStatementUtils.createKeysetFilterSql("metadata_entity_foo", makeValueRangeFilter(),
+        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.DESCENDING), cursor, 11, params);
+    assertTrue(sql.endsWith("AND (i_aspectfoo$value < ? OR (i_aspectfoo$value = ? AND urn < ?) OR i_aspectfoo$value IS NULL)\n"
+        + "ORDER BY i_aspectfoo$value DESC, urn DESC LIMIT ?"), sql);
+
+    // last row had a NULL sort value, ascending order
+    params = new ArrayList<>();
+    sql = SQLStatementUtils.createKeysetFilterSql("metadata_entity_foo", makeValueRangeFilter(),
+        SQLIndexFilterUtils.createIndexSortCriterion(AspectFoo.class, "value", SortOrder.ASCENDING),
+        KeysetCursor.of("i_aspectfoo$value", null, "urn:li:foo:30"), 11, params);
+    assertTrue(sql.contains("AND ((i_aspectfoo$value IS NULL AND urn > ?) OR i_aspectfoo$value IS NOT NULL)"), sql);
+    assertEquals(params, Arrays.asList(25L, 50L, "urn:li:foo:30", 11));
+  }
+
+  @Test
+  public void testCreateKeysetFilterSqlSortedByUrn() {
+    IndexFilter indexFilter = new IndexFilter().setCriteria(
+        new IndexCriterionArray(new IndexCriterion().setAspect(FooUrn.class.getCanonicalName())));
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createKeysetFilterSql("metadata_entity_foo", indexFilter, null,
+        KeysetCursor.of(null, null, "urn:li:foo:30"), 10, params);
+
+    assertEquals(sql, "SELECT urn FROM metadata_entity_foo\nWHERE urn > ?\nORDER BY urn ASC LIMIT ?");
+    assertEquals(params, Arrays.asList("urn:li:foo:30", 10));
+  }
+
+  @Test
+  public void testCreateCountSql() {
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createCountSql("metadata_entity_foo", makeValueRangeFilter(), params);
+
+    assertEquals(sql, "SELECT COUNT(urn) as _total_count FROM metadata_entity_foo\n"
+        + "WHERE i_aspectfoo$value >= ?\n" + "AND i_aspectfoo$value < ?\n"
+        + "AND a_aspectfoo != '{\"gma_deleted\":true}'");
+    assertEquals(params, Arrays.asList(25L, 50L));
   }
 
   @Test
@@ -95,10 +203,12 @@ public class SQLStatementUtilsTest {
     indexGroupByCriterion.setAspect(AspectFoo.class.getCanonicalName());
     indexGroupByCriterion.setPath("/value");
 
-    String sql = SQLStatementUtils.createGroupBySql("metadata_entity_foo", indexFilter, indexGroupByCriterion);
+    List<Object> params = new ArrayList<>();
+    String sql = SQLStatementUtils.createGroupBySql("metadata_entity_foo", indexFilter, indexGroupByCriterion, params);
     assertEquals(sql, "SELECT count(*) as COUNT, i_aspectfoo$value FROM metadata_entity_foo\n"
-        + "WHERE i_aspectfoo$value >= 25\nAND i_aspectfoo$value < 50\n"
+        + "WHERE i_aspectfoo$value >= ?\nAND i_aspectfoo$value < ?\n"
         + "AND a_aspectfoo != '{\"gma_deleted\":true}'\nGROUP BY i_aspectfoo$value");
+    assertEquals(params, Arrays.asList(25L, 50L));
   }
 
   @Test
@@ -106,7 +216,9 @@ public class SQLStatementUtilsTest {
     Criterion criterion = new Criterion().setField("field1").setCondition(Condition.EQUAL).setValue("value1");
     CriterionArray criteria = new CriterionArray(criterion);
     Filter filter = new Filter().setCriteria(criteria);
-    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null), "field1='value1'");
+    List<Object> params = new ArrayList<>();
+    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null, params), "field1=?");
+    assertEquals(params, Collections.singletonList("value1"));
   }
 
   @Test
@@ -115,7 +227,9 @@ public class SQLStatementUtilsTest {
     Criterion criterion2 = new Criterion().setField("field1").setCondition(Condition.EQUAL).setValue("value2");
     CriterionArray criteria = new CriterionArray(criterion1, criterion2);
     Filter filter = new Filter().setCriteria(criteria);
-    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null), "field1='value1' OR field1='value2'");
+    List<Object> params = new ArrayList<>();
+    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null, params), "field1=? OR field1=?");
+    assertEquals(params, Arrays.asList("value1", "value2"));
   }
 
   @Test
@@ -124,7 +238,9 @@ public class SQLStatementUtilsTest {
     Criterion criterion2 = new Criterion().setField("field2").setCondition(Condition.EQUAL).setValue("value2");
     CriterionArray criteria = new CriterionArray(criterion1, criterion2);
     Filter filter = new Filter().setCriteria(criteria);
-    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null), "field1='value1' AND field2='value2'");
+    List<Object> params = new ArrayList<>();
+    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null, params), "field1=? AND field2=?");
+    assertEquals(params, Arrays.asList("value1", "value2"));
   }
 
   @Test
@@ -135,8 +251,10 @@ public class SQLStatementUtilsTest {
     Criterion criterion4 = new Criterion().setField("field3").setCondition(Condition.EQUAL).setValue("value3");
     CriterionArray criteria = new CriterionArray(criterion1, criterion2, criterion3, criterion4);
     Filter filter = new Filter().setCriteria(criteria);
-    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null),
-        "(field1='value1' OR field1='value2') AND field3='value3' AND field2='value2'");
+    List<Object> params = new ArrayList<>();
+    assertEquals(SQLStatementUtils.whereClause(filter, Collections.singletonMap(Condition.EQUAL, "="), null, params),
+        "(field1=? OR field1=?) AND field3=? AND field2=?");
+    assertEquals(params, Arrays.asList("value1", "value2", "value3", "value2"));
   }
 
   @Test
@@ -153,7 +271,37 @@ public class SQLStatementUtilsTest {
     CriterionArray criteria2 = new CriterionArray(criterion5, criterion6);
     Filter filter2 = new Filter().setCriteria(criteria2);
 
-    assertEquals(SQLStatementUtils.whereClause(Collections.singletonMap(Condition.EQUAL, "="), new Pair<>(filter1, "foo"), new Pair<>(filter2, "bar")),
-        "(foo.field3='value3' AND foo.field2='value2' AND (foo.field1='value1' OR foo.field1='value2')) AND (bar.field1='value1' OR bar.field1='value2')");
+    List<Object> params = new ArrayList<>();
+    assertEquals(SQLStatementUtils.whereClause(Collections.singletonMap(Condition.EQUAL, "="), params, new Pair<>(filter1, "foo"),
+        new Pair<>(filter2, "bar")),
+        "(foo.field3=? AND foo.field2=? AND (foo.field1=? OR foo.field1=?)) AND (bar.field1=? OR bar.field1=?)");
+    assertEquals(params, Arrays.asList("value3", "value2", "value1", "value2", "value1", "value2"));
+
+    // the filters are not modified by the table prefix
+    assertEquals(filter1.getCriteria().get(0).getField(), "field1");
+  }
+
+  @Test
+  public void testInsertLocalRelationshipsSQL() {
+    assertEquals(SQLStatementUtils.insertLocalRelationshipsSQL("metadata_relationship_belongsto", 2),
+        "INSERT INTO metadata_relationship_belongsto (metadata, source, destination, source_type, destination_type, "
+            + "lastmodifiedon, lastmodifiedby) VALUES (?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?)");
+    assertThrows(IllegalArgumentException.class,
+        () -> SQLStatementUtils.insertLocalRelationshipsSQL("metadata_relationship_belongsto", 0));
+  }
+
+  @Test
+  public void testSelectLocalRelationshipSQL() {
+    assertEquals(SQLStatementUtils.selectLocalRelationshipSQL("metadata_relationship_belongsto",
+        BaseGraphWriterDAO.RemovalOption.REMOVE_ALL_EDGES_FROM_SOURCE),
+        "SELECT id, metadata, source, destination FROM metadata_relationship_belongsto WHERE source = :source");
+    assertThrows(IllegalArgumentException.class, () -> SQLStatementUtils.selectLocalRelationshipSQL(
+        "metadata_relationship_belongsto", BaseGraphWriterDAO.RemovalOption.REMOVE_NONE));
+  }
+
+  @Test
+  public void testDeleteLocalRelationshipsByIdSQL() {
+    assertEquals(SQLStatementUtils.deleteLocalRelationshipsByIdSQL("metadata_relationship_belongsto", 3),
+        "DELETE FROM metadata_relationship_belongsto WHERE id IN (?, ?, ?)");
   }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ DROP TABLE IF EXISTS metadata_entity_burger;
 DROP TABLE IF EXISTS metadata_aspect;
 DROP TABLE IF EXISTS metadata_id;
 DROP TABLE IF EXISTS metadata_index;
+DROP TABLE IF EXISTS metadata_audit_event_outbox;
 
 -- initialize foo entity table
 CREATE TABLE IF NOT EXISTS metadata_entity_foo (
@@ -46,9 +47,23 @@ CREATE TABLE metadata_aspect (
     createdon DATETIME(6) NOT NULL,
     createdby VARCHAR(255) NOT NULL,
     createdfor VARCHAR(255),
+    nextversion BIGINT,
+    lockversion BIGINT,
     CONSTRAINT pk_metadata_aspect_ PRIMARY KEY (urn,aspect,version)
 );
 
+CREATE TABLE metadata_audit_event_outbox (
+    id BIGINT AUTO_INCREMENT NOT NULL,
+    urn VARCHAR(500) NOT NULL,
+    aspect VARCHAR(200) NOT NULL,
+    oldvalue LONGTEXT,
+    newvalue LONGTEXT NOT NULL,
+    aspectspecific BOOLEAN NOT NULL,
+    createdon DATETIME(6) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_metadata_audit_event_outbox PRIMARY KEY (id)
+);
+
 CREATE TABLE metadata_index (
    id BIGINT AUTO_INCREMENT NOT NULL,
    urn VARCHAR(500) NOT NULL,
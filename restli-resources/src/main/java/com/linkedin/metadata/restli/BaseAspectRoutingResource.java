@@ -2,12 +2,14 @@ package com.linkedin.metadata.restli;
 
 import com.linkedin.common.AuditStamp;
 import com.linkedin.common.urn.Urn;
+import com.linkedin.data.DataMap;
 import com.linkedin.data.template.RecordTemplate;
 import com.linkedin.data.template.SetMode;
 import com.linkedin.data.template.StringArray;
 import com.linkedin.data.template.UnionTemplate;
 import com.linkedin.metadata.dao.AspectKey;
 import com.linkedin.metadata.dao.utils.ModelUtils;
+import com.linkedin.metadata.dao.utils.RecordUtils;
 import com.linkedin.parseq.Task;
 import com.linkedin.restli.common.HttpStatus;
 import com.linkedin.restli.server.RestLiServiceException;
@@ -291,7 +293,7 @@ public abstract class BaseAspectRoutingResource<
 
     if (valueFromLocalDao == null) {
       try {
-        valueFromLocalDao = _valueClass.getDeclaredConstructor().newInstance();
+        valueFromLocalDao = RecordUtils.toRecordTemplate(_valueClass, new DataMap());
       } catch (Exception e) {
         throw new RestLiServiceException(HttpStatus.S_500_INTERNAL_SERVER_ERROR,
             "Failed to create new instance of class " + _valueClass.getCanonicalName(), e);